@@ -0,0 +1,336 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import javax.vecmath.Point3d;
+
+/**
+ * Base class for read-only trajectories which are not backed by the internal storage of
+ * {@link Trajectory} but by some other storage (e.g. a memory mapped file or a range of another trajectory).
+ * Subclasses only have to implement {@link #get(int)} and {@link #size()}. All structural
+ * modifications throw an {@link UnsupportedOperationException}.
+ * 
+ * @author Thorsten Wagner
+ *
+ */
+public abstract class AbstractTrajectoryView extends Trajectory {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * @param dimension Dimension of the trajectory
+	 * @param relativeStartTimepoint When (index) does the track starts in a image sequence
+	 * @param id Id of the trajectory
+	 */
+	public AbstractTrajectoryView(int dimension, int relativeStartTimepoint, long id) {
+		super(dimension, relativeStartTimepoint, id);
+	}
+	
+	@Override
+	public abstract Point3d get(int index);
+	
+	@Override
+	public abstract int size();
+	
+	/**
+	 * @return True if {@link #get(int)} returns the stored point objects, so that changing their coordinates changes 
+	 * the trajectory. False (default) if the points are created on access.
+	 */
+	public boolean isBackedByPoints(){
+		return false;
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return size()==0;
+	}
+	
+	@Override
+	public Iterator<Point3d> iterator() {
+		return listIterator(0);
+	}
+	
+	@Override
+	public ListIterator<Point3d> listIterator() {
+		return listIterator(0);
+	}
+	
+	@Override
+	public ListIterator<Point3d> listIterator(final int index) {
+		if(index < 0 || index > size()){
+			throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size());
+		}
+		return new ListIterator<Point3d>() {
+			int cursor = index;
+			
+			public boolean hasNext() {
+				return cursor < size();
+			}
+
+			public Point3d next() {
+				if(!hasNext()){
+					throw new NoSuchElementException();
+				}
+				return get(cursor++);
+			}
+
+			public boolean hasPrevious() {
+				return cursor > 0;
+			}
+
+			public Point3d previous() {
+				if(!hasPrevious()){
+					throw new NoSuchElementException();
+				}
+				return get(--cursor);
+			}
+
+			public int nextIndex() {
+				return cursor;
+			}
+
+			public int previousIndex() {
+				return cursor-1;
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException("Trajectory views are read-only");
+			}
+
+			public void set(Point3d e) {
+				throw new UnsupportedOperationException("Trajectory views are read-only");
+			}
+
+			public void add(Point3d e) {
+				throw new UnsupportedOperationException("Trajectory views are read-only");
+			}
+		};
+	}
+	
+	@Override
+	public Spliterator<Point3d> spliterator() {
+		return Spliterators.spliterator(this, Spliterator.ORDERED);
+	}
+	
+	@Override
+	public void forEach(Consumer<? super Point3d> action) {
+		int n = size();
+		for(int i = 0; i < n; i++){
+			action.accept(get(i));
+		}
+		if(n != size()){
+			throw new ConcurrentModificationException();
+		}
+	}
+	
+	@Override
+	public Object[] toArray() {
+		Object[] arr = new Object[size()];
+		for(int i = 0; i < arr.length; i++){
+			arr[i] = get(i);
+		}
+		return arr;
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T[] toArray(T[] a) {
+		int n = size();
+		if(a.length < n){
+			a = (T[]) java.lang.reflect.Array.newInstance(a.getClass().getComponentType(), n);
+		}
+		for(int i = 0; i < n; i++){
+			a[i] = (T) get(i);
+		}
+		if(a.length > n){
+			a[n] = null;
+		}
+		return a;
+	}
+	
+	@Override
+	public int indexOf(Object o) {
+		for(int i = 0; i < size(); i++){
+			if(o==null ? get(i)==null : o.equals(get(i))){
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	@Override
+	public int lastIndexOf(Object o) {
+		for(int i = size()-1; i >= 0; i--){
+			if(o==null ? get(i)==null : o.equals(get(i))){
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+	
+	@Override
+	public boolean containsAll(Collection<?> c) {
+		for (Object o : c) {
+			if(!contains(o)){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	@Override
+	public boolean equals(Object o) {
+		if(o == this){
+			return true;
+		}
+		if(!(o instanceof java.util.List)){
+			return false;
+		}
+		java.util.List<?> other = (java.util.List<?>) o;
+		if(other.size() != size()){
+			return false;
+		}
+		for(int i = 0; i < size(); i++){
+			Point3d p = get(i);
+			Object q = other.get(i);
+			if(!(p==null ? q==null : p.equals(q))){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	@Override
+	public int hashCode() {
+		int hashCode = 1;
+		for(int i = 0; i < size(); i++){
+			Point3d p = get(i);
+			hashCode = 31*hashCode + (p==null ? 0 : p.hashCode());
+		}
+		return hashCode;
+	}
+	
+	/*
+	 * Structural modifications are not supported
+	 */
+	
+	@Override
+	public boolean add(Point3d e) {
+		throw new UnsupportedOperationException("Trajectory views are read-only");
+	}
+	
+	@Override
+	public boolean add(double x, double y, double z) {
+		throw new UnsupportedOperationException("Trajectory views are read-only");
+	}
+	
+	@Override
+	public void add(int index, Point3d element) {
+		throw new UnsupportedOperationException("Trajectory views are read-only");
+	}
+	
+	@Override
+	public boolean addAll(Collection<? extends Point3d> c) {
+		throw new UnsupportedOperationException("Trajectory views are read-only");
+	}
+	
+	@Override
+	public boolean addAll(int index, Collection<? extends Point3d> c) {
+		throw new UnsupportedOperationException("Trajectory views are read-only");
+	}
+	
+	@Override
+	public Point3d set(int index, Point3d element) {
+		throw new UnsupportedOperationException("Trajectory views are read-only");
+	}
+	
+	@Override
+	public Point3d remove(int index) {
+		throw new UnsupportedOperationException("Trajectory views are read-only");
+	}
+	
+	@Override
+	public boolean remove(Object o) {
+		throw new UnsupportedOperationException("Trajectory views are read-only");
+	}
+	
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		throw new UnsupportedOperationException("Trajectory views are read-only");
+	}
+	
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		throw new UnsupportedOperationException("Trajectory views are read-only");
+	}
+	
+	@Override
+	public boolean removeIf(Predicate<? super Point3d> filter) {
+		throw new UnsupportedOperationException("Trajectory views are read-only");
+	}
+	
+	@Override
+	public void replaceAll(UnaryOperator<Point3d> operator) {
+		throw new UnsupportedOperationException("Trajectory views are read-only");
+	}
+	
+	@Override
+	public void sort(Comparator<? super Point3d> c) {
+		throw new UnsupportedOperationException("Trajectory views are read-only");
+	}
+	
+	@Override
+	public void scale(double v) {
+		throw new UnsupportedOperationException("Trajectory views are read-only");
+	}
+	
+	@Override
+	public void clear() {
+		throw new UnsupportedOperationException("Trajectory views are read-only");
+	}
+	
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		throw new UnsupportedOperationException("Trajectory views are read-only");
+	}
+
+}
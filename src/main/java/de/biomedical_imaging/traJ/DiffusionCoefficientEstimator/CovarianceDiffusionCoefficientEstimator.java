@@ -141,6 +141,12 @@ public class CovarianceDiffusionCoefficientEstimator extends AbstractTrajectoryF
 
 	@Override
 	public double[] evaluate() {
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
 		return getDiffusionCoefficient(t, fps);
 	}
 
@@ -159,7 +165,7 @@ public class CovarianceDiffusionCoefficientEstimator extends AbstractTrajectoryF
 	@Override
 	public void setTrajectory(Trajectory t) {
 		this.t = t;
-		
+		result = null;
 	}
 		
 }
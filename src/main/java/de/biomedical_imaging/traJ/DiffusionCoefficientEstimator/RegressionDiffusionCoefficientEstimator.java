@@ -45,6 +45,7 @@ public class RegressionDiffusionCoefficientEstimator extends AbstractTrajectoryF
 	private int lagMin;
 	private int lagMax;
 	private AbstractMeanSquaredDisplacmentEvaluator msdevaluator;
+	private boolean customMSDEvaluator = false;
 	private Trajectory t;
 	private double fps;
 	
@@ -70,16 +71,38 @@ public class RegressionDiffusionCoefficientEstimator extends AbstractTrajectoryF
 		if(t.size()==1){
 			return null;
 		}
+		double[][] msdres;
+		if(customMSDEvaluator){
+			synchronized (msdevaluator) {
+				msdres = getMSDResults(t, msdevaluator);
+			}
+		}else{
+			msdres = new MeanSquaredDisplacmentFeature(null, lagMin).evaluate(t, lagMin, lagMax);
+		}
+		return getDiffusionCoefficient(t, fps, msdres);
+	}
+	
+	private double[][] getMSDResults(Trajectory t, AbstractMeanSquaredDisplacmentEvaluator msdevaluator){
+		double[][] msdres = new double[lagMax-lagMin+1][];
+		msdevaluator.setTrajectory(t);
+		for(int i = lagMin; i < lagMax+1; i++){
+			msdevaluator.setTimelag(i);
+			msdres[i-lagMin] = msdevaluator.evaluate();
+		}
+		return msdres;
+	}
+	
+	/**
+	 * @param msdres MSD results of the timelags lagMin to lagMax
+	 */
+	private double[] getDiffusionCoefficient(Trajectory t, double fps, double[][] msdres) {
 		SimpleRegression reg = new SimpleRegression(true);
 		double msdhelp = 0;
 		if(lagMin==lagMax){
 			reg.addData(0, 0);
 		}
-		msdevaluator.setTrajectory(t);
-		msdevaluator.setTimelag(lagMin);
 		for(int i = lagMin; i < lagMax+1; i++){
-			msdevaluator.setTimelag(i);
-			double[] res = msdevaluator.evaluate();
+			double[] res = msdres[i-lagMin];
 			msdhelp= res[0];
 			int N = (int)res[2];
 			for(int j = 0; j < N; j++){
@@ -120,12 +143,9 @@ public static  void plotMSDLineWithModel(Trajectory t, int lagMin, int lagMax, d
 	 	double[] xData = new double[lagMax-lagMin+1];
 	    double[] yData = new double[lagMax-lagMin+1];
 	    double[] modelData = new double[lagMax-lagMin+1];
-	    MeanSquaredDisplacmentFeature msdeval = new MeanSquaredDisplacmentFeature(t, lagMin);
-	    msdeval.setTrajectory(t);
-	    msdeval.setTimelag(lagMin);
+	    double[][] msdres = new MeanSquaredDisplacmentFeature(t, lagMin).evaluate(t, lagMin, lagMax);
 		for(int i = lagMin; i < lagMax+1; i++){
-			msdeval.setTimelag(i);
-			double msdhelp= msdeval.evaluate()[0];
+			double msdhelp= msdres[i-lagMin][0];
 			xData[i-lagMin] = i;
 	    	yData[i-lagMin] = msdhelp;
 	    	modelData[i-lagMin] = a*(1-b*Math.exp((-4*d)*((i*timelag)/a)*c));
@@ -173,11 +193,17 @@ public static  void plotMSDLineWithModel(Trajectory t, int lagMin, int lagMax, d
 	
 	public void setMeanSquaredDisplacementEvaluator(AbstractMeanSquaredDisplacmentEvaluator msdeval){
 		this.msdevaluator = msdeval;
+		customMSDEvaluator = true;
 	}
 
 	@Override
 	public double[] evaluate() {
-		
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
 		return getDiffusionCoefficient(t, fps);
 	}
 
@@ -196,7 +222,7 @@ public static  void plotMSDLineWithModel(Trajectory t, int lagMin, int lagMax, d
 	@Override
 	public void setTrajectory(Trajectory t) {
 		this.t = t;
-		
+		result = null;
 	}
 
 
@@ -0,0 +1,186 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.Callable;
+
+import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
+
+/**
+ * Helper to process index ranges [0,n) in parallel on a shared pool of daemon threads. 
+ * The range is split into chunks which are independent of the number of threads, so that results which are
+ * merged in chunk order (and random numbers drawn from {@link #createRandoms(int)}) do not depend on the number of threads.
+ * 
+ * Calls from a thread of the pool are processed sequentially in the calling thread to avoid deadlocks.
+ * @author Thorsten Wagner
+ *
+ */
+public class ParallelUtil {
+	
+	/**
+	 * Task which processes the indices [from, to) of one chunk.
+	 * @param <T> Type of the partial result
+	 */
+	public interface RangeTask<T> {
+		public T compute(int chunk, int from, int to);
+	}
+	
+	private static int numberOfThreads = Runtime.getRuntime().availableProcessors();
+	private static ExecutorService pool = null;
+	private static final ThreadLocal<Boolean> isPoolThread = new ThreadLocal<Boolean>();
+	
+	/**
+	 * @param n Number of threads which are used for parallel processing. 1 disables parallel processing.
+	 */
+	public static synchronized void setNumberOfThreads(int n){
+		if(n < 1){
+			throw new IllegalArgumentException("The number of threads has to be at least one");
+		}
+		if(n != numberOfThreads && pool != null){
+			pool.shutdown();
+			pool = null;
+		}
+		numberOfThreads = n;
+	}
+	
+	public static synchronized int getNumberOfThreads(){
+		return numberOfThreads;
+	}
+	
+	private static synchronized ExecutorService getPool(){
+		if(pool == null){
+			pool = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+				private int counter = 0;
+				public Thread newThread(final Runnable r) {
+					Thread t = new Thread(new Runnable() {
+						public void run() {
+							isPoolThread.set(Boolean.TRUE);
+							r.run();
+						}
+					}, "TraJ-worker-" + (counter++));
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return pool;
+	}
+	
+	/**
+	 * @param n Number of indices
+	 * @param chunkSize Number of indices per chunk
+	 * @return Number of chunks
+	 */
+	public static int getNumberOfChunks(int n, int chunkSize){
+		return (n + chunkSize - 1)/chunkSize;
+	}
+	
+	/**
+	 * Splits [0,n) into chunks of chunkSize indices and processes them in parallel.
+	 * @param n Number of indices
+	 * @param chunkSize Number of indices per chunk (the last chunk might be smaller)
+	 * @param task Task which is applied to each chunk
+	 * @return Results of the chunks in chunk order
+	 */
+	public static <T> List<T> mapRanges(int n, int chunkSize, final RangeTask<T> task){
+		if(chunkSize < 1){
+			throw new IllegalArgumentException("The chunk size has to be at least one");
+		}
+		int nChunks = getNumberOfChunks(n, chunkSize);
+		ArrayList<T> results = new ArrayList<T>(nChunks);
+		if(nChunks <= 1 || getNumberOfThreads() == 1 || Boolean.TRUE.equals(isPoolThread.get())){
+			for(int c = 0; c < nChunks; c++){
+				results.add(task.compute(c, c*chunkSize, Math.min(n, (c+1)*chunkSize)));
+			}
+			return results;
+		}
+		ExecutorService executor = getPool();
+		ArrayList<Future<T>> futures = new ArrayList<Future<T>>(nChunks);
+		for(int c = 0; c < nChunks; c++){
+			final int chunk = c;
+			final int from = c*chunkSize;
+			final int to = Math.min(n, (c+1)*chunkSize);
+			futures.add(executor.submit(new Callable<T>() {
+				public T call() throws Exception {
+					return task.compute(chunk, from, to);
+				}
+			}));
+		}
+		try {
+			for (Future<T> f : futures) {
+				results.add(f.get());
+			}
+		} catch (InterruptedException e) {
+			for (Future<T> f : futures) {
+				f.cancel(true);
+			}
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Parallel processing was interrupted", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof RuntimeException){
+				throw (RuntimeException) cause;
+			}
+			if(cause instanceof Error){
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+		return results;
+	}
+	
+	/**
+	 * Splits [0,n) into as many chunks as threads are used and processes them in parallel. Use {@link #mapRanges(int, int, RangeTask)} 
+	 * if the result must not depend on the number of threads.
+	 */
+	public static <T> List<T> mapRanges(int n, RangeTask<T> task){
+		int chunkSize = Math.max(1, getNumberOfChunks(n, getNumberOfThreads()));
+		return mapRanges(n, chunkSize, task);
+	}
+	
+	/**
+	 * Creates independent random number generators (e.g. one per chunk) which are seeded by the {@link CentralRandomNumberGenerator}. 
+	 * Results are therefore reproducible if the central generator was seeded.
+	 * @param n Number of generators
+	 * @return Array of random number generators
+	 */
+	public static Random[] createRandoms(int n){
+		CentralRandomNumberGenerator central = CentralRandomNumberGenerator.getInstance();
+		Random[] randoms = new Random[n];
+		for(int i = 0; i < n; i++){
+			randoms[i] = new Random(central.nextLong());
+		}
+		return randoms;
+	}
+
+}
@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ;
+
+import java.util.ConcurrentModificationException;
+
+import javax.vecmath.Point3d;
+
+/**
+ * Read-only view of the range [fromIndex, toIndex) of a parent trajectory. No positions are copied:
+ * the view returns the position objects of the parent. The relative start timepoint of the view is the
+ * start timepoint of the parent plus fromIndex, id and type are the ones of the parent.
+ * 
+ * Like {@link java.util.List#subList(int, int)}, the view becomes invalid when the parent is 
+ * structurally modified (positions added or removed). Accessing such a view throws a {@link ConcurrentModificationException}.
+ * Changed coordinates of the parent positions are visible in the view.
+ * 
+ * @author Thorsten Wagner
+ *
+ */
+public class SubTrajectory extends AbstractTrajectoryView {
+
+	private static final long serialVersionUID = 1L;
+	private final Trajectory parent;
+	private final int offset;
+	private final int size;
+	private final int expectedModCount;
+	
+	/**
+	 * @param parent Parent trajectory
+	 * @param fromIndex Index of the first position (inclusive)
+	 * @param toIndex Index of the last position (exclusive)
+	 */
+	public SubTrajectory(Trajectory parent, int fromIndex, int toIndex) {
+		super(parent.getDimension(), parent.getRelativeStartTimepoint()+fromIndex, parent.getID());
+		if(fromIndex < 0 || toIndex > parent.size() || fromIndex > toIndex){
+			throw new IndexOutOfBoundsException("Invalid range [" + fromIndex + ", " + toIndex + ") for a trajectory of size " + parent.size());
+		}
+		//Views of views refer directly to the storage trajectory
+		if(parent instanceof SubTrajectory){
+			SubTrajectory sub = (SubTrajectory) parent;
+			sub.checkForComodification();
+			this.parent = sub.parent;
+			this.offset = sub.offset + fromIndex;
+		}
+		else{
+			this.parent = parent;
+			this.offset = fromIndex;
+		}
+		this.size = toIndex - fromIndex;
+		this.expectedModCount = this.parent.getModificationCount();
+		setType(parent.getType());
+	}
+	
+	/**
+	 * @return The trajectory whose storage is viewed
+	 */
+	public Trajectory getParent(){
+		return parent;
+	}
+	
+	/**
+	 * @return Index of the first position of this view in the parent trajectory
+	 */
+	public int getParentOffset(){
+		return offset;
+	}
+	
+	private void checkForComodification(){
+		if(parent.getModificationCount() != expectedModCount){
+			throw new ConcurrentModificationException("The parent trajectory was structurally modified");
+		}
+	}
+	
+	private int toParentIndex(int index){
+		if(index < 0 || index >= size){
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		checkForComodification();
+		return offset + index;
+	}
+
+	@Override
+	public Point3d get(int index) {
+		return parent.get(toParentIndex(index));
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * @return True if the parent stores its points (the points of the view are the points of the parent)
+	 */
+	@Override
+	public boolean isBackedByPoints() {
+		return !(parent instanceof AbstractTrajectoryView) || ((AbstractTrajectoryView) parent).isBackedByPoints();
+	}
+	
+	@Override
+	public boolean isValid(int i) {
+		return parent.isValid(toParentIndex(i));
+	}
+	
+	@Override
+	public double getX(int i) {
+		return parent.getX(toParentIndex(i));
+	}
+	
+	@Override
+	public double getY(int i) {
+		return parent.getY(toParentIndex(i));
+	}
+	
+	@Override
+	public double getZ(int i) {
+		return parent.getZ(toParentIndex(i));
+	}
+
+}
@@ -74,14 +74,35 @@ public  class Trajectory extends ArrayList<Point3d> {
 		features = new ArrayList<AbstractTrajectoryFeature>();
 	}
 	
+	/**
+	 * Constructs a trajectory with a given id. The id counter is not incremented.
+	 * @param dimension Dimension of the trajectory
+	 * @param relativeStartTimepoint When (index) does the track starts in a image sequence
+	 * @param id Id of the trajectory
+	 */
+	protected Trajectory(int dimension, int relativeStartTimepoint, long id) {
+		this.dimension = dimension;
+		this.relativeStartTimepoint = relativeStartTimepoint;
+		this.id = id;
+		features = new ArrayList<AbstractTrajectoryFeature>();
+	}
+	
+	/**
+	 * Returns a read-only view of the positions between fromIndex (inclusive) and toIndex (exclusive).
+	 * The positions are not copied. The view keeps id and type of this trajectory and starts at 
+	 * the relative start timepoint of this trajectory plus fromIndex. 
+	 * @see SubTrajectory
+	 */
 	@Override
 	public Trajectory subList(int fromIndex, int toIndex) {
-		Trajectory t = new Trajectory(dimension);
-		
-		for(int i = fromIndex; i < toIndex; i++){
-			t.add(this.get(i));
-		}
-		return t;
+		return new SubTrajectory(this, fromIndex, toIndex);
+	}
+	
+	/**
+	 * @return Number of structural modifications of this trajectory. Used by {@link SubTrajectory} to detect invalid views.
+	 */
+	int getModificationCount(){
+		return modCount;
 	}
 	
 	/**
@@ -176,6 +197,38 @@ public  class Trajectory extends ArrayList<Point3d> {
 		return super.add(new Point3d(x, y, z));
 	}
 	
+	/**
+	 * @param i Time index
+	 * @return True if the position i is not a gap (null)
+	 */
+	public boolean isValid(int i){
+		return get(i) != null;
+	}
+	
+	/**
+	 * @param i Time index of a valid position
+	 * @return x-coordinate of position i
+	 */
+	public double getX(int i){
+		return get(i).x;
+	}
+	
+	/**
+	 * @param i Time index of a valid position
+	 * @return y-coordinate of position i
+	 */
+	public double getY(int i){
+		return get(i).y;
+	}
+	
+	/**
+	 * @param i Time index of a valid position
+	 * @return z-coordinate of position i
+	 */
+	public double getZ(int i){
+		return get(i).z;
+	}
+	
 	public int getDimension(){
 		return dimension;
 	}
@@ -191,6 +244,10 @@ public  class Trajectory extends ArrayList<Point3d> {
 	public void setID(int id) {
 		this.id = id;
 	}
+	
+	public void setID(long id) {
+		this.id = id;
+	}
 	public int getRelativeStartTimepoint(){
 		return relativeStartTimepoint;
 	}
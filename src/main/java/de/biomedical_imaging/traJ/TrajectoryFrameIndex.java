@@ -0,0 +1,166 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ;
+
+import java.util.List;
+
+/**
+ * Frame-indexed view of a set of trajectories: for each absolute frame (relative start timepoint of the 
+ * trajectory plus position index) it lists the valid positions of all trajectories at this frame. 
+ * Positions are not copied, the index only stores the trajectory index and position index of every valid position.
+ * 
+ * Typical usage:
+ * <pre>
+ * TrajectoryFrameIndex index = new TrajectoryFrameIndex(tracks);
+ * for(int f = index.getFirstFrame(); f &lt;= index.getLastFrame(); f++){
+ *   for(int k = 0; k &lt; index.getNumberOfPositions(f); k++){
+ *     Trajectory t = index.getTrajectory(f, k);
+ *     double x = t.getX(index.getPositionIndex(f, k));
+ *   }
+ * }
+ * </pre>
+ * @author Thorsten Wagner
+ *
+ */
+public class TrajectoryFrameIndex {
+	
+	private final List<? extends Trajectory> tracks;
+	private int firstFrame;
+	private int lastFrame;
+	private int[] frameStart;
+	private int[] trackIndex;
+	private int[] positionIndex;
+	
+	/**
+	 * @param tracks Trajectories. The index becomes invalid if they are structurally modified.
+	 */
+	public TrajectoryFrameIndex(List<? extends Trajectory> tracks) {
+		this.tracks = tracks;
+		firstFrame = Integer.MAX_VALUE;
+		lastFrame = Integer.MIN_VALUE;
+		for (Trajectory t : tracks) {
+			if(t.size() > 0){
+				firstFrame = Math.min(firstFrame, t.getRelativeStartTimepoint());
+				lastFrame = Math.max(lastFrame, t.getRelativeStartTimepoint() + t.size() - 1);
+			}
+		}
+		if(firstFrame > lastFrame){
+			firstFrame = 0;
+			lastFrame = -1;
+		}
+		int nFrames = lastFrame - firstFrame + 1;
+		frameStart = new int[nFrames + 1];
+		for (Trajectory t : tracks) {
+			int offset = t.getRelativeStartTimepoint() - firstFrame;
+			for(int i = 0; i < t.size(); i++){
+				if(t.isValid(i)){
+					frameStart[offset + i + 1]++;
+				}
+			}
+		}
+		for(int f = 0; f < nFrames; f++){
+			frameStart[f+1] += frameStart[f];
+		}
+		trackIndex = new int[frameStart[nFrames]];
+		positionIndex = new int[frameStart[nFrames]];
+		int[] fill = new int[nFrames];
+		for(int j = 0; j < tracks.size(); j++){
+			Trajectory t = tracks.get(j);
+			int offset = t.getRelativeStartTimepoint() - firstFrame;
+			for(int i = 0; i < t.size(); i++){
+				if(t.isValid(i)){
+					int k = frameStart[offset + i] + fill[offset + i]++;
+					trackIndex[k] = j;
+					positionIndex[k] = i;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return First frame with a position
+	 */
+	public int getFirstFrame(){
+		return firstFrame;
+	}
+	
+	/**
+	 * @return Last frame with a position
+	 */
+	public int getLastFrame(){
+		return lastFrame;
+	}
+	
+	/**
+	 * @param frame Absolute frame
+	 * @return Number of valid positions at this frame
+	 */
+	public int getNumberOfPositions(int frame){
+		if(frame < firstFrame || frame > lastFrame){
+			return 0;
+		}
+		int f = frame - firstFrame;
+		return frameStart[f+1] - frameStart[f];
+	}
+	
+	/**
+	 * @param frame Absolute frame
+	 * @param k Index of the position in this frame (0 <= k < getNumberOfPositions(frame))
+	 * @return Index of the trajectory in the list
+	 */
+	public int getTrajectoryIndex(int frame, int k){
+		return trackIndex[entry(frame, k)];
+	}
+	
+	/**
+	 * @param frame Absolute frame
+	 * @param k Index of the position in this frame (0 <= k < getNumberOfPositions(frame))
+	 * @return Trajectory of the k-th position
+	 */
+	public Trajectory getTrajectory(int frame, int k){
+		return tracks.get(trackIndex[entry(frame, k)]);
+	}
+	
+	/**
+	 * @param frame Absolute frame
+	 * @param k Index of the position in this frame (0 <= k < getNumberOfPositions(frame))
+	 * @return Index of the position in its trajectory
+	 */
+	public int getPositionIndex(int frame, int k){
+		return positionIndex[entry(frame, k)];
+	}
+	
+	private int entry(int frame, int k){
+		if(k < 0 || k >= getNumberOfPositions(frame)){
+			throw new IndexOutOfBoundsException("Frame " + frame + " has no position " + k);
+		}
+		return frameStart[frame - firstFrame] + k;
+	}
+	
+	public List<? extends Trajectory> getTrajectories(){
+		return tracks;
+	}
+
+}
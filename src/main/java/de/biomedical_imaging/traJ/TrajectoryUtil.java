@@ -126,5 +126,30 @@ public class TrajectoryUtil {
 		}
 		return subTrajectories;
 	}
+	
+	/**
+	 * Splits a trajectory in overlapping / non-overlapping sub-trajectories like {@link #splitTrackInSubTracks(Trajectory, int, boolean)},
+	 * but the sub-trajectories are read-only views of t ({@link SubTrajectory}) and no positions are copied.
+	 * @param t Trajectory
+	 * @param windowWidth Number of positions of each sub-trajectory. The last sub-trajectory might be shorter.
+	 * @param overlapping If true, the windows are shifted by one position, otherwise by the window width.
+	 * @return List of views
+	 */
+	public static ArrayList<Trajectory> splitTrackInSubTrackViews(Trajectory t, int windowWidth, boolean overlapping){
+		int increment = 1;
+		if(overlapping==false){
+			increment=windowWidth;
+		}
+		ArrayList<Trajectory> subTrajectories = new ArrayList<Trajectory>();
+		for(int i = 0; i < t.size(); i=i+increment)
+		{
+			if(i+windowWidth > t.size()){
+				subTrajectories.add(new SubTrajectory(t, i, t.size()));
+				break;
+			}
+			subTrajectories.add(new SubTrajectory(t, i, i+windowWidth));
+		}
+		return subTrajectories;
+	}
 
 }
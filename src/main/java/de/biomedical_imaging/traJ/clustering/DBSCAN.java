@@ -0,0 +1,156 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.clustering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.biomedical_imaging.traJ.ParallelUtil;
+import de.biomedical_imaging.traJ.Trajectory;
+
+/**
+ * Density based clustering of trajectories in feature space as described in:
+ * M. Ester, H.-P. Kriegel, J. Sander, and X. Xu, “A density-based algorithm for discovering clusters in large spatial 
+ * databases with noise,” in Proc. KDD, 1996, pp. 226–231.
+ * 
+ * The neighbourhoods are queried from a {@link FeatureSpaceIndex}. The core trajectories are determined in parallel 
+ * (see {@link ParallelUtil}), the clusters are expanded sequentially in the order of the trajectories, so the result 
+ * does not depend on the number of threads.
+ * @author Thorsten Wagner
+ *
+ */
+public class DBSCAN {
+	
+	/**
+	 * Label of trajectories which do not belong to a cluster
+	 */
+	public static final int NOISE = -1;
+	
+	private static final int CHUNK_SIZE = 256;
+	
+	private double eps;
+	private int minPoints;
+	
+	/**
+	 * @param eps Radius of the neighbourhood in standardized feature space
+	 * @param minPoints Minimum number of trajectories in the neighbourhood (including the trajectory itself) of a core trajectory
+	 */
+	public DBSCAN(double eps, int minPoints) {
+		if(!(eps > 0)){
+			throw new IllegalArgumentException("eps has to be positive");
+		}
+		if(minPoints < 1){
+			throw new IllegalArgumentException("minPoints has to be at least 1");
+		}
+		this.eps = eps;
+		this.minPoints = minPoints;
+	}
+	
+	/**
+	 * @return Cluster label of every trajectory of the index: 0,1,2,... or {@link #NOISE}
+	 */
+	public int[] cluster(final FeatureSpaceIndex index){
+		int n = index.size();
+		final boolean[] core = new boolean[n];
+		ParallelUtil.mapRanges(n, CHUNK_SIZE, new ParallelUtil.RangeTask<Void>() {
+			public Void compute(int chunk, int from, int to) {
+				for(int i = from; i < to; i++){
+					core[i] = index.isIndexed(i) && index.radius(i, eps).length >= minPoints;
+				}
+				return null;
+			}
+		});
+		
+		int[] labels = new int[n];
+		Arrays.fill(labels, NOISE);
+		boolean[] visited = new boolean[n];
+		int[] queue = new int[n];
+		int cluster = 0;
+		for(int i = 0; i < n; i++){
+			if(!core[i] || visited[i]){
+				continue;
+			}
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = i;
+			visited[i] = true;
+			labels[i] = cluster;
+			while(head < tail){
+				int p = queue[head++];
+				for (int q : index.radius(p, eps)) {
+					if(labels[q] == NOISE){
+						labels[q] = cluster;
+					}
+					if(core[q] && !visited[q]){
+						visited[q] = true;
+						queue[tail++] = q;
+					}
+				}
+			}
+			cluster++;
+		}
+		return labels;
+	}
+	
+	/**
+	 * @param labels Labels returned by {@link #cluster(FeatureSpaceIndex)}
+	 * @return Number of clusters
+	 */
+	public static int getNumberOfClusters(int[] labels){
+		int max = -1;
+		for (int l : labels) {
+			max = Math.max(max, l);
+		}
+		return max + 1;
+	}
+	
+	/**
+	 * @param tracks Trajectories of the index
+	 * @param labels Labels returned by {@link #cluster(FeatureSpaceIndex)}
+	 * @return Trajectories of every cluster (without noise)
+	 */
+	public static ArrayList<ArrayList<Trajectory>> getClusters(List<? extends Trajectory> tracks, int[] labels){
+		ArrayList<ArrayList<Trajectory>> clusters = new ArrayList<ArrayList<Trajectory>>();
+		for(int c = 0; c < getNumberOfClusters(labels); c++){
+			clusters.add(new ArrayList<Trajectory>());
+		}
+		for(int i = 0; i < labels.length; i++){
+			if(labels[i] != NOISE){
+				clusters.get(labels[i]).add(tracks.get(i));
+			}
+		}
+		return clusters;
+	}
+	
+	public double getEps(){
+		return eps;
+	}
+	
+	public int getMinPoints(){
+		return minPoints;
+	}
+
+}
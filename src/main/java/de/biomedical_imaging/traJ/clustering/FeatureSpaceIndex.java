@@ -0,0 +1,290 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.clustering;
+
+import java.util.Arrays;
+import java.util.List;
+
+import de.biomedical_imaging.traJ.ParallelUtil;
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.features.AbstractTrajectoryFeature;
+import de.biomedical_imaging.traj.math.StaticKDTree;
+
+/**
+ * Index of a set of trajectories in feature space. The feature vector of a trajectory is the concatenation of the values of all 
+ * features. Each component is standardized (z-score over all trajectories), so that features with different units contribute 
+ * comparably to the euclidean distance. The standardized vectors are bulk loaded into a {@link StaticKDTree}.
+ * 
+ * Trajectories with a non-finite feature value (e.g. NaN for too short trajectories) are not indexed. They are never returned 
+ * by a query and are classified as noise by {@link DBSCAN}.
+ * @author Thorsten Wagner
+ *
+ */
+public class FeatureSpaceIndex {
+	
+	private static final int CHUNK_SIZE = 64;
+	
+	private final List<? extends Trajectory> tracks;
+	private final List<? extends AbstractTrajectoryFeature> features;
+	private final int dimension;
+	private final double[] mean;
+	private final double[] sd;
+	private final int[] pointOf;
+	private final int[] trackOf;
+	private final StaticKDTree tree;
+	
+	/**
+	 * Evaluates the features of all trajectories in parallel (see {@link ParallelUtil}) and builds the index. 
+	 * The features are evaluated with {@link AbstractTrajectoryFeature#evaluate(Trajectory)}.
+	 * @param tracks Trajectories
+	 * @param features Features. Every feature has to return the same number of values for all trajectories.
+	 */
+	public FeatureSpaceIndex(List<? extends Trajectory> tracks, List<? extends AbstractTrajectoryFeature> features) {
+		this(tracks, features, evaluate(tracks, features));
+	}
+	
+	/**
+	 * @param tracks Trajectories
+	 * @param values values[i] is the feature vector of the i-th trajectory
+	 */
+	public FeatureSpaceIndex(List<? extends Trajectory> tracks, double[][] values) {
+		this(tracks, null, values);
+	}
+	
+	private FeatureSpaceIndex(List<? extends Trajectory> tracks, List<? extends AbstractTrajectoryFeature> features, double[][] values){
+		if(values.length != tracks.size()){
+			throw new IllegalArgumentException("There has to be one feature vector per trajectory");
+		}
+		this.tracks = tracks;
+		this.features = features;
+		dimension = values.length == 0 ? 1 : values[0].length;
+		pointOf = new int[values.length];
+		int n = 0;
+		for(int i = 0; i < values.length; i++){
+			if(values[i].length != dimension){
+				throw new IllegalArgumentException("All feature vectors need the same length");
+			}
+			pointOf[i] = isFinite(values[i]) ? n++ : -1;
+		}
+		trackOf = new int[n];
+		for(int i = 0; i < values.length; i++){
+			if(pointOf[i] >= 0){
+				trackOf[pointOf[i]] = i;
+			}
+		}
+		
+		mean = new double[dimension];
+		sd = new double[dimension];
+		for(int p = 0; p < n; p++){
+			for(int d = 0; d < dimension; d++){
+				mean[d] += values[trackOf[p]][d];
+			}
+		}
+		for(int d = 0; d < dimension; d++){
+			mean[d] /= n;
+		}
+		for(int p = 0; p < n; p++){
+			for(int d = 0; d < dimension; d++){
+				double diff = values[trackOf[p]][d] - mean[d];
+				sd[d] += diff*diff;
+			}
+		}
+		for(int d = 0; d < dimension; d++){
+			sd[d] = n > 1 ? Math.sqrt(sd[d]/(n - 1)) : 0;
+			if(!(sd[d] > 0)){
+				//Constant features do not contribute to the distance
+				sd[d] = 1;
+			}
+		}
+		
+		double[] coords = new double[n*dimension];
+		for(int p = 0; p < n; p++){
+			double[] z = standardize(values[trackOf[p]]);
+			System.arraycopy(z, 0, coords, p*dimension, dimension);
+		}
+		tree = new StaticKDTree(coords, dimension);
+	}
+	
+	private static double[][] evaluate(final List<? extends Trajectory> tracks, final List<? extends AbstractTrajectoryFeature> features){
+		final double[][] values = new double[tracks.size()][];
+		ParallelUtil.mapRanges(tracks.size(), CHUNK_SIZE, new ParallelUtil.RangeTask<Void>() {
+			public Void compute(int chunk, int from, int to) {
+				for(int i = from; i < to; i++){
+					values[i] = evaluate(tracks.get(i), features);
+				}
+				return null;
+			}
+		});
+		return values;
+	}
+	
+	private static double[] evaluate(Trajectory t, List<? extends AbstractTrajectoryFeature> features){
+		double[][] parts = new double[features.size()][];
+		int len = 0;
+		for(int j = 0; j < parts.length; j++){
+			parts[j] = features.get(j).evaluate(t);
+			len += parts[j].length;
+		}
+		double[] v = new double[len];
+		int off = 0;
+		for (double[] p : parts) {
+			System.arraycopy(p, 0, v, off, p.length);
+			off += p.length;
+		}
+		return v;
+	}
+	
+	private static boolean isFinite(double[] v){
+		for (double d : v) {
+			if(Double.isNaN(d) || Double.isInfinite(d)){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private double[] standardize(double[] v){
+		if(v.length != dimension){
+			throw new IllegalArgumentException("The feature vector needs " + dimension + " values");
+		}
+		double[] z = new double[dimension];
+		for(int d = 0; d < dimension; d++){
+			z[d] = (v[d] - mean[d])/sd[d];
+		}
+		return z;
+	}
+	
+	/**
+	 * @return Number of trajectories (including the ones which are not indexed)
+	 */
+	public int size(){
+		return tracks.size();
+	}
+	
+	/**
+	 * @return Length of the feature vectors
+	 */
+	public int getDimension(){
+		return dimension;
+	}
+	
+	public Trajectory getTrajectory(int i){
+		return tracks.get(i);
+	}
+	
+	/**
+	 * @return False if the feature vector of the i-th trajectory contains a non-finite value
+	 */
+	public boolean isIndexed(int i){
+		return pointOf[i] >= 0;
+	}
+	
+	/**
+	 * @return Mean of every component of the feature vectors
+	 */
+	public double[] getMean(){
+		return mean.clone();
+	}
+	
+	/**
+	 * @return Standard deviation of every component of the feature vectors (1 for constant components)
+	 */
+	public double[] getStandardDeviation(){
+		return sd.clone();
+	}
+	
+	/**
+	 * @return Standardized feature vector of the i-th trajectory or null if it is not indexed
+	 */
+	public double[] getStandardizedFeatures(int i){
+		if(pointOf[i] < 0){
+			return null;
+		}
+		double[] z = new double[dimension];
+		for(int d = 0; d < dimension; d++){
+			z[d] = tree.getCoordinate(pointOf[i], d);
+		}
+		return z;
+	}
+	
+	/**
+	 * @param i Index of a trajectory
+	 * @param k Number of neighbours
+	 * @return Indices of the k trajectories with the most similar features (without i itself), sorted by increasing distance
+	 */
+	public int[] nearest(int i, int k){
+		if(pointOf[i] < 0){
+			return new int[0];
+		}
+		int[] res = tree.nearest(getStandardizedFeatures(i), k + 1);
+		int[] tr = new int[Math.min(k, res.length)];
+		int c = 0;
+		for (int p : res) {
+			if(p != pointOf[i] && c < tr.length){
+				tr[c++] = trackOf[p];
+			}
+		}
+		return c == tr.length ? tr : Arrays.copyOf(tr, c);
+	}
+	
+	/**
+	 * Evaluates the features of a (not indexed) trajectory and returns the most similar indexed trajectories. Only available 
+	 * if the index was built from features.
+	 * @param t Trajectory
+	 * @param k Number of neighbours
+	 * @return Indices of the k trajectories with the most similar features, sorted by increasing distance
+	 */
+	public int[] nearest(Trajectory t, int k){
+		if(features == null){
+			throw new IllegalStateException("The index was built from precomputed feature vectors");
+		}
+		double[] v = evaluate(t, features);
+		if(!isFinite(v)){
+			return new int[0];
+		}
+		int[] res = tree.nearest(standardize(v), k);
+		for(int j = 0; j < res.length; j++){
+			res[j] = trackOf[res[j]];
+		}
+		return res;
+	}
+	
+	/**
+	 * @param i Index of a trajectory
+	 * @param eps Radius in standardized feature space
+	 * @return Indices of all trajectories (including i) within the distance eps to the i-th trajectory (unordered)
+	 */
+	public int[] radius(int i, double eps){
+		if(pointOf[i] < 0){
+			return new int[0];
+		}
+		int[] res = tree.radius(getStandardizedFeatures(i), eps);
+		for(int j = 0; j < res.length; j++){
+			res[j] = trackOf[res[j]];
+		}
+		return res;
+	}
+
+}
@@ -0,0 +1,307 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.distribution;
+
+import java.util.List;
+
+import org.apache.commons.math3.special.Gamma;
+
+import de.biomedical_imaging.traJ.ParallelUtil;
+import de.biomedical_imaging.traJ.Trajectory;
+
+/**
+ * Jump distance analysis: the lengths of the jumps over a given timelag are binned into a histogram and a mixture
+ * of 1-3 diffusive populations ({@link JumpDistanceMixture}) is fitted to the binned data by expectation maximization. 
+ * The runtime of the fit only depends on the number of bins, not on the number of jumps.
+ * 
+ * The EM algorithm uses the exact bin probabilities (differences of the cumulative distribution function) and the exact 
+ * conditional moments within the bins, so the binning does not bias the estimates. Jumps longer than the maximum jump length
+ * are collected in an open last bin.
+ * 
+ * Trajectories can be added one by one, analyses can be merged and {@link #calculate(List, int, int, double, int)}
+ * processes a collection in parallel.
+ * @author Thorsten Wagner
+ *
+ */
+public class JumpDistanceAnalysis {
+	
+	private static final int CHUNK_SIZE = 64;
+	private static final int MAX_ITERATIONS = 5000;
+	private static final double TOLERANCE = 1e-10;
+	
+	private int dimension;
+	private int timelag;
+	private double maxJump;
+	private long[] counts;
+	private long total;
+	
+	/**
+	 * @param dimension Dimension of the jumps (1, 2 or 3)
+	 * @param timelag Timelag of the jumps (>= 1)
+	 * @param maxJump Upper limit of the last closed bin
+	 * @param bins Number of bins in [0, maxJump]
+	 */
+	public JumpDistanceAnalysis(int dimension, int timelag, double maxJump, int bins) {
+		if(dimension < 1 || dimension > 3){
+			throw new IllegalArgumentException("The dimension has to be 1, 2 or 3");
+		}
+		if(timelag < 1){
+			throw new IllegalArgumentException("Timelag can not be smaller than 1");
+		}
+		if(!(maxJump > 0) || bins < 1){
+			throw new IllegalArgumentException("A positive maximum jump length and at least one bin are required");
+		}
+		this.dimension = dimension;
+		this.timelag = timelag;
+		this.maxJump = maxJump;
+		counts = new long[bins + 1];
+	}
+	
+	/**
+	 * Bins the jumps of a set of trajectories in parallel (see {@link ParallelUtil}).
+	 * @return Analysis which contains the jumps of all trajectories
+	 */
+	public static JumpDistanceAnalysis calculate(final List<? extends Trajectory> tracks, final int dimension, final int timelag, final double maxJump, final int bins){
+		List<JumpDistanceAnalysis> partial = ParallelUtil.mapRanges(tracks.size(), CHUNK_SIZE, new ParallelUtil.RangeTask<JumpDistanceAnalysis>() {
+			public JumpDistanceAnalysis compute(int chunk, int from, int to) {
+				JumpDistanceAnalysis a = new JumpDistanceAnalysis(dimension, timelag, maxJump, bins);
+				for(int i = from; i < to; i++){
+					a.add(tracks.get(i));
+				}
+				return a;
+			}
+		});
+		JumpDistanceAnalysis result = new JumpDistanceAnalysis(dimension, timelag, maxJump, bins);
+		for (JumpDistanceAnalysis a : partial) {
+			result.add(a);
+		}
+		return result;
+	}
+	
+	/**
+	 * Adds the (overlapping) jumps of a trajectory. Gaps are skipped.
+	 */
+	public void add(Trajectory t){
+		int bins = counts.length - 1;
+		for(int i = 0; i + timelag < t.size(); i++){
+			if(t.isValid(i) && t.isValid(i + timelag)){
+				double dx = t.getX(i + timelag) - t.getX(i);
+				double dy = t.getY(i + timelag) - t.getY(i);
+				double dz = t.getZ(i + timelag) - t.getZ(i);
+				double r = Math.sqrt(dx*dx + dy*dy + dz*dz);
+				int b = r >= maxJump ? bins : (int) (r/maxJump*bins);
+				counts[b]++;
+				total++;
+			}
+		}
+	}
+	
+	/**
+	 * Adds the jumps of another analysis with the same parameters
+	 */
+	public void add(JumpDistanceAnalysis other){
+		if(other.dimension != dimension || other.timelag != timelag || other.maxJump != maxJump || other.counts.length != counts.length){
+			throw new IllegalArgumentException("The analyses have different parameters");
+		}
+		for(int i = 0; i < counts.length; i++){
+			counts[i] += other.counts[i];
+		}
+		total += other.total;
+	}
+	
+	/**
+	 * @return Counts of the bins. The last element counts the jumps longer than the maximum jump length.
+	 */
+	public long[] getCounts(){
+		return counts.clone();
+	}
+	
+	/**
+	 * @return Number of jumps
+	 */
+	public long getNumberOfJumps(){
+		return total;
+	}
+	
+	private double lowerEdge(int b){
+		return b*maxJump/(counts.length - 1);
+	}
+	
+	private double upperEdge(int b){
+		return b == counts.length - 1 ? Double.POSITIVE_INFINITY : (b + 1)*maxJump/(counts.length - 1);
+	}
+	
+	/**
+	 * Cumulative distribution function of the length of a k-dimensional gaussian displacement with variance s2 per axis
+	 */
+	private static double cdf(int k, double s2, double r){
+		if(r == Double.POSITIVE_INFINITY){
+			return 1;
+		}
+		return Gamma.regularizedGammaP(k/2.0, r*r/(2*s2));
+	}
+	
+	/**
+	 * Fits a mixture with the given number of components
+	 * @param components Number of components (1-3)
+	 * @return Fitted mixture. The components are sorted by increasing variance.
+	 */
+	public JumpDistanceMixture fit(int components){
+		if(components < 1 || components > 3){
+			throw new IllegalArgumentException("Only 1-3 components are supported");
+		}
+		if(total == 0){
+			throw new IllegalStateException("No jumps were added");
+		}
+		int nBins = counts.length;
+		double meanR2 = 0;
+		for(int b = 0; b < nBins; b++){
+			double r = b == nBins - 1 ? maxJump : (lowerEdge(b) + upperEdge(b))/2;
+			meanR2 += counts[b]*r*r;
+		}
+		meanR2 /= total;
+		
+		/*
+		 * Initialize the variances on a logarithmic grid around the mean squared jump length
+		 */
+		double[] w = new double[components];
+		double[] s2 = new double[components];
+		for(int j = 0; j < components; j++){
+			w[j] = 1.0/components;
+			s2[j] = meanR2/dimension*Math.pow(4, j - (components - 1)/2.0);
+		}
+		
+		double[][] pBin = new double[components][nBins];
+		double[][] m2Bin = new double[components][nBins];
+		double logLikelihood = Double.NEGATIVE_INFINITY;
+		int iteration = 0;
+		while(iteration < MAX_ITERATIONS){
+			iteration++;
+			binMoments(s2, pBin, m2Bin);
+			
+			double ll = 0;
+			double[] nj = new double[components];
+			double[] r2j = new double[components];
+			for(int b = 0; b < nBins; b++){
+				if(counts[b] == 0){
+					continue;
+				}
+				double p = mixtureProbability(w, pBin, b);
+				ll += counts[b]*Math.log(p);
+				for(int j = 0; j < components; j++){
+					double wp = w[j]*pBin[j][b];
+					if(wp > 0){
+						double gamma = counts[b]*wp/p;
+						nj[j] += gamma;
+						r2j[j] += gamma*m2Bin[j][b]/pBin[j][b];
+					}
+				}
+			}
+			
+			for(int j = 0; j < components; j++){
+				w[j] = nj[j]/total;
+				if(nj[j] > 0){
+					s2[j] = r2j[j]/(dimension*nj[j]);
+				}
+			}
+			
+			boolean converged = Math.abs(ll - logLikelihood) <= TOLERANCE*Math.abs(ll);
+			logLikelihood = ll;
+			if(converged){
+				break;
+			}
+		}
+		
+		/*
+		 * The likelihood of the loop belongs to the parameters before the last M-step
+		 */
+		binMoments(s2, pBin, m2Bin);
+		logLikelihood = 0;
+		for(int b = 0; b < nBins; b++){
+			if(counts[b] > 0){
+				logLikelihood += counts[b]*Math.log(mixtureProbability(w, pBin, b));
+			}
+		}
+		
+		/*
+		 * Sort by increasing variance
+		 */
+		for(int i = 1; i < components; i++){
+			for(int j = i; j > 0 && s2[j] < s2[j-1]; j--){
+				double h = s2[j]; s2[j] = s2[j-1]; s2[j-1] = h;
+				h = w[j]; w[j] = w[j-1]; w[j-1] = h;
+			}
+		}
+		return new JumpDistanceMixture(dimension, timelag, w, s2, logLikelihood, total, iteration);
+	}
+	
+	/**
+	 * Calculates the probabilities of the bins and the second moments of the jump length within the bins for each component
+	 */
+	private void binMoments(double[] s2, double[][] pBin, double[][] m2Bin){
+		for(int j = 0; j < s2.length; j++){
+			double prevF = 0;
+			double prevF2 = 0;
+			for(int b = 0; b < counts.length; b++){
+				double hi = upperEdge(b);
+				double f = cdf(dimension, s2[j], hi);
+				double f2 = cdf(dimension + 2, s2[j], hi);
+				pBin[j][b] = Math.max(f - prevF, 0);
+				// E[r^2 ; bin] = d*s2*(F_(d+2)(hi) - F_(d+2)(lo))
+				m2Bin[j][b] = dimension*s2[j]*Math.max(f2 - prevF2, 0);
+				prevF = f;
+				prevF2 = f2;
+			}
+		}
+	}
+	
+	/**
+	 * @return Probability of bin b under the mixture. It is at least Double.MIN_VALUE.
+	 */
+	private static double mixtureProbability(double[] w, double[][] pBin, int b){
+		double p = 0;
+		for(int j = 0; j < w.length; j++){
+			p += w[j]*pBin[j][b];
+		}
+		return p > 0 ? p : Double.MIN_VALUE;
+	}
+	
+	/**
+	 * Fits mixtures with 1 to maxComponents components and selects the one with the smallest BIC
+	 * @param maxComponents Maximum number of components (1-3)
+	 * @return Mixture with the smallest BIC
+	 */
+	public JumpDistanceMixture fitBest(int maxComponents){
+		JumpDistanceMixture best = null;
+		for(int c = 1; c <= maxComponents; c++){
+			JumpDistanceMixture m = fit(c);
+			if(best == null || m.getBIC() < best.getBIC()){
+				best = m;
+			}
+		}
+		return best;
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.distribution;
+
+/**
+ * Mixture of jump distance distributions (see {@link JumpDistanceAnalysis}). The jump length of component j
+ * is distributed like the length of a d-dimensional isotropic gaussian displacement with variance sigma_j^2 per axis 
+ * (Rayleigh distribution in 2D, Maxwell distribution in 3D).
+ * @author Thorsten Wagner
+ *
+ */
+public class JumpDistanceMixture {
+	
+	private final int dimension;
+	private final int timelag;
+	private final double[] weights;
+	private final double[] variances;
+	private final double logLikelihood;
+	private final long numberOfJumps;
+	private final int iterations;
+	
+	public JumpDistanceMixture(int dimension, int timelag, double[] weights, double[] variances, double logLikelihood, long numberOfJumps, int iterations) {
+		this.dimension = dimension;
+		this.timelag = timelag;
+		this.weights = weights;
+		this.variances = variances;
+		this.logLikelihood = logLikelihood;
+		this.numberOfJumps = numberOfJumps;
+		this.iterations = iterations;
+	}
+	
+	/**
+	 * @return Number of components
+	 */
+	public int getNumberOfComponents(){
+		return weights.length;
+	}
+	
+	/**
+	 * @param j Component (sorted by increasing variance)
+	 * @return Fraction of the jumps which belong to the component j
+	 */
+	public double getWeight(int j){
+		return weights[j];
+	}
+	
+	/**
+	 * @param j Component (sorted by increasing variance)
+	 * @return Variance of the displacement per axis (sigma^2)
+	 */
+	public double getVariance(int j){
+		return variances[j];
+	}
+	
+	/**
+	 * @param j Component (sorted by increasing variance)
+	 * @param fps Frames per second [Hz]
+	 * @return Diffusion coefficient sigma^2/(2*timelag/fps)
+	 */
+	public double getDiffusionCoefficient(int j, double fps){
+		return variances[j]*fps/(2*timelag);
+	}
+	
+	public double getLogLikelihood(){
+		return logLikelihood;
+	}
+	
+	/**
+	 * @return Bayesian information criterion -2 log L + k log N with k = 2*components - 1 free parameters
+	 */
+	public double getBIC(){
+		return -2*logLikelihood + (2*weights.length - 1)*Math.log(numberOfJumps);
+	}
+	
+	public long getNumberOfJumps(){
+		return numberOfJumps;
+	}
+	
+	/**
+	 * @return Number of EM iterations
+	 */
+	public int getNumberOfIterations(){
+		return iterations;
+	}
+	
+	public int getDimension(){
+		return dimension;
+	}
+	
+	public int getTimelag(){
+		return timelag;
+	}
+
+}
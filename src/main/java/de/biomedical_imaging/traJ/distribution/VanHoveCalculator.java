@@ -0,0 +1,169 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.distribution;
+
+import java.util.List;
+
+import de.biomedical_imaging.traJ.ParallelUtil;
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traj.math.LogBinnedHistogram;
+
+/**
+ * Estimates the (self part of the) van Hove function, the distribution of the displacement lengths |r(i+lag) - r(i)|, 
+ * for all lags in a range. The overlapping displacements are streamed into one {@link LogBinnedHistogram} per lag, 
+ * so that the memory does not depend on the number of displacements. Gaps are skipped.
+ * 
+ * Trajectories can be added one by one, calculators can be merged and {@link #calculate(List, int, int, double, double, int)}
+ * processes a collection in parallel.
+ * @author Thorsten Wagner
+ *
+ */
+public class VanHoveCalculator {
+	
+	private static final int CHUNK_SIZE = 64;
+	
+	private int minLag;
+	private int maxLag;
+	private LogBinnedHistogram[] histograms;
+	
+	/**
+	 * @param minLag Minimum timelag (>= 1)
+	 * @param maxLag Maximum timelag (>= minLag)
+	 * @param minLength Smallest displacement length which is binned (&gt; 0), smaller lengths are counted in the underflow bin
+	 * @param maxLength Largest displacement length which is binned, larger lengths are counted in the overflow bin
+	 * @param binsPerDecade Number of bins per factor of ten
+	 */
+	public VanHoveCalculator(int minLag, int maxLag, double minLength, double maxLength, int binsPerDecade) {
+		if(minLag < 1){
+			throw new IllegalArgumentException("Timelag can not be smaller than 1");
+		}
+		if(maxLag < minLag){
+			throw new IllegalArgumentException("The maximum timelag has to be larger or equal than the minimum timelag");
+		}
+		this.minLag = minLag;
+		this.maxLag = maxLag;
+		histograms = new LogBinnedHistogram[maxLag - minLag + 1];
+		for(int i = 0; i < histograms.length; i++){
+			histograms[i] = new LogBinnedHistogram(minLength, maxLength, binsPerDecade);
+		}
+	}
+	
+	/**
+	 * Calculates the van Hove functions of a set of trajectories in parallel (see {@link ParallelUtil}).
+	 * @return Calculator which contains all trajectories
+	 */
+	public static VanHoveCalculator calculate(final List<? extends Trajectory> tracks, final int minLag, final int maxLag, 
+			final double minLength, final double maxLength, final int binsPerDecade){
+		List<VanHoveCalculator> partial = ParallelUtil.mapRanges(tracks.size(), CHUNK_SIZE, new ParallelUtil.RangeTask<VanHoveCalculator>() {
+			public VanHoveCalculator compute(int chunk, int from, int to) {
+				VanHoveCalculator c = new VanHoveCalculator(minLag, maxLag, minLength, maxLength, binsPerDecade);
+				for(int i = from; i < to; i++){
+					c.add(tracks.get(i));
+				}
+				return c;
+			}
+		});
+		VanHoveCalculator result = new VanHoveCalculator(minLag, maxLag, minLength, maxLength, binsPerDecade);
+		for (VanHoveCalculator c : partial) {
+			result.add(c);
+		}
+		return result;
+	}
+	
+	/**
+	 * Adds the displacements of a trajectory
+	 */
+	public void add(Trajectory t){
+		int n = t.size();
+		for(int i = 0; i + minLag < n; i++){
+			if(!t.isValid(i)){
+				continue;
+			}
+			double x = t.getX(i);
+			double y = t.getY(i);
+			double z = t.getZ(i);
+			int jEnd = Math.min(n - 1, i + maxLag);
+			for(int j = i + minLag; j <= jEnd; j++){
+				if(t.isValid(j)){
+					double dx = t.getX(j) - x;
+					double dy = t.getY(j) - y;
+					double dz = t.getZ(j) - z;
+					histograms[j - i - minLag].add(Math.sqrt(dx*dx + dy*dy + dz*dz));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Adds the histograms of another calculator with the same lags and bins
+	 */
+	public void add(VanHoveCalculator other){
+		if(other.minLag != minLag || other.maxLag != maxLag){
+			throw new IllegalArgumentException("The timelags have to be equal");
+		}
+		for(int i = 0; i < histograms.length; i++){
+			histograms[i].add(other.histograms[i]);
+		}
+	}
+	
+	private int index(int lag){
+		if(lag < minLag || lag > maxLag){
+			throw new IllegalArgumentException("Timelag " + lag + " is outside of the range [" + minLag + "," + maxLag + "]");
+		}
+		return lag - minLag;
+	}
+	
+	public int getMinTimelag(){
+		return minLag;
+	}
+	
+	public int getMaxTimelag(){
+		return maxLag;
+	}
+	
+	/**
+	 * @return Histogram of the displacement lengths for the timelag
+	 */
+	public LogBinnedHistogram getHistogram(int lag){
+		return histograms[index(lag)];
+	}
+	
+	/**
+	 * @return Number of displacements for the timelag
+	 */
+	public long getNumberOfDisplacements(int lag){
+		return histograms[index(lag)].getTotal();
+	}
+	
+	/**
+	 * @param lag Timelag
+	 * @param q Probability in [0,1]
+	 * @return Estimated quantile of the displacement length
+	 */
+	public double getQuantile(int lag, double q){
+		return histograms[index(lag)].getQuantile(q);
+	}
+
+}
@@ -24,14 +24,67 @@ SOFTWARE.
 
 package de.biomedical_imaging.traJ.drift;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import de.biomedical_imaging.traJ.AbstractTrajectoryView;
+import de.biomedical_imaging.traJ.ParallelUtil;
 import de.biomedical_imaging.traJ.Trajectory;
 
 public abstract class AbstractDriftCorrector {
+	
+	private static final int CHUNK_SIZE = 64;
+	
+	private boolean inPlace = false;
 
 	/**
 	 * 
 	 * @param t Trajectory which shows a drift
-	 * @return Trajectory without drift
+	 * @return Trajectory without drift. In the in-place mode, this is t itself. 
 	 */
 	public abstract Trajectory removeDrift(Trajectory t);
+	
+	/**
+	 * Removes the drift of all trajectories in parallel (see {@link ParallelUtil}).
+	 * @param tracks Trajectories which show a drift
+	 * @return Trajectories without drift in the same order
+	 */
+	public ArrayList<Trajectory> removeDrift(final List<? extends Trajectory> tracks){
+		List<ArrayList<Trajectory>> partial = ParallelUtil.mapRanges(tracks.size(), CHUNK_SIZE, new ParallelUtil.RangeTask<ArrayList<Trajectory>>() {
+			public ArrayList<Trajectory> compute(int chunk, int from, int to) {
+				ArrayList<Trajectory> res = new ArrayList<Trajectory>(to - from);
+				for(int i = from; i < to; i++){
+					res.add(removeDrift(tracks.get(i)));
+				}
+				return res;
+			}
+		});
+		ArrayList<Trajectory> result = new ArrayList<Trajectory>(tracks.size());
+		for (ArrayList<Trajectory> p : partial) {
+			result.addAll(p);
+		}
+		return result;
+	}
+	
+	/**
+	 * @param inPlace If true, the positions of the trajectory are corrected directly instead of creating a corrected copy. 
+	 * Views which are not backed by point objects (e.g. memory mapped trajectories) can't be corrected in place. 
+	 * Sub-trajectory views of a regular trajectory share its points and are corrected in place (and so is the parent).
+	 */
+	public void setInPlace(boolean inPlace){
+		this.inPlace = inPlace;
+	}
+	
+	public boolean isInPlace(){
+		return inPlace;
+	}
+	
+	/**
+	 * @throws UnsupportedOperationException if the points of the trajectory can't be modified
+	 */
+	protected void checkModifiable(Trajectory t){
+		if(t instanceof AbstractTrajectoryView && !((AbstractTrajectoryView) t).isBackedByPoints()){
+			throw new UnsupportedOperationException("The drift of a read-only trajectory can't be removed in place");
+		}
+	}
 }
@@ -24,43 +24,67 @@ SOFTWARE.
 
 package de.biomedical_imaging.traJ.drift;
 
-import java.util.ArrayList;
+import java.util.List;
 
+import de.biomedical_imaging.traJ.ParallelUtil;
 import de.biomedical_imaging.traJ.Trajectory;
-import de.biomedical_imaging.traJ.TrajectoryValidIndexTimelagIterator;
 
 public class StaticDriftCalculator<T extends Trajectory>  {
 	
+	private static final int CHUNK_SIZE = 256;
+	
 	/**
 	 * Calculates the static drift. Static means, that the drift does not change direction or intensity over time.
+	 * The tracks are processed in parallel (see {@link ParallelUtil}). The partial sums are merged in a fixed order, 
+	 * therefore the result does not depend on the number of threads.
 	 * 
 	 * @param tracks Tracks which seems to exhibit a local drift
 	 * @return The static drift over all trajectories
 	 */
-	public double[] calculateDrift(ArrayList<T> tracks){
-		double[] result = new double[3];
+	public double[] calculateDrift(final List<T> tracks){
+		List<double[]> partial = ParallelUtil.mapRanges(tracks.size(), CHUNK_SIZE, new ParallelUtil.RangeTask<double[]>() {
+			public double[] compute(int chunk, int from, int to) {
+				return sumDisplacements(tracks, from, to);
+			}
+		});
 		
 		double sumX =0;
 		double sumY = 0;
 		double sumZ = 0;
-		int N=0;
-		for(int i = 0; i < tracks.size(); i++){
-			T t = tracks.get(i);
-			TrajectoryValidIndexTimelagIterator it = new TrajectoryValidIndexTimelagIterator(t,1);
-	
-			//for(int j = 1; j < t.size(); j++){
-			while(it.hasNext()) {
-				int j = it.next();
-				sumX += t.get(j+1).x - t.get(j).x;
-				sumY += t.get(j+1).y - t.get(j).y;
-				sumZ += t.get(j+1).z - t.get(j).z;
-				N++;
-			}
+		long N=0;
+		for (double[] p : partial) {
+			sumX += p[0];
+			sumY += p[1];
+			sumZ += p[2];
+			N += (long) p[3];
 		}
+		double[] result = new double[3];
 		result[0] = sumX/N;
 		result[1] = sumY/N;
 		result[2] = sumZ/N;
 		return result;
 	}
+	
+	/**
+	 * @return [0..2] = Sum of the displacements in x, y and z direction, [3] = Number of displacements
+	 */
+	private static double[] sumDisplacements(List<? extends Trajectory> tracks, int from, int to){
+		double[] sum = new double[4];
+		for(int i = from; i < to; i++){
+			Trajectory t = tracks.get(i);
+			boolean prevValid = t.size() > 0 && t.isValid(0);
+			for(int j = 1; j < t.size(); j++){
+				boolean valid = t.isValid(j);
+				if(valid && prevValid){
+					sum[0] += t.getX(j) - t.getX(j-1);
+					sum[1] += t.getY(j) - t.getY(j-1);
+					sum[2] += t.getZ(j) - t.getZ(j-1);
+					sum[3]++;
+				}
+				prevValid = valid;
+			}
+		}
+		return sum;
+	}
 
 }
@@ -45,17 +45,34 @@ public class StaticDriftCorrector extends AbstractDriftCorrector {
 		this.drift = drift;
 	}
 
+	/**
+	 * Removes the drift. It is subtracted at the absolute frame (relative start timepoint + index) of each position, 
+	 * so that tracks which start at different timepoints are corrected consistently.
+	 */
 	@Override
 	public Trajectory removeDrift(Trajectory t) {
-		Trajectory tNew = new Trajectory(t.getDimension());
-		tNew.add(new Point3d(t.get(0).x, t
-				.get(0).y, t.get(0).z));
+		int start = t.getRelativeStartTimepoint();
+		if(isInPlace()){
+			checkModifiable(t);
+			for (int i = 0; i < t.size(); i++) {
+				Point3d p = t.get(i);
+				if (p != null) {
+					int frame = start + i;
+					p.x -= frame * drift[0];
+					p.y -= frame * drift[1];
+					p.z -= frame * drift[2];
+				}
+			}
+			return t;
+		}
+		Trajectory tNew = new Trajectory(t.getDimension(), start);
 
-		for (int i = 1; i < t.size(); i++) {
-			if (t.get(i) != null) {
-				tNew.add(new Point3d(t.get(i).x - i
-						* drift[0], t.get(i).y - i * drift[1], t
-						.get(i).z - i * drift[2]));
+		for (int i = 0; i < t.size(); i++) {
+			if (t.isValid(i)) {
+				int frame = start + i;
+				tNew.add(t.getX(i) - frame * drift[0], 
+						t.getY(i) - frame * drift[1], 
+						t.getZ(i) - frame * drift[2]);
 			} else {
 				tNew.add(null);
 			}
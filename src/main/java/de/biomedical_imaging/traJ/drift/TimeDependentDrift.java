@@ -0,0 +1,111 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.drift;
+
+/**
+ * Drift which changes over time. It is stored as displacement per frame (from frame f-1 to frame f) 
+ * and as cumulative drift relative to the first frame.
+ * @author Thorsten Wagner
+ *
+ */
+public class TimeDependentDrift {
+	
+	private final int firstFrame;
+	private final double[][] displacement;
+	private final double[][] cumulative;
+	private final int[] counts;
+	
+	/**
+	 * @param firstFrame First frame
+	 * @param displacement displacement[d][i] is the drift in dimension d (0=x,1=y,2=z) from frame firstFrame+i-1 to frame firstFrame+i 
+	 * @param counts counts[i] is the number of displacements which were used to estimate the drift at frame firstFrame+i
+	 */
+	public TimeDependentDrift(int firstFrame, double[][] displacement, int[] counts) {
+		if(displacement.length != 3){
+			throw new IllegalArgumentException("Displacements for x, y and z are required");
+		}
+		this.firstFrame = firstFrame;
+		this.displacement = displacement;
+		this.counts = counts;
+		cumulative = new double[3][counts.length];
+		for(int d = 0; d < 3; d++){
+			for(int i = 1; i < counts.length; i++){
+				cumulative[d][i] = cumulative[d][i-1] + displacement[d][i];
+			}
+		}
+	}
+	
+	public int getFirstFrame(){
+		return firstFrame;
+	}
+	
+	public int getLastFrame(){
+		return firstFrame + counts.length - 1;
+	}
+	
+	/**
+	 * @param frame Absolute frame
+	 * @return Drift from frame-1 to frame. [0] = x, [1] = y, [2] = z. Zero outside of the estimated frame range.
+	 */
+	public double[] getDisplacement(int frame){
+		int i = frame - firstFrame;
+		if(i < 1 || i >= counts.length){
+			return new double[3];
+		}
+		return new double[]{displacement[0][i], displacement[1][i], displacement[2][i]};
+	}
+	
+	/**
+	 * @param frame Absolute frame
+	 * @return Number of displacements which were used to estimate the drift from frame-1 to frame
+	 */
+	public int getNumberOfDisplacements(int frame){
+		int i = frame - firstFrame;
+		if(i < 0 || i >= counts.length){
+			return 0;
+		}
+		return counts[i];
+	}
+	
+	/**
+	 * @param frame Absolute frame
+	 * @return Cumulative drift from the first frame to frame. Frames outside the estimated range are clamped to it.
+	 */
+	public double[] getDrift(int frame){
+		int i = Math.max(0, Math.min(counts.length - 1, frame - firstFrame));
+		return new double[]{cumulative[0][i], cumulative[1][i], cumulative[2][i]};
+	}
+	
+	/**
+	 * @param d Dimension (0=x,1=y,2=z)
+	 * @param frame Absolute frame
+	 * @return Cumulative drift in dimension d from the first frame to frame. Frames outside the estimated range are clamped to it.
+	 */
+	public double getDrift(int d, int frame){
+		int i = Math.max(0, Math.min(counts.length - 1, frame - firstFrame));
+		return cumulative[d][i];
+	}
+
+}
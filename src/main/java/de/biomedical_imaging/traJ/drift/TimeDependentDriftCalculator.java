@@ -0,0 +1,314 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.drift;
+
+import java.util.List;
+
+import org.apache.commons.math3.analysis.interpolation.LoessInterpolator;
+
+import de.biomedical_imaging.traJ.ParallelUtil;
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.TrajectoryFrameIndex;
+
+/**
+ * Estimates a drift which changes over time. For each absolute frame f (relative start timepoint + index) the drift is
+ * the mean displacement from frame f-1 to frame f over all trajectories. A displacement over a gap of k frames is split evenly 
+ * over these frames, frames without any displacement are interpolated. 
+ * The raw estimate is noisy and can be smoothed by a count-weighted moving average or by LOESS regression.
+ * 
+ * The positions are visited frame by frame by a {@link TrajectoryFrameIndex}. Fixed chunks of absolute frames (not of 
+ * trajectories) are processed in parallel (see {@link ParallelUtil}) and their sums are merged in frame order, so the 
+ * result does not depend on the number of threads.
+ * @author Thorsten Wagner
+ *
+ */
+public class TimeDependentDriftCalculator<T extends Trajectory> {
+	
+	public enum Smoothing {NONE, MOVING_AVERAGE, LOESS}
+	
+	private static final int CHUNK_SIZE = 64;
+	
+	private Smoothing smoothing;
+	private int windowSize;
+	private double bandwidth;
+	
+	/**
+	 * Estimates the drift without smoothing
+	 */
+	public TimeDependentDriftCalculator() {
+		smoothing = Smoothing.NONE;
+	}
+	
+	/**
+	 * Smooth the drift by a moving average. Every frame is weighted by the number of displacements. 
+	 * @param windowSize Number of frames of the window (odd)
+	 */
+	public void setMovingAverageSmoothing(int windowSize){
+		if(windowSize < 1){
+			throw new IllegalArgumentException("The window size has to be at least one");
+		}
+		smoothing = Smoothing.MOVING_AVERAGE;
+		this.windowSize = windowSize;
+	}
+	
+	/**
+	 * Smooth the drift by local regression (LOESS). Every frame is weighted by the number of displacements. 
+	 * @param bandwidth Fraction of frames which are used for each local regression (0,1]
+	 */
+	public void setLoessSmoothing(double bandwidth){
+		if(bandwidth <= 0 || bandwidth > 1){
+			throw new IllegalArgumentException("The bandwidth has to be in (0,1]");
+		}
+		smoothing = Smoothing.LOESS;
+		this.bandwidth = bandwidth;
+	}
+	
+	public void setNoSmoothing(){
+		smoothing = Smoothing.NONE;
+	}
+	
+	public Smoothing getSmoothing(){
+		return smoothing;
+	}
+	
+	/**
+	 * Partial sums of the displacements of a chunk of frames for the frames [firstFrame, firstFrame + counts.length)
+	 */
+	private static class FrameSums {
+		int firstFrame;
+		double[][] sums;
+		int[] counts;
+	}
+	
+	/**
+	 * @param tracks Tracks which exhibit a common drift
+	 * @return The drift per frame
+	 */
+	public TimeDependentDrift calculateDrift(final List<T> tracks){
+		final TrajectoryFrameIndex index = new TrajectoryFrameIndex(tracks);
+		final int first = index.getFirstFrame();
+		int nFrames = index.getLastFrame() - first + 1;
+		List<FrameSums> partial = ParallelUtil.mapRanges(nFrames, CHUNK_SIZE, new ParallelUtil.RangeTask<FrameSums>() {
+			public FrameSums compute(int chunk, int from, int to) {
+				return sumDisplacements(index, first + from, first + to);
+			}
+		});
+		
+		//The first frame is the reference for the displacements
+		int firstFrame = first;
+		int lastFrame = Integer.MIN_VALUE;
+		for (FrameSums p : partial) {
+			if(p.counts.length > 0){
+				lastFrame = Math.max(lastFrame, p.firstFrame + p.counts.length - 1);
+			}
+		}
+		if(firstFrame >= lastFrame){
+			throw new IllegalArgumentException("The tracks do not contain any displacement");
+		}
+		int n = lastFrame - firstFrame + 1;
+		double[][] sums = new double[3][n];
+		int[] counts = new int[n];
+		for (FrameSums p : partial) {
+			int offset = p.firstFrame - firstFrame;
+			for(int i = 0; i < p.counts.length; i++){
+				counts[offset + i] += p.counts[i];
+				for(int d = 0; d < 3; d++){
+					sums[d][offset + i] += p.sums[d][i];
+				}
+			}
+		}
+		
+		double[][] displacement = new double[3][];
+		for(int d = 0; d < 3; d++){
+			switch (smoothing) {
+			case MOVING_AVERAGE:
+				displacement[d] = movingAverage(sums[d], counts, windowSize);
+				break;
+			case LOESS:
+				displacement[d] = loess(sums[d], counts, bandwidth);
+				break;
+			default:
+				displacement[d] = movingAverage(sums[d], counts, 1);
+				break;
+			}
+		}
+		return new TimeDependentDrift(firstFrame, displacement, counts);
+	}
+	
+	/*
+	 * Sums the displacements of all positions at the frames [from, to) from the previous valid position of the same track.
+	 * A displacement over a gap of k frames is split evenly over these k frames.
+	 */
+	private static FrameSums sumDisplacements(TrajectoryFrameIndex index, int from, int to){
+		FrameSums res = new FrameSums();
+		int firstFrame = Integer.MAX_VALUE;
+		for(int f = from; f < to; f++){
+			for(int k = 0; k < index.getNumberOfPositions(f); k++){
+				int i = index.getPositionIndex(f, k);
+				int prev = previousValid(index.getTrajectory(f, k), i);
+				if(prev >= 0){
+					firstFrame = Math.min(firstFrame, f - (i - prev) + 1);
+				}
+			}
+		}
+		if(firstFrame == Integer.MAX_VALUE){
+			res.sums = new double[3][0];
+			res.counts = new int[0];
+			return res;
+		}
+		res.firstFrame = firstFrame;
+		res.sums = new double[3][to - firstFrame];
+		res.counts = new int[to - firstFrame];
+		for(int f = from; f < to; f++){
+			for(int k = 0; k < index.getNumberOfPositions(f); k++){
+				Trajectory t = index.getTrajectory(f, k);
+				int i = index.getPositionIndex(f, k);
+				int prev = previousValid(t, i);
+				if(prev < 0){
+					continue;
+				}
+				int gap = i - prev;
+				double dx = (t.getX(i) - t.getX(prev))/gap;
+				double dy = (t.getY(i) - t.getY(prev))/gap;
+				double dz = (t.getZ(i) - t.getZ(prev))/gap;
+				for(int g = f - gap + 1; g <= f; g++){
+					res.sums[0][g - firstFrame] += dx;
+					res.sums[1][g - firstFrame] += dy;
+					res.sums[2][g - firstFrame] += dz;
+					res.counts[g - firstFrame]++;
+				}
+			}
+		}
+		return res;
+	}
+	
+	private static int previousValid(Trajectory t, int i){
+		int p = i - 1;
+		while(p >= 0 && !t.isValid(p)){
+			p--;
+		}
+		return p;
+	}
+	
+	/**
+	 * Count-weighted moving average of the mean displacements. The first frame has no displacement 
+	 * (it is the reference) and is excluded. Frames without displacements in the window are interpolated 
+	 * linearly from the neighbouring frames, so that no frame is lost in the cumulative drift.
+	 */
+	private static double[] movingAverage(double[] sums, int[] counts, int windowSize){
+		int n = counts.length;
+		int half = windowSize/2;
+		double[] res = new double[n];
+		for(int i = 1; i < n; i++){
+			double sum = 0;
+			int count = 0;
+			for(int k = Math.max(1, i - half); k <= Math.min(n - 1, i + half); k++){
+				sum += sums[k];
+				count += counts[k];
+			}
+			res[i] = count > 0 ? sum/count : Double.NaN;
+		}
+		interpolateMissing(res);
+		return res;
+	}
+	
+	/**
+	 * Replaces NaN values (except at index 0) by linear interpolation between the neighbouring values. 
+	 * Missing values at the borders take the nearest value.
+	 */
+	private static void interpolateMissing(double[] v){
+		int n = v.length;
+		int prev = -1;
+		for(int i = 1; i <= n; i++){
+			if(i < n && Double.isNaN(v[i])){
+				continue;
+			}
+			for(int j = Math.max(prev + 1, 1); j < i; j++){
+				if(prev < 1 && i == n){
+					v[j] = 0;
+				}
+				else if(prev < 1){
+					v[j] = v[i];
+				}
+				else if(i == n){
+					v[j] = v[prev];
+				}
+				else{
+					double a = (double)(j - prev)/(i - prev);
+					v[j] = (1 - a)*v[prev] + a*v[i];
+				}
+			}
+			prev = i;
+		}
+	}
+	
+	/**
+	 * Count-weighted LOESS regression of the mean displacements. Frames without displacements are interpolated.
+	 */
+	private static double[] loess(double[] sums, int[] counts, double bandwidth){
+		int n = counts.length;
+		int m = 0;
+		for(int i = 1; i < n; i++){
+			if(counts[i] > 0){
+				m++;
+			}
+		}
+		double[] res = movingAverage(sums, counts, 1);
+		if(m < 3 || bandwidth*m < 2){
+			return res;
+		}
+		double[] x = new double[m];
+		double[] y = new double[m];
+		double[] w = new double[m];
+		int k = 0;
+		for(int i = 1; i < n; i++){
+			if(counts[i] > 0){
+				x[k] = i;
+				y[k] = sums[i]/counts[i];
+				w[k] = counts[i];
+				k++;
+			}
+		}
+		double[] smoothed = new LoessInterpolator(bandwidth, 0, 1e-12).smooth(x, y, w);
+		k = 0;
+		for(int i = 1; i < n; i++){
+			while(k < m - 1 && x[k+1] <= i){
+				k++;
+			}
+			if(i <= x[0]){
+				res[i] = smoothed[0];
+			}
+			else if(k == m - 1){
+				res[i] = smoothed[m-1];
+			}
+			else{
+				double a = (i - x[k])/(x[k+1] - x[k]);
+				res[i] = (1 - a)*smoothed[k] + a*smoothed[k+1];
+			}
+		}
+		return res;
+	}
+
+}
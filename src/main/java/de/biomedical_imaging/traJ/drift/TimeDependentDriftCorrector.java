@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.drift;
+
+import javax.vecmath.Point3d;
+
+import de.biomedical_imaging.traJ.Trajectory;
+
+/**
+ * Removes a time dependent drift. The drift is subtracted at the absolute frame 
+ * (relative start timepoint + index) of each position.
+ * @author Thorsten Wagner
+ *
+ */
+public class TimeDependentDriftCorrector extends AbstractDriftCorrector {
+
+	private TimeDependentDrift drift;
+	
+	/**
+	 * @param drift Drift, e.g. estimated by the {@link TimeDependentDriftCalculator}
+	 */
+	public TimeDependentDriftCorrector(TimeDependentDrift drift) {
+		this.drift = drift;
+	}
+	
+	@Override
+	public Trajectory removeDrift(Trajectory t) {
+		int start = t.getRelativeStartTimepoint();
+		if(isInPlace()){
+			checkModifiable(t);
+			for(int i = 0; i < t.size(); i++){
+				Point3d p = t.get(i);
+				if(p != null){
+					int frame = start + i;
+					p.x -= drift.getDrift(0, frame);
+					p.y -= drift.getDrift(1, frame);
+					p.z -= drift.getDrift(2, frame);
+				}
+			}
+			return t;
+		}
+		Trajectory tNew = new Trajectory(t.getDimension(), start);
+		for(int i = 0; i < t.size(); i++){
+			if(t.isValid(i)){
+				int frame = start + i;
+				tNew.add(t.getX(i) - drift.getDrift(0, frame), 
+						t.getY(i) - drift.getDrift(1, frame), 
+						t.getZ(i) - drift.getDrift(2, frame));
+			}
+			else{
+				tNew.add(null);
+			}
+		}
+		return tNew;
+	}
+
+}
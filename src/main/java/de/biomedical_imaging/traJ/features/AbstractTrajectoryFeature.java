@@ -26,7 +26,15 @@ package de.biomedical_imaging.traJ.features;
 
 import de.biomedical_imaging.traJ.Trajectory;
 
-public abstract class AbstractTrajectoryFeature {
+/**
+ * Base class of all trajectory features. The stateful API ({@link #setTrajectory(Trajectory)}, {@link #evaluate()}, 
+ * {@link #getValue()}) caches the result for the current trajectory and is not thread-safe. 
+ * The features of this library implement {@link #evaluate(Trajectory)} without modifying the feature, so that 
+ * a single instance can be shared by several threads, as long as its configuration is not changed concurrently.
+ * @author Thorsten Wagner
+ *
+ */
+public abstract class AbstractTrajectoryFeature implements AbstractTrajectoryFeatureEvaluator {
 	protected double[] result = null;
 	
 	/**
@@ -34,6 +42,22 @@ public abstract class AbstractTrajectoryFeature {
 	 */
 	public abstract double[] evaluate();
 	
+	/**
+	 * Evaluates the feature for the trajectory t.
+	 * All features of this library override this method with a stateless implementation. The default 
+	 * implementation for other subclasses calls {@link #setTrajectory(Trajectory)} and {@link #evaluate()} while 
+	 * holding the lock of this feature. It therefore leaves t as the current trajectory of the feature, replaces 
+	 * the cached result and is only safe with respect to other calls of this method.
+	 * @param t Trajectory
+	 * @return The result for t
+	 */
+	public double[] evaluate(Trajectory t){
+		synchronized (this) {
+			setTrajectory(t);
+			return evaluate();
+		}
+	}
+	
 	/**
 	 * @return Returns the result, but does not recalculate when it was calculated earlier
 	 */
@@ -24,47 +24,35 @@ SOFTWARE.
 
 package de.biomedical_imaging.traJ.features;
 
-import java.awt.geom.Point2D;
-import java.util.ArrayList;
-import java.util.EmptyStackException;
-
-import cg.RotatingCalipers;
 import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traj.math.ConvexHull2D;
 
 public class AspectRatioFeature extends AbstractTrajectoryFeature {
 	private Trajectory t; 
 	
 	public AspectRatioFeature(Trajectory t) {
 		this.t = t;
-		if(t.getDimension()!=2){
+		if(t != null && t.getDimension()!=2){
 			throw new IllegalArgumentException("Works only with 2D trajectorys");
 		}
 	}
 	@Override
 	public double[] evaluate() {
-		
-		ArrayList<Point2D.Double> points = new ArrayList<Point2D.Double>();
-		for(int i = 0; i < t.size(); i++){
-			Point2D.Double p = new Point2D.Double();
-			p.setLocation(t.get(i).x, t.get(i).y);
-			points.add(p);
-		}
-		Point2D.Double[] rect =null;
-		try{
-			rect = RotatingCalipers.getMinimumBoundingRectangle(points);
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
+		if(t.getDimension()!=2){
+			throw new IllegalArgumentException("Works only with 2D trajectorys");
 		}
-		catch(IllegalArgumentException e){
+		ConvexHull2D hull = new ConvexHull2D(t);
+		if(hull.isDegenerate()){
 			//If the trajectory consits of colinear points, return an aspect ratio of infinity
 			return new double[] {Double.POSITIVE_INFINITY};
 		}
-		catch(EmptyStackException e){
-			return new double[] {Double.POSITIVE_INFINITY};
-		}
-
-		double longSide = rect[0].distance(rect[1])>rect[1].distance(rect[2])?rect[0].distance(rect[1]):rect[1].distance(rect[2]);
-		double shortSide = rect[0].distance(rect[1])>rect[1].distance(rect[2])?rect[1].distance(rect[2]):rect[0].distance(rect[1]);
-		result = new double[] {longSide/shortSide};
-		return result;
+		return new double[] {hull.getRectangleLongSide()/hull.getRectangleShortSide()};
 	}
 
 	@Override
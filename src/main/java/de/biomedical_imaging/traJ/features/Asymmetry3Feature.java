@@ -50,6 +50,12 @@ public class Asymmetry3Feature extends AbstractTrajectoryFeature {
 	
 	@Override
 	public double[] evaluate() {
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
 		Array2DRowRealMatrix gyr = RadiusGyrationTensor2D.getRadiusOfGyrationTensor(t);
 		EigenDecomposition eigdec = new EigenDecomposition(gyr);
 		double e1 = eigdec.getRealEigenvalue(0);
@@ -71,7 +77,7 @@ public class Asymmetry3Feature extends AbstractTrajectoryFeature {
 	@Override
 	public void setTrajectory(Trajectory t) {
 		this.t = t;
-		
+		result = null;
 	}
 
 }
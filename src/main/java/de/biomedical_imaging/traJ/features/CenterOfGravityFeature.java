@@ -35,6 +35,12 @@ public class CenterOfGravityFeature extends AbstractTrajectoryFeature {
 	
 	@Override
 	public double[] evaluate() {
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
 		double x = 0;
 		double y = 0;
 		double z = 0;
@@ -66,7 +72,7 @@ public class CenterOfGravityFeature extends AbstractTrajectoryFeature {
 	@Override
 	public void setTrajectory(Trajectory t) {
 		this.t = t;
-		
+		result = null;
 	}
 
 }
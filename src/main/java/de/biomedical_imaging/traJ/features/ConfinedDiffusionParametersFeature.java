@@ -90,15 +90,21 @@ public class ConfinedDiffusionParametersFeature extends AbstractTrajectoryFeatur
 	 * When onlyRadius==true then [0] = squared radius, [1] Fit goodness
 	 */
 	public double[] evaluate() {
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
 		MeanSquaredDisplacmentFeature msd = new MeanSquaredDisplacmentFeature(t, 1);
 		msd.setOverlap(false);
+		double[][] msdres = msd.evaluate(t, 1, t.size()-1);
 
 		ArrayList<Double> xDataList = new ArrayList<Double>();
 		ArrayList<Double> yDataList = new ArrayList<Double>();
 		
 		for(int i = 1; i < t.size(); i++){
-			msd.setTimelag(i);
-			double[] res = msd.evaluate();
+			double[] res = msdres[i-1];
 			double msdvalue = res[0];
 			int N = (int)Math.sqrt(res[2]); 
 			for(int j = 0; j < N; j++){
@@ -152,7 +158,7 @@ public class ConfinedDiffusionParametersFeature extends AbstractTrajectoryFeatur
 	@Override
 	public void setTrajectory(Trajectory t) {
 		this.t = t;
-		
+		result = null;
 	}
 
 }
@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.features;
+
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traj.math.ConvexHull2D;
+
+/**
+ * Bundle of shape features which are derived from the convex hull of the (2D) positions. The hull and 
+ * the minimum area bounding rectangle are calculated once per trajectory.
+ * 
+ * Returns [0] = area of the convex hull, [1] = perimeter of the convex hull, [2] = diameter (max. distance between two positions),
+ * [3] = long side and [4] = short side of the minimum bounding rectangle, [5] = aspect ratio (see {@link AspectRatioFeature}), 
+ * [6] = elongation (see {@link ElongationFeature})
+ * @author Thorsten Wagner
+ *
+ */
+public class ConvexHullFeature extends AbstractTrajectoryFeature {
+	
+	private Trajectory t;
+	
+	public ConvexHullFeature(Trajectory t) {
+		this.t = t;
+		if(t != null && t.getDimension()!=2){
+			throw new IllegalArgumentException("Works only with 2D trajectorys");
+		}
+	}
+
+	@Override
+	public double[] evaluate() {
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
+		if(t.getDimension()!=2){
+			throw new IllegalArgumentException("Works only with 2D trajectorys");
+		}
+		ConvexHull2D hull = new ConvexHull2D(t);
+		double aspectRatio = Double.POSITIVE_INFINITY;
+		double elongation = 1;
+		if(!hull.isDegenerate()){
+			aspectRatio = hull.getRectangleLongSide()/hull.getRectangleShortSide();
+			elongation = 1 - hull.getRectangleShortSide()/hull.getRectangleLongSide();
+		}
+		return new double[]{hull.getArea(), hull.getPerimeter(), hull.getDiameter(), 
+				hull.getRectangleLongSide(), hull.getRectangleShortSide(), aspectRatio, elongation};
+	}
+
+	@Override
+	public String getName() {
+		return "Convex hull shape";
+	}
+
+	@Override
+	public String getShortName() {
+		return "HULL";
+	}
+
+	@Override
+	public void setTrajectory(Trajectory t) {
+		this.t = t;
+		result = null;
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.features;
+
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traj.math.DisplacementCorrelationCalculator;
+
+/**
+ * Autocorrelation &lt;dx_i * dx_(i+L)&gt; of the displacements dx_i = x(i+timelag) - x(i) along a single axis.
+ * 
+ * Returns [L] = autocorrelation for L = 0..maxLag (see {@link DisplacementCorrelationCalculator})
+ * @author Thorsten Wagner
+ *
+ */
+public class DisplacementAutocorrelationFeature extends AbstractTrajectoryFeature {
+	
+	private Trajectory t;
+	private int timelag;
+	private int maxLag;
+	private int axis;
+	
+	/**
+	 * @param t Trajectory
+	 * @param timelag Timelag of the displacements (>= 1)
+	 * @param maxLag Maximum lag between two displacements
+	 * @param axis 0 = x, 1 = y, 2 = z
+	 */
+	public DisplacementAutocorrelationFeature(Trajectory t, int timelag, int maxLag, int axis) {
+		if(axis < 0 || axis > 2){
+			throw new IllegalArgumentException("The axis has to be 0 (x), 1 (y) or 2 (z)");
+		}
+		this.t = t;
+		this.timelag = timelag;
+		this.maxLag = maxLag;
+		this.axis = axis;
+	}
+
+	@Override
+	public double[] evaluate() {
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
+		DisplacementCorrelationCalculator corr = new DisplacementCorrelationCalculator(timelag, maxLag);
+		corr.add(t);
+		double[] res = new double[maxLag + 1];
+		for(int l = 0; l <= maxLag; l++){
+			res[l] = corr.getCorrelation(axis, l);
+		}
+		return res;
+	}
+	
+	public void setTimelag(int timelag){
+		this.timelag = timelag;
+	}
+
+	@Override
+	public String getName() {
+		return "Displacement autocorrelation-" + "xyz".charAt(axis) + "-dt-"+timelag;
+	}
+
+	@Override
+	public String getShortName() {
+		return "DACF-" + Character.toUpperCase("xyz".charAt(axis));
+	}
+
+	@Override
+	public void setTrajectory(Trajectory t) {
+		this.t = t;
+		result = null;
+	}
+
+}
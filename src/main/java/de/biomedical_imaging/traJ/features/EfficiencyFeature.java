@@ -44,11 +44,20 @@ public class EfficiencyFeature extends AbstractTrajectoryFeature {
 	
 	@Override
 	public double[] evaluate() {
-		
-		return new double[]{getEfficiency()};
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
+		return new double[]{getEfficiency(t)};
 	}
 	
 	public double getEfficiency(){
+		return getEfficiency(t);
+	}
+	
+	private static double getEfficiency(Trajectory t){
 		double sum = 0;
 		for(int i = 1; i < t.size(); i++){
 			double d = t.get(i).distance(t.get(i-1));
@@ -77,7 +86,7 @@ public class EfficiencyFeature extends AbstractTrajectoryFeature {
 	@Override
 	public void setTrajectory(Trajectory t) {
 		this.t = t;
-		
+		result = null;
 	}
 
 }
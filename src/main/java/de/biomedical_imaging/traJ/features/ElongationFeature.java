@@ -24,12 +24,8 @@ SOFTWARE.
 
 package de.biomedical_imaging.traJ.features;
 
-import java.awt.geom.Point2D;
-import java.util.ArrayList;
-import java.util.EmptyStackException;
-
-import cg.RotatingCalipers;
 import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traj.math.ConvexHull2D;
 
 /**
  * Estimates the the elongation by 1 - S/L where S is the short side
@@ -53,29 +49,19 @@ public class ElongationFeature extends AbstractTrajectoryFeature {
 	 */
 	@Override
 	public double[] evaluate() {
-		
-		ArrayList<Point2D.Double> points = new ArrayList<Point2D.Double>();
-		for(int i = 0; i < t.size(); i++){
-			Point2D.Double p = new Point2D.Double();
-			p.setLocation(t.get(i).x, t.get(i).y);
-			points.add(p);
-		}
-		Point2D.Double[] rect = null;
-		try{
-			rect = RotatingCalipers.getMinimumBoundingRectangle(points);
-		}
-		catch(IllegalArgumentException e){
-			return new double[] {1}; //For colinear points it is defined as 1
-		}
-		catch(EmptyStackException e){
-			return new double[] {1}; 
-		}
-
-		double longSide = rect[0].distance(rect[1])>rect[1].distance(rect[2])?rect[0].distance(rect[1]):rect[1].distance(rect[2]);
-		double shortSide = rect[0].distance(rect[1])>rect[1].distance(rect[2])?rect[1].distance(rect[2]):rect[0].distance(rect[1]);
-		result = new double[] {1-shortSide/longSide};
+		result = evaluate(t);
 		return result;
 	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
+		ConvexHull2D hull = new ConvexHull2D(t);
+		if(hull.isDegenerate()){
+			//If the trajectory consits of colinear points, return an elongation of 1
+			return new double[] {1};
+		}
+		return new double[] {1-hull.getRectangleShortSide()/hull.getRectangleLongSide()};
+	}
 
 	@Override
 	public String getName() {
@@ -36,13 +36,22 @@ public class FractalDimensionFeature extends AbstractTrajectoryFeature{
 	Trajectory t;
 	public FractalDimensionFeature(Trajectory t) {
 		this.t = t;
-		if(t.getDimension() != 2){
+		if(t != null && t.getDimension() != 2){
 			throw new IllegalArgumentException("The fractal dimension feature only supoorts planer (2D) trajetorys"); 
 		}
 	}
 	
 	@Override
 	public double[] evaluate() {
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
+		if(t.getDimension() != 2){
+			throw new IllegalArgumentException("The fractal dimension feature only supoorts planer (2D) trajetorys"); 
+		}
 		double largestDistance = Double.MIN_VALUE;
 		double totalLength = 0;
 		for(int i = 0; i < t.size(); i++){
@@ -58,8 +67,7 @@ public class FractalDimensionFeature extends AbstractTrajectoryFeature{
 		}
 		double n = t.size()-1;
 		double fractalDImension = Math.log(n)/(Math.log(n)+Math.log(largestDistance/totalLength));
-		result = new double[] {fractalDImension};
-		return result;
+		return new double[] {fractalDImension};
 	}
 
 	@Override
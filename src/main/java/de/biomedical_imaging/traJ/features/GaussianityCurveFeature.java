@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.features;
+
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traj.math.DisplacementMomentsCalculator;
+
+/**
+ * Gaussianity (see {@link GaussianityFeauture}) for all timelags in a range. The moments of all timelags
+ * are calculated together by the {@link DisplacementMomentsCalculator}. In contrast to the {@link GaussianityFeauture}, 
+ * the mean squared displacement is estimated from overlapping displacements as well.
+ * 
+ * Returns [i] = Gaussianity for the timelag minTimelag + i
+ * @author Thorsten Wagner 
+ *
+ */
+public class GaussianityCurveFeature extends AbstractTrajectoryFeature {
+	
+	private Trajectory t;
+	private int minTimelag;
+	private int maxTimelag;
+	
+	/**
+	 * @param t The trajectory
+	 * @param minTimelag Minimum timelag as dimensionless interger (1,2,3...)
+	 * @param maxTimelag Maximum timelag as dimensionless interger (1,2,3...)
+	 */
+	public GaussianityCurveFeature(Trajectory t, int minTimelag, int maxTimelag) {
+		this.t = t;
+		this.minTimelag = minTimelag;
+		this.maxTimelag = maxTimelag;
+	}
+
+	@Override
+	public double[] evaluate() {
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
+		DisplacementMomentsCalculator moments = new DisplacementMomentsCalculator(t, minTimelag, maxTimelag);
+		double[] res = new double[maxTimelag - minTimelag + 1];
+		for(int i = 0; i < res.length; i++){
+			res[i] = moments.getGaussianity(minTimelag + i);
+		}
+		return res;
+	}
+
+	@Override
+	public String getName() {
+		return "Gaussianity curve";
+	}
+
+	@Override
+	public String getShortName() {
+		return "GAUSSCURVE";
+	}
+
+	@Override
+	public void setTrajectory(Trajectory t) {
+		this.t = t;
+		result = null;
+	}
+
+}
@@ -51,6 +51,12 @@ public class GaussianityFeauture extends AbstractTrajectoryFeature {
 	}
 	@Override
 	public double[] evaluate() {
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
 		MeanSquaredDisplacmentFeature msdf = new MeanSquaredDisplacmentFeature(t, timelag);
 		QuartricMomentFeature qart = new QuartricMomentFeature(t, timelag);
 		
@@ -76,7 +82,7 @@ public class GaussianityFeauture extends AbstractTrajectoryFeature {
 	@Override
 	public void setTrajectory(Trajectory t) {
 		this.t = t;
-		
+		result = null;
 	}
 
 }
@@ -35,6 +35,12 @@ public class MaxDistanceBetweenTwoPositionsFeature extends AbstractTrajectoryFea
 	
 	@Override
 	public double[] evaluate() {
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
 		double maxDistance = Double.MIN_VALUE;
 		for(int i = 0; i < t.size(); i++){
 			for(int j = i+1; j< t.size(); j++){
@@ -62,6 +68,7 @@ public class MaxDistanceBetweenTwoPositionsFeature extends AbstractTrajectoryFea
 	@Override
 	public void setTrajectory(Trajectory t) {
 		this.t = t;
+		result = null;
 	}
 
 }
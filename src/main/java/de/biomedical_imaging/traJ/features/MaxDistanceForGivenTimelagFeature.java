@@ -35,6 +35,12 @@ public class MaxDistanceForGivenTimelagFeature extends AbstractTrajectoryFeature
 	}
 	@Override
 	public double[] evaluate() {
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
 		double distance = Double.MIN_NORMAL;
 		for(int i = lag; i < t.size(); i++){
 			double d = t.get(i-lag).distance(t.get(i)); 
@@ -60,7 +66,7 @@ public class MaxDistanceForGivenTimelagFeature extends AbstractTrajectoryFeature
 	@Override
 	public void setTrajectory(Trajectory t) {
 		this.t = t;
-		
+		result = null;
 	}
 
 }
@@ -41,6 +41,12 @@ public class MaxDistanceFromStartPointFeature extends AbstractTrajectoryFeature{
 	
 	@Override
 	public double[] evaluate() {
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
 		double maxDist = Double.MIN_VALUE;
 		Point3d start = t.get(0);
 		
@@ -70,7 +76,7 @@ public class MaxDistanceFromStartPointFeature extends AbstractTrajectoryFeature{
 	@Override
 	public void setTrajectory(Trajectory t) {
 		this.t = t;
-		
+		result = null;
 	}
 
 }
@@ -53,6 +53,12 @@ public class MeanSpeedFeature extends AbstractTrajectoryFeature {
 	 * @return Double array where the first element is the mean curvilinear speed and the second the mean straight-line speed.
 	 */
 	public double[] evaluate() {
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
 		double sum = 0;
 		for(int i = 1; i < t.size(); i++){
 			sum += t.get(i-1).distance(t.get(i))/timelag;
@@ -80,8 +86,8 @@ public class MeanSpeedFeature extends AbstractTrajectoryFeature {
 
 	@Override
 	public void setTrajectory(Trajectory t) {
-		// TODO Auto-generated method stub
-		
+		this.t = t;
+		result = null;
 	}
 
 }
@@ -45,8 +45,12 @@ public class MeanSquaredDisplacmentCurvature extends AbstractTrajectoryFeature {
 	
 	@Override
 	public double[] evaluate() {
-		
-		
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
 		int Ndiff = 2;
 		if((int)(t.size()*0.1)>2){
 			Ndiff = (int)(t.size()*0.05);
@@ -60,16 +64,14 @@ public class MeanSquaredDisplacmentCurvature extends AbstractTrajectoryFeature {
 		if(Ndef>t.size()/2){
 			Ndef = t.size()/2;
 		}
-		MeanSquaredDisplacmentFeature msd = new MeanSquaredDisplacmentFeature(t, 1);
+		double[][] msd = new MeanSquaredDisplacmentFeature(t, 1).evaluate(t, 1, Ndef);
 		double sum = 0;
 		for(int i = 1; i <= Ndef; i++){
 			
-			msd.setTimelag(i);
-			sum+= (msd.evaluate()[0] - evaluateMSDLine(i, slope, intercept))/evaluateMSDLine(i, slope, intercept);
+			sum+= (msd[i-1][0] - evaluateMSDLine(i, slope, intercept))/evaluateMSDLine(i, slope, intercept);
 		}
 		double dev = sum/Ndef;
-		result = new double[] {dev};
-		return result;
+		return new double[] {dev};
 	}
 	
 	private double evaluateMSDLine(double v, double slope, double intercept){
@@ -85,6 +87,7 @@ public class MeanSquaredDisplacmentCurvature extends AbstractTrajectoryFeature {
 	@Override
 	public void setTrajectory(Trajectory t) {
 		this.t = t;
+		result = null;
 	}
 
 	@Override
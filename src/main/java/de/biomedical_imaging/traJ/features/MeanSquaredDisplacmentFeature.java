@@ -25,7 +25,7 @@ SOFTWARE.
 package de.biomedical_imaging.traJ.features;
 
 import de.biomedical_imaging.traJ.Trajectory;
-import de.biomedical_imaging.traJ.TrajectoryValidIndexTimelagIterator;
+import de.biomedical_imaging.traj.math.SquaredDisplacementKernel;
 
 /**
  * Calculates the mean squared displacement
@@ -70,6 +70,10 @@ public class MeanSquaredDisplacmentFeature extends AbstractTrajectoryFeature imp
 	 * @return 
 	 */
 	private double[] getMeanSquaredDisplacment(Trajectory t, int timelag){
+		return getMeanSquaredDisplacment(t, t.size() == 1 ? null : new SquaredDisplacementKernel(t), timelag);
+	}
+	
+	private double[] getMeanSquaredDisplacment(Trajectory t, SquaredDisplacementKernel kernel, int timelag){
 		double msd = 0;
 		double[] result = new double[3];
 		if(t.size()==1){
@@ -82,16 +86,9 @@ public class MeanSquaredDisplacmentFeature extends AbstractTrajectoryFeature imp
 		if(timelag<1){
 			throw new IllegalArgumentException("Timelag can not be smaller than 1");
 		}
-		TrajectoryValidIndexTimelagIterator it = new TrajectoryValidIndexTimelagIterator(t, timelag,overlap);
-		int N = 0;
-		while(it.hasNext()){
-			int i = it.next();
-			msd = msd + 
-					Math.pow(t.get(i).getX()-t.get(i+timelag).getX(),2) + 
-					Math.pow(t.get(i).getY()-t.get(i+timelag).getY(),2) +
-					Math.pow(t.get(i).getZ()-t.get(i+timelag).getZ(),2);
-			N++;
-		}
+		double[] sum = kernel.sumSquaredDisplacements(timelag, overlap);
+		msd = sum[0];
+		int N = (int) sum[1];
 		
 		msd = msd/N; 
 		
@@ -106,10 +103,37 @@ public class MeanSquaredDisplacmentFeature extends AbstractTrajectoryFeature imp
 	 * @return Mean squared displacment (in length unit squared) 
 	 */
 	public double[] evaluate() {
-		// TODO Auto-generated method stub
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
 		return getMeanSquaredDisplacment(t, timelag);
 	}
 	
+	/**
+	 * Calculates the MSD for all timelags in [minTimelag, maxTimelag]. The coordinates of the trajectory are 
+	 * copied only once, instead of once per timelag as in a loop over {@link #setTimelag(int)} and {@link #evaluate()}.
+	 * The state of this feature is not changed.
+	 * @param t Trajectory
+	 * @param minTimelag Smallest timelag (>= 1)
+	 * @param maxTimelag Largest timelag
+	 * @return For each timelag (index timelag - minTimelag) the result as returned by {@link #evaluate(Trajectory)}. 
+	 * Empty if maxTimelag < minTimelag.
+	 */
+	public double[][] evaluate(Trajectory t, int minTimelag, int maxTimelag){
+		if(maxTimelag < minTimelag){
+			return new double[0][];
+		}
+		SquaredDisplacementKernel kernel = t.size() == 1 ? null : new SquaredDisplacementKernel(t);
+		double[][] res = new double[maxTimelag - minTimelag + 1][];
+		for(int i = minTimelag; i <= maxTimelag; i++){
+			res[i - minTimelag] = getMeanSquaredDisplacment(t, kernel, i);
+		}
+		return res;
+	}
+	
 	/**
 	 * 
 	 * @return Return the relative variance of MSD according to:
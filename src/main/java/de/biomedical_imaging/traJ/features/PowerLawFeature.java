@@ -44,6 +44,7 @@ public class PowerLawFeature extends AbstractTrajectoryFeature {
 	private int minlag;
 	private int maxlag;
 	private AbstractMeanSquaredDisplacmentEvaluator msdeval;
+	private boolean customMSDEvaluator = false;
 	private int evaluateIndex = 0;
 	private FitMethod fitmethod;
 	private boolean useInitialGuess;
@@ -54,8 +55,6 @@ public class PowerLawFeature extends AbstractTrajectoryFeature {
 		this.t = t;
 		this.minlag = minlag;
 		this.maxlag = maxlag;
-		msdeval = new MeanSquaredDisplacmentFeature(null, 0);
-		((MeanSquaredDisplacmentFeature)msdeval).setOverlap(false);
 		evaluateIndex = 0;
 		fitmethod = FitMethod.SIMPLEX;
 		useInitialGuess = false;
@@ -66,8 +65,6 @@ public class PowerLawFeature extends AbstractTrajectoryFeature {
 		this.t = t;
 		this.minlag = minlag;
 		this.maxlag = maxlag;
-		msdeval = new MeanSquaredDisplacmentFeature(null, 0);
-		((MeanSquaredDisplacmentFeature)msdeval).setOverlap(false);
 		evaluateIndex = 0;
 		this.fitmethod = fitmethod;
 		useInitialGuess = false;
@@ -77,8 +74,6 @@ public class PowerLawFeature extends AbstractTrajectoryFeature {
 		this.t = t;
 		this.minlag = minlag;
 		this.maxlag = maxlag;
-		msdeval = new MeanSquaredDisplacmentFeature(null, 0);
-		((MeanSquaredDisplacmentFeature)msdeval).setOverlap(false);
 		evaluateIndex = 0;
 		this.fitmethod = fitmethod;
 		useInitialGuess = true;
@@ -88,21 +83,36 @@ public class PowerLawFeature extends AbstractTrajectoryFeature {
 	
 	@Override
 	public double[] evaluate() {
-		
-		ArrayList<Double> xDataList = new ArrayList<Double>();
-		ArrayList<Double> yDataList = new ArrayList<Double>();
-		msdeval.setTrajectory(t);
+		result = evaluate(t);
+		return result;
+	}
+	
+	/**
+	 * If no custom MSD evaluator was set, a private one is created for each call,
+	 * so this method can be called concurrently. A custom evaluator is stateful and
+	 * therefore only used by one call at a time.
+	 */
+	@Override
+	public double[] evaluate(Trajectory t) {
+		double[][] msdres;
+		if(customMSDEvaluator){
+			synchronized (msdeval) {
+				msdres = getMSDResults(msdeval, t);
+			}
+		}else{
+			MeanSquaredDisplacmentFeature msd = new MeanSquaredDisplacmentFeature(null, 0);
+			msd.setOverlap(false);
+			msdres = msd.evaluate(t, minlag, maxlag);
+		}
 		double[][] data = new double[maxlag-minlag+1][3];
-
 		for(int i = minlag; i <= maxlag; i++){
-			msdeval.setTimelag(i);
 			data[i-minlag][0] = i*(1.0/30);
-			double[] res = msdeval.evaluate();
-			data[i-minlag][1] = res[evaluateIndex];
-			data[i-minlag][2] = (int)res[2];
-	
-
+			data[i-minlag][1] = msdres[i-minlag][evaluateIndex];
+			data[i-minlag][2] = (int)msdres[i-minlag][2];
 		}
+		
+		ArrayList<Double> xDataList = new ArrayList<Double>();
+		ArrayList<Double> yDataList = new ArrayList<Double>();
 
 		//Weightening
 		for(int i = 0; i < (maxlag-minlag+1); i++){
@@ -130,9 +140,17 @@ public class PowerLawFeature extends AbstractTrajectoryFeature {
 		}else{
 			pwFit.doFit(xData,yData,fitmethod);
 		}
-		result = new double[]{pwFit.getAlpha(),pwFit.getDiffusionCoefficient(),pwFit.getGoodness()};
-		
-		return result;
+		return new double[]{pwFit.getAlpha(),pwFit.getDiffusionCoefficient(),pwFit.getGoodness()};
+	}
+	
+	private double[][] getMSDResults(AbstractMeanSquaredDisplacmentEvaluator msdeval, Trajectory t){
+		msdeval.setTrajectory(t);
+		double[][] res = new double[maxlag-minlag+1][];
+		for(int i = minlag; i <= maxlag; i++){
+			msdeval.setTimelag(i);
+			res[i-minlag] = msdeval.evaluate();
+		}
+		return res;
 	}
 	
 	public void setEvaluateIndex(int evaluateIndex){
@@ -141,6 +159,7 @@ public class PowerLawFeature extends AbstractTrajectoryFeature {
 	
 	public void setMeanSquaredDisplacmentEvaluator(AbstractMeanSquaredDisplacmentEvaluator msdeval){
 		this.msdeval = msdeval;
+		customMSDEvaluator = true;
 	}
 
 	@Override
@@ -38,6 +38,12 @@ public class QuartricMomentFeature extends AbstractTrajectoryFeature {
 	}
 	@Override
 	public double[] evaluate() {
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
 		double sum =0;
 		TrajectoryValidIndexTimelagIterator it = new TrajectoryValidIndexTimelagIterator(t, timelag);
 		int N = 0;
@@ -74,7 +80,7 @@ public class QuartricMomentFeature extends AbstractTrajectoryFeature {
 	@Override
 	public void setTrajectory(Trajectory t) {
 		this.t = t;
-		
+		result = null;
 	}
 
 }
@@ -43,6 +43,12 @@ public class ShortTimeLongTimeDiffusioncoefficentRatio extends AbstractTrajector
 	
 	@Override
 	public double[] evaluate() {
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
 		RegressionDiffusionCoefficientEstimator rgShort = new RegressionDiffusionCoefficientEstimator(1, 1+numberOfPoints);
 		RegressionDiffusionCoefficientEstimator rgLong = new RegressionDiffusionCoefficientEstimator(t.size()/10 - numberOfPoints, t.size()/10);
 		double Dshort = rgShort.getDiffusionCoefficient(t, 1)[0];
@@ -65,7 +71,7 @@ public class ShortTimeLongTimeDiffusioncoefficentRatio extends AbstractTrajector
 	@Override
 	public void setTrajectory(Trajectory t) {
 		this.t = t;
-		
+		result = null;
 	}
 
 }
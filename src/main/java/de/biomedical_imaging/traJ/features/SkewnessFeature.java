@@ -46,6 +46,12 @@ public class SkewnessFeature extends AbstractTrajectoryFeature {
 	
 	@Override
 	public double[] evaluate() {
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
 		MomentsCalculator moments = new MomentsCalculator(t);
 		return new double[] {moments.calculateNthMoment(3)};
 	}
@@ -64,8 +70,8 @@ public class SkewnessFeature extends AbstractTrajectoryFeature {
 
 	@Override
 	public void setTrajectory(Trajectory t) {
-		this.t =t;
-		
+		this.t = t;
+		result = null;
 	}
 
 }
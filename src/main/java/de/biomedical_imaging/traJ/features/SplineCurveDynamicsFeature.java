@@ -60,14 +60,24 @@ public class SplineCurveDynamicsFeature extends AbstractTrajectoryFeature implem
 	
 	@Override
 	public double[] evaluate() {
-		PolynomialSplineFunction spline = null;
 		if(recalculate){
 			splinefit = new TrajectorySplineFit(t,nSegments);
-			spline = splinefit.calculateSpline();
-		}
-		else{
-			spline = splinefit.getSpline();
+			splinefit.calculateSpline();
 		}
+		result = evaluate(t, splinefit);
+		recalculate = false;
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
+		TrajectorySplineFit splinefit = new TrajectorySplineFit(t,nSegments);
+		splinefit.calculateSpline();
+		return evaluate(t, splinefit);
+	}
+	
+	private double[] evaluate(Trajectory t, TrajectorySplineFit splinefit) {
+		PolynomialSplineFunction spline = splinefit.getSpline();
 		if(!splinefit.wasSuccessfull()){
 			return new double[]{Double.NaN,Double.NaN,Double.NaN};
 		}
@@ -94,9 +104,7 @@ public class SplineCurveDynamicsFeature extends AbstractTrajectoryFeature implem
 		//System.out.println("N: " +spline.getN());
 		double msdParallel = sumParallel/N;
 		double msdPerpendicular = sumPerpendicular/N;
-		result = new double[]{msdParallel,msdPerpendicular,N};
-		recalculate = false;
-		return result;
+		return new double[]{msdParallel,msdPerpendicular,N};
 	}
 	
 	public TrajectorySplineFit getTrajectorySplineFitInstance(){
@@ -56,6 +56,16 @@ public class SplineCurveSpatialFeature extends AbstractTrajectoryFeature{
 	 */
 	public double[] evaluate() {
 		splinefit = new TrajectorySplineFit(t,nSegments);
+		result = evaluate(t, splinefit);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
+		return evaluate(t, new TrajectorySplineFit(t,nSegments));
+	}
+	
+	private double[] evaluate(Trajectory t, TrajectorySplineFit splinefit) {
 		splinefit.calculateSpline();
 		if(!splinefit.wasSuccessfull()){
 			return new double[] {Double.NaN,Double.NaN};
@@ -68,10 +78,7 @@ public class SplineCurveSpatialFeature extends AbstractTrajectoryFeature{
 		}
 		Mean m = new Mean();
 		StandardDeviation sd = new StandardDeviation();
-		result = new double[] {m.evaluate(data),sd.evaluate(data)};
-		return result;
-	
-		 
+		return new double[] {m.evaluate(data),sd.evaluate(data)};
 	}
 	
 	public TrajectorySplineFit getTrajectorySplineFitInstance(){
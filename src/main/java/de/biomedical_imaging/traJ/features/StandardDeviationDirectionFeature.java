@@ -24,18 +24,17 @@ SOFTWARE.
 
 package de.biomedical_imaging.traJ.features;
 
-import javax.vecmath.Vector3d;
-
-import org.apache.commons.math3.stat.descriptive.moment.StandardDeviation;
-
 import de.biomedical_imaging.traJ.Trajectory;
-import de.biomedical_imaging.traJ.TrajectoryUtil;
+import de.biomedical_imaging.traj.math.TurningAngleCalculator;
 
 /**
  * Implements the standard deviation of the trajectory direction according to 
  * [1] D. Arcizet, B. Meier, E. Sackmann, J. O. Rädler, and D. Heinrich, 
  * “Temporal analysis of active and passive transport in living cells,” 
  * Phys. Rev. Lett., vol. 101, no. 24, p. 248103, Dec. 2008.
+ * 
+ * It is the standard deviation of the angles between the steps i and i+timelag 
+ * (see {@link TurningAngleCalculator}).
  * @author Thorsten Wagner
  *
  */
@@ -50,40 +49,15 @@ public class StandardDeviationDirectionFeature extends AbstractTrajectoryFeature
 	
 	@Override
 	public double[] evaluate() {
-		StandardDeviation sd = new StandardDeviation();
-		double[] values = new double[t.size()-timelag];
-		double subx = 0;
-		double suby = 0;
-		double subz = 0;
-
-		for(int i = timelag+1; i < t.size(); i++){
-			
-				subx = t.get(i-timelag-1).x;
-				suby = t.get(i-timelag-1).y;
-				subz = t.get(i-timelag-1).z;
-			
-			Vector3d v1 = new Vector3d(t.get(i-timelag).x-subx,t.get(i-timelag).y-suby,t.get(i-timelag).z-subz);
-			
-			subx = t.get(i-1).x;
-			suby = t.get(i-1).y;
-			subz = t.get(i-1).z;
-			Vector3d v2 = new Vector3d(t.get(i).x-subx,t.get(i).y-suby,t.get(i).z-subz);
-		
-			double v = v1.angle(v2);
-			boolean v1IsZero = TrajectoryUtil.isZero(v1.x) && TrajectoryUtil.isZero(v1.y) && TrajectoryUtil.isZero(v1.z);  
-			boolean v2IsZero = TrajectoryUtil.isZero(v2.x) && TrajectoryUtil.isZero(v2.y) && TrajectoryUtil.isZero(v2.z);  
-			if(v1IsZero || v2IsZero){
-				v = 0;
-			}
-		
-			values[i-timelag] = v;
-			//System.out.println("da " + v1.angle(v2));
-		}
-	
-		sd.setData(values);
-		result = new double[]{sd.evaluate()};
+		result = evaluate(t);
 		return result;
 	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
+		TurningAngleCalculator angles = new TurningAngleCalculator(t, timelag, timelag);
+		return new double[]{angles.getStandardDeviation(timelag)};
+	}
 
 	@Override
 	public String getName() {
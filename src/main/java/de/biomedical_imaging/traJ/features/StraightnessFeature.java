@@ -38,11 +38,20 @@ public class StraightnessFeature extends AbstractTrajectoryFeature {
 	
 	@Override
 	public double[] evaluate() {
-		
-		return new double[]{getStraightness()};
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
+		return new double[]{getStraightness(t)};
 	}
 	
 	public double getStraightness(){
+		return getStraightness(t);
+	}
+	
+	private static double getStraightness(Trajectory t){
 		double sum = 0;
 		for(int i = 1; i < t.size(); i++){
 			sum += t.get(i).distance(t.get(i-1));
@@ -69,7 +78,7 @@ public class StraightnessFeature extends AbstractTrajectoryFeature {
 	@Override
 	public void setTrajectory(Trajectory t) {
 		this.t = t;
-		
+		result = null;
 	}
 
 }
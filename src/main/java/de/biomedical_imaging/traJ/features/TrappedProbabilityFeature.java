@@ -51,6 +51,12 @@ public class TrappedProbabilityFeature extends AbstractTrajectoryFeature{
 	
 	@Override
 	public double[] evaluate() {
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
 		MaxDistanceBetweenTwoPositionsFeature dtwop = new MaxDistanceBetweenTwoPositionsFeature(t);
 		double r = dtwop.evaluate()[0]/2;
 		
@@ -77,7 +83,7 @@ public class TrappedProbabilityFeature extends AbstractTrajectoryFeature{
 	@Override
 	public void setTrajectory(Trajectory t) {
 		this.t = t;
-		
+		result = null;
 	}
 
 }
@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.features;
+
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traj.math.DisplacementCorrelationCalculator;
+
+/**
+ * Normalized velocity autocorrelation function C(L)/C(0) with C(L) = &lt;v_i . v_(i+L)&gt;, where the velocity 
+ * v_i is estimated by the displacement between the positions i and i+timelag. Anticorrelated (e.g. viscoelastic) motion shows 
+ * negative values for L = timelag, free diffusion zero values for L >= timelag.
+ * 
+ * Returns [L] = C(L)/C(0) for L = 0..maxLag (see {@link DisplacementCorrelationCalculator})
+ * @author Thorsten Wagner
+ *
+ */
+public class VelocityAutocorrelationFeature extends AbstractTrajectoryFeature {
+	
+	private Trajectory t;
+	private int timelag;
+	private int maxLag;
+	
+	/**
+	 * @param t Trajectory
+	 * @param timelag Timelag which is used to estimate the velocity (>= 1)
+	 * @param maxLag Maximum lag between two velocities
+	 */
+	public VelocityAutocorrelationFeature(Trajectory t, int timelag, int maxLag) {
+		this.t = t;
+		this.timelag = timelag;
+		this.maxLag = maxLag;
+	}
+
+	@Override
+	public double[] evaluate() {
+		result = evaluate(t);
+		return result;
+	}
+	
+	@Override
+	public double[] evaluate(Trajectory t) {
+		DisplacementCorrelationCalculator corr = new DisplacementCorrelationCalculator(timelag, maxLag);
+		corr.add(t);
+		double[] res = new double[maxLag + 1];
+		for(int l = 0; l <= maxLag; l++){
+			res[l] = corr.getNormalizedCorrelation(l);
+		}
+		return res;
+	}
+	
+	public void setTimelag(int timelag){
+		this.timelag = timelag;
+	}
+
+	@Override
+	public String getName() {
+		return "Velocity autocorrelation-dt-"+timelag;
+	}
+
+	@Override
+	public String getShortName() {
+		return "VACF";
+	}
+
+	@Override
+	public void setTrajectory(Trajectory t) {
+		this.t = t;
+		result = null;
+	}
+
+}
@@ -0,0 +1,169 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.features.AbstractTrajectoryFeature;
+
+/**
+ * Sink for feature tables. Each row belongs to a trajectory (identified by its id) and contains
+ * the flattened results of a set of features. Rows are written as soon as they are appended, 
+ * so that the whole table never has to be kept in memory.
+ * 
+ * The columns are either given on construction or derived from the first row which is written with 
+ * {@link #writeRow(Trajectory, List)}: A feature with a single value results in a column named by its short name, 
+ * a feature with k values in the columns SHORTNAME_0 ... SHORTNAME_k-1.
+ * @author Thorsten Wagner
+ *
+ */
+public abstract class AbstractFeatureTableWriter implements Closeable {
+	
+	private String[] columns;
+	private double[] row;
+	private long numberOfRows;
+	
+	/**
+	 * The columns are derived from the first row.
+	 */
+	public AbstractFeatureTableWriter() {
+		columns = null;
+	}
+	
+	/**
+	 * @param columns Names of the columns (without the id column)
+	 */
+	public AbstractFeatureTableWriter(String[] columns) {
+		this.columns = columns.clone();
+	}
+	
+	/**
+	 * Is called once before the first row is written.
+	 * @param columns Names of the columns (without the id column)
+	 */
+	protected abstract void writeHeader(String[] columns) throws IOException;
+	
+	/**
+	 * @param id Trajectory id
+	 * @param values One value per column
+	 */
+	protected abstract void appendRow(long id, double[] values) throws IOException;
+	
+	/**
+	 * Appends a row.
+	 * @param id Trajectory id
+	 * @param values One value per column
+	 * @throws IOException
+	 */
+	public void writeRow(long id, double[] values) throws IOException {
+		if(columns == null){
+			throw new IllegalStateException("The columns are unknown. Write the first row with writeRow(Trajectory, List) or specify the columns.");
+		}
+		if(values.length != columns.length){
+			throw new IllegalArgumentException("Expected " + columns.length + " values but got " + values.length);
+		}
+		if(numberOfRows == 0){
+			writeHeader(columns);
+		}
+		appendRow(id, values);
+		numberOfRows++;
+	}
+	
+	/**
+	 * Evaluates the features for the trajectory and appends the results as row.
+	 * @param t Trajectory
+	 * @param features Features which are evaluated for t
+	 * @throws IOException
+	 */
+	public void writeRow(Trajectory t, List<? extends AbstractTrajectoryFeature> features) throws IOException {
+		ArrayList<double[]> results = new ArrayList<double[]>(features.size());
+		int n = 0;
+		for (AbstractTrajectoryFeature f : features) {
+			double[] res = f.evaluate(t);
+			results.add(res);
+			n += res.length;
+		}
+		if(columns == null){
+			columns = getColumnNames(features, results);
+		}
+		if(row == null || row.length != n){
+			row = new double[n];
+		}
+		int k = 0;
+		for (double[] res : results) {
+			System.arraycopy(res, 0, row, k, res.length);
+			k += res.length;
+		}
+		writeRow(t.getID(), row);
+	}
+	
+	/**
+	 * Writes a row for each trajectory.
+	 * @param tracks Batch of trajectories
+	 * @param features Features which are evaluated for each trajectory
+	 * @throws IOException
+	 */
+	public void writeRows(List<? extends Trajectory> tracks, List<? extends AbstractTrajectoryFeature> features) throws IOException {
+		for (Trajectory t : tracks) {
+			writeRow(t, features);
+		}
+	}
+	
+	private static String[] getColumnNames(List<? extends AbstractTrajectoryFeature> features, List<double[]> results){
+		ArrayList<String> names = new ArrayList<String>();
+		for(int i = 0; i < features.size(); i++){
+			String sname = features.get(i).getShortName();
+			int n = results.get(i).length;
+			if(n == 1){
+				names.add(sname);
+			}
+			else{
+				for(int j = 0; j < n; j++){
+					names.add(sname + "_" + j);
+				}
+			}
+		}
+		return names.toArray(new String[0]);
+	}
+	
+	/**
+	 * @return Names of the columns (without the id column) or null, if no row was written yet.
+	 */
+	public String[] getColumns(){
+		return columns == null ? null : columns.clone();
+	}
+	
+	/**
+	 * @return Number of rows written so far
+	 */
+	public long getNumberOfRows(){
+		return numberOfRows;
+	}
+
+}
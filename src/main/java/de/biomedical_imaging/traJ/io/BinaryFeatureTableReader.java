@@ -0,0 +1,172 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Reads feature tables written by {@link BinaryFeatureTableWriter}.
+ * @author Thorsten Wagner
+ *
+ */
+public class BinaryFeatureTableReader implements Closeable {
+	
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private String[] columns;
+	private long numberOfRows;
+	private long numberOfRowGroups;
+	private long dataOffset;
+	
+	/**
+	 * @param f Binary feature table
+	 * @throws IOException
+	 */
+	public BinaryFeatureTableReader(File f) throws IOException {
+		file = new RandomAccessFile(f, "r");
+		channel = file.getChannel();
+		try{
+			ByteBuffer header = read(0, 32);
+			byte[] magic = new byte[8];
+			header.get(magic);
+			if(!Arrays.equals(magic, BinaryFeatureTableWriter.MAGIC)){
+				throw new IOException("File is not a binary feature table");
+			}
+			int version = header.getInt();
+			if(version != BinaryFeatureTableWriter.VERSION){
+				throw new IOException("Unsupported feature table version: " + version);
+			}
+			columns = new String[header.getInt()];
+			numberOfRows = header.getLong();
+			numberOfRowGroups = header.getLong();
+			long pos = 32;
+			for(int i = 0; i < columns.length; i++){
+				int len = read(pos, 4).getInt();
+				ByteBuffer name = read(pos+4, len);
+				byte[] b = new byte[len];
+				name.get(b);
+				columns[i] = new String(b, BinaryFeatureTableWriter.UTF8);
+				pos += 4 + len;
+			}
+			dataOffset = (pos + 7) & ~7L;
+		}
+		catch(IOException e){
+			close();
+			throw e;
+		}
+	}
+	
+	private ByteBuffer read(long pos, int n) throws IOException {
+		ByteBuffer b = ByteBuffer.allocate(n).order(BinaryFeatureTableWriter.BYTE_ORDER);
+		while(b.hasRemaining()){
+			if(channel.read(b, pos + b.position()) < 0){
+				throw new IOException("Unexpected end of file");
+			}
+		}
+		b.flip();
+		return b;
+	}
+	
+	/**
+	 * @return Names of the columns (without the id column)
+	 */
+	public String[] getColumns(){
+		return columns.clone();
+	}
+	
+	/**
+	 * @return Number of rows
+	 */
+	public long getNumberOfRows(){
+		return numberOfRows;
+	}
+	
+	/**
+	 * Reads the trajectory ids of all rows.
+	 * @return Trajectory ids
+	 * @throws IOException
+	 */
+	public long[] readIds() throws IOException {
+		long[] ids = new long[checkedNumberOfRows()];
+		long pos = dataOffset;
+		int k = 0;
+		for(long g = 0; g < numberOfRowGroups; g++){
+			int rows = read(pos, 8).getInt();
+			ByteBuffer b = read(pos + 8, 8*rows);
+			for(int i = 0; i < rows; i++){
+				ids[k++] = b.getLong();
+			}
+			pos += 8 + 8L*rows*(columns.length+1);
+		}
+		return ids;
+	}
+	
+	/**
+	 * Reads a single column. Only the values of this column are read from the file.
+	 * @param name Column name
+	 * @return Values of all rows
+	 * @throws IOException
+	 */
+	public double[] readColumn(String name) throws IOException {
+		int c = Arrays.asList(columns).indexOf(name);
+		if(c < 0){
+			throw new IllegalArgumentException("No column with name " + name);
+		}
+		double[] values = new double[checkedNumberOfRows()];
+		long pos = dataOffset;
+		int k = 0;
+		for(long g = 0; g < numberOfRowGroups; g++){
+			int rows = read(pos, 8).getInt();
+			ByteBuffer b = read(pos + 8 + 8L*rows*(c+1), 8*rows);
+			for(int i = 0; i < rows; i++){
+				values[k++] = b.getDouble();
+			}
+			pos += 8 + 8L*rows*(columns.length+1);
+		}
+		return values;
+	}
+	
+	private int checkedNumberOfRows(){
+		if(numberOfRows > Integer.MAX_VALUE){
+			throw new IllegalStateException("Table has too many rows to be read into a single array");
+		}
+		return (int) numberOfRows;
+	}
+
+	public void close() throws IOException {
+		if(channel != null){
+			channel.close();
+			file.close();
+			channel = null;
+		}
+	}
+
+}
@@ -0,0 +1,206 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Writes a feature table into a compact columnar binary file. The rows are collected in
+ * row groups of a fixed size. Each complete row group is written column by column
+ * with a single buffered NIO write, so that only one row group is kept in memory.
+ * 
+ * Layout (little endian):
+ * <pre>
+ *  8 bytes   magic "TRAJFTB\0"
+ *  int       version
+ *  int       number of columns C
+ *  long      number of rows
+ *  long      number of row groups
+ *  C times   int length + UTF-8 bytes of the column name, padded to 8 bytes
+ *  row groups: int number of rows R, int reserved, R longs (trajectory ids), C times R doubles
+ * </pre>
+ * The files can be read with {@link BinaryFeatureTableReader}.
+ * @author Thorsten Wagner
+ *
+ */
+public class BinaryFeatureTableWriter extends AbstractFeatureTableWriter {
+	
+	static final byte[] MAGIC = {'T','R','A','J','F','T','B',0};
+	static final int VERSION = 1;
+	static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+	static final Charset UTF8 = Charset.forName("UTF-8");
+	
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private int rowGroupSize;
+	private int rowsInGroup;
+	private long[] ids;
+	private double[][] data;
+	private ByteBuffer buffer;
+	private long numberOfRowGroups;
+	private boolean headerWritten;
+	
+	/**
+	 * Creates a writer which derives the columns from the first row. 
+	 * @param f Output file. An existing file will be overwritten.
+	 * @throws IOException
+	 */
+	public BinaryFeatureTableWriter(File f) throws IOException {
+		super();
+		init(f, 4096);
+	}
+	
+	/**
+	 * @param f Output file. An existing file will be overwritten.
+	 * @param columns Names of the columns (without the id column)
+	 * @param rowGroupSize Number of rows per row group
+	 * @throws IOException
+	 */
+	public BinaryFeatureTableWriter(File f, String[] columns, int rowGroupSize) throws IOException {
+		super(columns);
+		init(f, rowGroupSize);
+	}
+	
+	private void init(File f, int rowGroupSize) throws IOException {
+		if(rowGroupSize < 1){
+			throw new IllegalArgumentException("The row group size has to be positive");
+		}
+		this.rowGroupSize = rowGroupSize;
+		file = new RandomAccessFile(f, "rw");
+		file.setLength(0);
+		channel = file.getChannel();
+		headerWritten = false;
+	}
+
+	@Override
+	protected void writeHeader(String[] columns) throws IOException {
+		int size = 32;
+		byte[][] names = new byte[columns.length][];
+		for(int i = 0; i < columns.length; i++){
+			names[i] = columns[i].getBytes(UTF8);
+			size += 4 + names[i].length;
+		}
+		size = (size + 7) & ~7;
+		ByteBuffer header = ByteBuffer.allocate(size).order(BYTE_ORDER);
+		header.put(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(columns.length);
+		header.putLong(0); //Number of rows, written on close
+		header.putLong(0); //Number of row groups, written on close
+		for (byte[] name : names) {
+			header.putInt(name.length);
+			header.put(name);
+		}
+		header.position(0);
+		write(header);
+		
+		ids = new long[rowGroupSize];
+		data = new double[columns.length][rowGroupSize];
+		buffer = ByteBuffer.allocateDirect(8 + 8*rowGroupSize*(columns.length+1)).order(BYTE_ORDER);
+		rowsInGroup = 0;
+		headerWritten = true;
+	}
+
+	@Override
+	protected void appendRow(long id, double[] values) throws IOException {
+		ids[rowsInGroup] = id;
+		for(int c = 0; c < values.length; c++){
+			data[c][rowsInGroup] = values[c];
+		}
+		rowsInGroup++;
+		if(rowsInGroup == rowGroupSize){
+			flush();
+		}
+	}
+	
+	/**
+	 * Writes the current (incomplete) row group.
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		if(rowsInGroup == 0){
+			return;
+		}
+		buffer.clear();
+		buffer.putInt(rowsInGroup);
+		buffer.putInt(0);
+		for(int i = 0; i < rowsInGroup; i++){
+			buffer.putLong(ids[i]);
+		}
+		for(int c = 0; c < data.length; c++){
+			double[] column = data[c];
+			for(int i = 0; i < rowsInGroup; i++){
+				buffer.putDouble(column[i]);
+			}
+		}
+		buffer.flip();
+		write(buffer);
+		numberOfRowGroups++;
+		rowsInGroup = 0;
+	}
+	
+	private void write(ByteBuffer b) throws IOException {
+		while(b.hasRemaining()){
+			channel.write(b);
+		}
+	}
+
+	/**
+	 * Writes the remaining rows, updates the header and closes the file.
+	 */
+	public void close() throws IOException {
+		if(channel == null){
+			return;
+		}
+		try{
+			if(!headerWritten && getColumns() != null){
+				writeHeader(getColumns());
+			}
+			if(headerWritten){
+				flush();
+				ByteBuffer counts = ByteBuffer.allocate(16).order(BYTE_ORDER);
+				counts.putLong(getNumberOfRows());
+				counts.putLong(numberOfRowGroups);
+				counts.flip();
+				long pos = 16;
+				while(counts.hasRemaining()){
+					pos += channel.write(counts, pos);
+				}
+			}
+		}
+		finally{
+			channel.close();
+			file.close();
+			channel = null;
+		}
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.io;
+
+import java.nio.ByteOrder;
+
+/**
+ * Describes the layout of the binary trajectory file format written by {@link BinaryTrajectoryWriter}
+ * and read by {@link BinaryTrajectoryReader}. All values are little endian.
+ * 
+ * Header (64 bytes):
+ * <pre>
+ *  [0]  8 bytes  magic "TRAJBIN\0"
+ *  [8]  int      version
+ *  [12] int      flags (bit 0: coordinates are stored as float32)
+ *  [16] long     number of trajectories
+ *  [24] long     offset of the track index
+ *  [32] long     total number of positions (including gaps)
+ *  [40] reserved
+ * </pre>
+ * Track block (8 byte aligned):
+ * <pre>
+ *  long   id
+ *  int    dimension
+ *  int    relative start timepoint
+ *  int    number of positions N
+ *  int    length of the type string in bytes (UTF-8)
+ *  bytes  type string, padded to 8 bytes
+ *  bytes  validity bitmap (bit i is set when position i is not a gap), padded to 8 bytes
+ *  column x, column y, column z: N float64 / float32 values each, padded to 8 bytes. 
+ *         Only the first max(1,min(3,dimension)) columns are stored.
+ * </pre>
+ * Track index: one long offset per trajectory, pointing to the start of its track block.
+ * @author Thorsten Wagner
+ *
+ */
+final class BinaryTrajectoryFormat {
+	
+	static final byte[] MAGIC = {'T','R','A','J','B','I','N',0};
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 64;
+	static final int FLAG_FLOAT32 = 1;
+	static final int TRACK_HEADER_SIZE = 24;
+	static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+	
+	private BinaryTrajectoryFormat() {
+	}
+	
+	static long pad8(long v){
+		return (v + 7) & ~7L;
+	}
+	
+	static int numberOfColumns(int dimension){
+		return Math.max(1, Math.min(3, dimension));
+	}
+	
+	static long bitmapSize(int n){
+		return pad8((n + 7)/8);
+	}
+	
+	static long columnSize(int n, boolean float32){
+		return pad8((long)n*(float32?4:8));
+	}
+
+}
@@ -0,0 +1,233 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import de.biomedical_imaging.traJ.Trajectory;
+
+/**
+ * Reads binary trajectory files (see {@link BinaryTrajectoryFormat}) by memory mapping them with
+ * {@link FileChannel#map(MapMode, long, long)}. The trajectories are returned as {@link MappedTrajectory} views,
+ * which read their positions directly from the mapped file. Therefore, files much larger than the heap
+ * can be analyzed with the usual features and estimators.
+ * 
+ * Since a single mapping is limited to 2 GB, the file is mapped in several segments. Each segment
+ * contains complete track blocks. The views remain valid after the reader was closed.
+ * @author Thorsten Wagner
+ *
+ */
+public class BinaryTrajectoryReader implements Closeable, Iterable<Trajectory> {
+	
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final long MAX_SEGMENT_SIZE = 1L << 30;
+	
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private boolean float32;
+	private int numberOfTrajectories;
+	private long numberOfPositions;
+	private long[] offsets;
+	private long[] segmentStarts;
+	private ArrayList<MappedByteBuffer> segments;
+	
+	/**
+	 * Opens the file and maps it into memory.
+	 * @param f Binary trajectory file
+	 * @throws IOException If the file is not a valid binary trajectory file
+	 */
+	public BinaryTrajectoryReader(File f) throws IOException {
+		file = new RandomAccessFile(f, "r");
+		channel = file.getChannel();
+		try{
+			readHeaderAndIndex();
+			mapSegments();
+		}
+		catch(IOException e){
+			close();
+			throw e;
+		}
+	}
+	
+	private void readHeaderAndIndex() throws IOException {
+		if(channel.size() < BinaryTrajectoryFormat.HEADER_SIZE){
+			throw new IOException("File is too small to be a binary trajectory file");
+		}
+		ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, BinaryTrajectoryFormat.HEADER_SIZE).order(BinaryTrajectoryFormat.BYTE_ORDER);
+		byte[] magic = new byte[BinaryTrajectoryFormat.MAGIC.length];
+		header.get(magic);
+		if(!Arrays.equals(magic, BinaryTrajectoryFormat.MAGIC)){
+			throw new IOException("File is not a binary trajectory file");
+		}
+		int version = header.getInt();
+		if(version != BinaryTrajectoryFormat.VERSION){
+			throw new IOException("Unsupported binary trajectory file version: " + version);
+		}
+		int flags = header.getInt();
+		float32 = (flags & BinaryTrajectoryFormat.FLAG_FLOAT32) != 0;
+		long ntracks = header.getLong();
+		long indexOffset = header.getLong();
+		numberOfPositions = header.getLong();
+		if(ntracks > Integer.MAX_VALUE || indexOffset + 8*ntracks > channel.size()){
+			throw new IOException("Corrupted track index");
+		}
+		numberOfTrajectories = (int) ntracks;
+		offsets = new long[numberOfTrajectories+1];
+		if(numberOfTrajectories > 0){
+			ByteBuffer index = channel.map(MapMode.READ_ONLY, indexOffset, 8L*numberOfTrajectories).order(BinaryTrajectoryFormat.BYTE_ORDER);
+			for(int i = 0; i < numberOfTrajectories; i++){
+				offsets[i] = index.getLong();
+			}
+		}
+		offsets[numberOfTrajectories] = indexOffset; //End of the last track block
+	}
+	
+	/*
+	 * Groups consecutive track blocks into segments which are smaller than MAX_SEGMENT_SIZE
+	 */
+	private void mapSegments() throws IOException {
+		segments = new ArrayList<MappedByteBuffer>();
+		ArrayList<Long> starts = new ArrayList<Long>();
+		int i = 0;
+		while(i < numberOfTrajectories){
+			long start = offsets[i];
+			int j = i+1;
+			while(j < numberOfTrajectories && offsets[j+1]-start <= MAX_SEGMENT_SIZE){
+				j++;
+			}
+			long size = offsets[j]-start;
+			if(size > Integer.MAX_VALUE){
+				throw new IOException("Track block of trajectory " + i + " is too large to be mapped");
+			}
+			MappedByteBuffer seg = channel.map(MapMode.READ_ONLY, start, size);
+			seg.order(BinaryTrajectoryFormat.BYTE_ORDER);
+			segments.add(seg);
+			starts.add(start);
+			i = j;
+		}
+		segmentStarts = new long[starts.size()];
+		for(int k = 0; k < segmentStarts.length; k++){
+			segmentStarts[k] = starts.get(k);
+		}
+	}
+	
+	/**
+	 * @return Number of trajectories in the file
+	 */
+	public int getNumberOfTrajectories(){
+		return numberOfTrajectories;
+	}
+	
+	/**
+	 * @return Total number of positions (including gaps) in the file
+	 */
+	public long getNumberOfPositions(){
+		return numberOfPositions;
+	}
+	
+	/**
+	 * @return True if the coordinates are stored with single precision
+	 */
+	public boolean isSinglePrecision(){
+		return float32;
+	}
+	
+	/**
+	 * @param i Index of the trajectory in the file (0 <= i < number of trajectories)
+	 * @return Zero-copy view on the i-th trajectory
+	 */
+	public MappedTrajectory getTrajectory(int i){
+		if(i < 0 || i >= numberOfTrajectories){
+			throw new IndexOutOfBoundsException("Index: "+i+", Number of trajectories: "+numberOfTrajectories);
+		}
+		int s = Arrays.binarySearch(segmentStarts, offsets[i]);
+		if(s < 0){
+			s = -s - 2;
+		}
+		ByteBuffer seg = segments.get(s).duplicate().order(BinaryTrajectoryFormat.BYTE_ORDER);
+		int base = (int) (offsets[i]-segmentStarts[s]);
+		
+		long id = seg.getLong(base);
+		int dimension = seg.getInt(base+8);
+		int start = seg.getInt(base+12);
+		int n = seg.getInt(base+16);
+		int typeLength = seg.getInt(base+20);
+		byte[] type = new byte[typeLength];
+		for(int k = 0; k < typeLength; k++){
+			type[k] = seg.get(base + BinaryTrajectoryFormat.TRACK_HEADER_SIZE + k);
+		}
+		int bitmapOffset = (int) (base + BinaryTrajectoryFormat.TRACK_HEADER_SIZE + BinaryTrajectoryFormat.pad8(typeLength));
+		int columnOffset = (int) (bitmapOffset + BinaryTrajectoryFormat.bitmapSize(n));
+		return new MappedTrajectory(seg, id, dimension, start, new String(type, UTF8), n, bitmapOffset, columnOffset, float32);
+	}
+	
+	/**
+	 * Iterates over all trajectories in the file order.
+	 */
+	public Iterator<Trajectory> iterator() {
+		return new Iterator<Trajectory>() {
+			int next = 0;
+			
+			public boolean hasNext() {
+				return next < numberOfTrajectories;
+			}
+
+			public Trajectory next() {
+				if(!hasNext()){
+					throw new NoSuchElementException();
+				}
+				return getTrajectory(next++);
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Closes the file channel. Already mapped trajectories remain readable.
+	 */
+	public void close() throws IOException {
+		if(channel != null){
+			channel.close();
+			file.close();
+			channel = null;
+		}
+	}
+
+}
@@ -0,0 +1,257 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.simulation.AbstractSimulator;
+
+/**
+ * Writes trajectories one after another into the binary trajectory format (see {@link BinaryTrajectoryFormat}).
+ * Only the current trajectory and a fixed size write buffer are kept in memory, so that simulations
+ * and analysis pipelines can stream arbitrary many trajectories to disk. The track index and the header
+ * are written when the writer is closed.
+ * @author Thorsten Wagner
+ *
+ */
+public class BinaryTrajectoryWriter implements Closeable {
+	
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private FileChannel channel;
+	private RandomAccessFile file;
+	private ByteBuffer buffer;
+	private boolean float32;
+	private long position;
+	private long[] offsets;
+	private int numberOfTrajectories;
+	private long numberOfPositions;
+	
+	/**
+	 * Creates a writer which stores the coordinates as float64.
+	 * @param f Output file. An existing file will be overwritten.
+	 * @throws IOException
+	 */
+	public BinaryTrajectoryWriter(File f) throws IOException {
+		this(f, false);
+	}
+	
+	/**
+	 * @param f Output file. An existing file will be overwritten.
+	 * @param float32 True if the coordinates should be stored with single precision.
+	 * @throws IOException
+	 */
+	public BinaryTrajectoryWriter(File f, boolean float32) throws IOException {
+		this.float32 = float32;
+		file = new RandomAccessFile(f, "rw");
+		file.setLength(0);
+		channel = file.getChannel();
+		buffer = ByteBuffer.allocateDirect(1 << 20).order(BinaryTrajectoryFormat.BYTE_ORDER);
+		offsets = new long[1024];
+		numberOfTrajectories = 0;
+		numberOfPositions = 0;
+		
+		//Header is written on close
+		buffer.put(new byte[BinaryTrajectoryFormat.HEADER_SIZE]);
+		position = BinaryTrajectoryFormat.HEADER_SIZE;
+	}
+	
+	/**
+	 * Appends a trajectory. Gaps (null positions) are stored in the validity bitmap.
+	 * @param t Trajectory to write
+	 * @throws IOException
+	 */
+	public void write(Trajectory t) throws IOException {
+		ensureOpen();
+		if(numberOfTrajectories==offsets.length){
+			offsets = Arrays.copyOf(offsets, offsets.length*2);
+		}
+		offsets[numberOfTrajectories++] = position;
+		
+		int n = t.size();
+		byte[] type = t.getType()==null ? new byte[0] : t.getType().getBytes(UTF8);
+		putLong(t.getID());
+		putInt(t.getDimension());
+		putInt(t.getRelativeStartTimepoint());
+		putInt(n);
+		putInt(type.length);
+		for(int i = 0; i < type.length; i++){
+			putByte(type[i]);
+		}
+		padTo8();
+		
+		//Validity bitmap
+		int bits = 0;
+		for(int i = 0; i < n; i++){
+			if(t.isValid(i)){
+				bits |= 1 << (i & 7);
+			}
+			if((i & 7) == 7){
+				putByte((byte)bits);
+				bits = 0;
+			}
+		}
+		if((n & 7) != 0){
+			putByte((byte)bits);
+		}
+		padTo8();
+		
+		//Coordinate columns
+		int ncol = BinaryTrajectoryFormat.numberOfColumns(t.getDimension());
+		for(int c = 0; c < ncol; c++){
+			for(int i = 0; i < n; i++){
+				double v = 0;
+				if(t.isValid(i)){
+					v = c==0 ? t.getX(i) : (c==1 ? t.getY(i) : t.getZ(i));
+				}
+				if(float32){
+					putFloat((float)v);
+				}
+				else{
+					putDouble(v);
+				}
+			}
+			padTo8();
+		}
+		numberOfPositions += n;
+	}
+	
+	/**
+	 * Generates a number of trajectories with the simulator and streams them into the file.
+	 * @param sim Simulator
+	 * @param numberOfTrajectories Number of trajectories to generate
+	 * @throws IOException
+	 */
+	public void write(AbstractSimulator sim, int numberOfTrajectories) throws IOException {
+		for(int i = 0; i < numberOfTrajectories; i++){
+			write(sim.generateTrajectory());
+		}
+	}
+	
+	/**
+	 * @return Number of trajectories written so far
+	 */
+	public int getNumberOfTrajectories(){
+		return numberOfTrajectories;
+	}
+	
+	/**
+	 * Writes the track index and the header and closes the file.
+	 */
+	public void close() throws IOException {
+		if(channel == null){
+			return;
+		}
+		try{
+			long indexOffset = position;
+			for(int i = 0; i < numberOfTrajectories; i++){
+				putLong(offsets[i]);
+			}
+			flush();
+			
+			ByteBuffer header = ByteBuffer.allocate(BinaryTrajectoryFormat.HEADER_SIZE).order(BinaryTrajectoryFormat.BYTE_ORDER);
+			header.put(BinaryTrajectoryFormat.MAGIC);
+			header.putInt(BinaryTrajectoryFormat.VERSION);
+			header.putInt(float32 ? BinaryTrajectoryFormat.FLAG_FLOAT32 : 0);
+			header.putLong(numberOfTrajectories);
+			header.putLong(indexOffset);
+			header.putLong(numberOfPositions);
+			header.position(0);
+			long pos = 0;
+			while(header.hasRemaining()){
+				pos += channel.write(header, pos);
+			}
+		}
+		finally{
+			channel.close();
+			file.close();
+			channel = null;
+		}
+	}
+	
+	private void ensureOpen() throws IOException {
+		if(channel == null){
+			throw new IOException("Writer is already closed");
+		}
+	}
+	
+	private void flush() throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()){
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+	
+	private void ensureRemaining(int n) throws IOException {
+		if(buffer.remaining() < n){
+			flush();
+		}
+	}
+	
+	private void putByte(byte v) throws IOException {
+		ensureRemaining(1);
+		buffer.put(v);
+		position++;
+	}
+	
+	private void putInt(int v) throws IOException {
+		ensureRemaining(4);
+		buffer.putInt(v);
+		position += 4;
+	}
+	
+	private void putLong(long v) throws IOException {
+		ensureRemaining(8);
+		buffer.putLong(v);
+		position += 8;
+	}
+	
+	private void putFloat(float v) throws IOException {
+		ensureRemaining(4);
+		buffer.putFloat(v);
+		position += 4;
+	}
+	
+	private void putDouble(double v) throws IOException {
+		ensureRemaining(8);
+		buffer.putDouble(v);
+		position += 8;
+	}
+	
+	private void padTo8() throws IOException {
+		while((position & 7) != 0){
+			putByte((byte)0);
+		}
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.io;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * Writes a feature table as CSV file. The first column contains the trajectory id.
+ * @author Thorsten Wagner
+ *
+ */
+public class CSVFeatureTableWriter extends AbstractFeatureTableWriter {
+	
+	private Writer writer;
+	private char delimiter;
+	private StringBuilder line;
+	
+	/**
+	 * @param f Output file
+	 * @param delimiter Column delimiter
+	 * @throws IOException
+	 */
+	public CSVFeatureTableWriter(File f, char delimiter) throws IOException {
+		super();
+		init(new OutputStreamWriter(new FileOutputStream(f), Charset.forName("UTF-8")), delimiter);
+	}
+	
+	/**
+	 * @param f Output file
+	 * @param columns Names of the columns (without the id column)
+	 * @param delimiter Column delimiter
+	 * @throws IOException
+	 */
+	public CSVFeatureTableWriter(File f, String[] columns, char delimiter) throws IOException {
+		super(columns);
+		init(new OutputStreamWriter(new FileOutputStream(f), Charset.forName("UTF-8")), delimiter);
+	}
+	
+	/**
+	 * @param out Target of the table. Is closed by {@link #close()}.
+	 * @param delimiter Column delimiter
+	 */
+	public CSVFeatureTableWriter(Writer out, char delimiter) {
+		super();
+		init(out, delimiter);
+	}
+	
+	private void init(Writer out, char delimiter){
+		this.writer = new BufferedWriter(out, 1 << 16);
+		this.delimiter = delimiter;
+		line = new StringBuilder(256);
+	}
+
+	@Override
+	protected void writeHeader(String[] columns) throws IOException {
+		line.setLength(0);
+		line.append("id");
+		for (String c : columns) {
+			line.append(delimiter).append(c);
+		}
+		line.append('\n');
+		writer.append(line);
+	}
+
+	@Override
+	protected void appendRow(long id, double[] values) throws IOException {
+		line.setLength(0);
+		line.append(id);
+		for (double v : values) {
+			line.append(delimiter).append(v);
+		}
+		line.append('\n');
+		writer.append(line);
+	}
+	
+	/**
+	 * Flushes the buffered rows.
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		writer.flush();
+	}
+
+	public void close() throws IOException {
+		writer.close();
+	}
+
+}
@@ -0,0 +1,330 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.io;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Consumer;
+
+import de.biomedical_imaging.traJ.Trajectory;
+
+/**
+ * Streaming importer for localization tables with the columns id, frame, x, y and (optional) z.
+ * The localizations are grouped into trajectories, missing frames are filled with gaps (null)
+ * and the relative start timepoint is set to the first frame of the track. Each trajectory is handed 
+ * to the consumer as soon as it is complete, so that only the currently active tracks are kept in memory.
+ * 
+ * When the first line contains non-numeric values, it is interpreted as header and the columns
+ * are identified by their names (id / track_id / trajectory, frame / t, x, y, z). Otherwise the
+ * column order id, frame, x, y, z is assumed.
+ * @author Thorsten Wagner
+ *
+ */
+public class CSVTrajectoryImporter {
+	
+	/**
+	 * GROUPED_BY_ID: All localizations of a track are consecutive rows. A track is complete when the id changes.
+	 * SORTED_BY_FRAME: The rows are sorted by frame. A track is complete when it did not receive a 
+	 * localization for more than maxFrameGap frames (see {@link CSVTrajectoryImporter#setMaxFrameGap(int)}).
+	 * 
+	 * In both modes missing frames inside of a track are filled with gaps (null). A track id which appears again 
+	 * after its track was completed is an error, so no two trajectories with the same id are imported.
+	 */
+	public static enum SortOrder {GROUPED_BY_ID, SORTED_BY_FRAME};
+	
+	private int dimension;
+	private char delimiter;
+	private SortOrder sortOrder;
+	private int maxFrameGap;
+	
+	/**
+	 * Creates an importer for comma separated files which are grouped by id.
+	 * @param dimension Dimension of the imported trajectories
+	 */
+	public CSVTrajectoryImporter(int dimension) {
+		this(dimension, ',', SortOrder.GROUPED_BY_ID);
+	}
+	
+	/**
+	 * @param dimension Dimension of the imported trajectories
+	 * @param delimiter Column delimiter
+	 * @param sortOrder Order of the rows in the file
+	 */
+	public CSVTrajectoryImporter(int dimension, char delimiter, SortOrder sortOrder) {
+		this.dimension = dimension;
+		this.delimiter = delimiter;
+		this.sortOrder = sortOrder;
+		this.maxFrameGap = Integer.MAX_VALUE;
+	}
+	
+	/**
+	 * Only used for {@link SortOrder#SORTED_BY_FRAME}. Gaps up to this length are filled with null. By default the gap 
+	 * length is unlimited, which gives the same trajectories as {@link SortOrder#GROUPED_BY_ID} but keeps every track 
+	 * in memory until the end of the file. A smaller value allows to hand over completed tracks early. A track which 
+	 * continues after a longer gap causes an IOException.
+	 * @param maxFrameGap Maximum number of missing frames inside of a track (default unlimited)
+	 */
+	public void setMaxFrameGap(int maxFrameGap){
+		if(maxFrameGap < 0){
+			throw new IllegalArgumentException("The maximum frame gap can not be negative");
+		}
+		this.maxFrameGap = maxFrameGap;
+	}
+	
+	/**
+	 * @param f CSV file (UTF-8)
+	 * @param consumer Receives each trajectory as soon as it is complete
+	 * @return Number of imported trajectories
+	 * @throws IOException
+	 */
+	public int read(File f, Consumer<Trajectory> consumer) throws IOException {
+		Reader r = new InputStreamReader(new FileInputStream(f), Charset.forName("UTF-8"));
+		try{
+			return read(r, consumer);
+		}
+		finally{
+			r.close();
+		}
+	}
+	
+	/**
+	 * Reads all trajectories into a list. Only recommended for small files.
+	 * @param f CSV file (UTF-8)
+	 * @return All trajectories of the file
+	 * @throws IOException
+	 */
+	public ArrayList<Trajectory> readAll(File f) throws IOException {
+		final ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		read(f, new Consumer<Trajectory>() {
+			public void accept(Trajectory t) {
+				tracks.add(t);
+			}
+		});
+		return tracks;
+	}
+	
+	/**
+	 * @param in Character stream of the table
+	 * @param consumer Receives each trajectory as soon as it is complete
+	 * @return Number of imported trajectories
+	 * @throws IOException
+	 */
+	public int read(Reader in, Consumer<Trajectory> consumer) throws IOException {
+		BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, 1 << 16);
+		int[] columns = {0,1,2,3,4}; //id, frame, x, y, z
+		ArrayList<String> fields = new ArrayList<String>();
+		LinkedHashMap<Long, TrajectoryAssembler> active = new LinkedHashMap<Long, TrajectoryAssembler>();
+		HashSet<Long> completed = new HashSet<Long>();
+		TrajectoryAssembler current = null;
+		int currentFrame = Integer.MIN_VALUE;
+		int count = 0;
+		long lineNumber = 0;
+		String line;
+		
+		while((line = reader.readLine()) != null){
+			lineNumber++;
+			int n = split(line, fields);
+			if(n == 0){
+				continue;
+			}
+			if(lineNumber == 1 && !isNumeric(fields.get(0))){
+				try{
+					columns = parseHeader(fields, n);
+				}
+				catch(IllegalArgumentException e){
+					throw new IOException(e.getMessage(), e);
+				}
+				continue;
+			}
+			if(n <= Math.max(Math.max(columns[0], columns[1]), Math.max(columns[2], columns[3]))){
+				throw new IOException("Line " + lineNumber + " has too few columns: " + line);
+			}
+			long id;
+			int frame;
+			double x,y,z;
+			try{
+				id = parseLong(fields.get(columns[0]));
+				frame = (int) parseLong(fields.get(columns[1]));
+				x = Double.parseDouble(fields.get(columns[2]));
+				y = Double.parseDouble(fields.get(columns[3]));
+				z = columns[4] >= 0 && columns[4] < n ? Double.parseDouble(fields.get(columns[4])) : 0;
+			}
+			catch(RuntimeException e){
+				throw new IOException("Can't parse line " + lineNumber + ": " + line, e);
+			}
+			
+			try{
+				switch (sortOrder) {
+				case GROUPED_BY_ID:
+					if(current == null || current.getID() != id){
+						if(current != null){
+							completed.add(current.getID());
+							consumer.accept(current.getTrajectory());
+							count++;
+						}
+						checkNotCompleted(completed, id);
+						current = new TrajectoryAssembler(id, dimension, frame);
+					}
+					current.add(frame, x, y, z);
+					break;
+				case SORTED_BY_FRAME:
+					if(frame < currentFrame){
+						throw new IOException("Line " + lineNumber + " is not sorted by frame");
+					}
+					if(frame > currentFrame){
+						currentFrame = frame;
+						count += flushInactive(active, completed, currentFrame, consumer);
+					}
+					TrajectoryAssembler a = active.get(id);
+					if(a == null){
+						checkNotCompleted(completed, id);
+						a = new TrajectoryAssembler(id, dimension, frame);
+						active.put(id, a);
+					}
+					a.add(frame, x, y, z);
+					break;
+				default:
+					break;
+				}
+			}
+			catch(IllegalArgumentException e){
+				throw new IOException("Line " + lineNumber + ": " + e.getMessage(), e);
+			}
+		}
+		
+		if(current != null){
+			consumer.accept(current.getTrajectory());
+			count++;
+		}
+		count += flushInactive(active, completed, Integer.MAX_VALUE, consumer);
+		return count;
+	}
+	
+	/*
+	 * Hands all tracks which can't receive further localizations to the consumer.
+	 */
+	private int flushInactive(LinkedHashMap<Long, TrajectoryAssembler> active, HashSet<Long> completed, int currentFrame, Consumer<Trajectory> consumer){
+		int count = 0;
+		Iterator<TrajectoryAssembler> it = active.values().iterator();
+		while(it.hasNext()){
+			TrajectoryAssembler a = it.next();
+			if(currentFrame == Integer.MAX_VALUE || (long)currentFrame - a.getLastFrame() > (long)maxFrameGap + 1){
+				completed.add(a.getID());
+				consumer.accept(a.getTrajectory());
+				it.remove();
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	private void checkNotCompleted(HashSet<Long> completed, long id){
+		if(completed.contains(id)){
+			String hint = sortOrder == SortOrder.GROUPED_BY_ID ? "the rows are not grouped by id" : "the gap is larger than the maximum frame gap";
+			throw new IllegalArgumentException("Track " + id + " continues after it was completed (" + hint + ")");
+		}
+	}
+	
+	private int[] parseHeader(ArrayList<String> fields, int n){
+		int[] columns = {-1,-1,-1,-1,-1};
+		for(int i = 0; i < n; i++){
+			String name = fields.get(i).toLowerCase();
+			if(name.equals("id") || name.equals("track_id") || name.equals("trackid") || name.equals("trajectory")){
+				columns[0] = i;
+			}
+			else if(name.equals("frame") || name.equals("t")){
+				columns[1] = i;
+			}
+			else if(name.equals("x") || name.equals("position_x")){
+				columns[2] = i;
+			}
+			else if(name.equals("y") || name.equals("position_y")){
+				columns[3] = i;
+			}
+			else if(name.equals("z") || name.equals("position_z")){
+				columns[4] = i;
+			}
+		}
+		for(int i = 0; i < 4; i++){
+			if(columns[i] < 0){
+				throw new IllegalArgumentException("Header does not contain the columns id, frame, x and y");
+			}
+		}
+		return columns;
+	}
+	
+	/*
+	 * Splits the line without regular expressions into the (reused) list of fields. Returns the number of fields.
+	 */
+	private int split(String line, ArrayList<String> fields){
+		fields.clear();
+		int start = 0;
+		int len = line.length();
+		if(line.trim().isEmpty()){
+			return 0;
+		}
+		for(int i = 0; i <= len; i++){
+			if(i == len || line.charAt(i) == delimiter){
+				fields.add(unquote(line.substring(start, i).trim()));
+				start = i+1;
+			}
+		}
+		return fields.size();
+	}
+	
+	private static String unquote(String s){
+		if(s.length() >= 2 && s.charAt(0) == '"' && s.charAt(s.length()-1) == '"'){
+			return s.substring(1, s.length()-1);
+		}
+		return s;
+	}
+	
+	private static long parseLong(String s){
+		if(s.indexOf('.') >= 0 || s.indexOf('e') >= 0 || s.indexOf('E') >= 0){
+			return Math.round(Double.parseDouble(s));
+		}
+		return Long.parseLong(s);
+	}
+	
+	private static boolean isNumeric(String s){
+		try{
+			Double.parseDouble(s);
+			return true;
+		}
+		catch(NumberFormatException e){
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.io;
+
+import java.nio.ByteBuffer;
+
+import javax.vecmath.Point3d;
+
+import de.biomedical_imaging.traJ.AbstractTrajectoryView;
+
+/**
+ * A read-only trajectory which reads its positions directly from a memory mapped
+ * binary trajectory file. No positions are copied on construction. {@link #getX(int)}, {@link #getY(int)},
+ * {@link #getZ(int)} and {@link #isValid(int)} read the mapped columns without creating {@link Point3d} objects, 
+ * {@link #get(int)} creates a new point per call.
+ * 
+ * Instances are created by the {@link BinaryTrajectoryReader}.
+ * @author Thorsten Wagner
+ *
+ */
+public class MappedTrajectory extends AbstractTrajectoryView {
+
+	private static final long serialVersionUID = 1L;
+	private final transient ByteBuffer buffer;
+	private final int bitmapOffset;
+	private final int[] columnOffsets;
+	private final int n;
+	private final boolean float32;
+	
+	MappedTrajectory(ByteBuffer buffer, long id, int dimension, int relativeStartTimepoint, String type, 
+			int n, int bitmapOffset, int columnOffset, boolean float32) {
+		super(dimension, relativeStartTimepoint, id);
+		setType(type);
+		this.buffer = buffer;
+		this.n = n;
+		this.bitmapOffset = bitmapOffset;
+		this.float32 = float32;
+		int ncol = BinaryTrajectoryFormat.numberOfColumns(dimension);
+		int colSize = (int) BinaryTrajectoryFormat.columnSize(n, float32);
+		columnOffsets = new int[3];
+		for(int c = 0; c < 3; c++){
+			columnOffsets[c] = c < ncol ? columnOffset + c*colSize : -1;
+		}
+	}
+
+	@Override
+	public Point3d get(int index) {
+		if(!isValid(index)){
+			return null;
+		}
+		return new Point3d(getX(index), getY(index), getZ(index));
+	}
+
+	@Override
+	public int size() {
+		return n;
+	}
+	
+	@Override
+	public boolean isValid(int i) {
+		if(i < 0 || i >= n){
+			throw new IndexOutOfBoundsException("Index: "+i+", Size: "+n);
+		}
+		return (buffer.get(bitmapOffset + (i >>> 3)) & (1 << (i & 7))) != 0;
+	}
+	
+	@Override
+	public double getX(int i) {
+		return read(0, i);
+	}
+	
+	@Override
+	public double getY(int i) {
+		return read(1, i);
+	}
+	
+	@Override
+	public double getZ(int i) {
+		return read(2, i);
+	}
+	
+	private double read(int column, int i){
+		if(i < 0 || i >= n){
+			throw new IndexOutOfBoundsException("Index: "+i+", Size: "+n);
+		}
+		int off = columnOffsets[column];
+		if(off < 0){
+			return 0;
+		}
+		return float32 ? buffer.getFloat(off + 4*i) : buffer.getDouble(off + 8*i);
+	}
+
+}
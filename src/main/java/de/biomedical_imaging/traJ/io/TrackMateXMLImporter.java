@@ -0,0 +1,202 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import de.biomedical_imaging.traJ.Trajectory;
+
+/**
+ * Streaming importer for the track XML files which are written by the TrackMate action 
+ * "Export tracks to XML file":
+ * <pre>
+ * &lt;Tracks nTracks="..."&gt;
+ *   &lt;particle nSpots="..."&gt;
+ *     &lt;detection t="0" x="..." y="..." z="..." /&gt;
+ *     ...
+ * </pre>
+ * The file is parsed with StAX. Each particle is converted into a trajectory (id = index of the particle in the file), 
+ * missing frames are filled with gaps (null) and the relative start timepoint is set to the first frame. 
+ * Each trajectory is handed to the consumer when its particle element ends, so only one track is kept in memory.
+ * 
+ * The full TrackMate model file is not supported, as it stores all spots before the tracks.
+ * @author Thorsten Wagner
+ *
+ */
+public class TrackMateXMLImporter {
+	
+	private int dimension;
+	
+	/**
+	 * @param dimension Dimension of the imported trajectories
+	 */
+	public TrackMateXMLImporter(int dimension) {
+		this.dimension = dimension;
+	}
+	
+	/**
+	 * @param f TrackMate track XML file
+	 * @param consumer Receives each trajectory as soon as it is complete
+	 * @return Number of imported trajectories
+	 * @throws IOException
+	 */
+	public int read(File f, Consumer<Trajectory> consumer) throws IOException {
+		InputStream in = new FileInputStream(f);
+		try{
+			return read(in, consumer);
+		}
+		finally{
+			in.close();
+		}
+	}
+	
+	/**
+	 * Reads all trajectories into a list. Only recommended for small files.
+	 * @param f TrackMate track XML file
+	 * @return All trajectories of the file
+	 * @throws IOException
+	 */
+	public ArrayList<Trajectory> readAll(File f) throws IOException {
+		final ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		read(f, new Consumer<Trajectory>() {
+			public void accept(Trajectory t) {
+				tracks.add(t);
+			}
+		});
+		return tracks;
+	}
+	
+	/**
+	 * @param in Stream of a TrackMate track XML file
+	 * @param consumer Receives each trajectory as soon as it is complete
+	 * @return Number of imported trajectories
+	 * @throws IOException
+	 */
+	public int read(InputStream in, Consumer<Trajectory> consumer) throws IOException {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		int count = 0;
+		int particle = 0;
+		
+		//Detections of the current particle
+		int n = 0;
+		int[] frames = new int[64];
+		double[] xs = new double[64];
+		double[] ys = new double[64];
+		double[] zs = new double[64];
+		boolean insideParticle = false;
+		try{
+			XMLStreamReader reader = factory.createXMLStreamReader(in);
+			while(reader.hasNext()){
+				int event = reader.next();
+				if(event == XMLStreamConstants.START_ELEMENT){
+					String name = reader.getLocalName();
+					if(name.equals("particle")){
+						insideParticle = true;
+						n = 0;
+					}
+					else if(name.equals("detection") && insideParticle){
+						if(n == frames.length){
+							frames = Arrays.copyOf(frames, 2*n);
+							xs = Arrays.copyOf(xs, 2*n);
+							ys = Arrays.copyOf(ys, 2*n);
+							zs = Arrays.copyOf(zs, 2*n);
+						}
+						frames[n] = (int) Math.round(Double.parseDouble(getAttribute(reader, "t")));
+						xs[n] = Double.parseDouble(getAttribute(reader, "x"));
+						ys[n] = Double.parseDouble(getAttribute(reader, "y"));
+						String z = reader.getAttributeValue(null, "z");
+						zs[n] = z == null ? 0 : Double.parseDouble(z);
+						n++;
+					}
+				}
+				else if(event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("particle")){
+					insideParticle = false;
+					//Particles without detections are skipped but keep their index as id
+					if(n > 0){
+						consumer.accept(assemble(particle, frames, xs, ys, zs, n));
+						count++;
+					}
+					particle++;
+				}
+			}
+			reader.close();
+		}
+		catch(XMLStreamException e){
+			throw new IOException("Can't parse TrackMate XML file: " + e.getMessage(), e);
+		}
+		catch(IllegalArgumentException e){
+			throw new IOException("Can't parse TrackMate XML file: " + e.getMessage(), e);
+		}
+		return count;
+	}
+	
+	private Trajectory assemble(long id, int[] frames, double[] xs, double[] ys, double[] zs, int n){
+		//TrackMate writes the detections in frame order, but this is not guaranteed.
+		boolean sorted = true;
+		for(int i = 1; i < n && sorted; i++){
+			sorted = frames[i-1] < frames[i];
+		}
+		Integer[] order = new Integer[n];
+		for(int i = 0; i < n; i++){
+			order[i] = i;
+		}
+		if(!sorted){
+			final int[] fr = frames;
+			Arrays.sort(order, new java.util.Comparator<Integer>() {
+				public int compare(Integer a, Integer b) {
+					return Integer.compare(fr[a], fr[b]);
+				}
+			});
+		}
+		TrajectoryAssembler a = new TrajectoryAssembler(id, dimension, frames[order[0]]);
+		for(int i = 0; i < n; i++){
+			int k = order[i];
+			a.add(frames[k], xs[k], ys[k], zs[k]);
+		}
+		return a.getTrajectory();
+	}
+	
+	private static String getAttribute(XMLStreamReader reader, String name) throws XMLStreamException {
+		String v = reader.getAttributeValue(null, name);
+		if(v == null){
+			throw new XMLStreamException("Detection without attribute " + name, reader.getLocation());
+		}
+		return v;
+	}
+
+}
@@ -0,0 +1,77 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.io;
+
+import javax.vecmath.Point3d;
+
+import de.biomedical_imaging.traJ.Trajectory;
+
+/**
+ * Groups localizations of a single track into a {@link Trajectory}. Missing frames
+ * are filled with gaps (null), as expected by {@link de.biomedical_imaging.traJ.TrajectoryValidIndexTimelagIterator}.
+ * @author Thorsten Wagner
+ *
+ */
+class TrajectoryAssembler {
+	
+	private Trajectory t;
+	private long id;
+	private int lastFrame;
+	
+	TrajectoryAssembler(long id, int dimension, int firstFrame) {
+		this.id = id;
+		t = new Trajectory(dimension, firstFrame);
+		t.setID(id);
+		lastFrame = firstFrame-1;
+	}
+	
+	/**
+	 * Adds a localization. The frames have to be strictly increasing.
+	 */
+	void add(int frame, double x, double y, double z){
+		if(frame <= lastFrame){
+			throw new IllegalArgumentException("Localizations of track " + id + " are not sorted by frame or "
+					+ "contain more than one localization per frame (frame " + frame + ")");
+		}
+		for(int f = lastFrame+1; f < frame; f++){
+			t.add(null);
+		}
+		t.add(new Point3d(x, y, z));
+		lastFrame = frame;
+	}
+	
+	int getLastFrame(){
+		return lastFrame;
+	}
+	
+	long getID(){
+		return id;
+	}
+	
+	Trajectory getTrajectory(){
+		return t;
+	}
+
+}
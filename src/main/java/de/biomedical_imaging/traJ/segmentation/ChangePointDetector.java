@@ -0,0 +1,213 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.segmentation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import de.biomedical_imaging.traJ.SubTrajectory;
+import de.biomedical_imaging.traJ.Trajectory;
+
+/**
+ * Detects changes of the diffusion coefficient (and optionally of the drift) along a trajectory. 
+ * 
+ * The steps of a segment are modelled as gaussian with a common variance per axis (and a common mean, the drift). 
+ * The cost of a segment is its negative maximum log-likelihood, which only depends on the sums of the steps and 
+ * of the squared steps. With cumulative sums it is calculated in O(1). The change points are found by 
+ * binary segmentation: a segment is split at the position which reduces the cost most, as long as the reduction 
+ * exceeds the penalty. Each split scans all candidate positions of the segment, so the total runtime for N steps 
+ * is O(N log N) if the change points split the segments evenly and O(N^2) in the worst case, e.g. if the change 
+ * points are close to the ends of the segments.
+ * 
+ * The change points are step indices: step i is the step from position i to position i+1. Steps which include a 
+ * gap are ignored.
+ * @author Thorsten Wagner
+ *
+ */
+public class ChangePointDetector {
+	
+	private int minSegmentLength;
+	private double penalty;
+	private boolean detectDrift;
+	
+	/**
+	 * Detects changes of the diffusion coefficient with segments of at least 5 steps and a BIC penalty.
+	 */
+	public ChangePointDetector() {
+		minSegmentLength = 5;
+		penalty = Double.NaN;
+		detectDrift = false;
+	}
+	
+	/**
+	 * @param minSegmentLength Minimum number of (valid) steps per segment
+	 */
+	public void setMinimumSegmentLength(int minSegmentLength){
+		if(minSegmentLength < 2){
+			throw new IllegalArgumentException("A segment has to contain at least two steps");
+		}
+		this.minSegmentLength = minSegmentLength;
+	}
+	
+	/**
+	 * @param penalty Minimum reduction of the cost (negative log-likelihood) to accept a change point. 
+	 * NaN selects the BIC penalty (number of parameters per segment + 1) * log(N) / 2.
+	 */
+	public void setPenalty(double penalty){
+		this.penalty = penalty;
+	}
+	
+	/**
+	 * @param detectDrift If true, each segment has its own drift, so that changes of the drift are detected as well.
+	 */
+	public void setDetectDrift(boolean detectDrift){
+		this.detectDrift = detectDrift;
+	}
+	
+	/**
+	 * Cumulative sums over the valid steps
+	 */
+	private static class CumulativeSums {
+		int dimension;
+		int[] n;
+		double[] sx;
+		double[] sy;
+		double[] sz;
+		double[] s2;
+	}
+	
+	private static CumulativeSums cumulativeSums(Trajectory t){
+		int m = Math.max(0, t.size() - 1);
+		CumulativeSums c = new CumulativeSums();
+		c.dimension = t.getDimension();
+		c.n = new int[m + 1];
+		c.sx = new double[m + 1];
+		c.sy = new double[m + 1];
+		c.sz = new double[m + 1];
+		c.s2 = new double[m + 1];
+		for(int i = 0; i < m; i++){
+			c.n[i+1] = c.n[i];
+			c.sx[i+1] = c.sx[i];
+			c.sy[i+1] = c.sy[i];
+			c.sz[i+1] = c.sz[i];
+			c.s2[i+1] = c.s2[i];
+			if(t.isValid(i) && t.isValid(i+1)){
+				double dx = t.getX(i+1) - t.getX(i);
+				double dy = t.getY(i+1) - t.getY(i);
+				double dz = t.getZ(i+1) - t.getZ(i);
+				c.n[i+1]++;
+				c.sx[i+1] += dx;
+				c.sy[i+1] += dy;
+				c.sz[i+1] += dz;
+				c.s2[i+1] += dx*dx + dy*dy + dz*dz;
+			}
+		}
+		return c;
+	}
+	
+	/**
+	 * Negative maximum log-likelihood (without constants) of the steps [from, to)
+	 */
+	private double cost(CumulativeSums c, int from, int to){
+		int n = c.n[to] - c.n[from];
+		if(n == 0){
+			return 0;
+		}
+		double ss = c.s2[to] - c.s2[from];
+		if(detectDrift){
+			double mx = c.sx[to] - c.sx[from];
+			double my = c.sy[to] - c.sy[from];
+			double mz = c.sz[to] - c.sz[from];
+			ss -= (mx*mx + my*my + mz*mz)/n;
+		}
+		double v = Math.max(ss/(n*c.dimension), Double.MIN_NORMAL);
+		return 0.5*n*c.dimension*Math.log(v);
+	}
+	
+	/**
+	 * @param t Trajectory
+	 * @return Sorted step indices where a new segment starts
+	 */
+	public int[] detect(Trajectory t){
+		CumulativeSums c = cumulativeSums(t);
+		int m = c.n.length - 1;
+		double pen = penalty;
+		if(Double.isNaN(pen)){
+			int parameters = 1 + (detectDrift ? c.dimension : 0);
+			pen = (parameters + 1)*Math.log(Math.max(2, c.n[m]))/2;
+		}
+		ArrayList<Integer> changePoints = new ArrayList<Integer>();
+		split(c, 0, m, pen, changePoints);
+		int[] res = new int[changePoints.size()];
+		for(int i = 0; i < res.length; i++){
+			res[i] = changePoints.get(i);
+		}
+		Arrays.sort(res);
+		return res;
+	}
+	
+	private void split(CumulativeSums c, int from, int to, double pen, ArrayList<Integer> changePoints){
+		if(c.n[to] - c.n[from] < 2*minSegmentLength){
+			return;
+		}
+		double total = cost(c, from, to);
+		double bestGain = pen;
+		int best = -1;
+		for(int k = from + 1; k < to; k++){
+			if(c.n[k] - c.n[from] < minSegmentLength || c.n[to] - c.n[k] < minSegmentLength){
+				continue;
+			}
+			double gain = total - cost(c, from, k) - cost(c, k, to);
+			if(gain > bestGain){
+				bestGain = gain;
+				best = k;
+			}
+		}
+		if(best < 0){
+			return;
+		}
+		changePoints.add(best);
+		split(c, from, best, pen, changePoints);
+		split(c, best, to, pen, changePoints);
+	}
+	
+	/**
+	 * Splits the trajectory at the detected change points. The segments are views ({@link SubTrajectory}) of the 
+	 * trajectory; consecutive segments share the position at the change point.
+	 * @return Segments in temporal order
+	 */
+	public ArrayList<Trajectory> segment(Trajectory t){
+		int[] changePoints = detect(t);
+		ArrayList<Trajectory> segments = new ArrayList<Trajectory>();
+		int start = 0;
+		for (int cp : changePoints) {
+			segments.add(t.subList(start, cp + 1));
+			start = cp;
+		}
+		segments.add(t.subList(start, t.size()));
+		return segments;
+	}
+
+}
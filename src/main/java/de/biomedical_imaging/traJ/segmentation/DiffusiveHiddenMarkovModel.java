@@ -0,0 +1,527 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.segmentation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.biomedical_imaging.traJ.ParallelUtil;
+import de.biomedical_imaging.traJ.SubTrajectory;
+import de.biomedical_imaging.traJ.Trajectory;
+
+/**
+ * Hidden Markov model with K diffusive states. In state k, the step between two consecutive positions is gaussian 
+ * with variance v_k = 2*D_k*dt + 2*sigma^2 per axis, where sigma is the localization error. Steps which include a gap
+ * are uninformative, but the state sequence continues.
+ * 
+ * The model is trained by the Baum-Welch (EM) algorithm, pooling many trajectories. The expectation step is calculated in parallel
+ * (see {@link ParallelUtil}). Forward-backward and Viterbi are calculated in log-space on primitive arrays.
+ * 
+ * The states are indexed per step: state i belongs to the step from position i to position i+1.
+ * @author Thorsten Wagner
+ *
+ */
+public class DiffusiveHiddenMarkovModel {
+	
+	private static final int CHUNK_SIZE = 64;
+	
+	private int K;
+	private int dimension;
+	private double localizationError;
+	private double[] initial;
+	private double[][] transition;
+	private double[] variance;
+	
+	/**
+	 * @param states Number of diffusive states
+	 * @param dimension Dimension of the trajectories
+	 * @param localizationError Localization error sigma (standard deviation per axis)
+	 */
+	public DiffusiveHiddenMarkovModel(int states, int dimension, double localizationError) {
+		if(states < 1){
+			throw new IllegalArgumentException("At least one state is required");
+		}
+		if(dimension < 1 || dimension > 3){
+			throw new IllegalArgumentException("The dimension has to be 1, 2 or 3");
+		}
+		this.K = states;
+		this.dimension = dimension;
+		this.localizationError = localizationError;
+		initial = new double[K];
+		transition = new double[K][K];
+		variance = new double[K];
+		for(int k = 0; k < K; k++){
+			initial[k] = 1.0/K;
+			for(int l = 0; l < K; l++){
+				transition[k][l] = K == 1 ? 1 : (k == l ? 0.9 : 0.1/(K-1));
+			}
+			variance[k] = Double.NaN;
+		}
+	}
+	
+	/**
+	 * Sufficient statistics of the expectation step
+	 */
+	private static class Statistics {
+		double[] initial;
+		double[][] transition;
+		double[] occupancy;
+		double[] sumR2;
+		double logLikelihood;
+		
+		Statistics(int K){
+			initial = new double[K];
+			transition = new double[K][K];
+			occupancy = new double[K];
+			sumR2 = new double[K];
+		}
+		
+		void add(Statistics s){
+			for(int k = 0; k < initial.length; k++){
+				initial[k] += s.initial[k];
+				occupancy[k] += s.occupancy[k];
+				sumR2[k] += s.sumR2[k];
+				for(int l = 0; l < initial.length; l++){
+					transition[k][l] += s.transition[k][l];
+				}
+			}
+			logLikelihood += s.logLikelihood;
+		}
+	}
+	
+	/**
+	 * Squared step lengths. NaN marks steps which include a gap.
+	 */
+	private static double[] squaredSteps(Trajectory t){
+		int m = Math.max(0, t.size() - 1);
+		double[] r2 = new double[m];
+		for(int i = 0; i < m; i++){
+			if(t.isValid(i) && t.isValid(i+1)){
+				double dx = t.getX(i+1) - t.getX(i);
+				double dy = t.getY(i+1) - t.getY(i);
+				double dz = t.getZ(i+1) - t.getZ(i);
+				r2[i] = dx*dx + dy*dy + dz*dz;
+			}
+			else{
+				r2[i] = Double.NaN;
+			}
+		}
+		return r2;
+	}
+	
+	/**
+	 * Log emission probabilities [step*K + state]
+	 */
+	private double[] logEmissions(double[] r2){
+		double[] logB = new double[r2.length*K];
+		double[] norm = new double[K];
+		for(int k = 0; k < K; k++){
+			norm[k] = -0.5*dimension*Math.log(2*Math.PI*variance[k]);
+		}
+		for(int i = 0; i < r2.length; i++){
+			if(!Double.isNaN(r2[i])){
+				for(int k = 0; k < K; k++){
+					logB[i*K + k] = norm[k] - r2[i]/(2*variance[k]);
+				}
+			}
+		}
+		return logB;
+	}
+	
+	private static double logSumExp(double[] v, int from, int n){
+		double max = Double.NEGATIVE_INFINITY;
+		for(int i = from; i < from + n; i++){
+			max = Math.max(max, v[i]);
+		}
+		if(max == Double.NEGATIVE_INFINITY){
+			return max;
+		}
+		double sum = 0;
+		for(int i = from; i < from + n; i++){
+			sum += Math.exp(v[i] - max);
+		}
+		return max + Math.log(sum);
+	}
+	
+	private double[][] logTransition(){
+		double[][] logA = new double[K][K];
+		for(int k = 0; k < K; k++){
+			for(int l = 0; l < K; l++){
+				logA[k][l] = Math.log(transition[k][l]);
+			}
+		}
+		return logA;
+	}
+	
+	/**
+	 * Log forward variables [step*K + state]
+	 */
+	private double[] forward(double[] logB, int m, double[][] logA){
+		double[] alpha = new double[m*K];
+		double[] tmp = new double[K];
+		for(int k = 0; k < K; k++){
+			alpha[k] = Math.log(initial[k]) + logB[k];
+		}
+		for(int i = 1; i < m; i++){
+			for(int k = 0; k < K; k++){
+				for(int j = 0; j < K; j++){
+					tmp[j] = alpha[(i-1)*K + j] + logA[j][k];
+				}
+				alpha[i*K + k] = logSumExp(tmp, 0, K) + logB[i*K + k];
+			}
+		}
+		return alpha;
+	}
+	
+	/**
+	 * Log backward variables [step*K + state]
+	 */
+	private double[] backward(double[] logB, int m, double[][] logA){
+		double[] beta = new double[m*K];
+		double[] tmp = new double[K];
+		for(int i = m - 2; i >= 0; i--){
+			for(int j = 0; j < K; j++){
+				for(int k = 0; k < K; k++){
+					tmp[k] = logA[j][k] + logB[(i+1)*K + k] + beta[(i+1)*K + k];
+				}
+				beta[i*K + j] = logSumExp(tmp, 0, K);
+			}
+		}
+		return beta;
+	}
+	
+	private void expectation(Trajectory t, double[][] logA, Statistics s){
+		double[] r2 = squaredSteps(t);
+		int m = r2.length;
+		if(m == 0){
+			return;
+		}
+		double[] logB = logEmissions(r2);
+		double[] alpha = forward(logB, m, logA);
+		double[] beta = backward(logB, m, logA);
+		double ll = logSumExp(alpha, (m-1)*K, K);
+		s.logLikelihood += ll;
+		for(int i = 0; i < m; i++){
+			for(int k = 0; k < K; k++){
+				double gamma = Math.exp(alpha[i*K + k] + beta[i*K + k] - ll);
+				if(i == 0){
+					s.initial[k] += gamma;
+				}
+				if(!Double.isNaN(r2[i])){
+					s.occupancy[k] += gamma;
+					s.sumR2[k] += gamma*r2[i];
+				}
+			}
+			if(i + 1 < m){
+				for(int j = 0; j < K; j++){
+					for(int k = 0; k < K; k++){
+						s.transition[j][k] += Math.exp(alpha[i*K + j] + logA[j][k] + logB[(i+1)*K + k] + beta[(i+1)*K + k] - ll);
+					}
+				}
+			}
+		}
+	}
+	
+	private Statistics expectation(final List<? extends Trajectory> tracks){
+		final double[][] logA = logTransition();
+		List<Statistics> partial = ParallelUtil.mapRanges(tracks.size(), CHUNK_SIZE, new ParallelUtil.RangeTask<Statistics>() {
+			public Statistics compute(int chunk, int from, int to) {
+				Statistics s = new Statistics(K);
+				for(int i = from; i < to; i++){
+					expectation(tracks.get(i), logA, s);
+				}
+				return s;
+			}
+		});
+		Statistics result = new Statistics(K);
+		for (Statistics s : partial) {
+			result.add(s);
+		}
+		return result;
+	}
+	
+	/**
+	 * Trains the model by the Baum-Welch algorithm. If the variances are not set, they are initialized on a logarithmic grid
+	 * around the mean squared step length.
+	 * @param tracks Training trajectories
+	 * @param maxIterations Maximum number of EM iterations
+	 * @param tolerance Training stops if the relative change of the log-likelihood is smaller than the tolerance
+	 * @return Log-likelihood of the trajectories
+	 */
+	public double train(List<? extends Trajectory> tracks, int maxIterations, double tolerance){
+		double minVariance = Math.max(2*localizationError*localizationError, Double.MIN_NORMAL);
+		if(Double.isNaN(variance[0])){
+			double sum = 0;
+			long n = 0;
+			for (Trajectory t : tracks) {
+				for (double r2 : squaredSteps(t)) {
+					if(!Double.isNaN(r2)){
+						sum += r2;
+						n++;
+					}
+				}
+			}
+			if(n == 0){
+				throw new IllegalArgumentException("The trajectories do not contain any step");
+			}
+			double meanVariance = sum/(n*dimension);
+			for(int k = 0; k < K; k++){
+				variance[k] = Math.max(minVariance, meanVariance*Math.pow(4, k - (K-1)/2.0));
+			}
+		}
+		double logLikelihood = Double.NEGATIVE_INFINITY;
+		for(int it = 0; it < maxIterations; it++){
+			Statistics s = expectation(tracks);
+			double sumInitial = 0;
+			for(int k = 0; k < K; k++){
+				sumInitial += s.initial[k];
+			}
+			for(int k = 0; k < K; k++){
+				initial[k] = s.initial[k]/sumInitial;
+				double row = 0;
+				for(int l = 0; l < K; l++){
+					row += s.transition[k][l];
+				}
+				if(row > 0){
+					for(int l = 0; l < K; l++){
+						transition[k][l] = s.transition[k][l]/row;
+					}
+				}
+				if(s.occupancy[k] > 0){
+					variance[k] = Math.max(minVariance, s.sumR2[k]/(dimension*s.occupancy[k]));
+				}
+			}
+			boolean converged = Math.abs(s.logLikelihood - logLikelihood) <= tolerance*Math.abs(s.logLikelihood);
+			logLikelihood = s.logLikelihood;
+			if(converged){
+				break;
+			}
+		}
+		sortStates();
+		return logLikelihood;
+	}
+	
+	/**
+	 * Sorts the states by increasing variance
+	 */
+	private void sortStates(){
+		Integer[] order = new Integer[K];
+		for(int k = 0; k < K; k++){
+			order[k] = k;
+		}
+		for(int i = 1; i < K; i++){
+			for(int j = i; j > 0 && variance[order[j]] < variance[order[j-1]]; j--){
+				Integer h = order[j]; order[j] = order[j-1]; order[j-1] = h;
+			}
+		}
+		double[] v = new double[K];
+		double[] p = new double[K];
+		double[][] a = new double[K][K];
+		for(int k = 0; k < K; k++){
+			v[k] = variance[order[k]];
+			p[k] = initial[order[k]];
+			for(int l = 0; l < K; l++){
+				a[k][l] = transition[order[k]][order[l]];
+			}
+		}
+		variance = v;
+		initial = p;
+		transition = a;
+	}
+	
+	private void checkVariances(){
+		if(Double.isNaN(variance[0])){
+			throw new IllegalStateException("The model is not trained and the variances are not set");
+		}
+	}
+	
+	/**
+	 * @return Log-likelihood of the trajectory
+	 */
+	public double getLogLikelihood(Trajectory t){
+		checkVariances();
+		double[] r2 = squaredSteps(t);
+		if(r2.length == 0){
+			return 0;
+		}
+		double[] alpha = forward(logEmissions(r2), r2.length, logTransition());
+		return logSumExp(alpha, (r2.length-1)*K, K);
+	}
+	
+	/**
+	 * @return [i][k] = Posterior probability that step i is in state k
+	 */
+	public double[][] getStateProbabilities(Trajectory t){
+		checkVariances();
+		double[] r2 = squaredSteps(t);
+		int m = r2.length;
+		double[][] res = new double[m][K];
+		if(m == 0){
+			return res;
+		}
+		double[][] logA = logTransition();
+		double[] logB = logEmissions(r2);
+		double[] alpha = forward(logB, m, logA);
+		double[] beta = backward(logB, m, logA);
+		double ll = logSumExp(alpha, (m-1)*K, K);
+		for(int i = 0; i < m; i++){
+			for(int k = 0; k < K; k++){
+				res[i][k] = Math.exp(alpha[i*K + k] + beta[i*K + k] - ll);
+			}
+		}
+		return res;
+	}
+	
+	/**
+	 * @return Most probable state sequence (Viterbi), [i] = state of step i
+	 */
+	public int[] getStateSequence(Trajectory t){
+		checkVariances();
+		double[] r2 = squaredSteps(t);
+		int m = r2.length;
+		int[] states = new int[m];
+		if(m == 0){
+			return states;
+		}
+		double[][] logA = logTransition();
+		double[] logB = logEmissions(r2);
+		double[] delta = new double[m*K];
+		int[] psi = new int[m*K];
+		for(int k = 0; k < K; k++){
+			delta[k] = Math.log(initial[k]) + logB[k];
+		}
+		for(int i = 1; i < m; i++){
+			for(int k = 0; k < K; k++){
+				double best = Double.NEGATIVE_INFINITY;
+				int arg = 0;
+				for(int j = 0; j < K; j++){
+					double v = delta[(i-1)*K + j] + logA[j][k];
+					if(v > best){
+						best = v;
+						arg = j;
+					}
+				}
+				delta[i*K + k] = best + logB[i*K + k];
+				psi[i*K + k] = arg;
+			}
+		}
+		double best = Double.NEGATIVE_INFINITY;
+		for(int k = 0; k < K; k++){
+			if(delta[(m-1)*K + k] > best){
+				best = delta[(m-1)*K + k];
+				states[m-1] = k;
+			}
+		}
+		for(int i = m - 1; i > 0; i--){
+			states[i-1] = psi[i*K + states[i]];
+		}
+		return states;
+	}
+	
+	/**
+	 * Splits the trajectory at the state switches of the most probable state sequence. The segments are 
+	 * views ({@link SubTrajectory}) of the trajectory; consecutive segments share the position where the state switches.
+	 * The type of each segment is set to "STATE-k". A trajectory without steps is returned as a single segment 
+	 * without type.
+	 * @return Segments in temporal order
+	 */
+	public ArrayList<Trajectory> segment(Trajectory t){
+		int[] states = getStateSequence(t);
+		ArrayList<Trajectory> segments = new ArrayList<Trajectory>();
+		if(states.length == 0){
+			segments.add(t.subList(0, t.size()));
+			return segments;
+		}
+		int start = 0;
+		for(int i = 1; i <= states.length; i++){
+			if(i == states.length || states[i] != states[start]){
+				Trajectory sub = t.subList(start, i + 1);
+				sub.setType("STATE-" + states[start]);
+				segments.add(sub);
+				start = i;
+			}
+		}
+		return segments;
+	}
+	
+	public int getNumberOfStates(){
+		return K;
+	}
+	
+	/**
+	 * @return Step variance per axis of the state k
+	 */
+	public double getVariance(int k){
+		return variance[k];
+	}
+	
+	public void setVariance(int k, double v){
+		variance[k] = v;
+	}
+	
+	/**
+	 * @param k State
+	 * @param fps Frames per second [Hz]
+	 * @return Diffusion coefficient of the state k, corrected for the localization error
+	 */
+	public double getDiffusionCoefficient(int k, double fps){
+		return (variance[k] - 2*localizationError*localizationError)*fps/2;
+	}
+	
+	/**
+	 * @return [j][k] = Probability of a switch from state j to state k between two steps
+	 */
+	public double[][] getTransitionMatrix(){
+		double[][] res = new double[K][];
+		for(int k = 0; k < K; k++){
+			res[k] = transition[k].clone();
+		}
+		return res;
+	}
+	
+	public void setTransitionMatrix(double[][] transition){
+		if(transition.length != K){
+			throw new IllegalArgumentException("The transition matrix has to be " + K + "x" + K);
+		}
+		for(int k = 0; k < K; k++){
+			this.transition[k] = transition[k].clone();
+		}
+	}
+	
+	/**
+	 * @return Probabilities of the states at the first step
+	 */
+	public double[] getInitialProbabilities(){
+		return initial.clone();
+	}
+	
+	public void setInitialProbabilities(double[] initial){
+		if(initial.length != K){
+			throw new IllegalArgumentException(K + " initial probabilities are required");
+		}
+		this.initial = initial.clone();
+	}
+
+}
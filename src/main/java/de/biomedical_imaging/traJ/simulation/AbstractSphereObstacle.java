@@ -40,40 +40,49 @@ public abstract class AbstractSphereObstacle {
 		// TODO Auto-generated method stub
 		return position;
 	}
+	
+	/**
+	 * @param axis 0 = x, 1 = y, 2 = z
+	 * @return Coordinate of the center
+	 */
+	public double getPosition(int axis) {
+		return position[axis];
+	}
+	
 	/**
-	 * 
+	 * Does not allocate memory, so that it can be used in inner simulation loops.
 	 */
 	public boolean isInside(double[] pos) {
-		double[] absDist = new double[dimension];
+		double radius = getRadius();
 		double sumAbsDist = 0;
-		for(int i = 0; i < dimension; i++){
-			absDist[i] = Math.abs(pos[i]-position[i]);
-			if(absDist[i]>radius){
-				
+		double sumDistSquared = 0;
+		for(int i = 0; i < getDimension(); i++){
+			double absDist = Math.abs(pos[i]-getPosition(i));
+			if(absDist>radius){
 				return false;
 			}
-			sumAbsDist += absDist[i];
-			//distance += Math.pow(dist, 2);
+			sumAbsDist += absDist;
+			sumDistSquared += absDist*absDist;
 		}
 		if(sumAbsDist < radius){
 			return true;
 		}
-		
-		double sumDistSquared = 0;
-		for(int i = 0; i < absDist.length; i++){
-			sumDistSquared += absDist[i]*absDist[i];
-		}
-		
-		//distance = Math.sqrt(distance);
 		return sumDistSquared<radius*radius;
 	}
 
 	public abstract void updatePosition(AnomalousDiffusionScene s);
+	
+	/**
+	 * @return False if {@link #updatePosition(AnomalousDiffusionScene)} never changes the position
+	 */
+	public boolean isMobile() {
+		return true;
+	}
 
 	public boolean insideSzeneBoundaries(AnomalousDiffusionScene s) {
 		for(int i = 0; i < s.getSize().length; i++){
-			if(position[i] >= s.getSize()[i] ||
-					position[i] < 0){
+			if(getPosition(i) >= s.getSize()[i] ||
+					getPosition(i) < 0){
 				return false;
 			}
 		}
@@ -86,13 +95,13 @@ public abstract class AbstractSphereObstacle {
 	 */
 	public double intersectionVolume(AbstractSphereObstacle o) {
 		
-		if(dimension != o.getDimension()){
+		if(getDimension() != o.getDimension()){
 			throw new IllegalArgumentException("Obstacles have different dimensions");
 		}
 		double result = 0;
 		double distance = 0;
-		for(int i = 0; i < dimension; i++){
-			distance += Math.pow(position[i]-o.getPosition()[i],2);
+		for(int i = 0; i < getDimension(); i++){
+			distance += Math.pow(getPosition(i)-o.getPosition(i),2);
 		}
 		distance = Math.sqrt(distance);
 		if(distance<0.0000000001){
@@ -105,12 +114,12 @@ public abstract class AbstractSphereObstacle {
 			return 0;
 		}
 		double d = distance;
-		if(dimension==2){
+		if(getDimension()==2){
 			result = r*r*Math.acos( (d*d+r*r-r_*r_)/(2*d*r) )+
 					r_*r_*Math.acos( (d*d+r_*r_-r*r)/(2*d*r_) )-
 					0.5*Math.sqrt( (-d+r+r_)*(d+r-r_)*(d-r+r_)*(d+r+r_) );
 		}
-		else if(dimension==3){
+		else if(getDimension()==3){
 			
 			result = Math.PI*Math.pow(r_+r-d,2)*(d*d+2*d*r-3*r*r+2*d*r_+6*r*r_-3*r_*r_)/(12*d);
 		}
@@ -124,10 +133,11 @@ public abstract class AbstractSphereObstacle {
 	
 	public double getVolume() {
 		double v=0;
-		if(dimension==2){
+		double radius = getRadius();
+		if(getDimension()==2){
 			v = Math.PI*radius*radius;
 		}
-		else if(dimension == 3){
+		else if(getDimension() == 3){
 			v = 4.0/3.0*Math.PI*radius*radius*radius;
 		}
 		return v;
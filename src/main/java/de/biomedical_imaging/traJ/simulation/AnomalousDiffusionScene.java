@@ -26,9 +26,17 @@ package de.biomedical_imaging.traJ.simulation;
 
 import java.util.ArrayList;
 
+/**
+ * Periodic scene with spherical obstacles. Obstacles are either objects ({@link #addObstacle(AbstractSphereObstacle)}, e.g. 
+ * for moving obstacles) or immobile obstacles which are stored compactly in a {@link SphereObstacleArray} 
+ * ({@link #addObstacle(double[], double)}).
+ * @author Thorsten Wagner
+ *
+ */
 public class AnomalousDiffusionScene {
 	
 	private ArrayList<AbstractSphereObstacle> obstacles;
+	private SphereObstacleArray obstacleArray;
 	private double[] size;
 	private int dimension; 
 	private int nRandPoints;
@@ -39,6 +47,7 @@ public class AnomalousDiffusionScene {
 	private double probNonInteraction;
 	public AnomalousDiffusionScene(double[] size, int dimension) {
 		obstacles = new ArrayList<AbstractSphereObstacle>();
+		obstacleArray = new SphereObstacleArray(dimension);
 		this.size = size;
 		this.dimension = dimension;
 		nRandPoints = (int)Math.pow(10,5);
@@ -55,6 +64,22 @@ public class AnomalousDiffusionScene {
 		}
 	}
 	
+	/**
+	 * Adds an immobile obstacle to the compact obstacle storage of the scene
+	 * @param position Center of the obstacle
+	 * @param radius Radius of the obstacle
+	 */
+	public void addObstacle(double[] position, double radius){
+		for(int i = 0; i < dimension; i++){
+			if(position[i] >= size[i] || position[i] < 0){
+				throw new IllegalStateException("The position of the obstacle is not inside the scene boundaries.");
+			}
+		}
+		obstacleArray.add(position[0], position[1], dimension == 3 ? position[2] : 0, radius);
+		recalculateVolumeFraction = true;
+		recalculateProbNonInteraction = true;
+	}
+	
 	public void updateObstaclePositions(){
 		for (AbstractSphereObstacle o : obstacles) {
 			o.updatePosition(this);
@@ -63,9 +88,20 @@ public class AnomalousDiffusionScene {
 		}
 	}
 	
+	/**
+	 * @return True if at least one obstacle can change its position in {@link #updateObstaclePositions()}
+	 */
+	public boolean hasMobileObstacles(){
+		for (AbstractSphereObstacle o : obstacles) {
+			if(o.isMobile()){
+				return true;
+			}
+		}
+		return false;
+	}
 	 
 	/**
-	 * Estimate excluded volume fraction by monte carlo method
+	 * Estimate excluded volume fraction by monte carlo method. For large or dense scenes see {@link MonteCarloSceneEstimator}. 
 	 * @return
 	 */
 	public double estimateExcludedVolumeFraction(){
@@ -114,14 +150,29 @@ public class AnomalousDiffusionScene {
 					}
 					rpos[j] = randomNumbers[i*dimension + j]*size[j];
 				}
+				boolean interaction = false;
 				for( int k = 0; k < obstacles.size(); k++){
 					double maxrad = Math.max(radius, obstacles.get(k).getRadius());
 					double[] pos = obstacles.get(k).getPosition();
-					if( (Math.pow(rpos[0]-pos[0],2)+Math.pow(rpos[1]-pos[1],2))<Math.pow(maxrad, 2)){
-						countCollision++;
+					double sumDistSquared = 0;
+					for(int j = 0; j < dimension; j++){
+						sumDistSquared += Math.pow(rpos[j]-pos[j],2);
+					}
+					if(sumDistSquared<Math.pow(maxrad, 2)){
+						interaction = true;
 						k = obstacles.size();
 					}
 				}
+				for(int k = 0; k < obstacleArray.size() && !interaction; k++){
+					double maxrad = Math.max(radius, obstacleArray.getRadius(k));
+					double dx = rpos[0]-obstacleArray.getX(k);
+					double dy = rpos[1]-obstacleArray.getY(k);
+					double dz = dimension == 3 ? rpos[2]-obstacleArray.getZ(k) : 0;
+					interaction = dx*dx + dy*dy + dz*dz < maxrad*maxrad;
+				}
+				if(interaction){
+					countCollision++;
+				}
 			}
 			probNonInteraction = 1- countCollision*1.0/nRandPoints;
 			recalculateProbNonInteraction = false;
@@ -131,16 +182,61 @@ public class AnomalousDiffusionScene {
 	}
 	
 	public boolean checkCollision(double[] pos){
-		double[] inScene = convertToScenePosition(pos);
-		for (AbstractSphereObstacle o : obstacles) {
-			
-			if(o.isInside(inScene)){
-				return true;
+		if(obstacles.size() > 0){
+			double[] inScene = convertToScenePosition(pos);
+			for (AbstractSphereObstacle o : obstacles) {
+				
+				if(o.isInside(inScene)){
+					return true;
+				}
 			}
 		}
+		if(obstacleArray.size() > 0){
+			double px = toScenePosition(pos[0], 0);
+			double py = toScenePosition(pos[1], 1);
+			double pz = dimension == 3 ? toScenePosition(pos[2], 2) : 0;
+			return obstacleArray.isInsideAny(px, py, pz);
+		}
 		return false;
 	}
 	
+	/**
+	 * Distance between a position and the surface of the nearest obstacle. The scene is periodic,
+	 * therefore the distance to the nearest periodic image of each obstacle is used. 
+	 * @param pos Position
+	 * @return Distance to the nearest obstacle surface (negative if pos is inside an obstacle) or
+	 * Double.POSITIVE_INFINITY if the scene contains no obstacles.
+	 */
+	public double distanceToNearestObstacle(double[] pos){
+		double minDistance = Double.POSITIVE_INFINITY;
+		for (AbstractSphereObstacle o : obstacles) {
+			double[] center = o.getPosition();
+			double sumDistSquared = 0;
+			for(int i = 0; i < dimension; i++){
+				double d = pos[i]-center[i];
+				d = d - size[i]*Math.rint(d/size[i]);
+				sumDistSquared += d*d;
+			}
+			double distance = Math.sqrt(sumDistSquared) - o.getRadius();
+			if(distance < minDistance){
+				minDistance = distance;
+			}
+		}
+		for(int k = 0; k < obstacleArray.size(); k++){
+			double sumDistSquared = 0;
+			for(int i = 0; i < dimension; i++){
+				double d = pos[i]-(i == 0 ? obstacleArray.getX(k) : (i == 1 ? obstacleArray.getY(k) : obstacleArray.getZ(k)));
+				d = d - size[i]*Math.rint(d/size[i]);
+				sumDistSquared += d*d;
+			}
+			double distance = Math.sqrt(sumDistSquared) - obstacleArray.getRadius(k);
+			if(distance < minDistance){
+				minDistance = distance;
+			}
+		}
+		return minDistance;
+	}
+	
 	public double[] convertToScenePosition(double[] pos){
 		double[] pPos = new double[pos.length];
 
@@ -157,14 +253,45 @@ public class AnomalousDiffusionScene {
 		
 	}
 	
+	private double toScenePosition(double v, int axis){
+		while(v < 0){
+			v+=size[axis];
+		}
+		while(v >= size[axis]){
+			v-=size[axis];
+		}
+		return v;
+	}
+	
+	/**
+	 * @return Obstacles which were added as objects. The obstacles of the compact storage are provided by {@link #getObstacleArray()}.
+	 */
 	public ArrayList<AbstractSphereObstacle> getObstacles(){
 		return obstacles;
 	}
+	
+	/**
+	 * @return Compact storage of the immobile obstacles
+	 */
+	public SphereObstacleArray getObstacleArray(){
+		return obstacleArray;
+	}
+	
+	/**
+	 * @return Total number of obstacles
+	 */
+	public int getNumberOfObstacles(){
+		return obstacles.size() + obstacleArray.size();
+	}
 			
 	public double[] getSize(){
 		return size;
 	}
 	
+	public int getDimension(){
+		return dimension;
+	}
+	
 	
 
 }
@@ -28,7 +28,27 @@ import javax.vecmath.Point3d;
 
 import de.biomedical_imaging.traJ.Trajectory;
 
+/**
+ * Simulates diffusion in a scene with (moving) spherical obstacles. Each step is split into 
+ * 100 substeps; substeps which would end inside an obstacle are rejected.
+ * 
+ * In the {@link SteppingMode#ADAPTIVE} mode, consecutive substeps are merged into a single Gaussian step
+ * when the particle is far from all obstacles (measured by {@link AnomalousDiffusionScene#distanceToNearestObstacle(double[])}),
+ * so that only steps close to obstacles are simulated with the full substep resolution. Merged steps 
+ * have the same displacement distribution as the sum of the free substeps they replace.
+ * @author Thorsten Wagner
+ *
+ */
 public class AnomalousDiffusionSimulator extends AbstractSimulator {
+	
+	public enum SteppingMode {FIXED, ADAPTIVE};
+	
+	/*
+	 * A merged step only takes place if the distance to the nearest obstacle is larger than
+	 * SAFETY_FACTOR times the root mean square length of the diffusive part plus the drift.
+	 */
+	private static final double SAFETY_FACTOR = 5;
+	
 	private AnomalousDiffusionScene scene;
 	private double timelag;
 	private int dimension;
@@ -39,6 +59,8 @@ public class AnomalousDiffusionSimulator extends AbstractSimulator {
 	private Trajectory drift;
 	private Point3d start;
 	private double proportionReflectedSteps = 0;
+	private SteppingMode steppingMode = SteppingMode.FIXED;
+	private long substepCount = 0;
 
 	public AnomalousDiffusionSimulator(double diffusioncoefficient, double timelag, int dimension,
 			int numberOfSteps, AnomalousDiffusionScene scene, double driftVelocity, double driftAngleVelocity) {
@@ -53,6 +75,14 @@ public class AnomalousDiffusionSimulator extends AbstractSimulator {
 		drift = actSim.generateTrajectory();
 	}
 	
+	/**
+	 * @param steppingMode FIXED (default): Every substep is simulated. ADAPTIVE: Substeps far 
+	 * from obstacles are merged.
+	 */
+	public void setSteppingMode(SteppingMode steppingMode){
+		this.steppingMode = steppingMode;
+	}
+	
 	public void setStartPoint(double x,double y, double z){
 		start = new Point3d(x, y, z);
 	}
@@ -76,6 +106,8 @@ public class AnomalousDiffusionSimulator extends AbstractSimulator {
 
 		Trajectory t = new Trajectory(dimension);
 		t.add(start);
+		proportionReflectedSteps = 0;
+		substepCount = 0;
 		
 		if(dimension==2 && scene.checkCollision(new double[]{start.x,start.y})) {
 			
@@ -95,7 +127,13 @@ public class AnomalousDiffusionSimulator extends AbstractSimulator {
 			double driftdy = drift.get(i).y-drift.get(i-1).y;
 			double driftdz = drift.get(i).z-drift.get(i-1).z;
 			double[] drift = {driftdx,driftdy,driftdz};
-			Point3d pos = nextValidStep(t.get(t.size()-1),drift);
+			Point3d pos;
+			if(steppingMode==SteppingMode.ADAPTIVE){
+				pos = nextValidStepAdaptive(t.get(t.size()-1),drift);
+			}
+			else{
+				pos = nextValidStep(t.get(t.size()-1),drift);
+			}
 		//	pos.setX(pos.x);
 		//	pos.setY(pos.y);
 		//	pos.setZ(pos.z);
@@ -127,13 +165,90 @@ public class AnomalousDiffusionSimulator extends AbstractSimulator {
 			}
 			takenSubsteps++;
 		}
-		
+		substepCount += takenSubsteps;
 		return new Point3d(nextPos);
 		
 	}
 	
+	private Point3d nextValidStepAdaptive(Point3d lastPosition, double[] drift){
+		double subTimelag = timelag/numberOfSubsteps;
+		double driftLength = Math.sqrt(drift[0]*drift[0]+drift[1]*drift[1]+drift[2]*drift[2]);
+		
+		int remainingSubsteps = (int)numberOfSubsteps;
+		double[] nextPos = {lastPosition.x,lastPosition.y,lastPosition.z};
+		double[] candPos = new double[3];
+		while(remainingSubsteps > 0){
+			double distance = scene.distanceToNearestObstacle(nextPos);
+			int k = maxSafeSubsteps(distance, subTimelag, driftLength, remainingSubsteps);
+			if(k > 1){
+				//Merge k substeps: The sum of k free substeps is Gaussian with variance 2*D*k*dt per axis.
+				double sigma = Math.sqrt(2*diffusioncoefficient*k*subTimelag);
+				for(int i = 0; i < dimension; i++){
+					nextPos[i] += sigma*r.nextGaussian() + k*drift[i];
+				}
+				for(int i = dimension; i < 3; i++){
+					nextPos[i] += k*drift[i];
+				}
+				remainingSubsteps -= k;
+			}
+			else{
+				double steplength = Math.sqrt(-2*dimension*diffusioncoefficient*subTimelag*Math.log(1-r.nextDouble()));
+				Point3d pos = SimulationUtil.randomPosition(dimension,steplength);
+				candPos[0] = nextPos[0]+pos.x+drift[0];
+				candPos[1] = nextPos[1]+pos.y+drift[1];
+				candPos[2] = nextPos[2]+pos.z+drift[2];
+				if(scene.checkCollision(candPos)==false){
+					System.arraycopy(candPos, 0, nextPos, 0, 3);
+				}else{
+					proportionReflectedSteps++;
+				}
+				remainingSubsteps--;
+			}
+			substepCount++;
+		}
+		
+		return new Point3d(nextPos);
+	}
+	
+	/**
+	 * @return The largest number of substeps (at most max) which can be merged into one step without 
+	 * a relevant probability to reach an obstacle.
+	 */
+	private int maxSafeSubsteps(double distance, double subTimelag, double driftLength, int max){
+		if(distance == Double.POSITIVE_INFINITY){
+			return max;
+		}
+		if(distance <= 0){
+			return 1;
+		}
+		/*
+		 * Largest k with SAFETY_FACTOR*sqrt(2*dimension*D*k*dt) + k*driftLength <= distance. 
+		 * With s = sqrt(k) this is the positive root of driftLength*s^2 + a*s - distance = 0
+		 */
+		double a = SAFETY_FACTOR*Math.sqrt(2*dimension*diffusioncoefficient*subTimelag);
+		double s;
+		if(driftLength > 0){
+			s = (-a + Math.sqrt(a*a + 4*driftLength*distance))/(2*driftLength);
+		}
+		else{
+			s = distance/a;
+		}
+		double k = Math.floor(s*s);
+		return (int)Math.max(1, Math.min(max, k));
+	}
+	
+	/**
+	 * @return Proportion of rejected substeps of the last simulated trajectory
+	 */
 	public double getProportionOfReflectedSteps(){
 		return proportionReflectedSteps;
 	}
+	
+	/**
+	 * @return Number of simulated (fixed or merged) substeps of the last simulated trajectory
+	 */
+	public long getNumberOfSubsteps(){
+		return substepCount;
+	}
 
 }
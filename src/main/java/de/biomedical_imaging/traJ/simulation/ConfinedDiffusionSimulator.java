@@ -29,7 +29,31 @@ import javax.vecmath.Point3d;
 
 import de.biomedical_imaging.traJ.Trajectory;
 
+/**
+ * Simulates free diffusion inside a circle (2D), sphere (3D) or interval (1D) centered at the origin.
+ * 
+ * Two boundary conditions are available:
+ * <ul>
+ * <li>{@link BoundaryCondition#REJECTION}: Each step is split into a fixed number of substeps. Substeps which would
+ * leave the confinement are rejected and drawn again.</li>
+ * <li>{@link BoundaryCondition#REFLECTION}: Gaussian substeps which are specularly reflected at the wall. The length of 
+ * the substeps adapts to the distance to the wall: far from the wall a whole step is done at once, close to
+ * the wall the minimal substep duration timelag/numberOfSubsteps is used.</li>
+ * </ul>
+ * @author Thorsten Wagner
+ *
+ */
 public class ConfinedDiffusionSimulator extends AbstractSimulator {
+	
+	public enum BoundaryCondition {REJECTION, REFLECTION};
+	
+	/*
+	 * A substep is at most (distance to wall / SAFETY_FACTOR)^2 / (2*dimension*D) long, i.e.
+	 * the wall is SAFETY_FACTOR root mean square step lengths away.
+	 */
+	private static final double SAFETY_FACTOR = 4;
+	private static final int MAX_REFLECTIONS = 16;
+	
 	private CentralRandomNumberGenerator r;
 	double diffusioncoefficient;
 	double timelag;
@@ -37,7 +61,9 @@ public class ConfinedDiffusionSimulator extends AbstractSimulator {
 	int dimension;
 	int numberOfSteps;
 	int numberOfSubsteps = 100;
+	private BoundaryCondition boundaryCondition = BoundaryCondition.REJECTION;
 	private double proportionReflectedSteps = 0;
+	private long substepCount = 0;
 	
 	public ConfinedDiffusionSimulator(double diffusioncoefficient, double timelag, double radius, int dimension,int numberOfSteps) {
 		this.diffusioncoefficient = diffusioncoefficient;
@@ -48,8 +74,34 @@ public class ConfinedDiffusionSimulator extends AbstractSimulator {
 		r = CentralRandomNumberGenerator.getInstance();
 	}
 	
+	/**
+	 * @param diffusioncoefficient Diffusion coefficient in (length unit)^2 s^-1
+	 * @param timelag Timelag between two positions in [s]
+	 * @param radius Radius of the confinement
+	 * @param dimension 1D, 2D or 3D
+	 * @param numberOfSteps The number of step which the particle should take
+	 * @param boundaryCondition Treatment of steps which hit the wall
+	 */
+	public ConfinedDiffusionSimulator(double diffusioncoefficient, double timelag, double radius, int dimension,int numberOfSteps, BoundaryCondition boundaryCondition) {
+		this(diffusioncoefficient, timelag, radius, dimension, numberOfSteps);
+		this.boundaryCondition = boundaryCondition;
+	}
+	
+	/**
+	 * @param numberOfSubsteps Number of substeps per step for {@link BoundaryCondition#REJECTION}, 
+	 * maximum number of substeps per step for {@link BoundaryCondition#REFLECTION}
+	 */
+	public void setNumberOfSubsteps(int numberOfSubsteps){
+		this.numberOfSubsteps = numberOfSubsteps;
+	}
+	
 	@Override
 	public Trajectory generateTrajectory() {
+		proportionReflectedSteps = 0;
+		substepCount = 0;
+		if(boundaryCondition==BoundaryCondition.REFLECTION){
+			return generateReflectedTrajectory();
+		}
 		Trajectory t = new Trajectory(dimension);
 		t.add(new Point3d(0, 0, 0));
 		for(int i = 1; i <= numberOfSteps; i++) {
@@ -59,10 +111,96 @@ public class ConfinedDiffusionSimulator extends AbstractSimulator {
 			pos.setZ(pos.z);
 			t.add(pos);
 		}
+		substepCount = (long)numberOfSteps*numberOfSubsteps;
 		proportionReflectedSteps = proportionReflectedSteps/(numberOfSteps*numberOfSubsteps);
 		return t;
 	}
 	
+	private Trajectory generateReflectedTrajectory(){
+		Trajectory t = new Trajectory(dimension);
+		t.ensureCapacity(numberOfSteps+1);
+		t.add(new Point3d(0, 0, 0));
+		double[] pos = new double[3];
+		double[] step = new double[3];
+		double minTimelagSub = timelag / numberOfSubsteps;
+		long reflected = 0;
+		for(int i = 1; i <= numberOfSteps; i++) {
+			double remaining = timelag;
+			while(remaining > 0){
+				double distToWall = radius - norm(pos);
+				double dt = distToWall*distToWall/(SAFETY_FACTOR*SAFETY_FACTOR*2*dimension*diffusioncoefficient);
+				if(dt < minTimelagSub){
+					dt = minTimelagSub;
+				}
+				if(dt > remaining || remaining-dt < minTimelagSub*1e-6){
+					dt = remaining;
+				}
+				remaining -= dt;
+				double sigma = Math.sqrt(2*diffusioncoefficient*dt);
+				for(int j = 0; j < dimension; j++){
+					step[j] = sigma*r.nextGaussian();
+				}
+				if(moveAndReflect(pos, step)){
+					reflected++;
+				}
+				substepCount++;
+			}
+			t.add(new Point3d(pos[0], pos[1], pos[2]));
+		}
+		proportionReflectedSteps = substepCount == 0 ? 0 : ((double)reflected)/substepCount;
+		return t;
+	}
+	
+	/**
+	 * Moves pos by step. If the step leaves the confinement, it is specularly reflected at the wall.
+	 * @return true if the step was reflected
+	 */
+	private boolean moveAndReflect(double[] pos, double[] step){
+		boolean reflected = false;
+		for(int k = 0; k < MAX_REFLECTIONS; k++){
+			double a = dot(step, step);
+			double b = 2*dot(pos, step);
+			double c = dot(pos, pos) - radius*radius;
+			//The step ends inside the confinement
+			if(a + b + c < 0){
+				break;
+			}
+			reflected = true;
+			//Fraction s of the step until the wall is hit (root of a*s^2+b*s+c)
+			double s = (-b + Math.sqrt(Math.max(0, b*b - 4*a*c)))/(2*a);
+			for(int j = 0; j < 3; j++){
+				pos[j] += s*step[j];
+				step[j] *= (1-s);
+			}
+			//Reflect the remaining step at the tangent plane
+			double n = norm(pos);
+			double proj = dot(step, pos)/(n*n);
+			for(int j = 0; j < 3; j++){
+				step[j] -= 2*proj*pos[j];
+			}
+		}
+		for(int j = 0; j < 3; j++){
+			pos[j] += step[j];
+		}
+		//Guard against rounding errors and pathological multiple reflections
+		double n = norm(pos);
+		if(n >= radius){
+			double f = radius*(1-1e-12)/n;
+			for(int j = 0; j < 3; j++){
+				pos[j] *= f;
+			}
+		}
+		return reflected;
+	}
+	
+	private static double dot(double[] a, double[] b){
+		return a[0]*b[0] + a[1]*b[1] + a[2]*b[2];
+	}
+	
+	private static double norm(double[] a){
+		return Math.sqrt(dot(a, a));
+	}
+	
 	/**
 	 * Simulates a single step (for dt) of a confined diffusion inside of a circle. 
      * Therefore each step is split up in N substeps. A substep which collidates 
@@ -94,8 +232,27 @@ public class ConfinedDiffusionSimulator extends AbstractSimulator {
 		return lastValidPosition;
 	}
 	
+	/**
+	 * @return Proportion of the substeps of the last simulated trajectory which were rejected 
+	 * ({@link BoundaryCondition#REJECTION}, relative to the number of accepted substeps) or reflected 
+	 * ({@link BoundaryCondition#REFLECTION}).
+	 */
 	public double getProportionOfReflectedSteps(){
 		return proportionReflectedSteps;
 	}
+	
+	/**
+	 * @return Number of (accepted) substeps of the last simulated trajectory
+	 */
+	public long getNumberOfSubsteps(){
+		return substepCount;
+	}
+	
+	/**
+	 * @return Mean number of substeps per step of the last simulated trajectory
+	 */
+	public double getMeanNumberOfSubstepsPerStep(){
+		return numberOfSteps == 0 ? 0 : ((double)substepCount)/numberOfSteps;
+	}
 
 }
@@ -0,0 +1,196 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.simulation;
+
+import java.util.ArrayList;
+
+import javax.vecmath.Point3d;
+
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traj.math.FFTPlan;
+
+/**
+ * Simulates anomalous diffusion as fractional brownian motion. The increments in each direction are 
+ * exact fractional gaussian noise with hurst exponent H = alpha/2, generated by the circulant embedding 
+ * method of Davies and Harte in O(N log N):
+ * 
+ * R. B. Davies and D. S. Harte, “Tests for Hurst effect,” Biometrika, vol. 74, no. 1, pp. 95–101, 1987.
+ * 
+ * C. R. Dietrich and G. N. Newsam, “Fast and exact simulation of stationary gaussian processes through circulant 
+ * embedding of the covariance matrix,” SIAM J. Sci. Comput., vol. 18, no. 4, pp. 1088–1107, 1997.
+ * 
+ * The mean squared displacement is MSD(t) = 2*dimension*D*t^alpha. The eigenvalues of the circulant embedding and the 
+ * FFT plan are calculated once and reused for all trajectories generated by the same simulator. Each FFT 
+ * provides the increments of two directions.
+ * 
+ * @author Thorsten Wagner
+ *
+ */
+public class FractionalBrownianMotionSimulator extends AbstractSimulator {
+	
+	private CentralRandomNumberGenerator r;
+	private double diffusioncoefficient;
+	private double timelag;
+	private int dimension;
+	private int numberOfSteps;
+	private double alpha;
+	private FFTPlan plan;
+	private double[] sqrtEigenvalues;
+	private double[] re;
+	private double[] im;
+	private double[] spareIncrements;
+	private boolean hasSpareIncrements = false;
+	
+	/**
+	 * @param diffusioncoefficient Diffusion coefficient in (length unit)^2 s^-alpha
+	 * @param timelag Timelag between two positions in [s]
+	 * @param dimension 1D- 2D or 3D
+	 * @param numberOfSteps The number of step which the particle should take
+	 * @param alpha Anomalous exponent (0 < alpha < 2)
+	 */
+	public FractionalBrownianMotionSimulator(double diffusioncoefficient, double timelag, int dimension,int numberOfSteps, double alpha) {
+		if(alpha <= 0 || alpha >= 2){
+			throw new IllegalArgumentException("Alpha has to be between 0 and 2");
+		}
+		r = CentralRandomNumberGenerator.getInstance();
+		this.diffusioncoefficient = diffusioncoefficient;
+		this.timelag = timelag;
+		this.dimension = dimension;
+		this.numberOfSteps = numberOfSteps;
+		this.alpha = alpha;
+	}
+	
+	@Override
+	public Trajectory generateTrajectory() {
+		double[][] increments = new double[3][numberOfSteps];
+		for(int i = 0; i < dimension; i++){
+			generateIncrements(increments[i]);
+		}
+		Trajectory t = new Trajectory(dimension);
+		t.ensureCapacity(numberOfSteps+1);
+		double x = 0;
+		double y = 0;
+		double z = 0;
+		t.add(new Point3d(x, y, z));
+		for(int i = 0; i < numberOfSteps; i++){
+			x += increments[0][i];
+			y += increments[1][i];
+			z += increments[2][i];
+			t.add(new Point3d(x, y, z));
+		}
+		return t;
+	}
+	
+	/**
+	 * Generates several trajectories with the same FFT plan and circulant embedding.
+	 * @param numberOfTrajectories Number of trajectories
+	 * @return List of trajectories
+	 */
+	public ArrayList<Trajectory> generateTrajectories(int numberOfTrajectories){
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>(numberOfTrajectories);
+		for(int i = 0; i < numberOfTrajectories; i++){
+			tracks.add(generateTrajectory());
+		}
+		return tracks;
+	}
+	
+	/**
+	 * Fills the array with fractional gaussian noise, i.e. the increments of one direction. 
+	 * The variance of each increment is 2*D*timelag^alpha.
+	 * @param increments Array of length numberOfSteps
+	 */
+	public void generateIncrements(double[] increments){
+		if(increments.length != numberOfSteps){
+			throw new IllegalArgumentException("The array has to have numberOfSteps elements");
+		}
+		if(hasSpareIncrements){
+			System.arraycopy(spareIncrements, 0, increments, 0, numberOfSteps);
+			hasSpareIncrements = false;
+			return;
+		}
+		if(plan == null){
+			initCirculantEmbedding();
+		}
+		int m = plan.getSize();
+		for(int k = 0; k < m; k++){
+			re[k] = sqrtEigenvalues[k]*r.nextGaussian();
+			im[k] = sqrtEigenvalues[k]*r.nextGaussian();
+		}
+		plan.transform(re, im);
+		//Real and imaginary part are two independent samples
+		System.arraycopy(re, 0, increments, 0, numberOfSteps);
+		System.arraycopy(im, 0, spareIncrements, 0, numberOfSteps);
+		hasSpareIncrements = true;
+	}
+	
+	/**
+	 * Embeds the covariance matrix of the increments in a circulant matrix of size m=2*M (M>=numberOfSteps,
+	 * power of two) and calculates the square roots of its eigenvalues, scaled by 1/sqrt(m).
+	 */
+	private void initCirculantEmbedding(){
+		int half = FFTPlan.nextPowerOfTwo(Math.max(numberOfSteps, 1));
+		int m = 2*half;
+		plan = new FFTPlan(m);
+		re = new double[m];
+		im = new double[m];
+		spareIncrements = new double[numberOfSteps];
+		double variance = 2*diffusioncoefficient*Math.pow(timelag, alpha);
+		for(int j = 0; j <= half; j++){
+			re[j] = autocovariance(j, variance);
+		}
+		for(int j = half+1; j < m; j++){
+			re[j] = re[m-j];
+		}
+		plan.transform(re, im);
+		sqrtEigenvalues = new double[m];
+		for(int k = 0; k < m; k++){
+			double lambda = re[k];
+			if(lambda < 0){
+				//Only rounding errors are possible for fractional gaussian noise
+				if(lambda < -1e-10*variance*m){
+					throw new IllegalStateException("The circulant embedding is not non-negative definite");
+				}
+				lambda = 0;
+			}
+			sqrtEigenvalues[k] = Math.sqrt(lambda/m);
+		}
+	}
+	
+	/**
+	 * Autocovariance of fractional gaussian noise: variance/2 * (|k+1|^2H - 2|k|^2H + |k-1|^2H) with 2H=alpha
+	 */
+	private double autocovariance(int k, double variance){
+		return variance/2*(Math.pow(k+1, alpha) - 2*Math.pow(k, alpha) + Math.pow(Math.abs(k-1), alpha));
+	}
+	
+	public void setNumberOfSteps(int numberOfSteps){
+		if(numberOfSteps != this.numberOfSteps){
+			this.numberOfSteps = numberOfSteps;
+			plan = null;
+			hasSpareIncrements = false;
+		}
+	}
+
+}
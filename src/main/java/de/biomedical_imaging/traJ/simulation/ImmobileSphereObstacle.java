@@ -39,5 +39,10 @@ public class ImmobileSphereObstacle extends AbstractSphereObstacle {
 		 */
 		
 	}
+	
+	@Override
+	public boolean isMobile() {
+		return false;
+	}
 
 }
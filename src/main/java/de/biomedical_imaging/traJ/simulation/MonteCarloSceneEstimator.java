@@ -0,0 +1,170 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.simulation;
+
+import java.util.List;
+import java.util.Random;
+
+import de.biomedical_imaging.traJ.ParallelUtil;
+import de.biomedical_imaging.traJ.ParallelUtil.RangeTask;
+
+/**
+ * Parallel monte carlo estimates of the excluded volume fraction and the probability of non-interaction of an
+ * {@link AnomalousDiffusionScene}. The random points are split into chunks which are processed in parallel; 
+ * point-in-obstacle tests use an {@link ObstacleGridIndex}. All tests use all axes of the scene.
+ * 
+ * By default a fixed number of points is used. With {@link #setTargetStandardError(double, int)} further points 
+ * are drawn until the standard error of the estimate falls below the target. The standard error is the half width of the 
+ * Wilson score interval (z = 1). Unlike the Wald estimate sqrt(p(1-p)/n) it does not vanish if no point (or every point) 
+ * was a hit, so that rare events do not stop the sampling too early. The estimates are reproducible if the 
+ * {@link CentralRandomNumberGenerator} was seeded and do not depend on the number of threads.
+ * @author Thorsten Wagner
+ *
+ */
+public class MonteCarloSceneEstimator {
+	
+	private static final int CHUNK_SIZE = 8192;
+	
+	private AnomalousDiffusionScene scene;
+	private int minNumberOfSamples = 100000;
+	private int maxNumberOfSamples = 100000;
+	private double targetStandardError = 0;
+	private double standardError;
+	private long numberOfSamples;
+	
+	public MonteCarloSceneEstimator(AnomalousDiffusionScene scene) {
+		this.scene = scene;
+	}
+	
+	/**
+	 * @param numberOfSamples Fixed number of random points
+	 */
+	public void setNumberOfSamples(int numberOfSamples){
+		this.minNumberOfSamples = numberOfSamples;
+		this.maxNumberOfSamples = numberOfSamples;
+		this.targetStandardError = 0;
+	}
+	
+	/**
+	 * Random points are drawn until the standard error of the estimated proportion is smaller than targetStandardError or
+	 * the maximum number of samples is reached.
+	 * @param targetStandardError Target standard error of the estimate
+	 * @param maxNumberOfSamples Maximum number of random points
+	 */
+	public void setTargetStandardError(double targetStandardError, int maxNumberOfSamples){
+		this.targetStandardError = targetStandardError;
+		this.maxNumberOfSamples = maxNumberOfSamples;
+		this.minNumberOfSamples = Math.min(CHUNK_SIZE, maxNumberOfSamples);
+	}
+	
+	/**
+	 * @return Fraction of the scene volume which is covered by obstacles
+	 */
+	public double estimateExcludedVolumeFraction(){
+		final ObstacleGridIndex index = ObstacleGridIndex.create(scene, 0);
+		return estimateProportion(index, -1);
+	}
+	
+	/**
+	 * @param radius Radius of the diffusing particle
+	 * @return Probability that a random position does not interact with an obstacle, i.e. its distance to every 
+	 * obstacle center is larger than the maximum of the obstacle radius and radius
+	 */
+	public double estimateProbNonInteraction(double radius){
+		final ObstacleGridIndex index = ObstacleGridIndex.create(scene, radius);
+		return 1 - estimateProportion(index, radius);
+	}
+	
+	/**
+	 * @return Standard error (half width of the Wilson score interval) of the last estimate
+	 */
+	public double getStandardError(){
+		return standardError;
+	}
+	
+	/**
+	 * @return Number of random points of the last estimate
+	 */
+	public long getNumberOfSamples(){
+		return numberOfSamples;
+	}
+	
+	/**
+	 * @param interactionRadius Negative: Proportion of points inside obstacles. Otherwise: Proportion of points within the interaction radius.
+	 */
+	private double estimateProportion(final ObstacleGridIndex index, final double interactionRadius){
+		final double[] size = scene.getSize();
+		final int dimension = scene.getDimension();
+		long hits = 0;
+		long total = 0;
+		int batch = minNumberOfSamples;
+		double p = 0;
+		while(batch > 0){
+			final Random[] randoms = ParallelUtil.createRandoms(ParallelUtil.getNumberOfChunks(batch, CHUNK_SIZE));
+			List<Long> counts = ParallelUtil.mapRanges(batch, CHUNK_SIZE, new RangeTask<Long>() {
+				public Long compute(int chunk, int from, int to) {
+					Random r = randoms[chunk];
+					long count = 0;
+					for(int i = from; i < to; i++){
+						double px = r.nextDouble()*size[0];
+						double py = r.nextDouble()*size[1];
+						double pz = dimension == 3 ? r.nextDouble()*size[2] : 0;
+						boolean hit = interactionRadius < 0 ? index.isInside(px, py, pz) : index.isWithin(px, py, pz, interactionRadius);
+						if(hit){
+							count++;
+						}
+					}
+					return count;
+				}
+			});
+			for (Long c : counts) {
+				hits += c;
+			}
+			total += batch;
+			p = ((double)hits)/total;
+			standardError = wilsonHalfWidth(p, total);
+			
+			batch = 0;
+			if(targetStandardError > 0 && standardError > targetStandardError && total < maxNumberOfSamples){
+				//Number of samples which are necessary to reach the target standard error: 
+				//smallest n with p(1-p)/n + 1/(4n^2) <= target^2
+				double t2 = targetStandardError*targetStandardError;
+				double v = p*(1-p);
+				double needed = (v + Math.sqrt(v*v + t2))/(2*t2) - total;
+				batch = (int)Math.min(maxNumberOfSamples - total, Math.max(CHUNK_SIZE, Math.ceil(needed)));
+			}
+		}
+		numberOfSamples = total;
+		return p;
+	}
+	
+	/**
+	 * Half width of the Wilson score interval for z = 1
+	 */
+	private static double wilsonHalfWidth(double p, long n){
+		return Math.sqrt(p*(1-p)/n + 1.0/(4.0*n*n))/(1 + 1.0/n);
+	}
+
+}
@@ -0,0 +1,219 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.vecmath.Point3d;
+
+import de.biomedical_imaging.traJ.ParallelUtil;
+import de.biomedical_imaging.traJ.ParallelUtil.RangeTask;
+import de.biomedical_imaging.traJ.Trajectory;
+
+/**
+ * Simulates many particles which diffuse in the same {@link AnomalousDiffusionScene}. All particles are advanced 
+ * together frame by frame: the obstacles are moved once per frame and an {@link ObstacleGridIndex} of the 
+ * obstacle positions is shared by all particles. The index is built once and only rebuilt per frame if the scene 
+ * contains mobile obstacles. The particles are processed in parallel; their positions are
+ * stored as primitive arrays.
+ * 
+ * Each step is split into substeps like in {@link AnomalousDiffusionSimulator}. Substeps which would end inside an obstacle are rejected.
+ * The result is reproducible if the {@link CentralRandomNumberGenerator} was seeded and does not depend on the number of threads.
+ * @author Thorsten Wagner
+ *
+ */
+public class MultiParticleAnomalousDiffusionSimulator {
+	
+	private static final int PARTICLES_PER_CHUNK = 64;
+	
+	private AnomalousDiffusionScene scene;
+	private double diffusioncoefficient;
+	private double timelag;
+	private int dimension;
+	private int numberOfSteps;
+	private int numberOfParticles;
+	private int numberOfSubsteps = 100;
+	private double[][] startPoints = null;
+	private double proportionReflectedSteps = 0;
+	
+	/**
+	 * @param diffusioncoefficient Diffusion coefficient in (length unit)^2 s^-1
+	 * @param timelag Timelag between two positions in [s]
+	 * @param dimension 2D or 3D
+	 * @param numberOfSteps The number of step which each particle should take
+	 * @param scene Scene with obstacles
+	 * @param numberOfParticles Number of particles
+	 */
+	public MultiParticleAnomalousDiffusionSimulator(double diffusioncoefficient, double timelag, int dimension, int numberOfSteps,
+			AnomalousDiffusionScene scene, int numberOfParticles) {
+		this.diffusioncoefficient = diffusioncoefficient;
+		this.timelag = timelag;
+		this.dimension = dimension;
+		this.numberOfSteps = numberOfSteps;
+		this.scene = scene;
+		this.numberOfParticles = numberOfParticles;
+	}
+	
+	/**
+	 * @param startPoints Start position of each particle ([particle][axis]). If not set, random positions outside of the obstacles are used.
+	 */
+	public void setStartPoints(double[][] startPoints){
+		if(startPoints.length != numberOfParticles){
+			throw new IllegalArgumentException("One start point per particle is required");
+		}
+		this.startPoints = startPoints;
+	}
+	
+	public void setNumberOfSubsteps(int numberOfSubsteps){
+		this.numberOfSubsteps = numberOfSubsteps;
+	}
+	
+	/**
+	 * @return One trajectory per particle
+	 */
+	public ArrayList<Trajectory> generateTrajectories(){
+		final double[] x = new double[numberOfParticles];
+		final double[] y = new double[numberOfParticles];
+		final double[] z = new double[numberOfParticles];
+		initStartPoints(x, y, z);
+		
+		final ArrayList<Trajectory> tracks = new ArrayList<Trajectory>(numberOfParticles);
+		for(int i = 0; i < numberOfParticles; i++){
+			Trajectory t = new Trajectory(dimension);
+			t.ensureCapacity(numberOfSteps+1);
+			t.add(new Point3d(x[i], y[i], z[i]));
+			tracks.add(t);
+		}
+		
+		final Random[] randoms = ParallelUtil.createRandoms(ParallelUtil.getNumberOfChunks(numberOfParticles, PARTICLES_PER_CHUNK));
+		final double[] size = scene.getSize();
+		final double subTimelag = timelag/numberOfSubsteps;
+		long rejected = 0;
+		final boolean mobile = scene.hasMobileObstacles();
+		ObstacleGridIndex staticIndex = mobile ? null : ObstacleGridIndex.create(scene, 0);
+		for(int step = 1; step <= numberOfSteps; step++){
+			scene.updateObstaclePositions();
+			final ObstacleGridIndex index = mobile ? ObstacleGridIndex.create(scene, 0) : staticIndex;
+			List<Long> rejectedPerChunk = ParallelUtil.mapRanges(numberOfParticles, PARTICLES_PER_CHUNK, new RangeTask<Long>() {
+				public Long compute(int chunk, int from, int to) {
+					Random r = randoms[chunk];
+					long rejected = 0;
+					for(int i = from; i < to; i++){
+						double px = x[i];
+						double py = y[i];
+						double pz = z[i];
+						for(int s = 0; s < numberOfSubsteps; s++){
+							double steplength = Math.sqrt(-2*dimension*diffusioncoefficient*subTimelag*Math.log(1-r.nextDouble()));
+							double cx;
+							double cy;
+							double cz;
+							if(dimension == 3){
+								double u = 2*r.nextDouble()-1;
+								double theta = 2*Math.PI*r.nextDouble();
+								double f = Math.sqrt(1-u*u)*steplength;
+								cx = px + f*Math.cos(theta);
+								cy = py + f*Math.sin(theta);
+								cz = pz + u*steplength;
+							}
+							else{
+								double phi = 2*Math.PI*r.nextDouble();
+								cx = px + Math.cos(phi)*steplength;
+								cy = py + Math.sin(phi)*steplength;
+								cz = pz;
+							}
+							if(index.isInside(toScene(cx, size[0]), toScene(cy, size[1]), dimension == 3 ? toScene(cz, size[2]) : 0)){
+								rejected++;
+							}
+							else{
+								px = cx;
+								py = cy;
+								pz = cz;
+							}
+						}
+						x[i] = px;
+						y[i] = py;
+						z[i] = pz;
+						tracks.get(i).add(new Point3d(px, py, pz));
+					}
+					return rejected;
+				}
+			});
+			for (Long c : rejectedPerChunk) {
+				rejected += c;
+			}
+		}
+		proportionReflectedSteps = ((double)rejected)/((double)numberOfParticles*numberOfSteps*numberOfSubsteps);
+		return tracks;
+	}
+	
+	/**
+	 * Periodic boundary conditions like {@link AnomalousDiffusionScene#convertToScenePosition(double[])}
+	 */
+	private static double toScene(double v, double size){
+		v = v % size;
+		if(v < 0){
+			v += size;
+		}
+		return v >= size ? 0 : v;
+	}
+	
+	private void initStartPoints(double[] x, double[] y, double[] z){
+		if(startPoints != null){
+			for(int i = 0; i < numberOfParticles; i++){
+				x[i] = startPoints[i][0];
+				y[i] = startPoints[i][1];
+				z[i] = dimension == 3 ? startPoints[i][2] : 0;
+				if(scene.checkCollision(new double[]{x[i],y[i],z[i]})){
+					throw new IllegalStateException("Start position has to be outside of an obstacle");
+				}
+			}
+			return;
+		}
+		CentralRandomNumberGenerator r = CentralRandomNumberGenerator.getInstance();
+		double[] size = scene.getSize();
+		ObstacleGridIndex index = ObstacleGridIndex.create(scene, 0);
+		for(int i = 0; i < numberOfParticles; i++){
+			int attempts = 0;
+			do{
+				if(attempts++ > 10000){
+					throw new IllegalStateException("No start position outside of the obstacles found");
+				}
+				x[i] = r.nextDouble()*size[0];
+				y[i] = r.nextDouble()*size[1];
+				z[i] = dimension == 3 ? r.nextDouble()*size[2] : 0;
+			}while(index.isInside(x[i], y[i], z[i]));
+		}
+	}
+	
+	/**
+	 * @return Proportion of rejected substeps of the last simulation
+	 */
+	public double getProportionOfReflectedSteps(){
+		return proportionReflectedSteps;
+	}
+
+}
@@ -0,0 +1,248 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.simulation;
+
+import java.util.ArrayList;
+
+/**
+ * Uniform grid over the scene which stores for each cell the spherical obstacles overlapping it. 
+ * Point-in-obstacle tests therefore only check the obstacles of a single cell instead of all obstacles.
+ * The obstacles are stored as primitive arrays, the cells in compressed form (start index per cell and one 
+ * array of obstacle indices). 
+ * 
+ * Like {@link AnomalousDiffusionScene#checkCollision(double[])}, the tests do not consider periodic images of the 
+ * obstacles: query positions have to be converted to scene positions first. The index is a snapshot, i.e. it has to be 
+ * rebuilt when obstacles move.
+ * @author Thorsten Wagner
+ *
+ */
+public class ObstacleGridIndex {
+	
+	private static final int MAX_NUMBER_OF_CELLS = 1 << 22;
+	
+	private final int dimension;
+	private final int n;
+	private final double[] x;
+	private final double[] y;
+	private final double[] z;
+	private final double[] radius;
+	private final double padding;
+	private final int[] cellsPerAxis = {1,1,1};
+	private final double[] inverseCellSize = {0,0,0};
+	private int[] cellStart;
+	private int[] cellItems;
+	
+	/**
+	 * @param size Size of the scene
+	 * @param dimension 2 or 3
+	 * @param x x-coordinates of the obstacle centers
+	 * @param y y-coordinates of the obstacle centers
+	 * @param z z-coordinates of the obstacle centers (ignored in 2D)
+	 * @param radius Obstacle radii
+	 * @param n Number of obstacles (the arrays might be larger)
+	 * @param padding Obstacles are registered in all cells which they overlap when they are enlarged by padding. 
+	 * {@link #isWithin(double, double, double, double)} supports interaction radii up to padding.
+	 */
+	public ObstacleGridIndex(double[] size, int dimension, double[] x, double[] y, double[] z, double[] radius, int n, double padding) {
+		this.dimension = dimension;
+		this.n = n;
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.radius = radius;
+		this.padding = padding;
+		
+		double maxRadius = 0;
+		for(int i = 0; i < n; i++){
+			maxRadius = Math.max(maxRadius, radius[i] + padding);
+		}
+		// About one obstacle per cell, but cells should not be smaller than the largest (padded) obstacle radius
+		int k = (int)Math.ceil(Math.pow(Math.max(1, n), 1.0/dimension));
+		k = Math.max(1, Math.min(k, (int)Math.floor(Math.pow(MAX_NUMBER_OF_CELLS, 1.0/dimension))));
+		for(int d = 0; d < dimension; d++){
+			int cells = k;
+			if(maxRadius > 0){
+				cells = Math.max(1, Math.min(cells, (int)(size[d]/maxRadius)));
+			}
+			cellsPerAxis[d] = cells;
+			inverseCellSize[d] = cells/size[d];
+		}
+		build();
+	}
+	
+	/**
+	 * Creates an index of the current obstacle positions of a scene (object and compactly stored obstacles)
+	 * @param scene Scene
+	 * @param padding See {@link #ObstacleGridIndex(double[], int, double[], double[], double[], double[], int, double)}
+	 */
+	public static ObstacleGridIndex create(AnomalousDiffusionScene scene, double padding){
+		ArrayList<AbstractSphereObstacle> obstacles = scene.getObstacles();
+		SphereObstacleArray array = scene.getObstacleArray();
+		if(obstacles.isEmpty()){
+			return array.createIndex(scene.getSize(), padding);
+		}
+		int n = obstacles.size() + array.size();
+		double[] x = new double[n];
+		double[] y = new double[n];
+		double[] z = new double[n];
+		double[] r = new double[n];
+		for(int i = 0; i < obstacles.size(); i++){
+			AbstractSphereObstacle o = obstacles.get(i);
+			x[i] = o.getPosition(0);
+			y[i] = o.getPosition(1);
+			z[i] = scene.getDimension() == 3 ? o.getPosition(2) : 0;
+			r[i] = o.getRadius();
+		}
+		for(int j = 0; j < array.size(); j++){
+			int i = obstacles.size() + j;
+			x[i] = array.getX(j);
+			y[i] = array.getY(j);
+			z[i] = array.getZ(j);
+			r[i] = array.getRadius(j);
+		}
+		return new ObstacleGridIndex(scene.getSize(), scene.getDimension(), x, y, z, r, n, padding);
+	}
+	
+	private void build(){
+		int nCells = cellsPerAxis[0]*cellsPerAxis[1]*cellsPerAxis[2];
+		cellStart = new int[nCells+1];
+		int[] range = new int[6];
+		//Count
+		for(int i = 0; i < n; i++){
+			cellRange(i, range);
+			for(int cz = range[4]; cz <= range[5]; cz++){
+				for(int cy = range[2]; cy <= range[3]; cy++){
+					for(int cx = range[0]; cx <= range[1]; cx++){
+						cellStart[cellIndex(cx, cy, cz)+1]++;
+					}
+				}
+			}
+		}
+		for(int c = 0; c < nCells; c++){
+			cellStart[c+1] += cellStart[c];
+		}
+		//Fill
+		cellItems = new int[cellStart[nCells]];
+		int[] fill = new int[nCells];
+		for(int i = 0; i < n; i++){
+			cellRange(i, range);
+			for(int cz = range[4]; cz <= range[5]; cz++){
+				for(int cy = range[2]; cy <= range[3]; cy++){
+					for(int cx = range[0]; cx <= range[1]; cx++){
+						int c = cellIndex(cx, cy, cz);
+						cellItems[cellStart[c] + fill[c]++] = i;
+					}
+				}
+			}
+		}
+	}
+	
+	private void cellRange(int i, int[] range){
+		double r = radius[i] + padding;
+		double[] c = {x[i], y[i], z[i]};
+		for(int d = 0; d < 3; d++){
+			if(d < dimension){
+				range[2*d] = cell(c[d]-r, d);
+				range[2*d+1] = cell(c[d]+r, d);
+			}else{
+				range[2*d] = 0;
+				range[2*d+1] = 0;
+			}
+		}
+	}
+	
+	private int cell(double v, int d){
+		int c = (int)Math.floor(v*inverseCellSize[d]);
+		if(c < 0){
+			return 0;
+		}
+		if(c >= cellsPerAxis[d]){
+			return cellsPerAxis[d]-1;
+		}
+		return c;
+	}
+	
+	private int cellIndex(int cx, int cy, int cz){
+		return cx + cellsPerAxis[0]*(cy + cellsPerAxis[1]*cz);
+	}
+	
+	private int cellIndexOf(double px, double py, double pz){
+		return cellIndex(cell(px, 0), dimension > 1 ? cell(py, 1) : 0, dimension > 2 ? cell(pz, 2) : 0);
+	}
+	
+	private double squaredDistance(int i, double px, double py, double pz){
+		double dx = px - x[i];
+		double dy = py - y[i];
+		double d = dx*dx + dy*dy;
+		if(dimension == 3){
+			double dz = pz - z[i];
+			d += dz*dz;
+		}
+		return d;
+	}
+	
+	/**
+	 * @return true if the position is inside of an obstacle
+	 */
+	public boolean isInside(double px, double py, double pz){
+		int c = cellIndexOf(px, py, pz);
+		for(int k = cellStart[c]; k < cellStart[c+1]; k++){
+			int i = cellItems[k];
+			if(squaredDistance(i, px, py, pz) < radius[i]*radius[i]){
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * @param interactionRadius Radius of the particle (has to be smaller or equal than the padding of the index)
+	 * @return true if the distance between the position and an obstacle center is smaller than the maximum of 
+	 * the obstacle radius and the interaction radius
+	 */
+	public boolean isWithin(double px, double py, double pz, double interactionRadius){
+		if(interactionRadius > padding){
+			throw new IllegalArgumentException("The interaction radius is larger than the padding of the index");
+		}
+		int c = cellIndexOf(px, py, pz);
+		for(int k = cellStart[c]; k < cellStart[c+1]; k++){
+			int i = cellItems[k];
+			double r = Math.max(radius[i], interactionRadius);
+			if(squaredDistance(i, px, py, pz) < r*r){
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	public int getNumberOfObstacles(){
+		return n;
+	}
+	
+	public int getDimension(){
+		return dimension;
+	}
+
+}
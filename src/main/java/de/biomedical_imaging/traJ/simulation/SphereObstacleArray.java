@@ -0,0 +1,225 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Compact storage of many immobile spherical obstacles. Centers and radii are stored in primitive arrays 
+ * (32 bytes per obstacle), so that scenes with millions of obstacles fit into a few hundred MB. 
+ * {@link #get(int)} provides an {@link AbstractSphereObstacle} view of a single obstacle for code which works with 
+ * the object API.
+ * @author Thorsten Wagner
+ *
+ */
+public class SphereObstacleArray {
+	
+	private final int dimension;
+	private double[] x;
+	private double[] y;
+	private double[] z;
+	private double[] radius;
+	private int size;
+	
+	/**
+	 * @param dimension 2 or 3
+	 */
+	public SphereObstacleArray(int dimension) {
+		this(dimension, 16);
+	}
+	
+	/**
+	 * @param dimension 2 or 3
+	 * @param initialCapacity Number of obstacles for which memory is reserved
+	 */
+	public SphereObstacleArray(int dimension, int initialCapacity) {
+		this.dimension = dimension;
+		initialCapacity = Math.max(1, initialCapacity);
+		x = new double[initialCapacity];
+		y = new double[initialCapacity];
+		z = new double[initialCapacity];
+		radius = new double[initialCapacity];
+		size = 0;
+	}
+	
+	/**
+	 * Adds an obstacle
+	 * @param px x-coordinate of the center
+	 * @param py y-coordinate of the center
+	 * @param pz z-coordinate of the center (ignored in 2D)
+	 * @param r Radius
+	 * @return Index of the obstacle
+	 */
+	public int add(double px, double py, double pz, double r){
+		if(size == x.length){
+			int capacity = x.length + (x.length >> 1) + 1;
+			x = Arrays.copyOf(x, capacity);
+			y = Arrays.copyOf(y, capacity);
+			z = Arrays.copyOf(z, capacity);
+			radius = Arrays.copyOf(radius, capacity);
+		}
+		x[size] = px;
+		y[size] = py;
+		z[size] = dimension == 3 ? pz : 0;
+		radius[size] = r;
+		return size++;
+	}
+	
+	public int size(){
+		return size;
+	}
+	
+	public int getDimension(){
+		return dimension;
+	}
+	
+	public double getX(int i){
+		return x[i];
+	}
+	
+	public double getY(int i){
+		return y[i];
+	}
+	
+	public double getZ(int i){
+		return z[i];
+	}
+	
+	public double getRadius(int i){
+		return radius[i];
+	}
+	
+	/**
+	 * @return true if the position is inside of obstacle i
+	 */
+	public boolean isInside(int i, double px, double py, double pz){
+		double r = radius[i];
+		double dx = px - x[i];
+		if(dx > r || dx < -r){
+			return false;
+		}
+		double dy = py - y[i];
+		if(dy > r || dy < -r){
+			return false;
+		}
+		double d = dx*dx + dy*dy;
+		if(dimension == 3){
+			double dz = pz - z[i];
+			d += dz*dz;
+		}
+		return d < r*r;
+	}
+	
+	/**
+	 * Linear search over all obstacles. For many queries use an {@link ObstacleGridIndex}.
+	 * @return true if the position is inside of any obstacle
+	 */
+	public boolean isInsideAny(double px, double py, double pz){
+		for(int i = 0; i < size; i++){
+			if(isInside(i, px, py, pz)){
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * @param i Index of the obstacle
+	 * @return Read-only view of the obstacle
+	 */
+	public AbstractSphereObstacle get(int i){
+		if(i < 0 || i >= size){
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+		}
+		return new ObstacleView(i);
+	}
+	
+	/**
+	 * Creates an index which references the arrays of this container. It has to be recreated when obstacles are added.
+	 * @param sceneSize Size of the scene
+	 * @param padding See {@link ObstacleGridIndex#ObstacleGridIndex(double[], int, double[], double[], double[], double[], int, double)}
+	 */
+	public ObstacleGridIndex createIndex(double[] sceneSize, double padding){
+		return new ObstacleGridIndex(sceneSize, dimension, x, y, z, radius, size, padding);
+	}
+	
+	/**
+	 * {@link AbstractSphereObstacle} view of an obstacle of the array. The obstacle is immobile.
+	 */
+	private class ObstacleView extends AbstractSphereObstacle {
+		private final int index;
+		
+		public ObstacleView(int index) {
+			super(null, 0, SphereObstacleArray.this.dimension);
+			this.index = index;
+		}
+		
+		/**
+		 * @return Copy of the center
+		 */
+		@Override
+		public double[] getPosition() {
+			return new double[]{x[index], y[index], z[index]};
+		}
+		
+		@Override
+		public boolean isMobile() {
+			return false;
+		}
+		
+		@Override
+		public double getPosition(int axis) {
+			switch (axis) {
+			case 0:
+				return x[index];
+			case 1:
+				return y[index];
+			case 2:
+				return z[index];
+			default:
+				throw new IndexOutOfBoundsException("Axis: " + axis);
+			}
+		}
+		
+		@Override
+		public double getRadius() {
+			return radius[index];
+		}
+		
+		@Override
+		public boolean isInside(double[] pos) {
+			return SphereObstacleArray.this.isInside(index, pos[0], pos[1], dimension == 3 ? pos[2] : 0);
+		}
+
+		@Override
+		public void updatePosition(AnomalousDiffusionScene s) {
+			/*
+			 * Obstacles of the array are immobile
+			 */
+		}
+		
+	}
+
+}
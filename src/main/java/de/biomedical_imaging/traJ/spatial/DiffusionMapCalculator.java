@@ -0,0 +1,336 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.spatial;
+
+import java.util.List;
+
+import de.biomedical_imaging.traJ.ParallelUtil;
+import de.biomedical_imaging.traJ.Trajectory;
+
+/**
+ * Spatially resolved diffusion coefficient and drift. Every step (timelag 1) of every trajectory is assigned to the cell of 
+ * a regular 2D or 3D grid which contains the midpoint of the step. Per cell the number of steps, the sum of the 
+ * displacements and of the squared displacements and the sum of the products of successive displacements are accumulated.
+ * Steps with a midpoint outside of the grid, steps over gaps and steps with non-finite coordinates are skipped.
+ * 
+ * The diffusion coefficient of a cell is estimated as in {@link de.biomedical_imaging.traJ.DiffusionCoefficientEstimator.CovarianceDiffusionCoefficientEstimator}
+ * (D = msd/2*fps + cov*fps per axis, which corrects for the localization noise), but the displacements are centered by the 
+ * mean displacement of the cell so that the local drift does not bias the estimate. The covariance term of two successive 
+ * steps is assigned to the cell of the first step.
+ * 
+ * Trajectories can be added one by one, calculators can be merged and {@link #calculate(List, double[], double[], double)}
+ * processes a collection in parallel.
+ * @author Thorsten Wagner
+ *
+ */
+public class DiffusionMapCalculator {
+	
+	private static final int CHUNK_SIZE = 64;
+	
+	private final int dimension;
+	private final double[] min;
+	private final double cellSize;
+	private final int[] numberOfCells;
+	private final int cells;
+	
+	private final long[] count;
+	private final double[] sum;
+	private final double[] sumSquared;
+	private final long[] covCount;
+	private final double[] sumCov;
+	
+	/**
+	 * @param min Lower corner of the grid. Its length (2 or 3) defines the dimension of the grid.
+	 * @param max Upper corner of the grid. The grid is extended to a multiple of the cell size.
+	 * @param cellSize Edge length of the (square or cubic) cells
+	 */
+	public DiffusionMapCalculator(double[] min, double[] max, double cellSize) {
+		if(min.length < 2 || min.length > 3 || max.length != min.length){
+			throw new IllegalArgumentException("The corners need 2 or 3 coordinates");
+		}
+		if(!(cellSize > 0)){
+			throw new IllegalArgumentException("The cell size has to be positive");
+		}
+		dimension = min.length;
+		this.min = min.clone();
+		this.cellSize = cellSize;
+		numberOfCells = new int[]{1, 1, 1};
+		long c = 1;
+		for(int d = 0; d < dimension; d++){
+			if(!(max[d] > min[d])){
+				throw new IllegalArgumentException("The upper corner has to be larger than the lower corner");
+			}
+			numberOfCells[d] = (int) Math.ceil((max[d] - min[d])/cellSize);
+			c *= numberOfCells[d];
+		}
+		if(c > Integer.MAX_VALUE/dimension){
+			throw new IllegalArgumentException("Too many cells: " + c);
+		}
+		cells = (int) c;
+		count = new long[cells];
+		sum = new double[cells*dimension];
+		sumSquared = new double[cells*dimension];
+		covCount = new long[cells];
+		sumCov = new double[cells*dimension];
+	}
+	
+	/**
+	 * Calculates the diffusion map of a set of trajectories in parallel (see {@link ParallelUtil}). 
+	 * Each chunk of trajectories is accumulated in its own grid, the grids are merged at the end.
+	 * @return Calculator which contains all trajectories
+	 */
+	public static DiffusionMapCalculator calculate(final List<? extends Trajectory> tracks, final double[] min, final double[] max, final double cellSize){
+		List<DiffusionMapCalculator> partial = ParallelUtil.mapRanges(tracks.size(), CHUNK_SIZE, new ParallelUtil.RangeTask<DiffusionMapCalculator>() {
+			public DiffusionMapCalculator compute(int chunk, int from, int to) {
+				DiffusionMapCalculator c = new DiffusionMapCalculator(min, max, cellSize);
+				for(int i = from; i < to; i++){
+					c.add(tracks.get(i));
+				}
+				return c;
+			}
+		});
+		DiffusionMapCalculator result = new DiffusionMapCalculator(min, max, cellSize);
+		for (DiffusionMapCalculator c : partial) {
+			result.add(c);
+		}
+		return result;
+	}
+	
+	/**
+	 * Adds the steps of a trajectory
+	 */
+	public void add(Trajectory t){
+		double[] step = new double[dimension];
+		double[] next = new double[dimension];
+		int n = t.size();
+		for(int i = 0; i + 1 < n; i++){
+			if(!t.isValid(i) || !t.isValid(i + 1)){
+				continue;
+			}
+			int cell = getCellIndex((t.getX(i) + t.getX(i+1))/2, (t.getY(i) + t.getY(i+1))/2, (t.getZ(i) + t.getZ(i+1))/2);
+			if(cell < 0){
+				continue;
+			}
+			displacement(t, i, step);
+			count[cell]++;
+			for(int d = 0; d < dimension; d++){
+				sum[cell*dimension + d] += step[d];
+				sumSquared[cell*dimension + d] += step[d]*step[d];
+			}
+			if(i + 2 < n && t.isValid(i + 2) && isFinite(t, i + 2)){
+				displacement(t, i + 1, next);
+				covCount[cell]++;
+				for(int d = 0; d < dimension; d++){
+					sumCov[cell*dimension + d] += step[d]*next[d];
+				}
+			}
+		}
+	}
+	
+	private boolean isFinite(Trajectory t, int i){
+		return Double.isFinite(t.getX(i)) && Double.isFinite(t.getY(i)) && (dimension == 2 || Double.isFinite(t.getZ(i)));
+	}
+	
+	private void displacement(Trajectory t, int i, double[] res){
+		res[0] = t.getX(i+1) - t.getX(i);
+		res[1] = t.getY(i+1) - t.getY(i);
+		if(dimension == 3){
+			res[2] = t.getZ(i+1) - t.getZ(i);
+		}
+	}
+	
+	/**
+	 * Adds the sums of another calculator with the same grid
+	 */
+	public void add(DiffusionMapCalculator other){
+		if(other.dimension != dimension || other.cellSize != cellSize){
+			throw new IllegalArgumentException("The grids have to be equal");
+		}
+		for(int d = 0; d < dimension; d++){
+			if(other.min[d] != min[d] || other.numberOfCells[d] != numberOfCells[d]){
+				throw new IllegalArgumentException("The grids have to be equal");
+			}
+		}
+		for(int c = 0; c < cells; c++){
+			count[c] += other.count[c];
+			covCount[c] += other.covCount[c];
+		}
+		for(int j = 0; j < sum.length; j++){
+			sum[j] += other.sum[j];
+			sumSquared[j] += other.sumSquared[j];
+			sumCov[j] += other.sumCov[j];
+		}
+	}
+	
+	public int getDimension(){
+		return dimension;
+	}
+	
+	public double getCellSize(){
+		return cellSize;
+	}
+	
+	/**
+	 * @param d Axis (0 = x, 1 = y, 2 = z)
+	 * @return Number of cells along the axis (1 for z in 2D)
+	 */
+	public int getNumberOfCells(int d){
+		return numberOfCells[d];
+	}
+	
+	/**
+	 * @return Total number of cells
+	 */
+	public int getNumberOfCells(){
+		return cells;
+	}
+	
+	/**
+	 * @return Index of the cell (ix + nx*(iy + ny*iz)), which is the index into the maps
+	 */
+	public int getCellIndex(int ix, int iy, int iz){
+		if(ix < 0 || iy < 0 || iz < 0 || ix >= numberOfCells[0] || iy >= numberOfCells[1] || iz >= numberOfCells[2]){
+			throw new IndexOutOfBoundsException("Cell (" + ix + "," + iy + "," + iz + ") is outside of the grid");
+		}
+		return ix + numberOfCells[0]*(iy + numberOfCells[1]*iz);
+	}
+	
+	/**
+	 * @param z Ignored in 2D
+	 * @return Index of the cell which contains the position or -1 if it is outside of the grid or not finite
+	 */
+	public int getCellIndex(double x, double y, double z){
+		if(!Double.isFinite(x) || !Double.isFinite(y) || (dimension == 3 && !Double.isFinite(z))){
+			return -1;
+		}
+		int ix = (int) Math.floor((x - min[0])/cellSize);
+		int iy = (int) Math.floor((y - min[1])/cellSize);
+		int iz = dimension == 3 ? (int) Math.floor((z - min[2])/cellSize) : 0;
+		if(ix < 0 || iy < 0 || iz < 0 || ix >= numberOfCells[0] || iy >= numberOfCells[1] || iz >= numberOfCells[2]){
+			return -1;
+		}
+		return ix + numberOfCells[0]*(iy + numberOfCells[1]*iz);
+	}
+	
+	/**
+	 * @return Center of the cell (dimension coordinates)
+	 */
+	public double[] getCellCenter(int cell){
+		int[] idx = {cell % numberOfCells[0], (cell/numberOfCells[0]) % numberOfCells[1], cell/(numberOfCells[0]*numberOfCells[1])};
+		double[] c = new double[dimension];
+		for(int d = 0; d < dimension; d++){
+			c[d] = min[d] + (idx[d] + 0.5)*cellSize;
+		}
+		return c;
+	}
+	
+	/**
+	 * @return Number of steps in the cell
+	 */
+	public long getNumberOfSteps(int cell){
+		return count[cell];
+	}
+	
+	/**
+	 * @return Mean displacement per step in the cell (NaN if the cell is empty)
+	 */
+	public double[] getMeanDisplacement(int cell){
+		double[] m = new double[dimension];
+		for(int d = 0; d < dimension; d++){
+			m[d] = sum[cell*dimension + d]/count[cell];
+		}
+		return m;
+	}
+	
+	/**
+	 * @return Mean squared displacement per step in the cell, summed over all axes (NaN if the cell is empty)
+	 */
+	public double getMeanSquaredDisplacement(int cell){
+		double msd = 0;
+		for(int d = 0; d < dimension; d++){
+			msd += sumSquared[cell*dimension + d];
+		}
+		return msd/count[cell];
+	}
+	
+	/**
+	 * @param fps Frames per second
+	 * @return Drift velocity in the cell [length unit / s] (NaN if the cell is empty)
+	 */
+	public double[] getDriftVelocity(int cell, double fps){
+		double[] v = getMeanDisplacement(cell);
+		for(int d = 0; d < dimension; d++){
+			v[d] *= fps;
+		}
+		return v;
+	}
+	
+	/**
+	 * @param fps Frames per second
+	 * @return Diffusion coefficient in the cell [length unit^2 / s]. NaN if the cell contains no pair of successive steps.
+	 */
+	public double getDiffusionCoefficient(int cell, double fps){
+		if(count[cell] == 0 || covCount[cell] == 0){
+			return Double.NaN;
+		}
+		double D = 0;
+		for(int d = 0; d < dimension; d++){
+			double mean = sum[cell*dimension + d]/count[cell];
+			double msd = sumSquared[cell*dimension + d]/count[cell] - mean*mean;
+			double cov = sumCov[cell*dimension + d]/covCount[cell] - mean*mean;
+			D += msd/2*fps + cov*fps;
+		}
+		return D/dimension;
+	}
+	
+	/**
+	 * @param fps Frames per second
+	 * @param minSteps Cells with fewer steps are set to NaN
+	 * @return Diffusion coefficient of all cells, indexed by {@link #getCellIndex(int, int, int)}
+	 */
+	public double[] getDiffusionCoefficientMap(double fps, int minSteps){
+		double[] map = new double[cells];
+		for(int c = 0; c < cells; c++){
+			map[c] = count[c] < minSteps ? Double.NaN : getDiffusionCoefficient(c, fps);
+		}
+		return map;
+	}
+	
+	/**
+	 * @param fps Frames per second
+	 * @param minSteps Cells with fewer steps are set to NaN
+	 * @return Drift velocity of all cells: [axis][cell], the cell is indexed by {@link #getCellIndex(int, int, int)}
+	 */
+	public double[][] getDriftVelocityMap(double fps, int minSteps){
+		double[][] map = new double[dimension][cells];
+		for(int c = 0; c < cells; c++){
+			for(int d = 0; d < dimension; d++){
+				map[d][c] = count[c] < minSteps || count[c] == 0 ? Double.NaN : sum[c*dimension + d]/count[c]*fps;
+			}
+		}
+		return map;
+	}
+
+}
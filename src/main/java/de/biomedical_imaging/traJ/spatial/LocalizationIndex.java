@@ -0,0 +1,241 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traJ.spatial;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traj.math.StaticKDTree;
+
+/**
+ * Spatio-temporal index over all valid positions (localizations) of a set of trajectories. The localizations are
+ * bulk loaded into a static k-d tree over (x, y[, z], frame), where the frame is the absolute frame (relative start
+ * timepoint of the trajectory plus position index).
+ * 
+ * All queries return localization indices. The trajectory, position and frame of a localization are available by
+ * {@link #getTrajectoryIndex(int)}, {@link #getPositionIndex(int)} and {@link #getFrame(int)}.
+ * 
+ * Typical usage:
+ * <pre>
+ * LocalizationIndex index = new LocalizationIndex(tracks, 2);
+ * int[] hits = index.radius(x, y, 0, 0.5, frame, frame);
+ * for (int l : hits) {
+ *   Trajectory t = index.getTrajectory(l);
+ *   int f = index.getFrame(l);
+ * }
+ * </pre>
+ * @author Thorsten Wagner
+ *
+ */
+public class LocalizationIndex {
+	
+	private final List<? extends Trajectory> tracks;
+	private final int dimension;
+	private final StaticKDTree tree;
+	private final int[] trackIndex;
+	private final int[] positionIndex;
+	private final int[] frame;
+	
+	/**
+	 * @param tracks Trajectories. The index becomes invalid if they are modified.
+	 * @param dimension Spatial dimension of the index (2 or 3). With 2, the z coordinate is ignored.
+	 */
+	public LocalizationIndex(List<? extends Trajectory> tracks, int dimension) {
+		if(dimension < 2 || dimension > 3){
+			throw new IllegalArgumentException("The dimension has to be 2 or 3");
+		}
+		this.tracks = tracks;
+		this.dimension = dimension;
+		int n = 0;
+		for (Trajectory t : tracks) {
+			for(int i = 0; i < t.size(); i++){
+				if(t.isValid(i)){
+					n++;
+				}
+			}
+		}
+		int k = dimension + 1;
+		double[] coords = new double[n*k];
+		trackIndex = new int[n];
+		positionIndex = new int[n];
+		frame = new int[n];
+		int l = 0;
+		for(int j = 0; j < tracks.size(); j++){
+			Trajectory t = tracks.get(j);
+			for(int i = 0; i < t.size(); i++){
+				if(!t.isValid(i)){
+					continue;
+				}
+				coords[l*k] = t.getX(i);
+				coords[l*k + 1] = t.getY(i);
+				if(dimension == 3){
+					coords[l*k + 2] = t.getZ(i);
+				}
+				coords[l*k + dimension] = t.getRelativeStartTimepoint() + i;
+				trackIndex[l] = j;
+				positionIndex[l] = i;
+				frame[l] = t.getRelativeStartTimepoint() + i;
+				l++;
+			}
+		}
+		tree = new StaticKDTree(coords, k);
+	}
+	
+	/**
+	 * @return Number of indexed localizations
+	 */
+	public int size(){
+		return trackIndex.length;
+	}
+	
+	public int getDimension(){
+		return dimension;
+	}
+	
+	/**
+	 * @param min Lower corner (x, y[, z]) of the region (inclusive)
+	 * @param max Upper corner (x, y[, z]) of the region (inclusive)
+	 * @param minFrame First frame (inclusive)
+	 * @param maxFrame Last frame (inclusive)
+	 * @return Localization indices of all localizations inside the region within the frame range (unordered)
+	 */
+	public int[] range(double[] min, double[] max, int minFrame, int maxFrame){
+		return tree.range(box(min, minFrame), box(max, maxFrame));
+	}
+	
+	/**
+	 * @param x x coordinate of the center
+	 * @param y y coordinate of the center
+	 * @param z z coordinate of the center (ignored in 2D)
+	 * @param radius Radius
+	 * @param minFrame First frame (inclusive)
+	 * @param maxFrame Last frame (inclusive)
+	 * @return Localization indices of all localizations with a spatial distance of at most radius to the center within the frame range (unordered)
+	 */
+	public int[] radius(double x, double y, double z, double radius, int minFrame, int maxFrame){
+		double[] c = center(x, y, z);
+		double[] min = new double[dimension];
+		double[] max = new double[dimension];
+		for(int d = 0; d < dimension; d++){
+			min[d] = c[d] - radius;
+			max[d] = c[d] + radius;
+		}
+		return tree.rangeWithin(box(min, minFrame), box(max, maxFrame), c, radius, dimension);
+	}
+	
+	/**
+	 * @param x x coordinate of the query point
+	 * @param y y coordinate of the query point
+	 * @param z z coordinate of the query point (ignored in 2D)
+	 * @param count Number of neighbours
+	 * @param minFrame First frame (inclusive)
+	 * @param maxFrame Last frame (inclusive)
+	 * @return Localization indices of the count spatially nearest localizations within the frame range, sorted by increasing distance
+	 */
+	public int[] nearest(double x, double y, double z, int count, int minFrame, int maxFrame){
+		double[] min = new double[dimension];
+		double[] max = new double[dimension];
+		Arrays.fill(min, Double.NEGATIVE_INFINITY);
+		Arrays.fill(max, Double.POSITIVE_INFINITY);
+		return tree.nearest(center(x, y, z), count, box(min, minFrame), box(max, maxFrame), dimension);
+	}
+	
+	/**
+	 * @param min Lower corner (x, y[, z]) of the region (inclusive)
+	 * @param max Upper corner (x, y[, z]) of the region (inclusive)
+	 * @param minFrame First frame (inclusive)
+	 * @param maxFrame Last frame (inclusive)
+	 * @return Trajectories with at least one localization inside the region within the frame range, in the order of the indexed list
+	 */
+	public ArrayList<Trajectory> getTrajectoriesInRegion(double[] min, double[] max, int minFrame, int maxFrame){
+		boolean[] hit = new boolean[tracks.size()];
+		for (int l : range(min, max, minFrame, maxFrame)) {
+			hit[trackIndex[l]] = true;
+		}
+		ArrayList<Trajectory> res = new ArrayList<Trajectory>();
+		for(int j = 0; j < hit.length; j++){
+			if(hit[j]){
+				res.add(tracks.get(j));
+			}
+		}
+		return res;
+	}
+	
+	private double[] box(double[] spatial, int f){
+		if(spatial.length < dimension){
+			throw new IllegalArgumentException("The corner needs " + dimension + " coordinates");
+		}
+		double[] b = Arrays.copyOf(spatial, dimension + 1);
+		b[dimension] = f;
+		return b;
+	}
+	
+	private double[] center(double x, double y, double z){
+		return dimension == 2 ? new double[]{x, y} : new double[]{x, y, z};
+	}
+	
+	/**
+	 * @param l Localization index
+	 * @return Index of the trajectory of the localization in the indexed list
+	 */
+	public int getTrajectoryIndex(int l){
+		return trackIndex[l];
+	}
+	
+	/**
+	 * @param l Localization index
+	 * @return Trajectory of the localization
+	 */
+	public Trajectory getTrajectory(int l){
+		return tracks.get(trackIndex[l]);
+	}
+	
+	/**
+	 * @param l Localization index
+	 * @return ID of the trajectory of the localization
+	 */
+	public long getTrajectoryID(int l){
+		return tracks.get(trackIndex[l]).getID();
+	}
+	
+	/**
+	 * @param l Localization index
+	 * @return Position index of the localization in its trajectory
+	 */
+	public int getPositionIndex(int l){
+		return positionIndex[l];
+	}
+	
+	/**
+	 * @param l Localization index
+	 * @return Absolute frame of the localization
+	 */
+	public int getFrame(int l){
+		return frame[l];
+	}
+
+}
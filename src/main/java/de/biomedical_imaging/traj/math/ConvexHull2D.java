@@ -0,0 +1,378 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traj.math;
+
+import de.biomedical_imaging.traJ.Trajectory;
+
+/**
+ * Convex hull of a 2D point set (Andrew's monotone chain) together with shape descriptors which are 
+ * derived from it by rotating calipers: area, perimeter, diameter and the minimum area bounding rectangle. 
+ * All quantities are calculated once in the constructor on primitive arrays.
+ * 
+ * The hull is stored counterclockwise without collinear points. If all points are collinear (or identical) 
+ * the hull is degenerate: it consists of the two extreme points (or a single point), the area and the short side of
+ * the bounding rectangle are zero and the long side is the diameter. An empty point set gives an empty, degenerate hull 
+ * where all quantities are zero.
+ * @author Thorsten Wagner
+ *
+ */
+public class ConvexHull2D {
+	
+	private double[] hx;
+	private double[] hy;
+	private int h;
+	private double area;
+	private double perimeter;
+	private double diameter;
+	private double rectLongSide;
+	private double rectShortSide;
+	private double[][] rectCorners;
+	
+	/**
+	 * @param t Trajectory. Only the valid positions (x and y) are used.
+	 */
+	public ConvexHull2D(Trajectory t) {
+		int n = 0;
+		for(int i = 0; i < t.size(); i++){
+			if(t.isValid(i)){
+				n++;
+			}
+		}
+		double[] x = new double[n];
+		double[] y = new double[n];
+		int k = 0;
+		for(int i = 0; i < t.size(); i++){
+			if(t.isValid(i)){
+				x[k] = t.getX(i);
+				y[k] = t.getY(i);
+				k++;
+			}
+		}
+		build(x, y, n);
+	}
+	
+	/**
+	 * @param x x-coordinates
+	 * @param y y-coordinates
+	 * @param n Number of points (the first n elements of x and y are used, the arrays are not modified)
+	 */
+	public ConvexHull2D(double[] x, double[] y, int n) {
+		if(n < 0){
+			throw new IllegalArgumentException("The number of points can not be negative");
+		}
+		double[] xs = new double[n];
+		double[] ys = new double[n];
+		System.arraycopy(x, 0, xs, 0, n);
+		System.arraycopy(y, 0, ys, 0, n);
+		build(xs, ys, n);
+	}
+	
+	private void build(double[] x, double[] y, int n){
+		if(n == 0){
+			//Empty hull: all quantities are zero, the rectangle corners are undefined
+			h = 0;
+			hx = new double[0];
+			hy = new double[0];
+			double[] nan = {Double.NaN, Double.NaN};
+			rectCorners = new double[][]{nan, nan, nan, nan};
+			return;
+		}
+		sort(x, y, 0, n - 1);
+		
+		/*
+		 * Monotone chain: lower hull from left to right, upper hull from right to left
+		 */
+		hx = new double[2*n];
+		hy = new double[2*n];
+		int k = 0;
+		for(int i = 0; i < n; i++){
+			while(k >= 2 && cross(hx[k-2], hy[k-2], hx[k-1], hy[k-1], x[i], y[i]) <= 0){
+				k--;
+			}
+			hx[k] = x[i];
+			hy[k] = y[i];
+			k++;
+		}
+		int lower = k + 1;
+		for(int i = n - 2; i >= 0; i--){
+			while(k >= lower && cross(hx[k-2], hy[k-2], hx[k-1], hy[k-1], x[i], y[i]) <= 0){
+				k--;
+			}
+			hx[k] = x[i];
+			hy[k] = y[i];
+			k++;
+		}
+		h = Math.max(1, k - 1); //The last point is equal to the first one
+		if(h == 2 && hx[0] == hx[1] && hy[0] == hy[1]){
+			h = 1;
+		}
+		
+		if(h < 3){
+			area = 0;
+			diameter = h == 2 ? distance(0, 1) : 0;
+			perimeter = 2*diameter;
+			rectLongSide = diameter;
+			rectShortSide = 0;
+			rectCorners = new double[][]{{hx[0],hy[0]},{hx[h-1],hy[h-1]},{hx[h-1],hy[h-1]},{hx[0],hy[0]}};
+			return;
+		}
+		
+		for(int i = 0; i < h; i++){
+			int j = next(i);
+			area += hx[i]*hy[j] - hx[j]*hy[i];
+			perimeter += distance(i, j);
+		}
+		area = area/2;
+		
+		calculateDiameter();
+		calculateMinimumAreaRectangle();
+	}
+	
+	/**
+	 * Rotating calipers over all antipodal pairs
+	 */
+	private void calculateDiameter(){
+		int j = 1;
+		for(int i = 0; i < h; i++){
+			int ni = next(i);
+			while(Math.abs(cross(hx[i], hy[i], hx[ni], hy[ni], hx[next(j)], hy[next(j)])) > 
+				Math.abs(cross(hx[i], hy[i], hx[ni], hy[ni], hx[j], hy[j]))){
+				j = next(j);
+			}
+			diameter = Math.max(diameter, Math.max(distance(i, j), distance(ni, j)));
+		}
+	}
+	
+	/**
+	 * The minimum area rectangle has one side collinear with a hull edge. For every edge, three calipers track 
+	 * the extreme points along the edge direction (max, min) and perpendicular to it. 
+	 */
+	private void calculateMinimumAreaRectangle(){
+		double minArea = Double.POSITIVE_INFINITY;
+		int a = 1;
+		int b = 1;
+		int c = 1;
+		for(int i = 0; i < h; i++){
+			int ni = next(i);
+			double len = distance(i, ni);
+			double ux = (hx[ni] - hx[i])/len;
+			double uy = (hy[ni] - hy[i])/len;
+			double vx = -uy;
+			double vy = ux;
+			
+			while(dot(next(a), i, ux, uy) > dot(a, i, ux, uy)){
+				a = next(a);
+			}
+			if(i == 0){
+				b = a;
+			}
+			while(dot(next(b), i, vx, vy) > dot(b, i, vx, vy)){
+				b = next(b);
+			}
+			if(i == 0){
+				c = b;
+			}
+			while(dot(next(c), i, ux, uy) < dot(c, i, ux, uy)){
+				c = next(c);
+			}
+			double maxU = dot(a, i, ux, uy);
+			double minU = dot(c, i, ux, uy);
+			double maxV = dot(b, i, vx, vy);
+			double width = maxU - minU;
+			double rectArea = width*maxV;
+			if(rectArea < minArea){
+				minArea = rectArea;
+				rectLongSide = Math.max(width, maxV);
+				rectShortSide = Math.min(width, maxV);
+				rectCorners = new double[][]{
+						{hx[i] + minU*ux, hy[i] + minU*uy},
+						{hx[i] + maxU*ux, hy[i] + maxU*uy},
+						{hx[i] + maxU*ux + maxV*vx, hy[i] + maxU*uy + maxV*vy},
+						{hx[i] + minU*ux + maxV*vx, hy[i] + minU*uy + maxV*vy}};
+			}
+		}
+	}
+	
+	private int next(int i){
+		return i + 1 == h ? 0 : i + 1;
+	}
+	
+	private double distance(int i, int j){
+		double dx = hx[i] - hx[j];
+		double dy = hy[i] - hy[j];
+		return Math.sqrt(dx*dx + dy*dy);
+	}
+	
+	/*
+	 * Projection of hull point j relative to hull point i on the direction (ux,uy)
+	 */
+	private double dot(int j, int i, double ux, double uy){
+		return (hx[j] - hx[i])*ux + (hy[j] - hy[i])*uy;
+	}
+	
+	private static double cross(double ox, double oy, double ax, double ay, double bx, double by){
+		return (ax - ox)*(by - oy) - (ay - oy)*(bx - ox);
+	}
+	
+	private static boolean less(double x1, double y1, double x2, double y2){
+		return x1 < x2 || (x1 == x2 && y1 < y2);
+	}
+	
+	/*
+	 * Lexicographic quicksort of the points (x,y)
+	 */
+	private static void sort(double[] x, double[] y, int lo, int hi){
+		while(lo < hi){
+			if(hi - lo < 16){
+				for(int i = lo + 1; i <= hi; i++){
+					double px = x[i];
+					double py = y[i];
+					int j = i - 1;
+					while(j >= lo && less(px, py, x[j], y[j])){
+						x[j+1] = x[j];
+						y[j+1] = y[j];
+						j--;
+					}
+					x[j+1] = px;
+					y[j+1] = py;
+				}
+				return;
+			}
+			int m = (lo + hi) >>> 1;
+			double px = x[m];
+			double py = y[m];
+			int i = lo;
+			int j = hi;
+			while(i <= j){
+				while(less(x[i], y[i], px, py)){
+					i++;
+				}
+				while(less(px, py, x[j], y[j])){
+					j--;
+				}
+				if(i <= j){
+					double tmp = x[i]; x[i] = x[j]; x[j] = tmp;
+					tmp = y[i]; y[i] = y[j]; y[j] = tmp;
+					i++;
+					j--;
+				}
+			}
+			if(j - lo < hi - i){
+				sort(x, y, lo, j);
+				lo = i;
+			}
+			else{
+				sort(x, y, i, hi);
+				hi = j;
+			}
+		}
+	}
+	
+	/**
+	 * @return True if all points are collinear or identical or if there is no point
+	 */
+	public boolean isDegenerate(){
+		return h < 3;
+	}
+	
+	/**
+	 * @return Number of hull points
+	 */
+	public int getNumberOfHullPoints(){
+		return h;
+	}
+	
+	/**
+	 * @return x-coordinates of the hull points (counterclockwise)
+	 */
+	public double[] getHullX(){
+		double[] res = new double[h];
+		System.arraycopy(hx, 0, res, 0, h);
+		return res;
+	}
+	
+	/**
+	 * @return y-coordinates of the hull points (counterclockwise)
+	 */
+	public double[] getHullY(){
+		double[] res = new double[h];
+		System.arraycopy(hy, 0, res, 0, h);
+		return res;
+	}
+	
+	/**
+	 * @return Area of the convex hull
+	 */
+	public double getArea(){
+		return area;
+	}
+	
+	/**
+	 * @return Perimeter of the convex hull
+	 */
+	public double getPerimeter(){
+		return perimeter;
+	}
+	
+	/**
+	 * @return Maximum distance between two points
+	 */
+	public double getDiameter(){
+		return diameter;
+	}
+	
+	/**
+	 * @return Long side of the minimum area bounding rectangle
+	 */
+	public double getRectangleLongSide(){
+		return rectLongSide;
+	}
+	
+	/**
+	 * @return Short side of the minimum area bounding rectangle
+	 */
+	public double getRectangleShortSide(){
+		return rectShortSide;
+	}
+	
+	/**
+	 * @return Area of the minimum area bounding rectangle
+	 */
+	public double getRectangleArea(){
+		return rectLongSide*rectShortSide;
+	}
+	
+	/**
+	 * @return The four corners of the minimum area bounding rectangle. [i][0] = x, [i][1] = y
+	 */
+	public double[][] getRectangleCorners(){
+		double[][] res = new double[4][];
+		for(int i = 0; i < 4; i++){
+			res[i] = rectCorners[i].clone();
+		}
+		return res;
+	}
+
+}
@@ -0,0 +1,217 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traj.math;
+
+import java.util.List;
+
+import de.biomedical_imaging.traJ.ParallelUtil;
+import de.biomedical_imaging.traJ.Trajectory;
+
+/**
+ * Calculates the correlation of the displacements dr_i = r(i+timelag) - r(i) for all lags 0..maxLag:
+ * 
+ * C(L) = &lt;dr_i . dr_(i+L)&gt;
+ * 
+ * The average is taken over all i where the positions i, i+timelag, i+L and i+L+timelag are valid (not gaps). 
+ * As the velocity is the displacement divided by timelag*dt, C(L)/C(0) is the normalized velocity autocorrelation function.
+ * The correlation is also available per axis.
+ * 
+ * The sums of all lags are calculated by FFT in O(N log N). The gaps are handled by correlating the gap mask as well.
+ * Several trajectories can be added to get the ensemble average.
+ * @author Thorsten Wagner
+ *
+ */
+public class DisplacementCorrelationCalculator {
+	
+	private static final int CHUNK_SIZE = 32;
+	
+	private int timelag;
+	private int maxLag;
+	private double[][] sums;
+	private long[] counts;
+	
+	/**
+	 * @param timelag Timelag of the displacements (>= 1)
+	 * @param maxLag Maximum lag between the displacements (>= 0)
+	 */
+	public DisplacementCorrelationCalculator(int timelag, int maxLag) {
+		if(timelag < 1){
+			throw new IllegalArgumentException("Timelag can not be smaller than 1");
+		}
+		if(maxLag < 0){
+			throw new IllegalArgumentException("The maximum lag can not be negative");
+		}
+		this.timelag = timelag;
+		this.maxLag = maxLag;
+		sums = new double[3][maxLag + 1];
+		counts = new long[maxLag + 1];
+	}
+	
+	/**
+	 * Calculates the ensemble correlation of a set of trajectories in parallel (see {@link ParallelUtil}).
+	 * @param tracks Trajectories
+	 * @param timelag Timelag of the displacements (>= 1)
+	 * @param maxLag Maximum lag between the displacements (>= 0)
+	 * @return Calculator which contains all trajectories
+	 */
+	public static DisplacementCorrelationCalculator calculate(final List<? extends Trajectory> tracks, final int timelag, final int maxLag){
+		List<DisplacementCorrelationCalculator> partial = ParallelUtil.mapRanges(tracks.size(), CHUNK_SIZE, new ParallelUtil.RangeTask<DisplacementCorrelationCalculator>() {
+			public DisplacementCorrelationCalculator compute(int chunk, int from, int to) {
+				DisplacementCorrelationCalculator c = new DisplacementCorrelationCalculator(timelag, maxLag);
+				for(int i = from; i < to; i++){
+					c.add(tracks.get(i));
+				}
+				return c;
+			}
+		});
+		DisplacementCorrelationCalculator result = new DisplacementCorrelationCalculator(timelag, maxLag);
+		for (DisplacementCorrelationCalculator c : partial) {
+			result.add(c);
+		}
+		return result;
+	}
+	
+	/**
+	 * Adds the displacement correlations of a trajectory
+	 * @param t Trajectory
+	 */
+	public void add(Trajectory t){
+		int m = t.size() - timelag;
+		if(m < 1){
+			return;
+		}
+		double[][] d = new double[3][m];
+		double[] mask = new double[m];
+		for(int i = 0; i < m; i++){
+			if(t.isValid(i) && t.isValid(i+timelag)){
+				mask[i] = 1;
+				d[0][i] = t.getX(i+timelag) - t.getX(i);
+				d[1][i] = t.getY(i+timelag) - t.getY(i);
+				d[2][i] = t.getZ(i+timelag) - t.getZ(i);
+			}
+		}
+		int lags = Math.min(maxLag, m - 1);
+		FFTPlan plan = new FFTPlan(FFTPlan.nextPowerOfTwo(m + lags + 1));
+		double[] cx = new double[plan.getSize()];
+		double[] cy = new double[plan.getSize()];
+		double[] cz = new double[plan.getSize()];
+		double[] cm = new double[plan.getSize()];
+		autocorrelate(d[0], d[1], plan, cx, cy);
+		autocorrelate(d[2], mask, plan, cz, cm);
+		for(int l = 0; l <= lags; l++){
+			sums[0][l] += cx[l];
+			sums[1][l] += cy[l];
+			sums[2][l] += cz[l];
+			counts[l] += Math.round(cm[l]);
+		}
+	}
+	
+	/**
+	 * Adds the correlations of another calculator with the same timelag and maximum lag
+	 */
+	public void add(DisplacementCorrelationCalculator other){
+		if(other.timelag != timelag || other.maxLag != maxLag){
+			throw new IllegalArgumentException("The timelag and the maximum lag have to be equal");
+		}
+		for(int l = 0; l <= maxLag; l++){
+			for(int a = 0; a < 3; a++){
+				sums[a][l] += other.sums[a][l];
+			}
+			counts[l] += other.counts[l];
+		}
+	}
+	
+	/**
+	 * Linear (not circular) autocorrelations of two real series by one complex forward and one inverse transform. 
+	 * outA[l] = sum_i a_i a_(i+l), outB[l] = sum_i b_i b_(i+l)
+	 */
+	private static void autocorrelate(double[] a, double[] b, FFTPlan plan, double[] outA, double[] outB){
+		int n = plan.getSize();
+		double[] re = outA;
+		double[] im = outB;
+		System.arraycopy(a, 0, re, 0, a.length);
+		System.arraycopy(b, 0, im, 0, b.length);
+		plan.transform(re, im);
+		/*
+		 * Split the spectrum Z = A + iB into the spectra of a and b and replace it by |A|^2 + i|B|^2. 
+		 * The pairs (k, n-k) are processed together.
+		 */
+		for(int k = 0; k <= n/2; k++){
+			int nk = (n - k) & (n - 1);
+			double zr = re[k], zi = im[k];
+			double wr = re[nk], wi = im[nk];
+			double ar = (zr + wr)/2, ai = (zi - wi)/2;
+			double br = (zi + wi)/2, bi = (wr - zr)/2;
+			double powA = ar*ar + ai*ai;
+			double powB = br*br + bi*bi;
+			re[k] = powA;
+			im[k] = powB;
+			re[nk] = powA;
+			im[nk] = powB;
+		}
+		plan.inverseTransform(re, im);
+	}
+	
+	public int getTimelag(){
+		return timelag;
+	}
+	
+	public int getMaxLag(){
+		return maxLag;
+	}
+	
+	/**
+	 * @return Number of displacement pairs for the lag
+	 */
+	public long getNumberOfPairs(int lag){
+		return counts[lag];
+	}
+	
+	/**
+	 * @param axis 0 = x, 1 = y, 2 = z
+	 * @param lag Lag between the displacements
+	 * @return Correlation &lt;dx_i * dx_(i+lag)&gt; of the given axis
+	 */
+	public double getCorrelation(int axis, int lag){
+		return sums[axis][lag]/counts[lag];
+	}
+	
+	/**
+	 * @param lag Lag between the displacements
+	 * @return Correlation &lt;dr_i . dr_(i+lag)&gt;
+	 */
+	public double getCorrelation(int lag){
+		return (sums[0][lag] + sums[1][lag] + sums[2][lag])/counts[lag];
+	}
+	
+	/**
+	 * @param lag Lag between the displacements
+	 * @return Normalized velocity autocorrelation C(lag)/C(0)
+	 */
+	public double getNormalizedCorrelation(int lag){
+		return getCorrelation(lag)/getCorrelation(0);
+	}
+
+}
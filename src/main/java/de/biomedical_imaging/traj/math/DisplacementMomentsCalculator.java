@@ -0,0 +1,207 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traj.math;
+
+import de.biomedical_imaging.traJ.Trajectory;
+
+/**
+ * Calculates the moments of the (overlapping) displacements of a trajectory for all timelags in a range. 
+ * The timelags are processed in blocks: the trajectory is traversed once per block and the 2nd, 4th (and optionally 6th) 
+ * moments of all timelags of the block are accumulated together. Gaps (null positions) are skipped.
+ * 
+ * Based on these moments, the Gaussianity as descriped in 
+ * Ernst, D., Köhler, J. & Weiss, M., 2014. Probing the 
+ * type of anomalous diffusion with single-particle tracking. 
+ * Physical chemistry chemical physics : PCCP, 16(17), pp.7686–91.
+ * and the non-Gaussian parameter alpha_2 = d*&lt;r^4&gt;/((d+2)*&lt;r^2&gt;^2) - 1 (d = dimension) are available.
+ * @author Thorsten Wagner
+ *
+ */
+public class DisplacementMomentsCalculator {
+	
+	private static final int BLOCK_SIZE = 16;
+	
+	private int minLag;
+	private int maxLag;
+	private int dimension;
+	private int[] counts;
+	private double[] sumR2;
+	private double[] sumR4;
+	private double[] sumAxis4;
+	private double[] sumR6;
+	
+	/**
+	 * @param t Trajectory
+	 * @param minLag Minimum timelag (>= 1)
+	 * @param maxLag Maximum timelag (>= minLag)
+	 */
+	public DisplacementMomentsCalculator(Trajectory t, int minLag, int maxLag) {
+		this(t, minLag, maxLag, false);
+	}
+	
+	/**
+	 * @param t Trajectory
+	 * @param minLag Minimum timelag (>= 1)
+	 * @param maxLag Maximum timelag (>= minLag)
+	 * @param sixthMoment True if the 6th moment should be calculated as well
+	 */
+	public DisplacementMomentsCalculator(Trajectory t, int minLag, int maxLag, boolean sixthMoment) {
+		if(minLag < 1){
+			throw new IllegalArgumentException("Timelag can not be smaller than 1");
+		}
+		if(maxLag < minLag){
+			throw new IllegalArgumentException("The maximum timelag has to be larger or equal than the minimum timelag");
+		}
+		this.minLag = minLag;
+		this.maxLag = maxLag;
+		dimension = t.getDimension();
+		int nLags = maxLag - minLag + 1;
+		counts = new int[nLags];
+		sumR2 = new double[nLags];
+		sumR4 = new double[nLags];
+		sumAxis4 = new double[nLags];
+		sumR6 = sixthMoment ? new double[nLags] : null;
+		
+		int n = t.size();
+		double[] x = new double[n];
+		double[] y = new double[n];
+		double[] z = new double[n];
+		boolean[] valid = new boolean[n];
+		for(int i = 0; i < n; i++){
+			valid[i] = t.isValid(i);
+			if(valid[i]){
+				x[i] = t.getX(i);
+				y[i] = t.getY(i);
+				z[i] = t.getZ(i);
+			}
+		}
+		
+		for(int blockStart = minLag; blockStart <= maxLag; blockStart += BLOCK_SIZE){
+			int blockEnd = Math.min(maxLag, blockStart + BLOCK_SIZE - 1);
+			for(int i = 0; i + blockStart < n; i++){
+				if(!valid[i]){
+					continue;
+				}
+				int jEnd = Math.min(n - 1, i + blockEnd);
+				for(int j = i + blockStart; j <= jEnd; j++){
+					if(!valid[j]){
+						continue;
+					}
+					int k = j - i - minLag;
+					double dx = x[j] - x[i];
+					double dy = y[j] - y[i];
+					double dz = z[j] - z[i];
+					double dx2 = dx*dx;
+					double dy2 = dy*dy;
+					double dz2 = dz*dz;
+					double r2 = dx2 + dy2 + dz2;
+					counts[k]++;
+					sumR2[k] += r2;
+					sumR4[k] += r2*r2;
+					sumAxis4[k] += dx2*dx2 + dy2*dy2 + dz2*dz2;
+					if(sixthMoment){
+						sumR6[k] += r2*r2*r2;
+					}
+				}
+			}
+		}
+	}
+	
+	private int index(int lag){
+		if(lag < minLag || lag > maxLag){
+			throw new IllegalArgumentException("Timelag " + lag + " is outside of the range [" + minLag + "," + maxLag + "]");
+		}
+		return lag - minLag;
+	}
+	
+	public int getMinTimelag(){
+		return minLag;
+	}
+	
+	public int getMaxTimelag(){
+		return maxLag;
+	}
+	
+	/**
+	 * @return Number of displacements for the timelag
+	 */
+	public int getNumberOfDisplacements(int lag){
+		return counts[index(lag)];
+	}
+	
+	/**
+	 * @return Mean squared displacement &lt;r^2&gt;
+	 */
+	public double getMeanSquaredDisplacement(int lag){
+		int k = index(lag);
+		return sumR2[k]/counts[k];
+	}
+	
+	/**
+	 * @return 4th moment of the displacement length &lt;r^4&gt;
+	 */
+	public double getMeanQuarticDisplacement(int lag){
+		int k = index(lag);
+		return sumR4[k]/counts[k];
+	}
+	
+	/**
+	 * @return Sum of the 4th moments of the displacements along each axis &lt;dx^4 + dy^4 + dz^4&gt; 
+	 * (see {@link de.biomedical_imaging.traJ.features.QuartricMomentFeature})
+	 */
+	public double getQuarticMoment(int lag){
+		int k = index(lag);
+		return sumAxis4[k]/counts[k];
+	}
+	
+	/**
+	 * @return 6th moment of the displacement length &lt;r^6&gt;
+	 * @throws IllegalStateException if the 6th moment was not calculated
+	 */
+	public double getMeanSixthDisplacement(int lag){
+		if(sumR6 == null){
+			throw new IllegalStateException("The 6th moment was not calculated");
+		}
+		int k = index(lag);
+		return sumR6[k]/counts[k];
+	}
+	
+	/**
+	 * @return Gaussianity 2*q/(3*msd^2) - 1 where q is the {@link #getQuarticMoment(int)}
+	 */
+	public double getGaussianity(int lag){
+		double msd = getMeanSquaredDisplacement(lag);
+		return (2*getQuarticMoment(lag))/(3*msd*msd) - 1;
+	}
+	
+	/**
+	 * @return Non-Gaussian parameter d*&lt;r^4&gt;/((d+2)*&lt;r^2&gt;^2) - 1
+	 */
+	public double getNonGaussianParameter(int lag){
+		double msd = getMeanSquaredDisplacement(lag);
+		return (dimension*getMeanQuarticDisplacement(lag))/((dimension+2)*msd*msd) - 1;
+	}
+
+}
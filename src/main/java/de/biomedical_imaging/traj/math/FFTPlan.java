@@ -0,0 +1,137 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traj.math;
+
+/**
+ * Radix-2 fast fourier transform of complex data with a fixed, power of two size. 
+ * The twiddle factors and the bit reversal permutation are precalculated once, so that
+ * a plan can be reused for many transforms of the same size. A plan is immutable and can be shared between threads.
+ * 
+ * The forward transform is defined as X_k = sum_j x_j exp(-2*pi*i*j*k/n), the inverse transform 
+ * includes the factor 1/n.
+ * @author Thorsten Wagner
+ *
+ */
+public class FFTPlan {
+	
+	private final int n;
+	private final double[] cos;
+	private final double[] sin;
+	private final int[] bitReversed;
+	
+	/**
+	 * @param n Size of the transform. Has to be a power of two.
+	 */
+	public FFTPlan(int n) {
+		if(n < 1 || (n & (n-1)) != 0){
+			throw new IllegalArgumentException("The size of the FFT has to be a power of two: " + n);
+		}
+		this.n = n;
+		cos = new double[n/2];
+		sin = new double[n/2];
+		for(int i = 0; i < n/2; i++){
+			double phi = -2*Math.PI*i/n;
+			cos[i] = Math.cos(phi);
+			sin[i] = Math.sin(phi);
+		}
+		bitReversed = new int[n];
+		int bits = Integer.numberOfTrailingZeros(n);
+		for(int i = 0; i < n; i++){
+			bitReversed[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32-bits);
+		}
+	}
+	
+	/**
+	 * @param minSize Minimum size
+	 * @return Smallest power of two which is larger or equal than minSize
+	 */
+	public static int nextPowerOfTwo(int minSize){
+		int n = 1;
+		while(n < minSize){
+			n = n << 1;
+		}
+		return n;
+	}
+	
+	public int getSize(){
+		return n;
+	}
+	
+	/**
+	 * In-place forward transform
+	 * @param re Real part (length n)
+	 * @param im Imaginary part (length n)
+	 */
+	public void transform(double[] re, double[] im){
+		transform(re, im, false);
+	}
+	
+	/**
+	 * In-place inverse transform (including the factor 1/n)
+	 * @param re Real part (length n)
+	 * @param im Imaginary part (length n)
+	 */
+	public void inverseTransform(double[] re, double[] im){
+		transform(re, im, true);
+		double f = 1.0/n;
+		for(int i = 0; i < n; i++){
+			re[i] *= f;
+			im[i] *= f;
+		}
+	}
+	
+	private void transform(double[] re, double[] im, boolean inverse){
+		if(re.length < n || im.length < n){
+			throw new IllegalArgumentException("The arrays have to contain at least " + n + " elements");
+		}
+		for(int i = 0; i < n; i++){
+			int j = bitReversed[i];
+			if(j > i){
+				double h = re[i]; re[i] = re[j]; re[j] = h;
+				h = im[i]; im[i] = im[j]; im[j] = h;
+			}
+		}
+		double sign = inverse ? -1 : 1;
+		for(int size = 2; size <= n; size <<= 1){
+			int half = size >> 1;
+			int step = n / size;
+			for(int start = 0; start < n; start += size){
+				for(int k = 0; k < half; k++){
+					double wr = cos[k*step];
+					double wi = sign*sin[k*step];
+					int a = start + k;
+					int b = a + half;
+					double tr = wr*re[b] - wi*im[b];
+					double ti = wr*im[b] + wi*re[b];
+					re[b] = re[a] - tr;
+					im[b] = im[a] - ti;
+					re[a] += tr;
+					im[a] += ti;
+				}
+			}
+		}
+	}
+
+}
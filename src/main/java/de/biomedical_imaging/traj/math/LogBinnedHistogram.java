@@ -0,0 +1,216 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traj.math;
+
+/**
+ * Histogram with logarithmically spaced bins between a minimum and a maximum value. Values below the minimum 
+ * (including zero) are counted in an underflow bin, values above the maximum in an overflow bin. 
+ * The memory is fixed, independent of the number of values, and histograms with the same binning can be merged. 
+ * Quantiles are estimated by interpolation within the bins, so their relative error is bounded by the bin width.
+ * @author Thorsten Wagner
+ *
+ */
+public class LogBinnedHistogram {
+	
+	private final double min;
+	private final double max;
+	private final double logMin;
+	private final double binsPerLogUnit;
+	private final long[] counts;
+	private long underflow;
+	private long overflow;
+	private long total;
+	private double sum;
+	private double observedMin;
+	private double observedMax;
+	
+	/**
+	 * @param min Lower edge of the first bin (&gt; 0)
+	 * @param max Upper edge of the last bin (&gt; min)
+	 * @param binsPerDecade Number of bins per factor of ten
+	 */
+	public LogBinnedHistogram(double min, double max, int binsPerDecade) {
+		if(!(min > 0) || !(max > min)){
+			throw new IllegalArgumentException("0 < min < max is required");
+		}
+		if(binsPerDecade < 1){
+			throw new IllegalArgumentException("At least one bin per decade is required");
+		}
+		this.min = min;
+		this.max = max;
+		logMin = Math.log(min);
+		binsPerLogUnit = binsPerDecade/Math.log(10);
+		counts = new long[Math.max(1, (int) Math.ceil((Math.log(max) - logMin)*binsPerLogUnit - 1e-9))];
+		observedMin = Double.POSITIVE_INFINITY;
+		observedMax = Double.NEGATIVE_INFINITY;
+	}
+	
+	/**
+	 * @param v Value (&gt;= 0)
+	 */
+	public void add(double v){
+		if(v < min){
+			underflow++;
+		}
+		else if(v >= max){
+			overflow++;
+		}
+		else{
+			int b = (int) ((Math.log(v) - logMin)*binsPerLogUnit);
+			counts[Math.min(counts.length - 1, b)]++;
+		}
+		total++;
+		sum += v;
+		observedMin = Math.min(observedMin, v);
+		observedMax = Math.max(observedMax, v);
+	}
+	
+	/**
+	 * Adds the counts of another histogram with the same binning
+	 */
+	public void add(LogBinnedHistogram other){
+		if(other.min != min || other.max != max || other.counts.length != counts.length){
+			throw new IllegalArgumentException("The histograms have different bins");
+		}
+		for(int i = 0; i < counts.length; i++){
+			counts[i] += other.counts[i];
+		}
+		underflow += other.underflow;
+		overflow += other.overflow;
+		total += other.total;
+		sum += other.sum;
+		observedMin = Math.min(observedMin, other.observedMin);
+		observedMax = Math.max(observedMax, other.observedMax);
+	}
+	
+	/**
+	 * @return Number of bins (without underflow and overflow bin)
+	 */
+	public int getNumberOfBins(){
+		return counts.length;
+	}
+	
+	/**
+	 * @param i Bin index
+	 * @return Lower edge of the bin i
+	 */
+	public double getLowerEdge(int i){
+		return Math.exp(logMin + i/binsPerLogUnit);
+	}
+	
+	/**
+	 * @param i Bin index
+	 * @return Upper edge of the bin i
+	 */
+	public double getUpperEdge(int i){
+		return i == counts.length - 1 ? max : getLowerEdge(i + 1);
+	}
+	
+	public long getCount(int i){
+		return counts[i];
+	}
+	
+	/**
+	 * @return Copy of the counts per bin
+	 */
+	public long[] getCounts(){
+		return counts.clone();
+	}
+	
+	public long getUnderflow(){
+		return underflow;
+	}
+	
+	public long getOverflow(){
+		return overflow;
+	}
+	
+	/**
+	 * @return Number of values
+	 */
+	public long getTotal(){
+		return total;
+	}
+	
+	/**
+	 * @return Exact mean of the values
+	 */
+	public double getMean(){
+		return sum/total;
+	}
+	
+	public double getObservedMin(){
+		return observedMin;
+	}
+	
+	public double getObservedMax(){
+		return observedMax;
+	}
+	
+	/**
+	 * @param i Bin index
+	 * @return Probability density of the bin i (count / (total * bin width))
+	 */
+	public double getDensity(int i){
+		return counts[i]/(total*(getUpperEdge(i) - getLowerEdge(i)));
+	}
+	
+	/**
+	 * Estimates a quantile. Within a bin the values are assumed to be log-uniformly distributed, 
+	 * within the underflow and overflow bin uniformly between the observed extreme value and the histogram range.
+	 * @param q Probability in [0,1]
+	 * @return Estimated quantile
+	 */
+	public double getQuantile(double q){
+		if(q < 0 || q > 1){
+			throw new IllegalArgumentException("The probability has to be in [0,1]");
+		}
+		if(total == 0){
+			return Double.NaN;
+		}
+		double rank = q*total;
+		if(rank <= underflow){
+			double lo = observedMin;
+			double hi = Math.min(min, observedMax);
+			return underflow == 0 ? lo : lo + (hi - lo)*rank/underflow;
+		}
+		double cum = underflow;
+		for(int i = 0; i < counts.length; i++){
+			if(counts[i] > 0 && rank <= cum + counts[i]){
+				double lo = Math.max(getLowerEdge(i), observedMin);
+				double hi = Math.min(getUpperEdge(i), observedMax);
+				double f = (rank - cum)/counts[i];
+				return lo*Math.pow(hi/lo, f);
+			}
+			cum += counts[i];
+		}
+		if(overflow == 0){
+			return observedMax;
+		}
+		double lo = Math.max(max, observedMin);
+		return lo + (observedMax - lo)*(rank - cum)/overflow;
+	}
+
+}
@@ -0,0 +1,173 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traj.math;
+
+import de.biomedical_imaging.traJ.Trajectory;
+
+/**
+ * Sums of squared displacements for a given timelag over primitive coordinate arrays. This is the hot loop of the 
+ * mean squared displacement calculation.
+ * 
+ * For trajectories without gaps, an unrolled path with four independent accumulators is used. It avoids the 
+ * dependency chain of a single running sum and lets the JIT compiler keep the loop in registers.
+ * Trajectories with gaps are processed by the scalar path, which follows the semantics of the 
+ * {@link de.biomedical_imaging.traJ.TrajectoryValidIndexTimelagIterator}. Both paths only differ in the 
+ * order of the summation.
+ * 
+ * The coordinates are copied once, so that a kernel can be reused for many timelags.
+ * @author Thorsten Wagner
+ *
+ */
+public class SquaredDisplacementKernel {
+	
+	private final double[] x;
+	private final double[] y;
+	private final double[] z;
+	private final boolean[] valid;
+	private final int n;
+	private final boolean hasGaps;
+	
+	/**
+	 * @param t Trajectory. Gaps (null positions) are allowed.
+	 */
+	public SquaredDisplacementKernel(Trajectory t) {
+		n = t.size();
+		x = new double[n];
+		y = new double[n];
+		z = new double[n];
+		valid = new boolean[n];
+		boolean gaps = false;
+		for(int i = 0; i < n; i++){
+			valid[i] = t.isValid(i);
+			if(valid[i]){
+				x[i] = t.getX(i);
+				y[i] = t.getY(i);
+				z[i] = t.getZ(i);
+			}
+			else{
+				gaps = true;
+			}
+		}
+		hasGaps = gaps;
+	}
+	
+	/**
+	 * @param x x-coordinates
+	 * @param y y-coordinates
+	 * @param z z-coordinates
+	 * @param n Number of positions. The arrays are used directly and must not contain gaps.
+	 */
+	public SquaredDisplacementKernel(double[] x, double[] y, double[] z, int n) {
+		if(x.length < n || y.length < n || z.length < n){
+			throw new IllegalArgumentException("The coordinate arrays are shorter than the number of positions");
+		}
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.n = n;
+		valid = null;
+		hasGaps = false;
+	}
+	
+	public int getNumberOfPositions(){
+		return n;
+	}
+	
+	public boolean hasGaps(){
+		return hasGaps;
+	}
+	
+	/**
+	 * @param timelag Timelag (>= 1)
+	 * @param overlap True if overlapping displacements are used. Otherwise the next displacement starts where the previous one ends.
+	 * @return [0] = Sum of the squared displacements, [1] = Number of displacements
+	 */
+	public double[] sumSquaredDisplacements(int timelag, boolean overlap){
+		if(hasGaps){
+			return sumSquaredDisplacementsScalar(timelag, overlap);
+		}
+		if(timelag<1){
+			throw new IllegalArgumentException("Timelag can not be smaller than 1");
+		}
+		int step = overlap ? 1 : timelag;
+		int end = n - timelag;
+		double s0 = 0;
+		double s1 = 0;
+		double s2 = 0;
+		double s3 = 0;
+		int i = 0;
+		int N = 0;
+		for(; i + 3*step < end; i += 4*step){
+			s0 += squaredDisplacement(i, i + timelag);
+			s1 += squaredDisplacement(i + step, i + step + timelag);
+			s2 += squaredDisplacement(i + 2*step, i + 2*step + timelag);
+			s3 += squaredDisplacement(i + 3*step, i + 3*step + timelag);
+			N += 4;
+		}
+		for(; i < end; i += step){
+			s0 += squaredDisplacement(i, i + timelag);
+			N++;
+		}
+		return new double[]{(s0 + s1) + (s2 + s3), N};
+	}
+	
+	/**
+	 * Reference implementation which sums the squared displacements sequentially.
+	 * @param timelag Timelag (>= 1)
+	 * @param overlap True if overlapping displacements are used. Otherwise the next displacement starts where the previous one ends.
+	 * @return [0] = Sum of the squared displacements, [1] = Number of displacements
+	 */
+	public double[] sumSquaredDisplacementsScalar(int timelag, boolean overlap){
+		if(timelag<1){
+			throw new IllegalArgumentException("Timelag can not be smaller than 1");
+		}
+		double sum = 0;
+		int N = 0;
+		int i = 0;
+		while(i + timelag < n){
+			if(isValid(i) && isValid(i + timelag)){
+				sum += squaredDisplacement(i, i + timelag);
+				N++;
+				i += overlap ? 1 : timelag;
+			}
+			else{
+				i++;
+			}
+		}
+		return new double[]{sum, N};
+	}
+	
+	private boolean isValid(int i){
+		return valid == null || valid[i];
+	}
+	
+	private double squaredDisplacement(int i, int j){
+		double dx = x[j] - x[i];
+		double dy = y[j] - y[i];
+		double dz = z[j] - z[i];
+		return dx*dx + dy*dy + dz*dz;
+	}
+
+}
@@ -0,0 +1,397 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traj.math;
+
+import java.util.Arrays;
+
+/**
+ * Static k-d tree which is bulk loaded from a set of points. The tree is implicit: the points are reordered so that 
+ * every node is a range of the point array with the splitting point at its median. No node objects are allocated and 
+ * the coordinates are stored in a single primitive array. The tree can't be modified, but it can be shared between threads.
+ * 
+ * Besides box (range), radius and k nearest neighbour queries, the queries can be restricted to a box while the distance is
+ * only measured in the first dimensions (e.g. nearest spatial neighbours within a time window).
+ * @author Thorsten Wagner
+ *
+ */
+public class StaticKDTree {
+	
+	private final int k;
+	private final int n;
+	private final double[] coords;
+	private final int[] ids;
+	private final int[] positions;
+	
+	/**
+	 * @param points points[i] is the i-th point. All points need the same dimension. The array is not modified.
+	 */
+	public StaticKDTree(double[][] points) {
+		this(flatten(points), points.length == 0 ? 1 : points[0].length);
+	}
+	
+	/**
+	 * @param coords Coordinates of the points: the j-th coordinate of point i is coords[i*k+j]. The array is not modified.
+	 * @param k Dimension of the points
+	 */
+	public StaticKDTree(double[] coords, int k) {
+		if(k < 1 || coords.length % k != 0){
+			throw new IllegalArgumentException("The number of coordinates has to be a multiple of the dimension");
+		}
+		this.k = k;
+		this.n = coords.length/k;
+		this.coords = coords.clone();
+		ids = new int[n];
+		for(int i = 0; i < n; i++){
+			ids[i] = i;
+		}
+		build(0, n, 0);
+		positions = new int[n];
+		for(int i = 0; i < n; i++){
+			positions[ids[i]] = i;
+		}
+	}
+	
+	private static double[] flatten(double[][] points){
+		if(points.length == 0){
+			return new double[0];
+		}
+		int k = points[0].length;
+		double[] c = new double[points.length*k];
+		for(int i = 0; i < points.length; i++){
+			if(points[i].length != k){
+				throw new IllegalArgumentException("All points need the same dimension");
+			}
+			System.arraycopy(points[i], 0, c, i*k, k);
+		}
+		return c;
+	}
+	
+	private void build(int lo, int hi, int depth){
+		while(hi - lo > 1){
+			int d = depth % k;
+			int mid = (lo + hi) >>> 1;
+			select(lo, hi - 1, mid, d);
+			build(lo, mid, depth + 1);
+			lo = mid + 1;
+			depth++;
+		}
+	}
+	
+	/*
+	 * Quickselect: afterwards the point at index m is the one which would be there if [lo,hi] were sorted along dimension d
+	 */
+	private void select(int lo, int hi, int m, int d){
+		while(hi > lo){
+			double pivot = coords[((lo + hi) >>> 1)*k + d];
+			int i = lo;
+			int j = hi;
+			while(i <= j){
+				while(coords[i*k + d] < pivot){
+					i++;
+				}
+				while(coords[j*k + d] > pivot){
+					j--;
+				}
+				if(i <= j){
+					swap(i, j);
+					i++;
+					j--;
+				}
+			}
+			if(m <= j){
+				hi = j;
+			}
+			else if(m >= i){
+				lo = i;
+			}
+			else{
+				return;
+			}
+		}
+	}
+	
+	private void swap(int a, int b){
+		for(int d = 0; d < k; d++){
+			double h = coords[a*k + d];
+			coords[a*k + d] = coords[b*k + d];
+			coords[b*k + d] = h;
+		}
+		int h = ids[a];
+		ids[a] = ids[b];
+		ids[b] = h;
+	}
+	
+	public int getDimension(){
+		return k;
+	}
+	
+	public int size(){
+		return n;
+	}
+	
+	/**
+	 * Growable list of point indices
+	 */
+	private static class IntList {
+		int[] data = new int[16];
+		int size;
+		
+		void add(int v){
+			if(size == data.length){
+				data = Arrays.copyOf(data, 2*size);
+			}
+			data[size++] = v;
+		}
+		
+		int[] toArray(){
+			return Arrays.copyOf(data, size);
+		}
+	}
+	
+	/**
+	 * @param min Lower corner of the box (inclusive)
+	 * @param max Upper corner of the box (inclusive)
+	 * @return Indices of all points inside the box (unordered)
+	 */
+	public int[] range(double[] min, double[] max){
+		return rangeWithin(min, max, null, Double.POSITIVE_INFINITY, 0);
+	}
+	
+	/**
+	 * @param center Center
+	 * @param radius Radius
+	 * @return Indices of all points with a euclidean distance of at most radius (unordered)
+	 */
+	public int[] radius(double[] center, double radius){
+		double[] min = new double[k];
+		double[] max = new double[k];
+		for(int d = 0; d < k; d++){
+			min[d] = center[d] - radius;
+			max[d] = center[d] + radius;
+		}
+		return rangeWithin(min, max, center, radius, k);
+	}
+	
+	/**
+	 * @param min Lower corner of the box (inclusive)
+	 * @param max Upper corner of the box (inclusive)
+	 * @param center Center. Only the first distanceDims coordinates are used.
+	 * @param radius Radius
+	 * @param distanceDims The distance to the center is measured in the dimensions [0, distanceDims)
+	 * @return Indices of all points inside the box and within the radius around the center (unordered)
+	 */
+	public int[] rangeWithin(double[] min, double[] max, double[] center, double radius, int distanceDims){
+		IntList res = new IntList();
+		rangeWithin(0, n, 0, min, max, center, radius*radius, distanceDims, res);
+		return res.toArray();
+	}
+	
+	private void rangeWithin(int lo, int hi, int depth, double[] min, double[] max, double[] center, double r2, int distanceDims, IntList res){
+		while(lo < hi){
+			int d = depth % k;
+			int mid = (lo + hi) >>> 1;
+			double v = coords[mid*k + d];
+			if(inBox(mid, min, max) && distance2(mid, center, distanceDims) <= r2){
+				res.add(ids[mid]);
+			}
+			boolean left = min[d] <= v;
+			boolean right = max[d] >= v;
+			if(left && right){
+				rangeWithin(lo, mid, depth + 1, min, max, center, r2, distanceDims, res);
+				lo = mid + 1;
+			}
+			else if(left){
+				hi = mid;
+			}
+			else{
+				lo = mid + 1;
+			}
+			depth++;
+		}
+	}
+	
+	private boolean inBox(int p, double[] min, double[] max){
+		for(int d = 0; d < k; d++){
+			double v = coords[p*k + d];
+			if(v < min[d] || v > max[d]){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private double distance2(int p, double[] q, int dims){
+		double s = 0;
+		for(int d = 0; d < dims; d++){
+			double diff = coords[p*k + d] - q[d];
+			s += diff*diff;
+		}
+		return s;
+	}
+	
+	/**
+	 * @param q Query point
+	 * @param count Number of neighbours
+	 * @return Indices of the count nearest points, sorted by increasing distance
+	 */
+	public int[] nearest(double[] q, int count){
+		double[] min = new double[k];
+		double[] max = new double[k];
+		Arrays.fill(min, Double.NEGATIVE_INFINITY);
+		Arrays.fill(max, Double.POSITIVE_INFINITY);
+		return nearest(q, count, min, max, k);
+	}
+	
+	/**
+	 * @param q Query point. Only the first distanceDims coordinates are used.
+	 * @param count Number of neighbours
+	 * @param min Lower corner of the box (inclusive) which contains the candidates
+	 * @param max Upper corner of the box (inclusive) which contains the candidates
+	 * @param distanceDims The distance is measured in the dimensions [0, distanceDims)
+	 * @return Indices of the count nearest points inside the box, sorted by increasing distance
+	 */
+	public int[] nearest(double[] q, int count, double[] min, double[] max, int distanceDims){
+		if(count < 1){
+			return new int[0];
+		}
+		Neighbours nb = new Neighbours(count);
+		nearest(0, n, 0, q, min, max, distanceDims, nb);
+		return nb.sorted();
+	}
+	
+	/**
+	 * Bounded max-heap of the best candidates
+	 */
+	private static class Neighbours {
+		int[] idx;
+		double[] dist;
+		int size;
+		
+		Neighbours(int capacity){
+			idx = new int[capacity];
+			dist = new double[capacity];
+		}
+		
+		double worst(){
+			return size < idx.length ? Double.POSITIVE_INFINITY : dist[0];
+		}
+		
+		void offer(int id, double d){
+			if(size < idx.length){
+				int i = size++;
+				while(i > 0 && dist[(i-1)/2] < d){
+					idx[i] = idx[(i-1)/2];
+					dist[i] = dist[(i-1)/2];
+					i = (i-1)/2;
+				}
+				idx[i] = id;
+				dist[i] = d;
+			}
+			else if(d < dist[0]){
+				int i = 0;
+				while(true){
+					int c = 2*i + 1;
+					if(c >= size){
+						break;
+					}
+					if(c + 1 < size && dist[c+1] > dist[c]){
+						c++;
+					}
+					if(dist[c] <= d){
+						break;
+					}
+					idx[i] = idx[c];
+					dist[i] = dist[c];
+					i = c;
+				}
+				idx[i] = id;
+				dist[i] = d;
+			}
+		}
+		
+		int[] sorted(){
+			Integer[] order = new Integer[size];
+			for(int i = 0; i < size; i++){
+				order[i] = i;
+			}
+			Arrays.sort(order, new java.util.Comparator<Integer>() {
+				public int compare(Integer a, Integer b) {
+					return Double.compare(dist[a], dist[b]);
+				}
+			});
+			int[] res = new int[size];
+			for(int i = 0; i < size; i++){
+				res[i] = idx[order[i]];
+			}
+			return res;
+		}
+	}
+	
+	private void nearest(int lo, int hi, int depth, double[] q, double[] min, double[] max, int distanceDims, Neighbours nb){
+		if(lo >= hi){
+			return;
+		}
+		int d = depth % k;
+		int mid = (lo + hi) >>> 1;
+		double v = coords[mid*k + d];
+		if(inBox(mid, min, max)){
+			double dist = distance2(mid, q, distanceDims);
+			if(dist < nb.worst()){
+				nb.offer(ids[mid], dist);
+			}
+		}
+		boolean leftPossible = min[d] <= v;
+		boolean rightPossible = max[d] >= v;
+		boolean leftFirst = d < distanceDims ? q[d] < v : true;
+		for(int side = 0; side < 2; side++){
+			boolean left = (side == 0) == leftFirst;
+			if(left ? !leftPossible : !rightPossible){
+				continue;
+			}
+			if(side == 1 && d < distanceDims){
+				double plane = q[d] - v;
+				if(plane*plane > nb.worst()){
+					continue;
+				}
+			}
+			if(left){
+				nearest(lo, mid, depth + 1, q, min, max, distanceDims, nb);
+			}
+			else{
+				nearest(mid + 1, hi, depth + 1, q, min, max, distanceDims, nb);
+			}
+		}
+	}
+	
+	/**
+	 * @param i Index of a point
+	 * @param d Dimension
+	 * @return Coordinate d of the point i
+	 */
+	public double getCoordinate(int i, int d){
+		return coords[positions[i]*k + d];
+	}
+
+}
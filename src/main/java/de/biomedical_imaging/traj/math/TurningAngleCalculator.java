@@ -0,0 +1,225 @@
+/*
+ * The MIT License (MIT)
+ * Copyright (c) 2015-2016 Thorsten Wagner (wagner@biomedical-imaging.de)
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package de.biomedical_imaging.traj.math;
+
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.TrajectoryUtil;
+
+/**
+ * Calculates statistics of the angles between the steps of a trajectory. For a lag L, the angle between
+ * step i (position i to i+1) and step i+L is used. All lags of a range are processed in one pass over the 
+ * precomputed step arrays. 
+ * 
+ * The (unsigned) angle in [0,pi] is calculated by atan2(|v1 x v2|, v1 . v2). In 2D the signed angle 
+ * in (-pi,pi] is used for the circular statistics, in 3D the unsigned one. If one of the steps has zero length, 
+ * the angle is 0. Steps which include a gap are skipped.
+ * 
+ * For each lag the following statistics are available: mean and (sample) standard deviation of the unsigned angle, 
+ * mean cosine, circular mean, mean resultant length, circular standard deviation and a histogram of the unsigned angle.
+ * @author Thorsten Wagner
+ *
+ */
+public class TurningAngleCalculator {
+	
+	private int minLag;
+	private int maxLag;
+	private int bins;
+	private int[] counts;
+	private double[] mean;
+	private double[] m2;
+	private double[] sumCos;
+	private double[] sumSin;
+	private int[][] histogram;
+	
+	/**
+	 * @param t Trajectory
+	 * @param minLag Minimum lag between the steps (>= 1)
+	 * @param maxLag Maximum lag between the steps (>= minLag)
+	 */
+	public TurningAngleCalculator(Trajectory t, int minLag, int maxLag) {
+		this(t, minLag, maxLag, 36);
+	}
+	
+	/**
+	 * @param t Trajectory
+	 * @param minLag Minimum lag between the steps (>= 1)
+	 * @param maxLag Maximum lag between the steps (>= minLag)
+	 * @param bins Number of bins of the angle histograms over [0,pi]
+	 */
+	public TurningAngleCalculator(Trajectory t, int minLag, int maxLag, int bins) {
+		if(minLag < 1){
+			throw new IllegalArgumentException("The lag can not be smaller than 1");
+		}
+		if(maxLag < minLag){
+			throw new IllegalArgumentException("The maximum lag has to be larger or equal than the minimum lag");
+		}
+		if(bins < 1){
+			throw new IllegalArgumentException("At least one histogram bin is required");
+		}
+		this.minLag = minLag;
+		this.maxLag = maxLag;
+		this.bins = bins;
+		int nLags = maxLag - minLag + 1;
+		counts = new int[nLags];
+		mean = new double[nLags];
+		m2 = new double[nLags];
+		sumCos = new double[nLags];
+		sumSin = new double[nLags];
+		histogram = new int[nLags][bins];
+		
+		/*
+		 * Steps
+		 */
+		int nSteps = Math.max(0, t.size() - 1);
+		double[] dx = new double[nSteps];
+		double[] dy = new double[nSteps];
+		double[] dz = new double[nSteps];
+		boolean[] valid = new boolean[nSteps];
+		boolean[] zero = new boolean[nSteps];
+		for(int i = 0; i < nSteps; i++){
+			valid[i] = t.isValid(i) && t.isValid(i+1);
+			if(valid[i]){
+				dx[i] = t.getX(i+1) - t.getX(i);
+				dy[i] = t.getY(i+1) - t.getY(i);
+				dz[i] = t.getZ(i+1) - t.getZ(i);
+				zero[i] = TrajectoryUtil.isZero(dx[i]) && TrajectoryUtil.isZero(dy[i]) && TrajectoryUtil.isZero(dz[i]);
+			}
+		}
+		boolean signed = t.getDimension() <= 2;
+		
+		for(int i = 0; i + minLag < nSteps; i++){
+			if(!valid[i]){
+				continue;
+			}
+			int jEnd = Math.min(nSteps - 1, i + maxLag);
+			for(int j = i + minLag; j <= jEnd; j++){
+				if(!valid[j]){
+					continue;
+				}
+				double angle = 0;
+				double circularAngle = 0;
+				if(!zero[i] && !zero[j]){
+					double dot = dx[i]*dx[j] + dy[i]*dy[j] + dz[i]*dz[j];
+					double cx = dy[i]*dz[j] - dz[i]*dy[j];
+					double cy = dz[i]*dx[j] - dx[i]*dz[j];
+					double cz = dx[i]*dy[j] - dy[i]*dx[j];
+					angle = Math.atan2(Math.sqrt(cx*cx + cy*cy + cz*cz), dot);
+					circularAngle = signed ? Math.atan2(cz, dot) : angle;
+				}
+				int k = j - i - minLag;
+				counts[k]++;
+				double delta = angle - mean[k];
+				mean[k] += delta/counts[k];
+				m2[k] += delta*(angle - mean[k]);
+				sumCos[k] += Math.cos(circularAngle);
+				sumSin[k] += Math.sin(circularAngle);
+				histogram[k][Math.min(bins - 1, (int) (angle/Math.PI*bins))]++;
+			}
+		}
+	}
+	
+	private int index(int lag){
+		if(lag < minLag || lag > maxLag){
+			throw new IllegalArgumentException("Lag " + lag + " is outside of the range [" + minLag + "," + maxLag + "]");
+		}
+		return lag - minLag;
+	}
+	
+	public int getMinLag(){
+		return minLag;
+	}
+	
+	public int getMaxLag(){
+		return maxLag;
+	}
+	
+	/**
+	 * @return Number of angles for the lag
+	 */
+	public int getNumberOfAngles(int lag){
+		return counts[index(lag)];
+	}
+	
+	/**
+	 * @return Mean of the unsigned angles
+	 */
+	public double getMean(int lag){
+		int k = index(lag);
+		return counts[k] > 0 ? mean[k] : Double.NaN;
+	}
+	
+	/**
+	 * @return Sample standard deviation of the unsigned angles
+	 */
+	public double getStandardDeviation(int lag){
+		int k = index(lag);
+		if(counts[k] == 0){
+			return Double.NaN;
+		}
+		if(counts[k] == 1){
+			return 0;
+		}
+		return Math.sqrt(m2[k]/(counts[k] - 1));
+	}
+	
+	/**
+	 * @return Mean cosine of the angles (directional persistence)
+	 */
+	public double getMeanCosine(int lag){
+		int k = index(lag);
+		return sumCos[k]/counts[k];
+	}
+	
+	/**
+	 * @return Circular mean of the angles
+	 */
+	public double getCircularMean(int lag){
+		int k = index(lag);
+		return Math.atan2(sumSin[k], sumCos[k]);
+	}
+	
+	/**
+	 * @return Mean resultant length R in [0,1]
+	 */
+	public double getMeanResultantLength(int lag){
+		int k = index(lag);
+		return Math.sqrt(sumCos[k]*sumCos[k] + sumSin[k]*sumSin[k])/counts[k];
+	}
+	
+	/**
+	 * @return Circular standard deviation sqrt(-2 ln R)
+	 */
+	public double getCircularStandardDeviation(int lag){
+		return Math.sqrt(-2*Math.log(getMeanResultantLength(lag)));
+	}
+	
+	/**
+	 * @return Histogram of the unsigned angles. Bin b covers [b*pi/bins, (b+1)*pi/bins).
+	 */
+	public int[] getHistogram(int lag){
+		return histogram[index(lag)].clone();
+	}
+
+}
@@ -262,4 +262,43 @@ public class MSDCalculatorTest {
 		double result = msdCalc.evaluate()[0];
 		Assert.assertEquals(4*3, result, 0);
 	}
+	
+	@Test
+	public void testGetMeanSquaredDisplacment_SeveralTimelags() {
+		Trajectory t = new Trajectory(2);
+		for(int i = 0; i < 100; i++){
+			if(i%7==3){
+				t.add(null);
+			}else{
+				t.add(new Point3d(i, Math.sin(i), 0));
+			}
+		}
+		
+		MeanSquaredDisplacmentFeature msdCalc = new MeanSquaredDisplacmentFeature(t, 1);
+		double[][] res = msdCalc.evaluate(t, 2, 20);
+		Assert.assertEquals(19, res.length);
+		for(int timelag = 2; timelag <= 20; timelag++){
+			msdCalc.setTimelag(timelag);
+			Assert.assertArrayEquals(msdCalc.evaluate(), res[timelag-2], 0);
+		}
+		Assert.assertEquals(0, msdCalc.evaluate(t, 3, 2).length);
+	}
+	
+	@Test
+	public void testGetMeanSquaredDisplacment_TrajectoryChangedAfterEvaluate() {
+		Trajectory t = new Trajectory(1);
+		for(int i = 0; i < 10; i++){
+			t.add(new Point3d(i, 0, 0));
+		}
+		MeanSquaredDisplacmentFeature msdCalc = new MeanSquaredDisplacmentFeature(t, 1);
+		Assert.assertEquals(1, msdCalc.evaluate()[0], DOUBLE_PRECISION);
+		
+		for(int i = 0; i < t.size(); i++){
+			t.get(i).x = 0;
+		}
+		Assert.assertEquals(0, msdCalc.evaluate()[0], DOUBLE_PRECISION);
+		
+		t.add(new Point3d(100, 0, 0));
+		Assert.assertEquals(1000, msdCalc.evaluate()[0], DOUBLE_PRECISION);
+	}
 }
@@ -8,8 +8,11 @@ import javax.vecmath.Point3d;
 
 import org.junit.Test;
 
+import de.biomedical_imaging.traJ.ParallelUtil;
 import de.biomedical_imaging.traJ.Trajectory;
 import de.biomedical_imaging.traJ.drift.StaticDriftCalculator;
+import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
+import de.biomedical_imaging.traJ.simulation.FreeDiffusionSimulator;
 
 /**
  * Calculates the global linear drift in x-, y-, and z-direction
@@ -119,4 +122,28 @@ public class StaticDriftCalculatorTest {
 		assertArrayEquals(expected, drift, DOUBLE_PRECISION);
 	}
 
+	@Test
+	public void testCalculateDrift_ParallelSameAsSerial() {
+		CentralRandomNumberGenerator.getInstance().setSeed(11);
+		FreeDiffusionSimulator sim = new FreeDiffusionSimulator(1, 1.0/30, 2, 50);
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		ArrayList<Trajectory> views = new ArrayList<Trajectory>();
+		for(int i = 0; i < 1000; i++){
+			Trajectory t = sim.generateTrajectory();
+			tracks.add(t);
+			views.add(t.subList(0, t.size()));
+		}
+		StaticDriftCalculator<Trajectory> gdc = new StaticDriftCalculator<Trajectory>();
+		int threads = ParallelUtil.getNumberOfThreads();
+		try{
+			ParallelUtil.setNumberOfThreads(1);
+			double[] serial = gdc.calculateDrift(tracks);
+			ParallelUtil.setNumberOfThreads(4);
+			assertArrayEquals(serial, gdc.calculateDrift(tracks), 0);
+			assertArrayEquals(serial, gdc.calculateDrift(views), 0);
+		}finally{
+			ParallelUtil.setNumberOfThreads(threads);
+		}
+	}
+
 }
@@ -1,11 +1,14 @@
 package de.biomedical_imaging.traJ.test;
 
+import java.util.ArrayList;
+
 import javax.vecmath.Point3d;
 
 import org.apache.commons.math3.analysis.function.Sqrt;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
+import de.biomedical_imaging.traJ.AbstractTrajectoryView;
 import de.biomedical_imaging.traJ.Trajectory;
 import de.biomedical_imaging.traJ.TrajectoryUtil;
 import de.biomedical_imaging.traJ.drift.StaticDriftCorrector;
@@ -34,6 +37,24 @@ public class StaticDriftCorrectorTest {
 		assertArrayEquals(t.getPositionsAsArray(), tCorrected.getPositionsAsArray());
 	}
 	
+	@Test
+	public void removeDriftTest_UsesAbsoluteFrame(){
+		Trajectory t = new Trajectory(1, 10);
+		Trajectory tWithDrift = new Trajectory(1, 10);
+		double[] drift = {1,0,0};
+		for(int i = 0; i < 20; i++){
+			t.add(new Point3d(i, 0, 0));
+			tWithDrift.add(new Point3d(i + (10+i)*drift[0], 0, 0));
+		}
+		
+		StaticDriftCorrector dcorr = new StaticDriftCorrector(drift);
+		
+		Trajectory tCorrected = dcorr.removeDrift(tWithDrift);
+		
+		assertEquals(10, tCorrected.getRelativeStartTimepoint());
+		assertArrayEquals(t.getPositionsAsArray(), tCorrected.getPositionsAsArray());
+	}
+	
 	@Test
 	public void removeDriftTest_2d(){
 		Trajectory t = new Trajectory(2);
@@ -204,4 +225,78 @@ public class StaticDriftCorrectorTest {
 	
 	
 
+	@Test
+	public void removeDriftTest_InPlace(){
+		Trajectory t = new Trajectory(2, 3);
+		Trajectory tWithDrift = new Trajectory(2, 3);
+		double[] drift = {1,2,0};
+		for(int i = 0; i < 100; i++){
+			t.add(new Point3d(i, i, 0));
+			tWithDrift.add(new Point3d(i + (3+i)*drift[0], i + (3+i)*drift[1], 0));
+		}
+		tWithDrift.set(5, null);
+		t.set(5, null);
+		
+		StaticDriftCorrector dcorr = new StaticDriftCorrector(drift);
+		dcorr.setInPlace(true);
+		Point3d p = tWithDrift.get(0);
+		
+		Trajectory tCorrected = dcorr.removeDrift(tWithDrift);
+		
+		assertSame(tWithDrift, tCorrected);
+		assertSame(p, tCorrected.get(0));
+		assertEquals(t, tCorrected);
+	}
+	
+	@Test
+	public void removeDriftTest_InPlaceSubTrajectory(){
+		Trajectory t = new Trajectory(2, 3);
+		for(int i = 0; i < 10; i++){
+			t.add(i + (3+i), i, 0);
+		}
+		StaticDriftCorrector dcorr = new StaticDriftCorrector(new double[]{1,0,0});
+		dcorr.setInPlace(true);
+		Trajectory sub = t.subList(2, 5);
+		assertSame(sub, dcorr.removeDrift(sub));
+		for(int i = 0; i < sub.size(); i++){
+			assertEquals(2 + i, sub.getX(i), 0);
+		}
+		//The parent is corrected in the range of the view only
+		assertEquals(2, t.getX(2), 0);
+		assertEquals(1 + 4, t.getX(1), 0);
+		assertEquals(5 + 8, t.getX(5), 0);
+	}
+	
+	@Test(expected=UnsupportedOperationException.class)
+	public void removeDriftTest_InPlaceWithoutBackingPoints(){
+		Trajectory t = new AbstractTrajectoryView(2, 0, 1) {
+			private static final long serialVersionUID = 1L;
+			public Point3d get(int index) {
+				return new Point3d(index, index, 0);
+			}
+			public int size() {
+				return 10;
+			}
+		};
+		StaticDriftCorrector dcorr = new StaticDriftCorrector(new double[]{1,0,0});
+		dcorr.setInPlace(true);
+		dcorr.removeDrift(t);
+	}
+	
+	@Test
+	public void removeDriftTest_List(){
+		CentralRandomNumberGenerator.getInstance().setSeed(5);
+		FreeDiffusionSimulator sim = new FreeDiffusionSimulator(1, 1.0/30, 2, 50);
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		for(int i = 0; i < 200; i++){
+			tracks.add(sim.generateTrajectory());
+		}
+		StaticDriftCorrector dcorr = new StaticDriftCorrector(new double[]{0.1,0.2,0});
+		ArrayList<Trajectory> corrected = dcorr.removeDrift(tracks);
+		assertEquals(tracks.size(), corrected.size());
+		for(int i = 0; i < tracks.size(); i++){
+			assertEquals(dcorr.removeDrift(tracks.get(i)), corrected.get(i));
+		}
+	}
+
 }
@@ -0,0 +1,89 @@
+package de.biomedical_imaging.traJ.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.SubTrajectory;
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.TrajectoryUtil;
+import de.biomedical_imaging.traJ.features.MeanSquaredDisplacmentFeature;
+import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
+import de.biomedical_imaging.traJ.simulation.FreeDiffusionSimulator;
+
+public class SubTrajectoryTest {
+
+	private Trajectory createTrajectory(){
+		Trajectory t = new Trajectory(2, 5);
+		for(int i = 0; i < 10; i++){
+			t.add(i, 2*i, 0);
+		}
+		t.setType("TEST");
+		return t;
+	}
+
+	@Test
+	public void subList_IsViewWithOffsetStart() {
+		Trajectory t = createTrajectory();
+		Trajectory sub = t.subList(3, 7);
+		assertTrue(sub instanceof SubTrajectory);
+		assertEquals(4, sub.size());
+		assertEquals(8, sub.getRelativeStartTimepoint());
+		assertEquals(t.getID(), sub.getID());
+		assertEquals("TEST", sub.getType());
+		assertEquals(2, sub.getDimension());
+		assertSame(t.get(3), sub.get(0));
+		assertEquals(12, sub.getY(3), 0);
+	}
+
+	@Test
+	public void subList_OfView() {
+		Trajectory t = createTrajectory();
+		SubTrajectory sub = (SubTrajectory) t.subList(2, 9).subList(1, 3);
+		assertSame(t, sub.getParent());
+		assertEquals(3, sub.getParentOffset());
+		assertEquals(2, sub.size());
+		assertEquals(8, sub.getRelativeStartTimepoint());
+		assertSame(t.get(4), sub.get(1));
+	}
+
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void get_OutOfRange() {
+		createTrajectory().subList(2, 4).get(2);
+	}
+
+	@Test(expected=UnsupportedOperationException.class)
+	public void add_ReadOnly() {
+		createTrajectory().subList(2, 4).add(1, 2, 3);
+	}
+
+	@Test(expected=ConcurrentModificationException.class)
+	public void get_ParentModified() {
+		Trajectory t = createTrajectory();
+		Trajectory sub = t.subList(2, 4);
+		t.add(1, 2, 3);
+		sub.get(0);
+	}
+
+	@Test
+	public void splitTrackInSubTrackViews_SameAsCopies() {
+		CentralRandomNumberGenerator.getInstance().setSeed(1);
+		FreeDiffusionSimulator sim = new FreeDiffusionSimulator(1, 1.0/30, 2, 50);
+		Trajectory t = sim.generateTrajectory();
+		for (boolean overlapping : new boolean[]{true,false}) {
+			ArrayList<Trajectory> copies = TrajectoryUtil.splitTrackInSubTracks(t, 7, overlapping);
+			ArrayList<Trajectory> views = TrajectoryUtil.splitTrackInSubTrackViews(t, 7, overlapping);
+			assertEquals(copies.size(), views.size());
+			MeanSquaredDisplacmentFeature msd = new MeanSquaredDisplacmentFeature(null, 2);
+			for(int i = 0; i < copies.size(); i++){
+				assertEquals(copies.get(i).getRelativeStartTimepoint(), views.get(i).getRelativeStartTimepoint());
+				assertEquals(copies.get(i), views.get(i));
+				assertArrayEquals(msd.evaluate(copies.get(i)), msd.evaluate(views.get(i)), 0);
+			}
+		}
+	}
+
+}
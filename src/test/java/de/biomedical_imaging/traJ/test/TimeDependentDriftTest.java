@@ -0,0 +1,177 @@
+package de.biomedical_imaging.traJ.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.ParallelUtil;
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.drift.StaticDriftCalculator;
+import de.biomedical_imaging.traJ.drift.TimeDependentDrift;
+import de.biomedical_imaging.traJ.drift.TimeDependentDriftCalculator;
+import de.biomedical_imaging.traJ.drift.TimeDependentDriftCorrector;
+import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
+import de.biomedical_imaging.traJ.simulation.FreeDiffusionSimulator;
+
+public class TimeDependentDriftTest {
+	
+	private double driftX(int frame){
+		return 0.5*Math.sin(frame/20.0);
+	}
+	
+	private double driftY(int frame){
+		return 0.002*frame*frame;
+	}
+	
+	/*
+	 * Free diffusion tracks with a common non-linear drift, starting at different frames
+	 */
+	private ArrayList<Trajectory> simulate(int n, double diffusionCoefficient){
+		CentralRandomNumberGenerator.getInstance().setSeed(7);
+		FreeDiffusionSimulator sim = new FreeDiffusionSimulator(diffusionCoefficient, 1.0/30, 2, 60);
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		for(int j = 0; j < n; j++){
+			Trajectory t = sim.generateTrajectory();
+			int start = j % 40;
+			Trajectory tDrift = new Trajectory(2, start);
+			for(int i = 0; i < t.size(); i++){
+				tDrift.add(t.get(i).x + driftX(start+i), t.get(i).y + driftY(start+i), 0);
+			}
+			tracks.add(tDrift);
+		}
+		return tracks;
+	}
+
+	@Test
+	public void calculateDrift_NoDiffusion() {
+		ArrayList<Trajectory> tracks = simulate(10, 0);
+		TimeDependentDriftCalculator<Trajectory> calc = new TimeDependentDriftCalculator<Trajectory>();
+		TimeDependentDrift drift = calc.calculateDrift(tracks);
+		assertEquals(0, drift.getFirstFrame());
+		assertEquals(9 + 60, drift.getLastFrame());
+		for(int f = 1; f <= drift.getLastFrame(); f++){
+			assertEquals(driftX(f) - driftX(f-1), drift.getDisplacement(f)[0], 1e-10);
+			assertEquals(driftY(f) - driftY(f-1), drift.getDisplacement(f)[1], 1e-10);
+			assertEquals(driftY(f) - driftY(0), drift.getDrift(f)[1], 1e-9);
+		}
+		assertEquals(drift.getDrift(drift.getLastFrame())[0], drift.getDrift(1000)[0], 0);
+		assertEquals(0, drift.getDrift(-5)[0], 0);
+		
+		TimeDependentDriftCorrector corr = new TimeDependentDriftCorrector(drift);
+		Trajectory t = corr.removeDrift(tracks.get(3));
+		assertEquals(3, t.getRelativeStartTimepoint());
+		for(int i = 0; i < t.size(); i++){
+			assertEquals(-driftX(0), t.getX(i), 1e-9);
+			assertEquals(-driftY(0), t.getY(i), 1e-9);
+		}
+	}
+	
+	@Test
+	public void calculateDrift_Smoothing() {
+		ArrayList<Trajectory> tracks = simulate(400, 0.01);
+		TimeDependentDriftCalculator<Trajectory> calc = new TimeDependentDriftCalculator<Trajectory>();
+		double errRaw = error(calc.calculateDrift(tracks));
+		calc.setMovingAverageSmoothing(5);
+		double errMovingAverage = error(calc.calculateDrift(tracks));
+		calc.setLoessSmoothing(0.3);
+		double errLoess = error(calc.calculateDrift(tracks));
+		assertTrue(errMovingAverage < errRaw);
+		assertTrue(errLoess < errRaw);
+		assertTrue(errLoess < errMovingAverage);
+	}
+	
+	/*
+	 * RMS error of the displacements per frame
+	 */
+	private double error(TimeDependentDrift drift){
+		double sum = 0;
+		for(int f = 1; f <= drift.getLastFrame(); f++){
+			double ex = drift.getDisplacement(f)[0] - (driftX(f) - driftX(f-1));
+			double ey = drift.getDisplacement(f)[1] - (driftY(f) - driftY(f-1));
+			sum += ex*ex + ey*ey;
+		}
+		return Math.sqrt(sum/drift.getLastFrame());
+	}
+	
+	@Test
+	public void calculateDrift_IndependentOfNumberOfThreads() {
+		ArrayList<Trajectory> tracks = simulate(1000, 0.01);
+		TimeDependentDriftCalculator<Trajectory> calc = new TimeDependentDriftCalculator<Trajectory>();
+		int threads = ParallelUtil.getNumberOfThreads();
+		try{
+			ParallelUtil.setNumberOfThreads(1);
+			TimeDependentDrift serial = calc.calculateDrift(tracks);
+			ParallelUtil.setNumberOfThreads(4);
+			TimeDependentDrift parallel = calc.calculateDrift(tracks);
+			for(int f = serial.getFirstFrame(); f <= serial.getLastFrame(); f++){
+				assertArrayEquals(serial.getDrift(f), parallel.getDrift(f), 0);
+				assertEquals(serial.getNumberOfDisplacements(f), parallel.getNumberOfDisplacements(f));
+			}
+		}finally{
+			ParallelUtil.setNumberOfThreads(threads);
+		}
+	}
+	
+	@Test
+	public void calculateDrift_ConstantDriftSameAsStatic() {
+		CentralRandomNumberGenerator.getInstance().setSeed(3);
+		FreeDiffusionSimulator sim = new FreeDiffusionSimulator(1, 1.0/30, 2, 50);
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		for(int j = 0; j < 20; j++){
+			Trajectory t = sim.generateTrajectory();
+			Trajectory tDrift = new Trajectory(2);
+			for(int i = 0; i < t.size(); i++){
+				tDrift.add(t.get(i).x + 0.1*i, t.get(i).y, 0);
+			}
+			tracks.add(tDrift);
+		}
+		TimeDependentDriftCalculator<Trajectory> calc = new TimeDependentDriftCalculator<Trajectory>();
+		calc.setMovingAverageSmoothing(1000);
+		TimeDependentDrift drift = calc.calculateDrift(tracks);
+		double[] staticDrift = new StaticDriftCalculator<Trajectory>().calculateDrift(tracks);
+		assertEquals(staticDrift[0], drift.getDisplacement(10)[0], 1e-10);
+		assertEquals(staticDrift[1], drift.getDisplacement(10)[1], 1e-10);
+	}
+
+	@Test
+	public void calculateDrift_GloballyMissingFrame() {
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		for(int j = 0; j < 5; j++){
+			Trajectory t = new Trajectory(2, j);
+			for(int i = 0; i < 40; i++){
+				int frame = j + i;
+				if(frame == 20 || (frame == 30 && j != 2)){
+					t.add(null);
+				}
+				else{
+					t.add(j + frame, 2*j, 0);
+				}
+			}
+			tracks.add(t);
+		}
+		//Frame 50 and later are only covered by a track which starts after a frame without any track
+		Trajectory late = new Trajectory(2, 50);
+		for(int i = 0; i < 5; i++){
+			late.add(50 + i, 0, 0);
+		}
+		tracks.add(late);
+		TimeDependentDrift drift = new TimeDependentDriftCalculator<Trajectory>().calculateDrift(tracks);
+		for(int f = 1; f <= drift.getLastFrame(); f++){
+			assertEquals(1, drift.getDisplacement(f)[0], 1e-12);
+			assertEquals(0, drift.getDisplacement(f)[1], 1e-12);
+		}
+		assertEquals(0, drift.getNumberOfDisplacements(44));
+		TimeDependentDriftCorrector corr = new TimeDependentDriftCorrector(drift);
+		for(int j = 0; j < tracks.size(); j++){
+			Trajectory t = corr.removeDrift(tracks.get(j));
+			for(int i = 0; i < t.size(); i++){
+				if(t.isValid(i)){
+					assertEquals(tracks.get(j) == late ? 0 : j, t.getX(i), 1e-9);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,54 @@
+package de.biomedical_imaging.traJ.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.TrajectoryFrameIndex;
+
+public class TrajectoryFrameIndexTest {
+
+	@Test
+	public void index_PositionsPerFrame() {
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		Trajectory t1 = new Trajectory(2, 3);
+		for(int i = 0; i < 4; i++){
+			t1.add(i, 0, 0);
+		}
+		t1.set(1, null);
+		Trajectory t2 = new Trajectory(2, 5);
+		for(int i = 0; i < 3; i++){
+			t2.add(10+i, 0, 0);
+		}
+		tracks.add(t1);
+		tracks.add(t2);
+		
+		TrajectoryFrameIndex index = new TrajectoryFrameIndex(tracks);
+		assertEquals(3, index.getFirstFrame());
+		assertEquals(7, index.getLastFrame());
+		assertEquals(1, index.getNumberOfPositions(3));
+		assertEquals(0, index.getNumberOfPositions(4));
+		assertEquals(2, index.getNumberOfPositions(5));
+		assertEquals(2, index.getNumberOfPositions(6));
+		assertEquals(1, index.getNumberOfPositions(7));
+		assertEquals(0, index.getNumberOfPositions(8));
+		
+		assertSame(t1, index.getTrajectory(6, 0));
+		assertEquals(3, index.getPositionIndex(6, 0));
+		assertEquals(1, index.getTrajectoryIndex(6, 1));
+		assertEquals(11, t2.getX(index.getPositionIndex(6, 1)), 0);
+	}
+	
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void getPositionIndex_OutOfRange() {
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		Trajectory t = new Trajectory(2);
+		t.add(1, 2, 0);
+		tracks.add(t);
+		new TrajectoryFrameIndex(tracks).getPositionIndex(0, 1);
+	}
+
+}
@@ -0,0 +1,72 @@
+package de.biomedical_imaging.traj.clustering.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.ParallelUtil;
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.clustering.DBSCAN;
+import de.biomedical_imaging.traJ.clustering.FeatureSpaceIndex;
+
+public class DBSCANTest {
+
+	private ArrayList<Trajectory> tracks;
+	private double[][] values;
+	
+	private FeatureSpaceIndex createIndex(){
+		Random r = new Random(3);
+		tracks = new ArrayList<Trajectory>();
+		values = new double[2002][];
+		for(int i = 0; i < 2000; i++){
+			double c = i % 2 == 0 ? -3 : 3;
+			values[i] = new double[]{c + 0.3*r.nextGaussian(), 0.3*r.nextGaussian()};
+		}
+		values[2000] = new double[]{0, 3};
+		values[2001] = new double[]{0, -3};
+		for(int i = 0; i < values.length; i++){
+			tracks.add(new Trajectory(2));
+		}
+		return new FeatureSpaceIndex(tracks, values);
+	}
+
+	@Test
+	public void cluster_TwoClustersAndNoise() {
+		FeatureSpaceIndex index = createIndex();
+		DBSCAN db = new DBSCAN(0.5, 10);
+		int[] labels = db.cluster(index);
+		assertEquals(2, DBSCAN.getNumberOfClusters(labels));
+		assertEquals(DBSCAN.NOISE, labels[2000]);
+		assertEquals(DBSCAN.NOISE, labels[2001]);
+		int[] size = new int[2];
+		for(int i = 0; i < 2000; i++){
+			if(labels[i] != DBSCAN.NOISE){
+				assertEquals(labels[i % 2], labels[i]);
+				size[labels[i]]++;
+			}
+		}
+		assertNotEquals(labels[0], labels[1]);
+		assertTrue(size[0] > 950 && size[1] > 950);
+		ArrayList<ArrayList<Trajectory>> clusters = DBSCAN.getClusters(tracks, labels);
+		assertEquals(size[0], clusters.get(0).size());
+	}
+	
+	@Test
+	public void cluster_SameResultForAnyNumberOfThreads() {
+		FeatureSpaceIndex index = createIndex();
+		int threads = ParallelUtil.getNumberOfThreads();
+		try{
+			ParallelUtil.setNumberOfThreads(1);
+			int[] a = new DBSCAN(0.1, 5).cluster(index);
+			ParallelUtil.setNumberOfThreads(4);
+			int[] b = new DBSCAN(0.1, 5).cluster(index);
+			assertArrayEquals(a, b);
+		}finally{
+			ParallelUtil.setNumberOfThreads(threads);
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+package de.biomedical_imaging.traj.clustering.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.clustering.FeatureSpaceIndex;
+import de.biomedical_imaging.traJ.features.AbstractTrajectoryFeature;
+import de.biomedical_imaging.traJ.features.MeanSquaredDisplacmentFeature;
+import de.biomedical_imaging.traJ.simulation.ActiveTransportSimulator;
+import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
+import de.biomedical_imaging.traJ.simulation.FreeDiffusionSimulator;
+
+public class FeatureSpaceIndexTest {
+
+	private ArrayList<Trajectory> dummyTracks(int n){
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		for(int i = 0; i < n; i++){
+			tracks.add(new Trajectory(2));
+		}
+		return tracks;
+	}
+
+	@Test
+	public void nearest_SameAsBruteForceInStandardizedSpace() {
+		Random r = new Random(1);
+		double[][] v = new double[500][3];
+		for (double[] p : v) {
+			p[0] = r.nextGaussian();
+			p[1] = 1000*r.nextGaussian();
+			p[2] = 0.001*r.nextGaussian();
+		}
+		FeatureSpaceIndex index = new FeatureSpaceIndex(dummyTracks(v.length), v);
+		double[] sd = index.getStandardDeviation();
+		for(int i = 0; i < 20; i++){
+			int[] res = index.nearest(i, 5);
+			assertEquals(5, res.length);
+			double[] dist = new double[v.length - 1];
+			int c = 0;
+			for(int j = 0; j < v.length; j++){
+				if(j != i){
+					dist[c++] = distance(v[i], v[j], sd);
+				}
+			}
+			Arrays.sort(dist);
+			for(int j = 0; j < res.length; j++){
+				assertNotEquals(i, res[j]);
+				assertEquals(dist[j], distance(v[i], v[res[j]], sd), 1e-12);
+			}
+		}
+	}
+	
+	private double distance(double[] a, double[] b, double[] sd){
+		double s = 0;
+		for(int d = 0; d < a.length; d++){
+			s += (a[d]-b[d])*(a[d]-b[d])/(sd[d]*sd[d]);
+		}
+		return Math.sqrt(s);
+	}
+	
+	@Test
+	public void nonFiniteFeatures_NotIndexed() {
+		double[][] v = {{0, 1}, {Double.NaN, 1}, {1, 2}, {2, 2}};
+		FeatureSpaceIndex index = new FeatureSpaceIndex(dummyTracks(v.length), v);
+		assertFalse(index.isIndexed(1));
+		assertNull(index.getStandardizedFeatures(1));
+		assertEquals(0, index.nearest(1, 2).length);
+		assertArrayEquals(new int[]{2, 3}, index.nearest(0, 3));
+		assertEquals(1, index.getMean()[0], 1e-12);
+		assertArrayEquals(new double[]{-1, -2/Math.sqrt(3)}, index.getStandardizedFeatures(0), 1e-12);
+	}
+	
+	@Test
+	public void nearest_ByTrajectoryFindsSameMotionType() {
+		CentralRandomNumberGenerator.getInstance().setSeed(2);
+		FreeDiffusionSimulator free = new FreeDiffusionSimulator(1, 1.0/30, 2, 100);
+		ActiveTransportSimulator active = new ActiveTransportSimulator(20, 0, 1.0/30, 2, 100);
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		for(int i = 0; i < 30; i++){
+			tracks.add(free.generateTrajectory());
+			tracks.add(active.generateTrajectory());
+		}
+		ArrayList<AbstractTrajectoryFeature> features = new ArrayList<AbstractTrajectoryFeature>();
+		features.add(new MeanSquaredDisplacmentFeature(null, 10));
+		FeatureSpaceIndex index = new FeatureSpaceIndex(tracks, features);
+		for (int i : index.nearest(active.generateTrajectory(), 10)) {
+			assertEquals(1, i % 2);
+		}
+		for (int i : index.nearest(0, 10)) {
+			assertEquals(0, i % 2);
+		}
+	}
+
+}
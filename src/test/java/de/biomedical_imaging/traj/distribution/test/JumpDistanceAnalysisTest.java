@@ -0,0 +1,103 @@
+package de.biomedical_imaging.traj.distribution.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+
+import org.apache.commons.math3.special.Gamma;
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.ParallelUtil;
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.distribution.JumpDistanceAnalysis;
+import de.biomedical_imaging.traJ.distribution.JumpDistanceMixture;
+import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
+import de.biomedical_imaging.traJ.simulation.FreeDiffusionSimulator;
+
+public class JumpDistanceAnalysisTest {
+	
+	private static final double FPS = 30;
+	
+	private ArrayList<Trajectory> simulate(double[] diffusionCoefficients, int tracksPerPopulation){
+		CentralRandomNumberGenerator.getInstance().setSeed(31);
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		for (double d : diffusionCoefficients) {
+			FreeDiffusionSimulator sim = new FreeDiffusionSimulator(d, 1/FPS, 2, 100);
+			for(int i = 0; i < tracksPerPopulation; i++){
+				tracks.add(sim.generateTrajectory());
+			}
+		}
+		return tracks;
+	}
+
+	@Test
+	public void fit_OnePopulation() {
+		ArrayList<Trajectory> tracks = simulate(new double[]{0.5}, 200);
+		JumpDistanceAnalysis jda = JumpDistanceAnalysis.calculate(tracks, 2, 1, 1, 100);
+		assertEquals(200*100, jda.getNumberOfJumps());
+		JumpDistanceMixture m = jda.fit(1);
+		assertEquals(1, m.getWeight(0), 1e-12);
+		assertEquals(0.5, m.getDiffusionCoefficient(0, FPS), 0.02);
+		assertEquals(1, jda.fitBest(2).getNumberOfComponents());
+	}
+	
+	@Test
+	public void fit_TwoPopulations() {
+		ArrayList<Trajectory> tracks = simulate(new double[]{0.1, 1}, 300);
+		JumpDistanceAnalysis jda = JumpDistanceAnalysis.calculate(tracks, 2, 2, 1.5, 150);
+		JumpDistanceMixture m = jda.fitBest(3);
+		assertEquals(2, m.getNumberOfComponents());
+		assertEquals(0.1, m.getDiffusionCoefficient(0, FPS), 0.01);
+		assertEquals(1, m.getDiffusionCoefficient(1, FPS), 0.05);
+		assertEquals(0.5, m.getWeight(0), 0.03);
+		assertEquals(0.5, m.getWeight(1), 0.03);
+	}
+	
+	@Test
+	public void calculate_SameAsSequential() {
+		ArrayList<Trajectory> tracks = simulate(new double[]{0.1, 1}, 100);
+		tracks.get(5).set(20, null);
+		JumpDistanceAnalysis sequential = new JumpDistanceAnalysis(2, 3, 1, 50);
+		for (Trajectory t : tracks) {
+			sequential.add(t);
+		}
+		int threads = ParallelUtil.getNumberOfThreads();
+		try{
+			ParallelUtil.setNumberOfThreads(4);
+			JumpDistanceAnalysis parallel = JumpDistanceAnalysis.calculate(tracks, 2, 3, 1, 50);
+			assertArrayEquals(sequential.getCounts(), parallel.getCounts());
+			assertEquals(200*98 - 2, parallel.getNumberOfJumps());
+		}finally{
+			ParallelUtil.setNumberOfThreads(threads);
+		}
+	}
+
+	@Test
+	public void fit_LogLikelihoodOfReturnedParameters() {
+		ArrayList<Trajectory> tracks = simulate(new double[]{0.1, 1}, 100);
+		int bins = 60;
+		double maxJump = 1.5;
+		JumpDistanceAnalysis jda = JumpDistanceAnalysis.calculate(tracks, 2, 2, maxJump, bins);
+		long[] counts = jda.getCounts();
+		for(int c = 1; c <= 3; c++){
+			JumpDistanceMixture m = jda.fit(c);
+			double ll = 0;
+			for(int b = 0; b <= bins; b++){
+				double p = 0;
+				for(int j = 0; j < c; j++){
+					double lo = b*maxJump/bins;
+					double hi = (b + 1)*maxJump/bins;
+					double s2 = m.getVariance(j);
+					double fLo = Gamma.regularizedGammaP(1, lo*lo/(2*s2));
+					double fHi = b == bins ? 1 : Gamma.regularizedGammaP(1, hi*hi/(2*s2));
+					p += m.getWeight(j)*(fHi - fLo);
+				}
+				if(counts[b] > 0){
+					ll += counts[b]*Math.log(p);
+				}
+			}
+			assertEquals(ll, m.getLogLikelihood(), 1e-9*Math.abs(ll));
+		}
+	}
+
+}
@@ -0,0 +1,65 @@
+package de.biomedical_imaging.traj.distribution.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.ParallelUtil;
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.distribution.VanHoveCalculator;
+import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
+import de.biomedical_imaging.traJ.simulation.FreeDiffusionSimulator;
+
+public class VanHoveCalculatorTest {
+	
+	private ArrayList<Trajectory> simulate(){
+		CentralRandomNumberGenerator.getInstance().setSeed(21);
+		FreeDiffusionSimulator sim = new FreeDiffusionSimulator(1, 1.0/30, 2, 100);
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		for(int i = 0; i < 500; i++){
+			tracks.add(sim.generateTrajectory());
+		}
+		return tracks;
+	}
+
+	@Test
+	public void quantiles_FreeDiffusion() {
+		ArrayList<Trajectory> tracks = simulate();
+		VanHoveCalculator vh = VanHoveCalculator.calculate(tracks, 1, 10, 1e-4, 1e2, 40);
+		for(int lag = 1; lag <= 10; lag++){
+			assertEquals(500*(100-lag+1), vh.getNumberOfDisplacements(lag));
+			/*
+			 * Displacement lengths are Rayleigh distributed with sigma^2 = 2*D*lag*dt
+			 */
+			double sigma = Math.sqrt(2*lag/30.0);
+			for (double q : new double[]{0.1, 0.5, 0.9}) {
+				double expected = sigma*Math.sqrt(-2*Math.log(1-q));
+				assertEquals(expected, vh.getQuantile(lag, q), 0.03*expected);
+			}
+		}
+	}
+	
+	@Test
+	public void calculate_SameAsSequential() {
+		ArrayList<Trajectory> tracks = simulate();
+		tracks.get(3).set(10, null);
+		VanHoveCalculator sequential = new VanHoveCalculator(2, 5, 1e-3, 10, 20);
+		for (Trajectory t : tracks) {
+			sequential.add(t);
+		}
+		int threads = ParallelUtil.getNumberOfThreads();
+		try{
+			ParallelUtil.setNumberOfThreads(4);
+			VanHoveCalculator parallel = VanHoveCalculator.calculate(tracks, 2, 5, 1e-3, 10, 20);
+			for(int lag = 2; lag <= 5; lag++){
+				assertArrayEquals(sequential.getHistogram(lag).getCounts(), parallel.getHistogram(lag).getCounts());
+				assertEquals(sequential.getQuantile(lag, 0.75), parallel.getQuantile(lag, 0.75), 0);
+			}
+		}finally{
+			ParallelUtil.setNumberOfThreads(threads);
+		}
+	}
+
+}
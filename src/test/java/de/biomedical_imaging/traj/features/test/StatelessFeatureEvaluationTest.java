@@ -0,0 +1,116 @@
+package de.biomedical_imaging.traj.features.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.DiffusionCoefficientEstimator.CovarianceDiffusionCoefficientEstimator;
+import de.biomedical_imaging.traJ.DiffusionCoefficientEstimator.RegressionDiffusionCoefficientEstimator;
+import de.biomedical_imaging.traJ.features.AbstractTrajectoryFeature;
+import de.biomedical_imaging.traJ.features.AspectRatioFeature;
+import de.biomedical_imaging.traJ.features.ConvexHullFeature;
+import de.biomedical_imaging.traJ.features.EfficiencyFeature;
+import de.biomedical_imaging.traJ.features.GaussianityFeauture;
+import de.biomedical_imaging.traJ.features.MeanSquaredDisplacmentFeature;
+import de.biomedical_imaging.traJ.features.PowerLawFeature;
+import de.biomedical_imaging.traJ.features.StraightnessFeature;
+import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
+import de.biomedical_imaging.traJ.simulation.FreeDiffusionSimulator;
+
+public class StatelessFeatureEvaluationTest {
+
+	private ArrayList<Trajectory> simulate(int n){
+		CentralRandomNumberGenerator.getInstance().setSeed(42);
+		FreeDiffusionSimulator sim = new FreeDiffusionSimulator(1, 1.0/30, 2, 100);
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		for(int i = 0; i < n; i++){
+			tracks.add(sim.generateTrajectory());
+		}
+		return tracks;
+	}
+
+	private ArrayList<AbstractTrajectoryFeature> createFeatures(){
+		ArrayList<AbstractTrajectoryFeature> features = new ArrayList<AbstractTrajectoryFeature>();
+		features.add(new MeanSquaredDisplacmentFeature(null, 3));
+		features.add(new EfficiencyFeature(null));
+		features.add(new StraightnessFeature(null));
+		features.add(new AspectRatioFeature(null));
+		features.add(new ConvexHullFeature(null));
+		features.add(new GaussianityFeauture(null, 1));
+		features.add(new PowerLawFeature(null, 1, 10));
+		features.add(new RegressionDiffusionCoefficientEstimator(null, 30, 1, 5));
+		features.add(new CovarianceDiffusionCoefficientEstimator(null, 30));
+		return features;
+	}
+
+	@Test
+	public void evaluate_SameResultAsStatefulEvaluation() {
+		ArrayList<Trajectory> tracks = simulate(5);
+		ArrayList<AbstractTrajectoryFeature> stateless = createFeatures();
+		ArrayList<AbstractTrajectoryFeature> stateful = createFeatures();
+		for (Trajectory t : tracks) {
+			for(int i = 0; i < stateless.size(); i++){
+				stateful.get(i).setTrajectory(t);
+				assertArrayEquals(stateful.get(i).evaluate(), stateless.get(i).evaluate(t), 0);
+			}
+		}
+	}
+
+	@Test
+	public void evaluate_DoesNotChangeCachedResult() {
+		ArrayList<Trajectory> tracks = simulate(2);
+		MeanSquaredDisplacmentFeature msd = new MeanSquaredDisplacmentFeature(tracks.get(0), 1);
+		double[] expected = msd.getValue();
+		msd.evaluate(tracks.get(1));
+		assertArrayEquals(expected, msd.getValue(), 0);
+		assertArrayEquals(expected, msd.evaluate(), 0);
+	}
+
+	@Test
+	public void evaluate_ConcurrentlySharedInstances() throws Exception {
+		final ArrayList<Trajectory> tracks = simulate(40);
+		final ArrayList<AbstractTrajectoryFeature> shared = createFeatures();
+		ArrayList<AbstractTrajectoryFeature> reference = createFeatures();
+		double[][][] expected = new double[tracks.size()][][];
+		for(int i = 0; i < tracks.size(); i++){
+			expected[i] = new double[reference.size()][];
+			for(int j = 0; j < reference.size(); j++){
+				reference.get(j).setTrajectory(tracks.get(i));
+				expected[i][j] = reference.get(j).evaluate();
+			}
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try{
+			ArrayList<Future<double[][]>> futures = new ArrayList<Future<double[][]>>();
+			for(int i = 0; i < tracks.size(); i++){
+				final Trajectory t = tracks.get(i);
+				futures.add(pool.submit(new Callable<double[][]>() {
+					public double[][] call() {
+						double[][] res = new double[shared.size()][];
+						for(int j = 0; j < shared.size(); j++){
+							res[j] = shared.get(j).evaluate(t);
+						}
+						return res;
+					}
+				}));
+			}
+			for(int i = 0; i < tracks.size(); i++){
+				double[][] res = futures.get(i).get();
+				for(int j = 0; j < res.length; j++){
+					assertArrayEquals(expected[i][j], res[j], 0);
+				}
+			}
+		}finally{
+			pool.shutdown();
+		}
+	}
+
+}
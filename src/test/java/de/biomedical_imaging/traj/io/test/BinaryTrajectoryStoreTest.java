@@ -0,0 +1,101 @@
+package de.biomedical_imaging.traj.io.test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.features.MeanSquaredDisplacmentFeature;
+import de.biomedical_imaging.traJ.io.BinaryTrajectoryReader;
+import de.biomedical_imaging.traJ.io.BinaryTrajectoryWriter;
+import de.biomedical_imaging.traJ.io.MappedTrajectory;
+import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
+import de.biomedical_imaging.traJ.simulation.FreeDiffusionSimulator;
+
+public class BinaryTrajectoryStoreTest {
+
+	@Test
+	public void writeRead_WithGaps() throws IOException {
+		File f = File.createTempFile("traj", ".bin");
+		f.deleteOnExit();
+		Trajectory t = new Trajectory(3, 17);
+		t.setType("TEST");
+		for(int i = 0; i < 21; i++){
+			if(i%5==3){
+				t.add(null);
+			}
+			else{
+				t.add(i, 2*i, -i);
+			}
+		}
+		BinaryTrajectoryWriter writer = new BinaryTrajectoryWriter(f);
+		writer.write(t);
+		writer.close();
+		
+		BinaryTrajectoryReader reader = new BinaryTrajectoryReader(f);
+		assertEquals(1, reader.getNumberOfTrajectories());
+		assertEquals(21, reader.getNumberOfPositions());
+		MappedTrajectory mt = reader.getTrajectory(0);
+		reader.close();
+		
+		assertEquals(t.getID(), mt.getID());
+		assertEquals(17, mt.getRelativeStartTimepoint());
+		assertEquals(3, mt.getDimension());
+		assertEquals("TEST", mt.getType());
+		assertEquals(t, mt);
+		assertArrayEquals(t.getPositionsAsArray(), mt.getPositionsAsArray());
+	}
+	
+	@Test
+	public void writeRead_Simulator_SameMSD() throws IOException {
+		CentralRandomNumberGenerator.getInstance().setSeed(7);
+		File f = File.createTempFile("traj", ".bin");
+		f.deleteOnExit();
+		FreeDiffusionSimulator sim = new FreeDiffusionSimulator(1, 1, 2, 200);
+		Trajectory[] tracks = new Trajectory[20];
+		BinaryTrajectoryWriter writer = new BinaryTrajectoryWriter(f);
+		for(int i = 0; i < tracks.length; i++){
+			tracks[i] = sim.generateTrajectory();
+			writer.write(tracks[i]);
+		}
+		writer.close();
+		
+		BinaryTrajectoryReader reader = new BinaryTrajectoryReader(f);
+		assertEquals(tracks.length, reader.getNumberOfTrajectories());
+		int i = 0;
+		for (Trajectory mt : reader) {
+			double expected = new MeanSquaredDisplacmentFeature(tracks[i], 3).evaluate()[0];
+			double actual = new MeanSquaredDisplacmentFeature(mt, 3).evaluate()[0];
+			assertEquals(expected, actual, 0);
+			i++;
+		}
+		reader.close();
+	}
+	
+	@Test
+	public void writeRead_SinglePrecision() throws IOException {
+		File f = File.createTempFile("traj", ".bin");
+		f.deleteOnExit();
+		Trajectory t = new Trajectory(2);
+		for(int i = 0; i < 10; i++){
+			t.add(i/3.0, i/7.0, 0);
+		}
+		BinaryTrajectoryWriter writer = new BinaryTrajectoryWriter(f, true);
+		writer.write(t);
+		writer.close();
+		
+		BinaryTrajectoryReader reader = new BinaryTrajectoryReader(f);
+		assertTrue(reader.isSinglePrecision());
+		MappedTrajectory mt = reader.getTrajectory(0);
+		for(int i = 0; i < t.size(); i++){
+			assertEquals(t.get(i).x, mt.getX(i), 0.000001);
+			assertEquals(t.get(i).y, mt.getY(i), 0.000001);
+			assertEquals(0, mt.getZ(i), 0);
+		}
+		reader.close();
+	}
+
+}
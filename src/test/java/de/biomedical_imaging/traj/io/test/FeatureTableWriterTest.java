@@ -0,0 +1,89 @@
+package de.biomedical_imaging.traj.io.test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.features.AbstractTrajectoryFeature;
+import de.biomedical_imaging.traJ.features.CenterOfGravityFeature;
+import de.biomedical_imaging.traJ.features.StraightnessFeature;
+import de.biomedical_imaging.traJ.io.BinaryFeatureTableReader;
+import de.biomedical_imaging.traJ.io.BinaryFeatureTableWriter;
+import de.biomedical_imaging.traJ.io.CSVFeatureTableWriter;
+
+public class FeatureTableWriterTest {
+	
+	private ArrayList<AbstractTrajectoryFeature> getFeatures(){
+		ArrayList<AbstractTrajectoryFeature> features = new ArrayList<AbstractTrajectoryFeature>();
+		features.add(new StraightnessFeature(null));
+		features.add(new CenterOfGravityFeature(null));
+		return features;
+	}
+	
+	private Trajectory getLine(int n){
+		Trajectory t = new Trajectory(2);
+		for(int i = 0; i < n; i++){
+			t.add(i, 0, 0);
+		}
+		return t;
+	}
+
+	@Test
+	public void csvWriter() throws IOException {
+		StringWriter out = new StringWriter();
+		CSVFeatureTableWriter writer = new CSVFeatureTableWriter(out, ',');
+		Trajectory t = getLine(5);
+		writer.writeRow(t, getFeatures());
+		writer.close();
+		
+		String[] lines = out.toString().split("\n");
+		assertEquals("id,STRAIGHTNESS,COG_0,COG_1,COG_2", lines[0]);
+		assertEquals(t.getID()+",1.0,2.0,0.0,0.0", lines[1]);
+	}
+	
+	@Test
+	public void binaryWriter_RoundTrip() throws IOException {
+		File f = File.createTempFile("features", ".bin");
+		f.deleteOnExit();
+		BinaryFeatureTableWriter writer = new BinaryFeatureTableWriter(f, new String[]{"A","B"}, 3);
+		for(int i = 0; i < 10; i++){
+			writer.writeRow(i, new double[]{i, -2.0*i});
+		}
+		writer.close();
+		
+		BinaryFeatureTableReader reader = new BinaryFeatureTableReader(f);
+		assertArrayEquals(new String[]{"A","B"}, reader.getColumns());
+		assertEquals(10, reader.getNumberOfRows());
+		long[] ids = reader.readIds();
+		double[] b = reader.readColumn("B");
+		reader.close();
+		for(int i = 0; i < 10; i++){
+			assertEquals(i, ids[i]);
+			assertEquals(-2.0*i, b[i], 0);
+		}
+	}
+	
+	@Test
+	public void binaryWriter_ColumnsFromFeatures() throws IOException {
+		File f = File.createTempFile("features", ".bin");
+		f.deleteOnExit();
+		BinaryFeatureTableWriter writer = new BinaryFeatureTableWriter(f);
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		tracks.add(getLine(3));
+		tracks.add(getLine(7));
+		writer.writeRows(tracks, getFeatures());
+		writer.close();
+		
+		BinaryFeatureTableReader reader = new BinaryFeatureTableReader(f);
+		assertEquals(4, reader.getColumns().length);
+		assertArrayEquals(new double[]{1,3}, reader.readColumn("COG_0"), 0);
+		reader.close();
+	}
+
+}
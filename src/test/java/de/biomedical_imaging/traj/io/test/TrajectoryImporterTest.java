@@ -0,0 +1,169 @@
+package de.biomedical_imaging.traj.io.test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.io.CSVTrajectoryImporter;
+import de.biomedical_imaging.traJ.io.CSVTrajectoryImporter.SortOrder;
+import de.biomedical_imaging.traJ.io.TrackMateXMLImporter;
+
+public class TrajectoryImporterTest {
+	
+	private static class Collector implements Consumer<Trajectory> {
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		public void accept(Trajectory t) {
+			tracks.add(t);
+		}
+	}
+
+	@Test
+	public void csvGroupedById_FillsGaps() throws IOException {
+		String csv = "id,frame,x,y,z\n"
+				+ "1,5,0,0,0\n"
+				+ "1,6,1,0,0\n"
+				+ "1,8,3,0,0\n"
+				+ "2,0,0,1,0\n"
+				+ "2,1,0,2,0\n";
+		Collector c = new Collector();
+		CSVTrajectoryImporter importer = new CSVTrajectoryImporter(2);
+		int n = importer.read(new StringReader(csv), c);
+		
+		assertEquals(2, n);
+		Trajectory t = c.tracks.get(0);
+		assertEquals(1, t.getID());
+		assertEquals(5, t.getRelativeStartTimepoint());
+		assertEquals(4, t.size());
+		assertNull(t.get(2));
+		assertEquals(3, t.get(3).x, 0);
+		assertEquals(2, c.tracks.get(1).size());
+	}
+	
+	@Test
+	public void csvSortedByFrame_WithoutHeader() throws IOException {
+		String csv = "1;0;0;0\n"
+				+ "2;0;5;5\n"
+				+ "1;1;1;0\n"
+				+ "2;2;6;5\n"
+				+ "1;2;2;0\n"
+				+ "2;3;7;5\n";
+		Collector c = new Collector();
+		CSVTrajectoryImporter importer = new CSVTrajectoryImporter(2, ';', SortOrder.SORTED_BY_FRAME);
+		importer.setMaxFrameGap(1);
+		importer.read(new StringReader(csv), c);
+		
+		assertEquals(2, c.tracks.size());
+		Trajectory t1 = c.tracks.get(0);
+		Trajectory t2 = c.tracks.get(1);
+		assertEquals(1, t1.getID());
+		assertEquals(3, t1.size());
+		assertEquals(4, t2.size());
+		assertNull(t2.get(1));
+		assertEquals(7, t2.get(3).x, 0);
+	}
+	
+	@Test
+	public void csvSortedByFrame_SameAsGroupedById() throws IOException {
+		String grouped = "1,0,0,0\n1,1,1,0\n1,3,3,0\n1,7,7,0\n2,2,5,5\n2,3,6,5\n";
+		String sorted = "1,0,0,0\n1,1,1,0\n2,2,5,5\n1,3,3,0\n2,3,6,5\n1,7,7,0\n";
+		Collector a = new Collector();
+		Collector b = new Collector();
+		new CSVTrajectoryImporter(2).read(new StringReader(grouped), a);
+		int n = new CSVTrajectoryImporter(2, ',', SortOrder.SORTED_BY_FRAME).read(new StringReader(sorted), b);
+		assertEquals(2, n);
+		assertEquals(a.tracks.size(), b.tracks.size());
+		for(int i = 0; i < a.tracks.size(); i++){
+			Trajectory t = b.tracks.get(i).getID() == a.tracks.get(i).getID() ? b.tracks.get(i) : b.tracks.get(1-i);
+			assertEquals(a.tracks.get(i).getRelativeStartTimepoint(), t.getRelativeStartTimepoint());
+			assertEquals(a.tracks.get(i), t);
+		}
+		assertEquals(8, a.tracks.get(0).size());
+		assertNull(a.tracks.get(0).get(5));
+	}
+	
+	@Test(expected=IOException.class)
+	public void csvSortedByFrame_GapLargerThanMaxFrameGap() throws IOException {
+		String csv = "1,0,0,0\n1,1,1,0\n2,2,5,5\n2,3,6,5\n1,4,3,0\n";
+		CSVTrajectoryImporter importer = new CSVTrajectoryImporter(2, ',', SortOrder.SORTED_BY_FRAME);
+		importer.setMaxFrameGap(1);
+		importer.read(new StringReader(csv), new Collector());
+	}
+	
+	@Test(expected=IOException.class)
+	public void csvGroupedById_IdNotGrouped() throws IOException {
+		String csv = "1,0,0,0\n2,0,1,0\n1,1,1,0\n";
+		new CSVTrajectoryImporter(2).read(new StringReader(csv), new Collector());
+	}
+	
+	@Test(expected=IOException.class)
+	public void csvGroupedById_Unsorted() throws IOException {
+		String csv = "1,1,0,0\n1,0,1,0\n";
+		new CSVTrajectoryImporter(2).read(new StringReader(csv), new Collector());
+	}
+	
+	@Test(expected=IOException.class)
+	public void csvGroupedById_RowWithTooFewColumns() throws IOException {
+		String csv = "id,frame,x,y\n1,0,1.0,2.0\n1,1,3.0\n";
+		new CSVTrajectoryImporter(2).read(new StringReader(csv), new Collector());
+	}
+	
+	@Test
+	public void csvGroupedById_ManyColumns() throws IOException {
+		StringBuilder header = new StringBuilder();
+		StringBuilder row1 = new StringBuilder();
+		StringBuilder row2 = new StringBuilder();
+		for(int i = 0; i < 20; i++){
+			header.append("c" + i + ",");
+			row1.append(i + ",");
+			row2.append(i + ",");
+		}
+		String csv = header + "id,frame,x,y\n" + row1 + "7,0,1.0,2.0\n" + row2 + "7,1,3.0,4.0\n";
+		Collector c = new Collector();
+		assertEquals(1, new CSVTrajectoryImporter(2).read(new StringReader(csv), c));
+		Trajectory t = c.tracks.get(0);
+		assertEquals(7, t.getID());
+		assertEquals(2, t.size());
+		assertEquals(3.0, t.get(1).x, 0);
+		assertEquals(4.0, t.get(1).y, 0);
+	}
+	
+	@Test
+	public void trackMateXML() throws IOException {
+		String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+				+ "<Tracks nTracks=\"2\" spaceUnits=\"pixel\" frameInterval=\"1.0\" timeUnits=\"frame\">\n"
+				+ "  <particle nSpots=\"3\">\n"
+				+ "    <detection t=\"3\" x=\"1.0\" y=\"2.0\" z=\"0.0\" />\n"
+				+ "    <detection t=\"4\" x=\"1.5\" y=\"2.5\" z=\"0.0\" />\n"
+				+ "    <detection t=\"6\" x=\"2.0\" y=\"3.0\" z=\"0.0\" />\n"
+				+ "  </particle>\n"
+				+ "  <particle nSpots=\"0\">\n"
+				+ "  </particle>\n"
+				+ "  <particle nSpots=\"2\">\n"
+				+ "    <detection t=\"1\" x=\"5.0\" y=\"5.0\" z=\"1.0\" />\n"
+				+ "    <detection t=\"0\" x=\"4.0\" y=\"5.0\" z=\"1.0\" />\n"
+				+ "  </particle>\n"
+				+ "</Tracks>\n";
+		Collector c = new Collector();
+		int n = new TrackMateXMLImporter(3).read(new ByteArrayInputStream(xml.getBytes("UTF-8")), c);
+		
+		assertEquals(2, n);
+		Trajectory t1 = c.tracks.get(0);
+		assertEquals(3, t1.getRelativeStartTimepoint());
+		assertEquals(4, t1.size());
+		assertNull(t1.get(2));
+		assertEquals(2.0, t1.get(3).x, 0);
+		Trajectory t2 = c.tracks.get(1);
+		assertEquals(2, t2.getID());
+		assertEquals(0, t2.getRelativeStartTimepoint());
+		assertEquals(4.0, t2.get(0).x, 0);
+		assertEquals(1.0, t2.get(1).z, 0);
+	}
+
+}
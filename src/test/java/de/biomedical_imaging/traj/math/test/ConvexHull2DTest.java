@@ -0,0 +1,156 @@
+package de.biomedical_imaging.traj.math.test;
+
+import static org.junit.Assert.*;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import cg.RotatingCalipers;
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.features.AspectRatioFeature;
+import de.biomedical_imaging.traJ.features.ConvexHullFeature;
+import de.biomedical_imaging.traJ.features.ElongationFeature;
+import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
+import de.biomedical_imaging.traJ.simulation.FreeDiffusionSimulator;
+import de.biomedical_imaging.traj.math.ConvexHull2D;
+
+public class ConvexHull2DTest {
+
+	@Test
+	public void square() {
+		double[] x = {0, 1, 1, 0, 0.5, 0.2, 1};
+		double[] y = {0, 0, 1, 1, 0.5, 0.7, 0.5};
+		ConvexHull2D hull = new ConvexHull2D(x, y, x.length);
+		assertFalse(hull.isDegenerate());
+		assertEquals(4, hull.getNumberOfHullPoints());
+		assertEquals(1, hull.getArea(), 1e-12);
+		assertEquals(4, hull.getPerimeter(), 1e-12);
+		assertEquals(Math.sqrt(2), hull.getDiameter(), 1e-12);
+		assertEquals(1, hull.getRectangleLongSide(), 1e-12);
+		assertEquals(1, hull.getRectangleShortSide(), 1e-12);
+	}
+	
+	@Test
+	public void rotatedRectangle() {
+		double phi = 0.3;
+		double[] x = new double[4];
+		double[] y = new double[4];
+		double[][] corners = {{0,0},{4,0},{4,1},{0,1}};
+		for(int i = 0; i < 4; i++){
+			x[i] = Math.cos(phi)*corners[i][0] - Math.sin(phi)*corners[i][1];
+			y[i] = Math.sin(phi)*corners[i][0] + Math.cos(phi)*corners[i][1];
+		}
+		ConvexHull2D hull = new ConvexHull2D(x, y, 4);
+		assertEquals(4, hull.getRectangleLongSide(), 1e-12);
+		assertEquals(1, hull.getRectangleShortSide(), 1e-12);
+		assertEquals(4, hull.getRectangleArea(), 1e-12);
+		assertEquals(Math.sqrt(17), hull.getDiameter(), 1e-12);
+	}
+	
+	@Test
+	public void collinear() {
+		double[] x = {0, 1, 2, 3};
+		double[] y = {0, 1, 2, 3};
+		ConvexHull2D hull = new ConvexHull2D(x, y, x.length);
+		assertTrue(hull.isDegenerate());
+		assertEquals(2, hull.getNumberOfHullPoints());
+		assertEquals(0, hull.getArea(), 0);
+		assertEquals(3*Math.sqrt(2), hull.getDiameter(), 1e-12);
+		assertEquals(0, hull.getRectangleShortSide(), 0);
+		
+		hull = new ConvexHull2D(new double[]{1,1}, new double[]{2,2}, 2);
+		assertTrue(hull.isDegenerate());
+		assertEquals(1, hull.getNumberOfHullPoints());
+		assertEquals(0, hull.getDiameter(), 0);
+	}
+	
+	@Test
+	public void randomPoints_SameAsRotatingCalipers() {
+		Random r = new Random(3);
+		for(int k = 0; k < 200; k++){
+			int n = 3 + r.nextInt(100);
+			double[] x = new double[n];
+			double[] y = new double[n];
+			ArrayList<Point2D.Double> points = new ArrayList<Point2D.Double>();
+			for(int i = 0; i < n; i++){
+				x[i] = r.nextGaussian();
+				y[i] = 3*r.nextGaussian();
+				points.add(new Point2D.Double(x[i], y[i]));
+			}
+			ConvexHull2D hull = new ConvexHull2D(x, y, n);
+			Point2D.Double[] rect = RotatingCalipers.getMinimumBoundingRectangle(points);
+			assertEquals(RotatingCalipers.getArea(rect), hull.getRectangleArea(), 1e-9);
+			
+			double[][] corners = hull.getRectangleCorners();
+			double side1 = Math.hypot(corners[1][0]-corners[0][0], corners[1][1]-corners[0][1]);
+			double side2 = Math.hypot(corners[2][0]-corners[1][0], corners[2][1]-corners[1][1]);
+			assertEquals(hull.getRectangleArea(), side1*side2, 1e-9);
+			
+			double diameter = 0;
+			for(int i = 0; i < n; i++){
+				for(int j = i+1; j < n; j++){
+					diameter = Math.max(diameter, Math.hypot(x[i]-x[j], y[i]-y[j]));
+				}
+			}
+			assertEquals(diameter, hull.getDiameter(), 1e-12);
+			
+			double[] hx = hull.getHullX();
+			double[] hy = hull.getHullY();
+			for(int i = 0; i < n; i++){
+				for(int j = 0; j < hx.length; j++){
+					int nj = (j+1)%hx.length;
+					double cross = (hx[nj]-hx[j])*(y[i]-hy[j]) - (hy[nj]-hy[j])*(x[i]-hx[j]);
+					assertTrue(cross >= -1e-12);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void features_SameAsRotatingCalipers() {
+		CentralRandomNumberGenerator.getInstance().setSeed(9);
+		FreeDiffusionSimulator sim = new FreeDiffusionSimulator(1, 1.0/30, 2, 100);
+		for(int k = 0; k < 20; k++){
+			Trajectory t = sim.generateTrajectory();
+			ArrayList<Point2D.Double> points = new ArrayList<Point2D.Double>();
+			for(int i = 0; i < t.size(); i++){
+				points.add(new Point2D.Double(t.get(i).x, t.get(i).y));
+			}
+			Point2D.Double[] rect = RotatingCalipers.getMinimumBoundingRectangle(points);
+			double side1 = rect[0].distance(rect[1]);
+			double side2 = rect[1].distance(rect[2]);
+			double longSide = Math.max(side1, side2);
+			double shortSide = Math.min(side1, side2);
+			assertEquals(longSide/shortSide, new AspectRatioFeature(t).evaluate()[0], 1e-9);
+			assertEquals(1-shortSide/longSide, new ElongationFeature(t).evaluate()[0], 1e-9);
+		}
+	}
+
+	@Test
+	public void emptyAndAllGapTrajectories_Degenerate() {
+		Trajectory empty = new Trajectory(2);
+		Trajectory gaps = new Trajectory(2);
+		gaps.add(null);
+		gaps.add(null);
+		for (Trajectory t : new Trajectory[]{empty, gaps}) {
+			ConvexHull2D hull = new ConvexHull2D(t);
+			assertTrue(hull.isDegenerate());
+			assertEquals(0, hull.getNumberOfHullPoints());
+			assertEquals(0, hull.getArea(), 0);
+			assertEquals(0, hull.getDiameter(), 0);
+			assertEquals(0, hull.getRectangleShortSide(), 0);
+			assertEquals(Double.POSITIVE_INFINITY, new AspectRatioFeature(t).evaluate()[0], 0);
+			assertEquals(1, new ElongationFeature(t).evaluate()[0], 0);
+			assertArrayEquals(new double[]{0, 0, 0, 0, 0, Double.POSITIVE_INFINITY, 1}, new ConvexHullFeature(t).evaluate(), 0);
+		}
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void convexHullFeature_Only2D() {
+		new ConvexHullFeature(null).evaluate(new Trajectory(3));
+	}
+
+}
@@ -0,0 +1,94 @@
+package de.biomedical_imaging.traj.math.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.ParallelUtil;
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.features.VelocityAutocorrelationFeature;
+import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
+import de.biomedical_imaging.traJ.simulation.FractionalBrownianMotionSimulator;
+import de.biomedical_imaging.traJ.simulation.FreeDiffusionSimulator;
+import de.biomedical_imaging.traj.math.DisplacementCorrelationCalculator;
+
+public class DisplacementCorrelationCalculatorTest {
+
+	@Test
+	public void correlation_SameAsDirectSum() {
+		CentralRandomNumberGenerator.getInstance().setSeed(12);
+		FreeDiffusionSimulator sim = new FreeDiffusionSimulator(1, 1.0/30, 3, 150);
+		Trajectory t = sim.generateTrajectory();
+		for(int i = 7; i < t.size(); i += 11){
+			t.set(i, null);
+		}
+		int timelag = 3;
+		int maxLag = 200;
+		DisplacementCorrelationCalculator corr = new DisplacementCorrelationCalculator(timelag, maxLag);
+		corr.add(t);
+		for(int l = 0; l <= t.size(); l++){
+			double[] sum = new double[3];
+			int N = 0;
+			for(int i = 0; i + l + timelag < t.size(); i++){
+				if(t.isValid(i) && t.isValid(i+timelag) && t.isValid(i+l) && t.isValid(i+l+timelag)){
+					sum[0] += (t.getX(i+timelag)-t.getX(i))*(t.getX(i+l+timelag)-t.getX(i+l));
+					sum[1] += (t.getY(i+timelag)-t.getY(i))*(t.getY(i+l+timelag)-t.getY(i+l));
+					sum[2] += (t.getZ(i+timelag)-t.getZ(i))*(t.getZ(i+l+timelag)-t.getZ(i+l));
+					N++;
+				}
+			}
+			assertEquals(N, corr.getNumberOfPairs(l));
+			if(N > 0){
+				for(int a = 0; a < 3; a++){
+					assertEquals(sum[a]/N, corr.getCorrelation(a, l), 1e-10);
+				}
+				assertEquals((sum[0]+sum[1]+sum[2])/N, corr.getCorrelation(l), 1e-10);
+			}
+		}
+	}
+	
+	@Test
+	public void velocityAutocorrelation_Subdiffusion() {
+		CentralRandomNumberGenerator.getInstance().setSeed(13);
+		double alpha = 0.5;
+		FractionalBrownianMotionSimulator fbm = new FractionalBrownianMotionSimulator(1, 1.0/30, 2, 1000, alpha);
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		for(int i = 0; i < 100; i++){
+			tracks.add(fbm.generateTrajectory());
+		}
+		DisplacementCorrelationCalculator ensemble = DisplacementCorrelationCalculator.calculate(tracks, 1, 5);
+		assertEquals(1, ensemble.getNormalizedCorrelation(0), 1e-12);
+		assertEquals(Math.pow(2, alpha-1) - 1, ensemble.getNormalizedCorrelation(1), 0.02);
+		
+		double[] single = new VelocityAutocorrelationFeature(tracks.get(0), 1, 5).evaluate();
+		assertEquals(6, single.length);
+		assertEquals(Math.pow(2, alpha-1) - 1, single[1], 0.1);
+	}
+	
+	@Test
+	public void calculate_IndependentOfNumberOfThreads() {
+		CentralRandomNumberGenerator.getInstance().setSeed(14);
+		FreeDiffusionSimulator sim = new FreeDiffusionSimulator(1, 1.0/30, 2, 100);
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		for(int i = 0; i < 200; i++){
+			tracks.add(sim.generateTrajectory());
+		}
+		int threads = ParallelUtil.getNumberOfThreads();
+		try{
+			ParallelUtil.setNumberOfThreads(1);
+			DisplacementCorrelationCalculator serial = DisplacementCorrelationCalculator.calculate(tracks, 2, 10);
+			ParallelUtil.setNumberOfThreads(4);
+			DisplacementCorrelationCalculator parallel = DisplacementCorrelationCalculator.calculate(tracks, 2, 10);
+			for(int l = 0; l <= 10; l++){
+				assertEquals(serial.getCorrelation(l), parallel.getCorrelation(l), 0);
+				assertEquals(serial.getNumberOfPairs(l), parallel.getNumberOfPairs(l));
+			}
+			assertEquals(0, serial.getNormalizedCorrelation(5), 0.05);
+		}finally{
+			ParallelUtil.setNumberOfThreads(threads);
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+package de.biomedical_imaging.traj.math.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.features.GaussianityCurveFeature;
+import de.biomedical_imaging.traJ.features.MeanSquaredDisplacmentFeature;
+import de.biomedical_imaging.traJ.features.QuartricMomentFeature;
+import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
+import de.biomedical_imaging.traJ.simulation.FreeDiffusionSimulator;
+import de.biomedical_imaging.traj.math.DisplacementMomentsCalculator;
+
+public class DisplacementMomentsCalculatorTest {
+
+	@Test
+	public void moments_SameAsSingleLagFeatures() {
+		CentralRandomNumberGenerator.getInstance().setSeed(8);
+		FreeDiffusionSimulator sim = new FreeDiffusionSimulator(1, 1.0/30, 2, 200);
+		Trajectory t = sim.generateTrajectory();
+		for(int i = 5; i < t.size(); i += 13){
+			t.set(i, null);
+		}
+		DisplacementMomentsCalculator moments = new DisplacementMomentsCalculator(t, 2, 40);
+		MeanSquaredDisplacmentFeature msd = new MeanSquaredDisplacmentFeature(t, 1);
+		msd.setOverlap(true);
+		QuartricMomentFeature q = new QuartricMomentFeature(t, 1);
+		for(int lag = 2; lag <= 40; lag++){
+			msd.setTimelag(lag);
+			q.setTimelag(lag);
+			double[] msdRes = msd.evaluate();
+			assertEquals(msdRes[2], moments.getNumberOfDisplacements(lag), 0);
+			assertEquals(msdRes[0], moments.getMeanSquaredDisplacement(lag), 1e-12*msdRes[0]);
+			double qRes = q.evaluate()[0];
+			assertEquals(qRes, moments.getQuarticMoment(lag), 1e-12*qRes);
+		}
+	}
+	
+	@Test
+	public void gaussianity_FreeDiffusion() {
+		CentralRandomNumberGenerator.getInstance().setSeed(2);
+		FreeDiffusionSimulator sim = new FreeDiffusionSimulator(1, 1.0/30, 2, 20000);
+		Trajectory t = sim.generateTrajectory();
+		DisplacementMomentsCalculator moments = new DisplacementMomentsCalculator(t, 1, 3, true);
+		for(int lag = 1; lag <= 3; lag++){
+			assertEquals(0, moments.getNonGaussianParameter(lag), 0.1);
+			assertEquals(0, moments.getGaussianity(lag), 0.1);
+			double msd = moments.getMeanSquaredDisplacement(lag);
+			assertEquals(6, moments.getMeanSixthDisplacement(lag)/(msd*msd*msd), 0.5);
+		}
+		
+		double[] curve = new GaussianityCurveFeature(t, 1, 3).evaluate();
+		assertEquals(3, curve.length);
+		assertEquals(moments.getGaussianity(2), curve[1], 0);
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void sixthMoment_NotCalculated() {
+		Trajectory t = new Trajectory(2);
+		for(int i = 0; i < 5; i++){
+			t.add(i, 0, 0);
+		}
+		new DisplacementMomentsCalculator(t, 1, 2).getMeanSixthDisplacement(1);
+	}
+
+}
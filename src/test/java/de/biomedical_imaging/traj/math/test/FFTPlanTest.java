@@ -0,0 +1,67 @@
+package de.biomedical_imaging.traj.math.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traj.math.FFTPlan;
+
+public class FFTPlanTest {
+
+	@Test
+	public void transform_SameAsDFT() {
+		int n = 64;
+		Random r = new Random(1);
+		double[] re = new double[n];
+		double[] im = new double[n];
+		for(int i = 0; i < n; i++){
+			re[i] = r.nextGaussian();
+			im[i] = r.nextGaussian();
+		}
+		double[] expRe = new double[n];
+		double[] expIm = new double[n];
+		for(int k = 0; k < n; k++){
+			for(int j = 0; j < n; j++){
+				double phi = -2*Math.PI*j*k/n;
+				expRe[k] += re[j]*Math.cos(phi) - im[j]*Math.sin(phi);
+				expIm[k] += re[j]*Math.sin(phi) + im[j]*Math.cos(phi);
+			}
+		}
+		FFTPlan plan = new FFTPlan(n);
+		plan.transform(re, im);
+		assertArrayEquals(expRe, re, 1e-10);
+		assertArrayEquals(expIm, im, 1e-10);
+	}
+	
+	@Test
+	public void inverseTransform_RestoresInput() {
+		int n = 1024;
+		Random r = new Random(2);
+		double[] re = new double[n];
+		double[] im = new double[n];
+		for(int i = 0; i < n; i++){
+			re[i] = r.nextGaussian();
+		}
+		double[] copy = re.clone();
+		FFTPlan plan = new FFTPlan(n);
+		plan.transform(re, im);
+		plan.inverseTransform(re, im);
+		assertArrayEquals(copy, re, 1e-10);
+		assertArrayEquals(new double[n], im, 1e-10);
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void constructor_NoPowerOfTwo() {
+		new FFTPlan(12);
+	}
+	
+	@Test
+	public void nextPowerOfTwo() {
+		assertEquals(1, FFTPlan.nextPowerOfTwo(1));
+		assertEquals(16, FFTPlan.nextPowerOfTwo(9));
+		assertEquals(16, FFTPlan.nextPowerOfTwo(16));
+	}
+
+}
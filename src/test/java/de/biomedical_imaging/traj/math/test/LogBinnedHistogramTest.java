@@ -0,0 +1,76 @@
+package de.biomedical_imaging.traj.math.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traj.math.LogBinnedHistogram;
+
+public class LogBinnedHistogramTest {
+
+	@Test
+	public void quantile_WithinBinWidth() {
+		Random r = new Random(1);
+		LogBinnedHistogram h = new LogBinnedHistogram(1e-3, 1e2, 50);
+		double[] values = new double[100000];
+		for(int i = 0; i < values.length; i++){
+			values[i] = -Math.log(r.nextDouble());
+			h.add(values[i]);
+		}
+		Arrays.sort(values);
+		double binFactor = Math.pow(10, 1.0/50);
+		for (double q : new double[]{0.01, 0.1, 0.5, 0.9, 0.99}) {
+			double exact = values[(int) (q*values.length)];
+			double est = h.getQuantile(q);
+			assertTrue(est/exact < binFactor && exact/est < binFactor);
+		}
+		assertEquals(values.length, h.getTotal());
+		assertEquals(values[0], h.getQuantile(0), 0);
+		assertEquals(values[values.length-1], h.getQuantile(1), 0);
+		assertEquals(250, h.getNumberOfBins());
+		assertEquals(1e2, h.getUpperEdge(h.getNumberOfBins()-1), 0);
+	}
+	
+	@Test
+	public void add_MergeSameAsSingle() {
+		Random r = new Random(2);
+		LogBinnedHistogram all = new LogBinnedHistogram(0.1, 10, 10);
+		LogBinnedHistogram a = new LogBinnedHistogram(0.1, 10, 10);
+		LogBinnedHistogram b = new LogBinnedHistogram(0.1, 10, 10);
+		for(int i = 0; i < 1000; i++){
+			double v = 20*r.nextDouble();
+			all.add(v);
+			if(i % 2 == 0){
+				a.add(v);
+			}
+			else{
+				b.add(v);
+			}
+		}
+		a.add(b);
+		assertArrayEquals(all.getCounts(), a.getCounts());
+		assertEquals(all.getUnderflow(), a.getUnderflow());
+		assertEquals(all.getOverflow(), a.getOverflow());
+		assertEquals(all.getQuantile(0.3), a.getQuantile(0.3), 0);
+		assertTrue(all.getUnderflow() > 0);
+		assertTrue(all.getOverflow() > 0);
+		assertEquals(all.getTotal(), all.getUnderflow() + all.getOverflow() + sum(all.getCounts()));
+	}
+	
+	private long sum(long[] counts){
+		long s = 0;
+		for (long c : counts) {
+			s += c;
+		}
+		return s;
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void add_DifferentBins() {
+		new LogBinnedHistogram(0.1, 10, 10).add(new LogBinnedHistogram(0.1, 10, 20));
+	}
+
+}
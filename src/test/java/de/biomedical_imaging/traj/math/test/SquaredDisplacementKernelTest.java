@@ -0,0 +1,83 @@
+package de.biomedical_imaging.traj.math.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.TrajectoryValidIndexTimelagIterator;
+import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
+import de.biomedical_imaging.traJ.simulation.FreeDiffusionSimulator;
+import de.biomedical_imaging.traj.math.SquaredDisplacementKernel;
+
+public class SquaredDisplacementKernelTest {
+	
+	private double[] reference(Trajectory t, int timelag, boolean overlap){
+		TrajectoryValidIndexTimelagIterator it = new TrajectoryValidIndexTimelagIterator(t, timelag, overlap);
+		double sum = 0;
+		int N = 0;
+		while(it.hasNext()){
+			int i = it.next();
+			sum += t.get(i).distanceSquared(t.get(i+timelag));
+			N++;
+		}
+		return new double[]{sum, N};
+	}
+
+	@Test
+	public void sumSquaredDisplacements_SameAsScalarPath() {
+		CentralRandomNumberGenerator.getInstance().setSeed(4);
+		FreeDiffusionSimulator sim = new FreeDiffusionSimulator(1, 1.0/30, 3, 203);
+		Trajectory t = sim.generateTrajectory();
+		double[] x = new double[t.size()];
+		double[] y = new double[t.size()];
+		double[] z = new double[t.size()];
+		for(int i = 0; i < t.size(); i++){
+			x[i] = t.getX(i);
+			y[i] = t.getY(i);
+			z[i] = t.getZ(i);
+		}
+		SquaredDisplacementKernel kernel = new SquaredDisplacementKernel(t);
+		SquaredDisplacementKernel arrayKernel = new SquaredDisplacementKernel(x, y, z, t.size());
+		assertFalse(kernel.hasGaps());
+		for (boolean overlap : new boolean[]{true, false}) {
+			for(int lag = 1; lag < t.size() + 2; lag++){
+				double[] scalar = kernel.sumSquaredDisplacementsScalar(lag, overlap);
+				double[] unrolled = kernel.sumSquaredDisplacements(lag, overlap);
+				double[] ref = reference(t, lag, overlap);
+				assertEquals(ref[1], scalar[1], 0);
+				assertEquals(ref[0], scalar[0], 1e-12*ref[0]);
+				assertEquals(scalar[1], unrolled[1], 0);
+				assertEquals(scalar[0], unrolled[0], 1e-12*scalar[0]);
+				assertArrayEquals(unrolled, arrayKernel.sumSquaredDisplacements(lag, overlap), 0);
+			}
+		}
+	}
+	
+	@Test
+	public void sumSquaredDisplacements_WithGaps() {
+		CentralRandomNumberGenerator.getInstance().setSeed(5);
+		FreeDiffusionSimulator sim = new FreeDiffusionSimulator(1, 1.0/30, 2, 100);
+		Trajectory t = sim.generateTrajectory();
+		for(int i = 3; i < t.size(); i += 7){
+			t.set(i, null);
+		}
+		t.set(t.size()-1, null);
+		SquaredDisplacementKernel kernel = new SquaredDisplacementKernel(t);
+		assertTrue(kernel.hasGaps());
+		for (boolean overlap : new boolean[]{true, false}) {
+			for(int lag = 1; lag < 20; lag++){
+				double[] ref = reference(t, lag, overlap);
+				double[] res = kernel.sumSquaredDisplacements(lag, overlap);
+				assertEquals(ref[1], res[1], 0);
+				assertEquals(ref[0], res[0], 1e-12*ref[0]);
+			}
+		}
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void sumSquaredDisplacements_InvalidTimelag() {
+		new SquaredDisplacementKernel(new double[2], new double[2], new double[2], 2).sumSquaredDisplacements(0, true);
+	}
+
+}
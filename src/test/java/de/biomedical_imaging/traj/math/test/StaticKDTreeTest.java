@@ -0,0 +1,128 @@
+package de.biomedical_imaging.traj.math.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traj.math.StaticKDTree;
+
+public class StaticKDTreeTest {
+
+	private double[][] randomPoints(int n, int k, long seed){
+		Random r = new Random(seed);
+		double[][] p = new double[n][k];
+		for(int i = 0; i < n; i++){
+			for(int d = 0; d < k; d++){
+				//Coarse grid to get duplicate coordinates
+				p[i][d] = Math.floor(r.nextDouble()*50)/5;
+			}
+		}
+		return p;
+	}
+	
+	private double distance2(double[] a, double[] b, int dims){
+		double s = 0;
+		for(int d = 0; d < dims; d++){
+			s += (a[d]-b[d])*(a[d]-b[d]);
+		}
+		return s;
+	}
+
+	@Test
+	public void range_SameAsBruteForce() {
+		double[][] p = randomPoints(2000, 3, 1);
+		StaticKDTree tree = new StaticKDTree(p);
+		double[] min = {2, 3, 1};
+		double[] max = {5, 4.4, 7};
+		int[] res = tree.range(min, max);
+		Arrays.sort(res);
+		int c = 0;
+		for(int i = 0; i < p.length; i++){
+			boolean inside = true;
+			for(int d = 0; d < 3; d++){
+				inside &= p[i][d] >= min[d] && p[i][d] <= max[d];
+			}
+			if(inside){
+				assertEquals(i, res[c++]);
+			}
+		}
+		assertEquals(c, res.length);
+		assertTrue(c > 0);
+	}
+	
+	@Test
+	public void radius_SameAsBruteForce() {
+		double[][] p = randomPoints(2000, 2, 2);
+		StaticKDTree tree = new StaticKDTree(p);
+		double[] q = {4.1, 6.3};
+		int[] res = tree.radius(q, 1.3);
+		Arrays.sort(res);
+		int c = 0;
+		for(int i = 0; i < p.length; i++){
+			if(distance2(p[i], q, 2) <= 1.3*1.3){
+				assertEquals(i, res[c++]);
+			}
+		}
+		assertEquals(c, res.length);
+	}
+	
+	@Test
+	public void nearest_SameDistancesAsBruteForce() {
+		double[][] p = randomPoints(1500, 3, 3);
+		StaticKDTree tree = new StaticKDTree(p);
+		Random r = new Random(4);
+		for(int t = 0; t < 20; t++){
+			double[] q = {r.nextDouble()*10, r.nextDouble()*10, r.nextDouble()*10};
+			int[] res = tree.nearest(q, 7);
+			double[] expected = new double[p.length];
+			for(int i = 0; i < p.length; i++){
+				expected[i] = distance2(p[i], q, 3);
+			}
+			Arrays.sort(expected);
+			assertEquals(7, res.length);
+			for(int i = 0; i < res.length; i++){
+				assertEquals(expected[i], distance2(p[res[i]], q, 3), 0);
+			}
+		}
+	}
+	
+	@Test
+	public void nearest_RestrictedToBox() {
+		double[][] p = randomPoints(1500, 3, 5);
+		StaticKDTree tree = new StaticKDTree(p);
+		double[] q = {5, 5};
+		double[] min = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, 3};
+		double[] max = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, 3};
+		int[] res = tree.nearest(q, 4, min, max, 2);
+		double best = Double.POSITIVE_INFINITY;
+		for(int i = 0; i < p.length; i++){
+			if(p[i][2] == 3){
+				best = Math.min(best, distance2(p[i], q, 2));
+			}
+		}
+		assertEquals(4, res.length);
+		assertEquals(best, distance2(p[res[0]], q, 2), 0);
+		for (int i : res) {
+			assertEquals(3, p[i][2], 0);
+		}
+	}
+	
+	@Test
+	public void nearest_FewerPointsThanRequested() {
+		StaticKDTree tree = new StaticKDTree(new double[][]{{0,0},{1,1}});
+		assertArrayEquals(new int[]{1,0}, tree.nearest(new double[]{2,2}, 5));
+		assertEquals(1, tree.getCoordinate(1, 0), 0);
+	}
+	
+	@Test
+	public void emptyTree() {
+		StaticKDTree tree = new StaticKDTree(new double[0], 2);
+		assertEquals(0, tree.size());
+		assertEquals(0, tree.nearest(new double[]{0,0}, 3).length);
+		assertEquals(0, tree.radius(new double[]{0,0}, 3).length);
+	}
+
+}
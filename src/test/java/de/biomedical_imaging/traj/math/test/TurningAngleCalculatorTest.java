@@ -0,0 +1,85 @@
+package de.biomedical_imaging.traj.math.test;
+
+import static org.junit.Assert.*;
+
+import javax.vecmath.Vector3d;
+
+import org.apache.commons.math3.stat.descriptive.moment.StandardDeviation;
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.features.StandardDeviationDirectionFeature;
+import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
+import de.biomedical_imaging.traJ.simulation.FreeDiffusionSimulator;
+import de.biomedical_imaging.traj.math.TurningAngleCalculator;
+
+public class TurningAngleCalculatorTest {
+	
+	/*
+	 * Angles between the steps i and i+lag by Vector3d.angle
+	 */
+	private double[] referenceAngles(Trajectory t, int lag){
+		double[] values = new double[t.size() - 1 - lag];
+		for(int i = 0; i < values.length; i++){
+			Vector3d v1 = new Vector3d(t.get(i+1).x - t.get(i).x, t.get(i+1).y - t.get(i).y, t.get(i+1).z - t.get(i).z);
+			Vector3d v2 = new Vector3d(t.get(i+lag+1).x - t.get(i+lag).x, t.get(i+lag+1).y - t.get(i+lag).y, t.get(i+lag+1).z - t.get(i+lag).z);
+			values[i] = v1.angle(v2);
+		}
+		return values;
+	}
+
+	@Test
+	public void standardDeviation_SameAsVectorAngle() {
+		CentralRandomNumberGenerator.getInstance().setSeed(6);
+		FreeDiffusionSimulator sim = new FreeDiffusionSimulator(1, 1.0/30, 2, 300);
+		Trajectory t = sim.generateTrajectory();
+		TurningAngleCalculator angles = new TurningAngleCalculator(t, 1, 5);
+		for(int lag = 1; lag <= 5; lag++){
+			double[] ref = referenceAngles(t, lag);
+			assertEquals(ref.length, angles.getNumberOfAngles(lag));
+			assertEquals(new StandardDeviation().evaluate(ref), angles.getStandardDeviation(lag), 1e-9);
+			
+			TurningAngleCalculator single = new TurningAngleCalculator(t, lag, lag);
+			assertEquals(single.getStandardDeviation(lag), angles.getStandardDeviation(lag), 0);
+			
+			int sum = 0;
+			for (int h : angles.getHistogram(lag)) {
+				sum += h;
+			}
+			assertEquals(ref.length, sum);
+		}
+		assertEquals(angles.getStandardDeviation(2), new StandardDeviationDirectionFeature(t, 2).evaluate()[0], 0);
+	}
+	
+	@Test
+	public void circularStatistics_Square() {
+		Trajectory t = new Trajectory(2);
+		double[][] corners = {{0,0},{1,0},{1,1},{0,1}};
+		for(int i = 0; i < 41; i++){
+			t.add(corners[i%4][0], corners[i%4][1], 0);
+		}
+		TurningAngleCalculator angles = new TurningAngleCalculator(t, 1, 2, 4);
+		assertEquals(Math.PI/2, angles.getMean(1), 1e-12);
+		assertEquals(0, angles.getStandardDeviation(1), 1e-12);
+		assertEquals(Math.PI/2, angles.getCircularMean(1), 1e-12);
+		assertEquals(1, angles.getMeanResultantLength(1), 1e-12);
+		assertEquals(0, angles.getMeanCosine(1), 1e-12);
+		assertArrayEquals(new int[]{0,0,39,0}, angles.getHistogram(1));
+		assertEquals(Math.PI, angles.getMean(2), 1e-12);
+		assertEquals(-1, angles.getMeanCosine(2), 1e-12);
+	}
+	
+	@Test
+	public void straightLine_WithGap() {
+		Trajectory t = new Trajectory(2);
+		for(int i = 0; i < 10; i++){
+			t.add(i, 2*i, 0);
+		}
+		t.set(4, null);
+		TurningAngleCalculator angles = new TurningAngleCalculator(t, 1, 1);
+		assertEquals(5, angles.getNumberOfAngles(1));
+		assertEquals(0, angles.getMean(1), 1e-12);
+		assertEquals(0, angles.getCircularStandardDeviation(1), 1e-6);
+	}
+
+}
@@ -0,0 +1,71 @@
+package de.biomedical_imaging.traj.segmentation.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.SubTrajectory;
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.segmentation.ChangePointDetector;
+
+public class ChangePointDetectorTest {
+	
+	/*
+	 * 2D steps with the given standard deviation and drift (x direction) per segment
+	 */
+	private Trajectory simulate(int[] lengths, double[] sd, double[] drift, long seed){
+		Random r = new Random(seed);
+		Trajectory t = new Trajectory(2);
+		double x = 0;
+		double y = 0;
+		t.add(x, y, 0);
+		for(int s = 0; s < lengths.length; s++){
+			for(int i = 0; i < lengths[s]; i++){
+				x += drift[s] + sd[s]*r.nextGaussian();
+				y += sd[s]*r.nextGaussian();
+				t.add(x, y, 0);
+			}
+		}
+		return t;
+	}
+
+	@Test
+	public void detect_DiffusionCoefficientChange() {
+		Trajectory t = simulate(new int[]{300, 200, 300}, new double[]{0.1, 0.4, 0.1}, new double[]{0,0,0}, 1);
+		ChangePointDetector detector = new ChangePointDetector();
+		int[] cp = detector.detect(t);
+		assertEquals(2, cp.length);
+		assertEquals(300, cp[0], 5);
+		assertEquals(500, cp[1], 5);
+		
+		ArrayList<Trajectory> segments = detector.segment(t);
+		assertEquals(3, segments.size());
+		assertEquals(0, ((SubTrajectory) segments.get(0)).getParentOffset());
+		assertEquals(cp[0], ((SubTrajectory) segments.get(1)).getParentOffset());
+		assertEquals(cp[0] + 1, segments.get(0).size());
+		assertSame(t.get(cp[0]), segments.get(1).get(0));
+		assertEquals(t.size() - cp[1], segments.get(2).size());
+	}
+	
+	@Test
+	public void detect_NoChange() {
+		Trajectory t = simulate(new int[]{1000}, new double[]{0.2}, new double[]{0}, 2);
+		t.set(100, null);
+		assertEquals(0, new ChangePointDetector().detect(t).length);
+	}
+	
+	@Test
+	public void detect_DriftChange() {
+		Trajectory t = simulate(new int[]{400, 400}, new double[]{0.1, 0.1}, new double[]{0, 0.05}, 3);
+		ChangePointDetector detector = new ChangePointDetector();
+		assertEquals(0, detector.detect(t).length);
+		detector.setDetectDrift(true);
+		int[] cp = detector.detect(t);
+		assertEquals(1, cp.length);
+		assertEquals(400, cp[0], 30);
+	}
+
+}
@@ -0,0 +1,131 @@
+package de.biomedical_imaging.traj.segmentation.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.ParallelUtil;
+import de.biomedical_imaging.traJ.SubTrajectory;
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.segmentation.DiffusiveHiddenMarkovModel;
+
+public class DiffusiveHiddenMarkovModelTest {
+	
+	private static final double FPS = 30;
+	private static final double[] D = {0.05, 1};
+	private static final double SWITCH = 0.02;
+	private static final double SIGMA = 0.01;
+	
+	/*
+	 * Two-state switching diffusion with localization error. states[j][i] is the state of step i of track j.
+	 */
+	private ArrayList<Trajectory> simulate(int nTracks, int nSteps, long seed, int[][] states){
+		Random r = new Random(seed);
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		for(int j = 0; j < nTracks; j++){
+			Trajectory t = new Trajectory(2);
+			double x = 0;
+			double y = 0;
+			int s = r.nextInt(2);
+			t.add(x + SIGMA*r.nextGaussian(), y + SIGMA*r.nextGaussian(), 0);
+			for(int i = 0; i < nSteps; i++){
+				if(i > 0 && r.nextDouble() < SWITCH){
+					s = 1 - s;
+				}
+				states[j][i] = s;
+				double sd = Math.sqrt(2*D[s]/FPS);
+				x += sd*r.nextGaussian();
+				y += sd*r.nextGaussian();
+				t.add(x + SIGMA*r.nextGaussian(), y + SIGMA*r.nextGaussian(), 0);
+			}
+			tracks.add(t);
+		}
+		return tracks;
+	}
+
+	@Test
+	public void train_RecoversStates() {
+		int[][] states = new int[200][200];
+		ArrayList<Trajectory> tracks = simulate(200, 200, 1, states);
+		DiffusiveHiddenMarkovModel hmm = new DiffusiveHiddenMarkovModel(2, 2, SIGMA);
+		hmm.train(tracks, 200, 1e-8);
+		assertEquals(D[0], hmm.getDiffusionCoefficient(0, FPS), 0.1*D[0]);
+		assertEquals(D[1], hmm.getDiffusionCoefficient(1, FPS), 0.1*D[1]);
+		assertEquals(SWITCH, hmm.getTransitionMatrix()[0][1], 0.01);
+		
+		int correct = 0;
+		int total = 0;
+		for(int j = 0; j < tracks.size(); j++){
+			int[] viterbi = hmm.getStateSequence(tracks.get(j));
+			double[][] p = hmm.getStateProbabilities(tracks.get(j));
+			for(int i = 0; i < viterbi.length; i++){
+				if(viterbi[i] == states[j][i]){
+					correct++;
+				}
+				assertEquals(1, p[i][0] + p[i][1], 1e-9);
+				total++;
+			}
+		}
+		assertTrue(correct > 0.9*total);
+		
+		ArrayList<Trajectory> segments = hmm.segment(tracks.get(0));
+		int[] viterbi = hmm.getStateSequence(tracks.get(0));
+		int steps = 0;
+		for (Trajectory seg : segments) {
+			assertTrue(seg instanceof SubTrajectory);
+			int start = ((SubTrajectory) seg).getParentOffset();
+			assertEquals("STATE-" + viterbi[start], seg.getType());
+			steps += seg.size() - 1;
+		}
+		assertEquals(viterbi.length, steps);
+	}
+	
+	@Test
+	public void train_IndependentOfNumberOfThreads() {
+		int[][] states = new int[150][50];
+		ArrayList<Trajectory> tracks = simulate(150, 50, 2, states);
+		tracks.get(3).set(10, null);
+		int threads = ParallelUtil.getNumberOfThreads();
+		try{
+			ParallelUtil.setNumberOfThreads(1);
+			DiffusiveHiddenMarkovModel serial = new DiffusiveHiddenMarkovModel(2, 2, SIGMA);
+			double llSerial = serial.train(tracks, 20, 0);
+			ParallelUtil.setNumberOfThreads(4);
+			DiffusiveHiddenMarkovModel parallel = new DiffusiveHiddenMarkovModel(2, 2, SIGMA);
+			double llParallel = parallel.train(tracks, 20, 0);
+			assertEquals(llSerial, llParallel, 0);
+			assertEquals(serial.getVariance(1), parallel.getVariance(1), 0);
+		}finally{
+			ParallelUtil.setNumberOfThreads(threads);
+		}
+	}
+	
+	@Test
+	public void logLikelihood_SingleStateIsGaussian() {
+		Trajectory t = new Trajectory(1);
+		t.add(0, 0, 0);
+		t.add(1, 0, 0);
+		t.add(3, 0, 0);
+		DiffusiveHiddenMarkovModel hmm = new DiffusiveHiddenMarkovModel(1, 1, 0);
+		hmm.setVariance(0, 2);
+		double expected = -Math.log(2*Math.PI*2) - (1 + 4)/(2*2.0);
+		assertEquals(expected, hmm.getLogLikelihood(t), 1e-12);
+	}
+
+	@Test
+	public void segment_SinglePosition() {
+		Trajectory t = new Trajectory(2);
+		t.add(1, 2, 0);
+		DiffusiveHiddenMarkovModel hmm = new DiffusiveHiddenMarkovModel(2, 2, 0);
+		hmm.setVariance(0, 1);
+		hmm.setVariance(1, 2);
+		ArrayList<Trajectory> segments = hmm.segment(t);
+		assertEquals(1, segments.size());
+		assertEquals(1, segments.get(0).size());
+		assertEquals(2, segments.get(0).getY(0), 0);
+	}
+
+}
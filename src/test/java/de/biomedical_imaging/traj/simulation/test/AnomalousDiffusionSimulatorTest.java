@@ -9,9 +9,11 @@ import javax.vecmath.Point3d;
 import org.junit.Test;
 
 import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.features.MeanSquaredDisplacmentFeature;
 import de.biomedical_imaging.traJ.simulation.AbstractSphereObstacle;
 import de.biomedical_imaging.traJ.simulation.AnomalousDiffusionScene;
 import de.biomedical_imaging.traJ.simulation.AnomalousDiffusionSimulator;
+import de.biomedical_imaging.traJ.simulation.AnomalousDiffusionSimulator.SteppingMode;
 import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
 import de.biomedical_imaging.traJ.simulation.ImmobileSphereObstacle;
 
@@ -128,4 +130,91 @@ public class AnomalousDiffusionSimulatorTest {
 
 	}
 
+	private AnomalousDiffusionScene createSparseScene(){
+		double[] size = {40,40};
+		AnomalousDiffusionScene scene = new AnomalousDiffusionScene(size,2);
+		CentralRandomNumberGenerator r = CentralRandomNumberGenerator.getInstance();
+		for(int i = 0; i < 8; i++){
+			double[] pos = {r.nextDouble()*size[0],r.nextDouble()*size[1],0};
+			if(Math.sqrt(Math.pow(pos[0]-20, 2)+Math.pow(pos[1]-20, 2)) > 3){
+				scene.addObstacle(new ImmobileSphereObstacle(pos, 1.5, 2));
+			}
+		}
+		return scene;
+	}
+	
+	private double[] meanMSD(AnomalousDiffusionSimulator sim, int nTracks, int[] lags){
+		double[] msd = new double[lags.length];
+		for(int i = 0; i < nTracks; i++){
+			Trajectory t = sim.generateTrajectory();
+			for(int j = 0; j < lags.length; j++){
+				MeanSquaredDisplacmentFeature f = new MeanSquaredDisplacmentFeature(t, lags[j]);
+				f.setOverlap(true);
+				msd[j] += f.evaluate()[0]/nTracks;
+			}
+		}
+		return msd;
+	}
+	
+	@Test
+	public void generateTrajectory_AdaptiveEquivalentToFixed(){
+		CentralRandomNumberGenerator.getInstance().setSeed(3);
+		AnomalousDiffusionScene scene = createSparseScene();
+		int[] lags = {1,10,50};
+		AnomalousDiffusionSimulator sim = new AnomalousDiffusionSimulator(0.1, 1, 2, 500, scene);
+		sim.setStartPoint(20, 20, 0);
+		double[] fixed = meanMSD(sim, 20, lags);
+		long fixedSubsteps = sim.getNumberOfSubsteps();
+		
+		sim.setSteppingMode(SteppingMode.ADAPTIVE);
+		double[] adaptive = meanMSD(sim, 20, lags);
+		long adaptiveSubsteps = sim.getNumberOfSubsteps();
+		for(int j = 0; j < lags.length; j++){
+			assertEquals(fixed[j], adaptive[j], 0.1*fixed[j]);
+		}
+		assertEquals(500*100, fixedSubsteps);
+		assertTrue(adaptiveSubsteps*10 < fixedSubsteps);
+	}
+	
+	@Test
+	public void generateTrajectory_WithDrift_AdaptiveEquivalentToFixed(){
+		CentralRandomNumberGenerator.getInstance().setSeed(5);
+		AnomalousDiffusionScene scene = createSparseScene();
+		int[] lags = {1,10,50};
+		AnomalousDiffusionSimulator sim = new AnomalousDiffusionSimulator(0.1, 1, 2, 500, scene, 0.002, 0);
+		sim.setStartPoint(20, 20, 0);
+		double[] fixed = meanMSD(sim, 20, lags);
+		
+		sim.setSteppingMode(SteppingMode.ADAPTIVE);
+		double[] adaptive = meanMSD(sim, 20, lags);
+		for(int j = 0; j < lags.length; j++){
+			assertEquals(fixed[j], adaptive[j], 0.1*fixed[j]);
+		}
+	}
+	
+	@Test
+	public void generateTrajectory_Adaptive_NoCollisionWithManySphere(){
+		double[] size = {4,4};
+		AnomalousDiffusionScene scene = new AnomalousDiffusionScene(size,2);
+		CentralRandomNumberGenerator r = CentralRandomNumberGenerator.getInstance();
+		r.setSeed(10);
+		while(scene.estimateExcludedVolumeFraction()<0.5){
+			double radius = (1 + r.nextGaussian()*0.5/3)/2;
+			double[] pos = {size[0]/2.0 + r.randomSign()*(size[0]/2.0-radius)*r.nextDouble(),size[1]/2.0 + r.randomSign()*(size[1]/2.0-radius)*r.nextDouble(),0};
+			scene.addObstacle(new ImmobileSphereObstacle(pos, radius,2));
+		}
+		double[] start = {r.nextDouble()*size[0],r.nextDouble()*size[1]};
+		while(scene.checkCollision(start)){
+			start[0] = r.nextDouble()*size[0];
+			start[1] = r.nextDouble()*size[1];
+		}
+		AnomalousDiffusionSimulator sim = new AnomalousDiffusionSimulator(9.02*Math.pow(10,-2), 1.0/30, 2, 1000, scene);
+		sim.setStartPoint(start[0], start[1], 0);
+		sim.setSteppingMode(SteppingMode.ADAPTIVE);
+		Trajectory t = sim.generateTrajectory();
+		for(int i = 0; i < t.size(); i++){
+			assertFalse(scene.checkCollision(new double[]{t.get(i).x,t.get(i).y}));
+		}
+	}
+
 }
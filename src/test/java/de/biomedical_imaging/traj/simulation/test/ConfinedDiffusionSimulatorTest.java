@@ -7,7 +7,10 @@ import javax.vecmath.Point3d;
 import org.junit.Test;
 
 import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.features.MeanSquaredDisplacmentFeature;
+import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
 import de.biomedical_imaging.traJ.simulation.ConfinedDiffusionSimulator;
+import de.biomedical_imaging.traJ.simulation.ConfinedDiffusionSimulator.BoundaryCondition;
 
 public class ConfinedDiffusionSimulatorTest {
 
@@ -35,4 +38,64 @@ public class ConfinedDiffusionSimulatorTest {
 		
 	}
 
+	@Test
+	public void generateTrajectoryTest3D_Reflection_maxDistanceSmallerThenRadius() {
+		CentralRandomNumberGenerator.getInstance().setSeed(7);
+		double radius = 2;
+		ConfinedDiffusionSimulator cs = new ConfinedDiffusionSimulator(1, 1, radius, 3, 2000, BoundaryCondition.REFLECTION);
+		Trajectory t = cs.generateTrajectory();
+		Point3d center = new Point3d(0, 0, 0);
+		for(int i = 0; i < t.size(); i++){
+			assertTrue(center.distance(t.get(i))<radius);
+		}
+		assertTrue(cs.getProportionOfReflectedSteps()>0);
+		assertTrue(cs.getNumberOfSubsteps()>=2000);
+	}
+	
+	@Test
+	public void generateTrajectoryTest2D_Reflection_MSDPlateau() {
+		/*
+		 * For long timelags the positions are uniformly distributed in the circle and 
+		 * the MSD approaches the mean squared distance between two random points, i.e. radius^2.
+		 */
+		CentralRandomNumberGenerator.getInstance().setSeed(11);
+		double radius = 1;
+		ConfinedDiffusionSimulator cs = new ConfinedDiffusionSimulator(1, 1, radius, 2, 10000, BoundaryCondition.REFLECTION);
+		Trajectory t = cs.generateTrajectory();
+		MeanSquaredDisplacmentFeature msd = new MeanSquaredDisplacmentFeature(t, 5);
+		msd.setOverlap(true);
+		assertEquals(radius*radius, msd.evaluate()[0], 0.05);
+	}
+	
+	@Test
+	public void generateTrajectoryTest2D_Reflection_FreeDiffusionFarFromWall() {
+		/*
+		 * With a large confinement a step is done in a single substep and the MSD is 4*D*dt
+		 */
+		CentralRandomNumberGenerator.getInstance().setSeed(13);
+		double diffusioncoefficient = 0.5;
+		double timelag = 1.0/30;
+		ConfinedDiffusionSimulator cs = new ConfinedDiffusionSimulator(diffusioncoefficient, timelag, 1000, 2, 10000, BoundaryCondition.REFLECTION);
+		Trajectory t = cs.generateTrajectory();
+		MeanSquaredDisplacmentFeature msd = new MeanSquaredDisplacmentFeature(t, 1);
+		assertEquals(4*diffusioncoefficient*timelag, msd.evaluate()[0], 0.05*4*diffusioncoefficient*timelag);
+		assertEquals(1, cs.getMeanNumberOfSubstepsPerStep(), 0.000001);
+		assertEquals(0, cs.getProportionOfReflectedSteps(), 0);
+	}
+	
+	@Test
+	public void generateTrajectoryTest2D_ReflectionAndRejectionAgree() {
+		CentralRandomNumberGenerator.getInstance().setSeed(17);
+		double radius = 0.5;
+		ConfinedDiffusionSimulator reflection = new ConfinedDiffusionSimulator(1, 1.0/30, radius, 2, 5000, BoundaryCondition.REFLECTION);
+		ConfinedDiffusionSimulator rejection = new ConfinedDiffusionSimulator(1, 1.0/30, radius, 2, 5000, BoundaryCondition.REJECTION);
+		MeanSquaredDisplacmentFeature msdReflection = new MeanSquaredDisplacmentFeature(reflection.generateTrajectory(), 2);
+		MeanSquaredDisplacmentFeature msdRejection = new MeanSquaredDisplacmentFeature(rejection.generateTrajectory(), 2);
+		msdReflection.setOverlap(true);
+		msdRejection.setOverlap(true);
+		double a = msdReflection.evaluate()[0];
+		double b = msdRejection.evaluate()[0];
+		assertEquals(a, b, 0.1*a);
+	}
+
 }
@@ -0,0 +1,73 @@
+package de.biomedical_imaging.traj.simulation.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.features.MeanSquaredDisplacmentFeature;
+import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
+import de.biomedical_imaging.traJ.simulation.FractionalBrownianMotionSimulator;
+
+public class FractionalBrownianMotionSimulatorTest {
+
+	private void assertMSD(double alpha, int dimension){
+		CentralRandomNumberGenerator.getInstance().setSeed(21);
+		double diffusioncoefficient = 0.3;
+		double timelag = 1.0/30;
+		int numberOfSteps = 500;
+		FractionalBrownianMotionSimulator sim = new FractionalBrownianMotionSimulator(diffusioncoefficient, timelag, dimension, numberOfSteps, alpha);
+		ArrayList<Trajectory> tracks = sim.generateTrajectories(400);
+		assertEquals(400, tracks.size());
+		int[] lags = {1,4,32};
+		for (int lag : lags) {
+			double msd = 0;
+			for (Trajectory t : tracks) {
+				assertEquals(numberOfSteps+1, t.size());
+				MeanSquaredDisplacmentFeature f = new MeanSquaredDisplacmentFeature(t, lag);
+				f.setOverlap(true);
+				msd += f.evaluate()[0]/tracks.size();
+			}
+			double expected = 2*dimension*diffusioncoefficient*Math.pow(lag*timelag, alpha);
+			assertEquals(expected, msd, 0.05*expected);
+		}
+	}
+	
+	@Test
+	public void generateTrajectories_SubdiffusiveMSD2D() {
+		assertMSD(0.5, 2);
+	}
+	
+	@Test
+	public void generateTrajectories_NormalDiffusionMSD3D() {
+		assertMSD(1, 3);
+	}
+	
+	@Test
+	public void generateTrajectories_SuperdiffusiveMSD1D() {
+		assertMSD(1.5, 1);
+	}
+	
+	@Test
+	public void generateIncrements_NegativeCorrelatedForSubdiffusion() {
+		CentralRandomNumberGenerator.getInstance().setSeed(22);
+		int n = 4096;
+		double alpha = 0.5;
+		FractionalBrownianMotionSimulator sim = new FractionalBrownianMotionSimulator(1, 1, 1, n, alpha);
+		double[] incr = new double[n];
+		double cov = 0;
+		double var = 0;
+		for(int k = 0; k < 20; k++){
+			sim.generateIncrements(incr);
+			for(int i = 0; i < n-1; i++){
+				cov += incr[i]*incr[i+1];
+				var += incr[i]*incr[i];
+			}
+		}
+		//Correlation of neighboring increments is 2^(alpha-1)-1
+		assertEquals(Math.pow(2, alpha-1)-1, cov/var, 0.02);
+	}
+
+}
@@ -0,0 +1,92 @@
+package de.biomedical_imaging.traj.simulation.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.ParallelUtil;
+import de.biomedical_imaging.traJ.simulation.AnomalousDiffusionScene;
+import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
+import de.biomedical_imaging.traJ.simulation.ImmobileSphereObstacle;
+import de.biomedical_imaging.traJ.simulation.MonteCarloSceneEstimator;
+
+public class MonteCarloSceneEstimatorTest {
+	
+	private int defaultNumberOfThreads = ParallelUtil.getNumberOfThreads();
+	
+	@After
+	public void resetThreads(){
+		ParallelUtil.setNumberOfThreads(defaultNumberOfThreads);
+	}
+
+	@Test
+	public void estimateExcludedVolumeFraction_SingleSphere3D() {
+		CentralRandomNumberGenerator.getInstance().setSeed(1);
+		double[] size = {10,10,10};
+		AnomalousDiffusionScene scene = new AnomalousDiffusionScene(size, 3);
+		scene.addObstacle(new ImmobileSphereObstacle(new double[]{5,5,5}, 3, 3));
+		MonteCarloSceneEstimator est = new MonteCarloSceneEstimator(scene);
+		double expected = 4.0/3*Math.PI*27/1000;
+		assertEquals(expected, est.estimateExcludedVolumeFraction(), 4*est.getStandardError());
+		assertEquals(100000, est.getNumberOfSamples());
+	}
+	
+	@Test
+	public void estimateProbNonInteraction_UsesAllAxes3D() {
+		CentralRandomNumberGenerator.getInstance().setSeed(2);
+		double[] size = {10,10,10};
+		AnomalousDiffusionScene scene = new AnomalousDiffusionScene(size, 3);
+		scene.addObstacle(new ImmobileSphereObstacle(new double[]{5,5,5}, 1, 3));
+		MonteCarloSceneEstimator est = new MonteCarloSceneEstimator(scene);
+		double expected = 1 - 4.0/3*Math.PI*8/1000;
+		assertEquals(expected, est.estimateProbNonInteraction(2), 4*est.getStandardError());
+	}
+	
+	@Test
+	public void estimateExcludedVolumeFraction_TargetStandardError() {
+		CentralRandomNumberGenerator.getInstance().setSeed(3);
+		double[] size = {10,10};
+		AnomalousDiffusionScene scene = new AnomalousDiffusionScene(size, 2);
+		scene.addObstacle(new ImmobileSphereObstacle(new double[]{5,5,0}, 3, 2));
+		MonteCarloSceneEstimator est = new MonteCarloSceneEstimator(scene);
+		est.setTargetStandardError(0.002, 10000000);
+		double fraction = est.estimateExcludedVolumeFraction();
+		assertTrue(est.getStandardError() <= 0.002);
+		assertTrue(est.getNumberOfSamples() < 200000);
+		assertEquals(Math.PI*9/100, fraction, 0.01);
+	}
+	
+	@Test
+	public void estimateExcludedVolumeFraction_RareEventDoesNotStopEarly() {
+		CentralRandomNumberGenerator.getInstance().setSeed(5);
+		double[] size = {10,10};
+		AnomalousDiffusionScene scene = new AnomalousDiffusionScene(size, 2);
+		scene.addObstacle(new ImmobileSphereObstacle(new double[]{5,5,0}, 0.01, 2));
+		MonteCarloSceneEstimator est = new MonteCarloSceneEstimator(scene);
+		est.setTargetStandardError(1e-5, 10000000);
+		est.estimateExcludedVolumeFraction();
+		assertTrue(est.getStandardError() > 0);
+		assertTrue(est.getStandardError() <= 1e-5);
+		assertTrue(est.getNumberOfSamples() >= 50000);
+	}
+	
+	@Test
+	public void estimateExcludedVolumeFraction_IndependentOfNumberOfThreads() {
+		double[] size = {10,10};
+		AnomalousDiffusionScene scene = new AnomalousDiffusionScene(size, 2);
+		scene.addObstacle(new ImmobileSphereObstacle(new double[]{2,5,0}, 1.5, 2));
+		scene.addObstacle(new ImmobileSphereObstacle(new double[]{7,3,0}, 2, 2));
+		MonteCarloSceneEstimator est = new MonteCarloSceneEstimator(scene);
+		
+		ParallelUtil.setNumberOfThreads(1);
+		CentralRandomNumberGenerator.getInstance().setSeed(4);
+		double sequential = est.estimateExcludedVolumeFraction();
+		
+		ParallelUtil.setNumberOfThreads(4);
+		CentralRandomNumberGenerator.getInstance().setSeed(4);
+		double parallel = est.estimateExcludedVolumeFraction();
+		assertEquals(sequential, parallel, 0);
+	}
+
+}
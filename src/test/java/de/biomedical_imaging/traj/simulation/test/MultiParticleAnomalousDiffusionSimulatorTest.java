@@ -0,0 +1,117 @@
+package de.biomedical_imaging.traj.simulation.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.ParallelUtil;
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.features.MeanSquaredDisplacmentFeature;
+import de.biomedical_imaging.traJ.simulation.AbstractSphereObstacle;
+import de.biomedical_imaging.traJ.simulation.AnomalousDiffusionScene;
+import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
+import de.biomedical_imaging.traJ.simulation.ImmobileSphereObstacle;
+import de.biomedical_imaging.traJ.simulation.MultiParticleAnomalousDiffusionSimulator;
+
+public class MultiParticleAnomalousDiffusionSimulatorTest {
+	
+	private int defaultNumberOfThreads = ParallelUtil.getNumberOfThreads();
+	
+	@After
+	public void resetThreads(){
+		ParallelUtil.setNumberOfThreads(defaultNumberOfThreads);
+	}
+	
+	private AnomalousDiffusionScene createScene(){
+		double[] size = {20,20};
+		AnomalousDiffusionScene scene = new AnomalousDiffusionScene(size, 2);
+		CentralRandomNumberGenerator r = CentralRandomNumberGenerator.getInstance();
+		for(int i = 0; i < 40; i++){
+			scene.addObstacle(new ImmobileSphereObstacle(new double[]{r.nextDouble()*size[0], r.nextDouble()*size[1], 0}, 1, 2));
+		}
+		return scene;
+	}
+
+	@Test
+	public void generateTrajectories_NoCollision() {
+		CentralRandomNumberGenerator.getInstance().setSeed(1);
+		AnomalousDiffusionScene scene = createScene();
+		MultiParticleAnomalousDiffusionSimulator sim = new MultiParticleAnomalousDiffusionSimulator(0.5, 1.0/30, 2, 100, scene, 200);
+		ArrayList<Trajectory> tracks = sim.generateTrajectories();
+		assertEquals(200, tracks.size());
+		for (Trajectory t : tracks) {
+			assertEquals(101, t.size());
+			for(int i = 0; i < t.size(); i++){
+				assertFalse(scene.checkCollision(new double[]{t.get(i).x, t.get(i).y}));
+			}
+		}
+		assertTrue(sim.getProportionOfReflectedSteps() > 0);
+	}
+	
+	@Test
+	public void generateTrajectories_NoCollisionWithMobileObstacle() {
+		CentralRandomNumberGenerator.getInstance().setSeed(3);
+		final ArrayList<double[]> positions = new ArrayList<double[]>();
+		AnomalousDiffusionScene scene = new AnomalousDiffusionScene(new double[]{20,20}, 2);
+		assertFalse(createScene().hasMobileObstacles());
+		scene.addObstacle(new AbstractSphereObstacle(new double[]{5, 10}, 4, 2) {
+			public void updatePosition(AnomalousDiffusionScene s) {
+				double[] p = getPosition();
+				p[0] += 0.2;
+				positions.add(p.clone());
+			}
+		});
+		assertTrue(scene.hasMobileObstacles());
+		MultiParticleAnomalousDiffusionSimulator sim = new MultiParticleAnomalousDiffusionSimulator(0.1, 1.0/30, 2, 30, scene, 50);
+		ArrayList<Trajectory> tracks = sim.generateTrajectories();
+		assertEquals(30, positions.size());
+		for (Trajectory t : tracks) {
+			for(int i = 1; i < t.size(); i++){
+				double[] o = positions.get(i-1);
+				double dx = ((t.getX(i) % 20) + 20) % 20 - o[0];
+				double dy = ((t.getY(i) % 20) + 20) % 20 - o[1];
+				//A particle can only be inside if the obstacle moved over it, then all its substeps are rejected
+				if(dx*dx + dy*dy < 16){
+					assertEquals(t.getX(i-1), t.getX(i), 0);
+					assertEquals(t.getY(i-1), t.getY(i), 0);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void generateTrajectories_FreeDiffusionMSD() {
+		CentralRandomNumberGenerator.getInstance().setSeed(2);
+		AnomalousDiffusionScene scene = new AnomalousDiffusionScene(new double[]{100,100,100}, 3);
+		double diffusioncoefficient = 0.5;
+		double timelag = 1.0/30;
+		MultiParticleAnomalousDiffusionSimulator sim = new MultiParticleAnomalousDiffusionSimulator(diffusioncoefficient, timelag, 3, 50, scene, 500);
+		sim.setNumberOfSubsteps(10);
+		ArrayList<Trajectory> tracks = sim.generateTrajectories();
+		double msd = 0;
+		for (Trajectory t : tracks) {
+			MeanSquaredDisplacmentFeature f = new MeanSquaredDisplacmentFeature(t, 1);
+			f.setOverlap(true);
+			msd += f.evaluate()[0]/tracks.size();
+		}
+		assertEquals(6*diffusioncoefficient*timelag, msd, 0.03*6*diffusioncoefficient*timelag);
+	}
+	
+	@Test
+	public void generateTrajectories_IndependentOfNumberOfThreads() {
+		ParallelUtil.setNumberOfThreads(1);
+		CentralRandomNumberGenerator.getInstance().setSeed(3);
+		ArrayList<Trajectory> sequential = new MultiParticleAnomalousDiffusionSimulator(0.5, 1.0/30, 2, 20, createScene(), 150).generateTrajectories();
+		
+		ParallelUtil.setNumberOfThreads(3);
+		CentralRandomNumberGenerator.getInstance().setSeed(3);
+		ArrayList<Trajectory> parallel = new MultiParticleAnomalousDiffusionSimulator(0.5, 1.0/30, 2, 20, createScene(), 150).generateTrajectories();
+		for(int i = 0; i < sequential.size(); i++){
+			assertEquals(sequential.get(i), parallel.get(i));
+		}
+	}
+
+}
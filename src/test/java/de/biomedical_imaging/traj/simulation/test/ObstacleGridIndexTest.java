@@ -0,0 +1,58 @@
+package de.biomedical_imaging.traj.simulation.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.simulation.AnomalousDiffusionScene;
+import de.biomedical_imaging.traJ.simulation.ImmobileSphereObstacle;
+import de.biomedical_imaging.traJ.simulation.ObstacleGridIndex;
+
+public class ObstacleGridIndexTest {
+
+	private AnomalousDiffusionScene createScene(int dimension, int nObstacles, Random r){
+		double[] size = {50,60,40};
+		AnomalousDiffusionScene scene = new AnomalousDiffusionScene(size, dimension);
+		for(int i = 0; i < nObstacles; i++){
+			double[] pos = {r.nextDouble()*size[0], r.nextDouble()*size[1], dimension==3 ? r.nextDouble()*size[2] : 0};
+			scene.addObstacle(new ImmobileSphereObstacle(pos, 0.5 + 2*r.nextDouble(), dimension));
+		}
+		return scene;
+	}
+	
+	private void assertSameAsScene(int dimension){
+		Random r = new Random(dimension);
+		AnomalousDiffusionScene scene = createScene(dimension, 300, r);
+		ObstacleGridIndex index = ObstacleGridIndex.create(scene, 0);
+		double[] size = scene.getSize();
+		for(int i = 0; i < 20000; i++){
+			double[] p = {r.nextDouble()*size[0], r.nextDouble()*size[1], dimension==3 ? r.nextDouble()*size[2] : 0};
+			assertEquals(scene.checkCollision(p), index.isInside(p[0], p[1], p[2]));
+		}
+	}
+	
+	@Test
+	public void isInside_SameAsScene2D() {
+		assertSameAsScene(2);
+	}
+	
+	@Test
+	public void isInside_SameAsScene3D() {
+		assertSameAsScene(3);
+	}
+	
+	@Test
+	public void isWithin_UsesLargerRadius() {
+		double[] size = {10,10};
+		AnomalousDiffusionScene scene = new AnomalousDiffusionScene(size, 2);
+		scene.addObstacle(new ImmobileSphereObstacle(new double[]{5,5,0}, 1, 2));
+		ObstacleGridIndex index = ObstacleGridIndex.create(scene, 2);
+		assertFalse(index.isInside(6.5, 5, 0));
+		assertTrue(index.isWithin(6.5, 5, 0, 2));
+		assertFalse(index.isWithin(7.5, 5, 0, 2));
+		assertTrue(index.isWithin(5.9, 5, 0, 0.5));
+	}
+
+}
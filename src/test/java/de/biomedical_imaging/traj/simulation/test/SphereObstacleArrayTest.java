@@ -0,0 +1,78 @@
+package de.biomedical_imaging.traj.simulation.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.simulation.AbstractSphereObstacle;
+import de.biomedical_imaging.traJ.simulation.AnomalousDiffusionScene;
+import de.biomedical_imaging.traJ.simulation.ImmobileSphereObstacle;
+import de.biomedical_imaging.traJ.simulation.ObstacleGridIndex;
+import de.biomedical_imaging.traJ.simulation.SphereObstacleArray;
+
+public class SphereObstacleArrayTest {
+
+	@Test
+	public void get_ViewSameAsObstacle() {
+		SphereObstacleArray array = new SphereObstacleArray(3);
+		array.add(1, 2, 3, 1.5);
+		array.add(4, 5, 6, 0.5);
+		AbstractSphereObstacle view = array.get(0);
+		ImmobileSphereObstacle o = new ImmobileSphereObstacle(new double[]{1,2,3}, 1.5, 3);
+		assertArrayEquals(o.getPosition(), view.getPosition(), 0);
+		assertEquals(o.getRadius(), view.getRadius(), 0);
+		assertEquals(o.getVolume(), view.getVolume(), 0);
+		assertEquals(o.intersectionVolume(array.get(1)), view.intersectionVolume(array.get(1)), 0);
+		Random r = new Random(1);
+		for(int i = 0; i < 1000; i++){
+			double[] p = {r.nextDouble()*4, r.nextDouble()*4+1, r.nextDouble()*4+1};
+			assertEquals(o.isInside(p), view.isInside(p));
+		}
+	}
+	
+	@Test
+	public void checkCollision_SameAsObjectObstacles() {
+		double[] size = {30,30};
+		AnomalousDiffusionScene objects = new AnomalousDiffusionScene(size, 2);
+		AnomalousDiffusionScene compact = new AnomalousDiffusionScene(size, 2);
+		Random r = new Random(2);
+		for(int i = 0; i < 50; i++){
+			double[] pos = {r.nextDouble()*size[0], r.nextDouble()*size[1], 0};
+			double radius = 0.5 + r.nextDouble();
+			objects.addObstacle(new ImmobileSphereObstacle(pos, radius, 2));
+			compact.addObstacle(pos, radius);
+		}
+		assertEquals(50, compact.getNumberOfObstacles());
+		assertTrue(compact.getObstacles().isEmpty());
+		for(int i = 0; i < 5000; i++){
+			double[] p = {r.nextDouble()*3*size[0]-size[0], r.nextDouble()*3*size[1]-size[1]};
+			assertEquals(objects.checkCollision(p), compact.checkCollision(p));
+			assertEquals(objects.distanceToNearestObstacle(p), compact.distanceToNearestObstacle(p), 1e-12);
+		}
+	}
+	
+	@Test
+	public void createIndex_MillionObstacles() {
+		double[] size = {1000,1000,1000};
+		SphereObstacleArray array = new SphereObstacleArray(3, 1000000);
+		Random r = new Random(3);
+		for(int i = 0; i < 1000000; i++){
+			array.add(r.nextDouble()*size[0], r.nextDouble()*size[1], r.nextDouble()*size[2], 1 + r.nextDouble()*4);
+		}
+		assertEquals(1000000, array.size());
+		ObstacleGridIndex index = array.createIndex(size, 0);
+		int hits = 0;
+		for(int i = 0; i < 100; i++){
+			double px = r.nextDouble()*size[0];
+			double py = r.nextDouble()*size[1];
+			double pz = r.nextDouble()*size[2];
+			boolean inside = array.isInsideAny(px, py, pz);
+			assertEquals(inside, index.isInside(px, py, pz));
+			hits += inside ? 1 : 0;
+		}
+		assertTrue(hits > 0);
+	}
+
+}
@@ -0,0 +1,111 @@
+package de.biomedical_imaging.traj.spatial.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.ParallelUtil;
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
+import de.biomedical_imaging.traJ.simulation.FreeDiffusionSimulator;
+import de.biomedical_imaging.traJ.spatial.DiffusionMapCalculator;
+
+public class DiffusionMapCalculatorTest {
+
+	private ArrayList<Trajectory> simulate(double vx, double noise){
+		CentralRandomNumberGenerator.getInstance().setSeed(3);
+		Random r = new Random(4);
+		double dt = 1.0/30;
+		FreeDiffusionSimulator sim = new FreeDiffusionSimulator(1, dt, 2, 100);
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		for(int j = 0; j < 2000; j++){
+			Trajectory t = sim.generateTrajectory();
+			Trajectory res = new Trajectory(2);
+			//Uniform start positions, otherwise the density gradient causes a mean displacement
+			double x0 = 16*r.nextDouble() - 8;
+			double y0 = 16*r.nextDouble() - 8;
+			for(int i = 0; i < t.size(); i++){
+				res.add(x0 + t.getX(i) + vx*i*dt + noise*r.nextGaussian(), y0 + t.getY(i) + noise*r.nextGaussian(), 0);
+			}
+			tracks.add(res);
+		}
+		return tracks;
+	}
+
+	@Test
+	public void diffusionCoefficientAndDrift_FreeDiffusionWithNoiseAndDrift() {
+		ArrayList<Trajectory> tracks = simulate(0.5, 0.1);
+		DiffusionMapCalculator map = DiffusionMapCalculator.calculate(tracks, new double[]{-4,-4}, new double[]{4,4}, 4);
+		assertEquals(4, map.getNumberOfCells());
+		double[] D = map.getDiffusionCoefficientMap(30, 1000);
+		double[][] v = map.getDriftVelocityMap(30, 1000);
+		for(int c = 0; c < map.getNumberOfCells(); c++){
+			assertTrue(map.getNumberOfSteps(c) > 1000);
+			assertEquals(1, D[c], 0.08);
+			assertEquals(0.5, v[0][c], 0.2);
+			assertEquals(0, v[1][c], 0.2);
+		}
+	}
+	
+	@Test
+	public void calculate_SameResultForAnyNumberOfThreads() {
+		ArrayList<Trajectory> tracks = simulate(0, 0);
+		int threads = ParallelUtil.getNumberOfThreads();
+		try{
+			ParallelUtil.setNumberOfThreads(1);
+			DiffusionMapCalculator a = DiffusionMapCalculator.calculate(tracks, new double[]{-3,-3,-1}, new double[]{3,3,1}, 0.5);
+			ParallelUtil.setNumberOfThreads(4);
+			DiffusionMapCalculator b = DiffusionMapCalculator.calculate(tracks, new double[]{-3,-3,-1}, new double[]{3,3,1}, 0.5);
+			assertArrayEquals(a.getDiffusionCoefficientMap(30, 0), b.getDiffusionCoefficientMap(30, 0), 0);
+			assertArrayEquals(a.getDriftVelocityMap(30, 0)[2], b.getDriftVelocityMap(30, 0)[2], 0);
+		}finally{
+			ParallelUtil.setNumberOfThreads(threads);
+		}
+	}
+	
+	@Test
+	public void add_StepAssignedByMidpoint() {
+		Trajectory t = new Trajectory(2);
+		t.add(0.1, 0.5, 0);
+		t.add(1.7, 0.5, 0);
+		t.add(1.9, 0.5, 0);
+		t.add(null);
+		t.add(5, 5, 0);
+		t.add(50, 5, 0);
+		DiffusionMapCalculator map = new DiffusionMapCalculator(new double[]{0,0}, new double[]{2,1}, 1);
+		map.add(t);
+		assertEquals(2, map.getNumberOfCells(0));
+		assertEquals(1, map.getNumberOfCells(1));
+		assertEquals(1, map.getNumberOfSteps(map.getCellIndex(0, 0, 0)));
+		assertEquals(1, map.getNumberOfSteps(map.getCellIndex(1, 0, 0)));
+		assertEquals(1.6, map.getMeanDisplacement(0)[0], 1e-12);
+		assertEquals(0.2*0.2, map.getMeanSquaredDisplacement(1), 1e-12);
+		assertTrue(Double.isNaN(map.getDiffusionCoefficient(1, 30)));
+		assertFalse(Double.isNaN(map.getDiffusionCoefficient(0, 30)));
+		assertArrayEquals(new double[]{1.5, 0.5}, map.getCellCenter(1), 0);
+	}
+
+	@Test
+	public void add_NonFiniteCoordinatesSkipped() {
+		Trajectory t = new Trajectory(2);
+		t.add(0.2, 0.5, 0);
+		t.add(0.4, 0.5, 0);
+		t.add(Double.NaN, 0.5, 0);
+		t.add(0.6, Double.POSITIVE_INFINITY, 0);
+		t.add(0.3, 0.5, 0);
+		t.add(0.5, 0.5, 0);
+		DiffusionMapCalculator map = new DiffusionMapCalculator(new double[]{0,0}, new double[]{2,1}, 1);
+		assertEquals(-1, map.getCellIndex(Double.NaN, 0.5, 0));
+		assertEquals(-1, map.getCellIndex(0.5, Double.NEGATIVE_INFINITY, 0));
+		map.add(t);
+		assertEquals(2, map.getNumberOfSteps(0));
+		assertEquals(0, map.getNumberOfSteps(1));
+		assertEquals(0.2, map.getMeanDisplacement(0)[0], 1e-12);
+		//No pair of successive finite steps
+		assertTrue(Double.isNaN(map.getDiffusionCoefficient(0, 30)));
+	}
+
+}
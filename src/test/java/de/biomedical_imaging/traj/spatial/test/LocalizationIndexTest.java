@@ -0,0 +1,93 @@
+package de.biomedical_imaging.traj.spatial.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import de.biomedical_imaging.traJ.Trajectory;
+import de.biomedical_imaging.traJ.simulation.CentralRandomNumberGenerator;
+import de.biomedical_imaging.traJ.simulation.FreeDiffusionSimulator;
+import de.biomedical_imaging.traJ.spatial.LocalizationIndex;
+
+public class LocalizationIndexTest {
+
+	private ArrayList<Trajectory> simulate(){
+		CentralRandomNumberGenerator.getInstance().setSeed(7);
+		FreeDiffusionSimulator sim = new FreeDiffusionSimulator(1, 1.0/30, 2, 50);
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		for(int i = 0; i < 40; i++){
+			Trajectory t = sim.generateTrajectory();
+			t.setRelativStartTimepoint(i);
+			t.set(10, null);
+			tracks.add(t);
+		}
+		return tracks;
+	}
+
+	@Test
+	public void radius_SameAsBruteForce() {
+		ArrayList<Trajectory> tracks = simulate();
+		LocalizationIndex index = new LocalizationIndex(tracks, 2);
+		assertEquals(40*50, index.size());
+		int[] res = index.radius(0, 0, 0, 0.5, 20, 30);
+		ArrayList<String> found = new ArrayList<String>();
+		for (int l : res) {
+			Trajectory t = index.getTrajectory(l);
+			int i = index.getPositionIndex(l);
+			assertEquals(t.getRelativeStartTimepoint() + i, index.getFrame(l));
+			found.add(index.getTrajectoryIndex(l) + "/" + index.getFrame(l));
+		}
+		ArrayList<String> expected = new ArrayList<String>();
+		for(int j = 0; j < tracks.size(); j++){
+			Trajectory t = tracks.get(j);
+			for(int i = 0; i < t.size(); i++){
+				int f = t.getRelativeStartTimepoint() + i;
+				if(t.isValid(i) && f >= 20 && f <= 30 && t.getX(i)*t.getX(i) + t.getY(i)*t.getY(i) <= 0.25){
+					expected.add(j + "/" + f);
+				}
+			}
+		}
+		assertFalse(expected.isEmpty());
+		String[] a = found.toArray(new String[0]);
+		String[] b = expected.toArray(new String[0]);
+		Arrays.sort(a);
+		Arrays.sort(b);
+		assertArrayEquals(b, a);
+	}
+	
+	@Test
+	public void nearest_OnlySameFrame() {
+		ArrayList<Trajectory> tracks = simulate();
+		LocalizationIndex index = new LocalizationIndex(tracks, 2);
+		Trajectory t = tracks.get(5);
+		int[] res = index.nearest(t.getX(20), t.getY(20), 0, 3, 25, 25);
+		assertEquals(3, res.length);
+		assertEquals(5, index.getTrajectoryIndex(res[0]));
+		assertEquals(20, index.getPositionIndex(res[0]));
+		for (int l : res) {
+			assertEquals(25, index.getFrame(l));
+		}
+	}
+	
+	@Test
+	public void getTrajectoriesInRegion() {
+		ArrayList<Trajectory> tracks = new ArrayList<Trajectory>();
+		for(int j = 0; j < 3; j++){
+			Trajectory t = new Trajectory(2, 10*j);
+			for(int i = 0; i < 5; i++){
+				t.add(j, i, 0);
+			}
+			tracks.add(t);
+		}
+		LocalizationIndex index = new LocalizationIndex(tracks, 2);
+		ArrayList<Trajectory> res = index.getTrajectoriesInRegion(new double[]{0.5, 0}, new double[]{3, 4}, 0, 100);
+		assertEquals(2, res.size());
+		assertSame(tracks.get(1), res.get(0));
+		assertSame(tracks.get(2), res.get(1));
+		assertEquals(1, index.getTrajectoriesInRegion(new double[]{0.5, 0}, new double[]{3, 4}, 0, 14).size());
+	}
+
+}